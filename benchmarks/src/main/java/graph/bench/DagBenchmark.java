@@ -0,0 +1,129 @@
+package graph.bench;
+
+import graph.common.Metrics;
+import graph.dagsp.DAGLongestPath;
+import graph.dagsp.DAGShortestPaths;
+import graph.dagsp.DistanceBlock;
+import graph.dagsp.IncrementalLongestPath;
+import graph.dagsp.LevelSweep;
+import graph.dagsp.TargetedPaths;
+import graph.topo.KahnTopologicalSort;
+import graph.topo.TopoLevels;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/** Topological sort and DAG path sweeps on the condensation of every family. */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g", "-Xss4m"})
+@State(Scope.Benchmark)
+public class DagBenchmark {
+    private DAGShortestPaths shortest;
+    private DAGLongestPath longest;
+    private DAGShortestPaths waveShortest;
+    private DAGLongestPath waveLongest;
+    private TargetedPaths targeted;
+    private IncrementalLongestPath incremental;
+    private int src, near, far;
+    private int[] batch;
+    private int[] editFrom, editTo; // arcs whose weight the duration-change benchmark rewrites in turn
+    private long[] editWeight;
+    private int edit;
+
+    @Setup(Level.Trial)
+    public void setUp(GraphState s) {
+        shortest = new DAGShortestPaths(s.cg.dag, new Metrics());
+        longest = new DAGLongestPath(s.cg.dag, new Metrics());
+        LevelSweep sweep = new LevelSweep(s.cg.dag.csr(), new KahnTopologicalSort(s.cg.dag, new Metrics()).levels());
+        waveShortest = new DAGShortestPaths(sweep, new Metrics());
+        waveLongest = new DAGLongestPath(sweep, new Metrics());
+        int[] topo = new KahnTopologicalSort(s.cg.dag, new Metrics()).order();
+        targeted = new TargetedPaths(s.cg.dag.csr(), s.cg.dag.csr().reverse(), topo, new Metrics());
+        src = s.cg.compId[0];
+        near = src;
+        for (int hop = 0; hop < 3 && s.cg.dag.csr().end(near) > s.cg.dag.csr().begin(near); hop++) {
+            near = s.cg.dag.csr().target(s.cg.dag.csr().begin(near)); // a few arcs downstream of src
+        }
+        far = topo[topo.length - 1];
+        batch = new int[64];
+        for (int i = 0; i < batch.length; i++) batch[i] = s.cg.compId[(int) ((long) i * s.n / batch.length)];
+
+        incremental = new IncrementalLongestPath(s.cg.dag.csr(), topo, src, new Metrics());
+        SplittableRandom rnd = new SplittableRandom(7);
+        editFrom = new int[4096];
+        editTo = new int[editFrom.length];
+        editWeight = new long[editFrom.length];
+        for (int i = 0, m = s.cg.dag.csr().edgeCount(); i < editFrom.length && m > 0; i++) {
+            int u;
+            do u = rnd.nextInt(s.cg.dag.csr().n()); while (s.cg.dag.csr().end(u) == s.cg.dag.csr().begin(u));
+            editFrom[i] = u;
+            editTo[i] = s.cg.dag.csr().target(s.cg.dag.csr().begin(u));
+            editWeight[i] = 1 + rnd.nextInt(100);
+        }
+    }
+
+    @Benchmark
+    public List<Integer> kahnSort(GraphState s) {
+        return new KahnTopologicalSort(s.cg.dag, new Metrics()).sort();
+    }
+
+    @Benchmark
+    public TopoLevels kahnLevels(GraphState s) {
+        return new KahnTopologicalSort(s.cg.dag, new Metrics()).levels();
+    }
+
+    @Benchmark
+    public long[] shortestFrom() {
+        return shortest.shortestFrom(src);
+    }
+
+    /** Source to a component a few arcs away: only the cones between them are swept. */
+    @Benchmark
+    public long shortestToNear() {
+        return targeted.shortest(src, near);
+    }
+
+    /** Source to the last component in topological order. */
+    @Benchmark
+    public long shortestToFar() {
+        return targeted.shortest(src, far);
+    }
+
+    @Benchmark
+    public DAGLongestPath.Result longestFrom() {
+        return longest.longestFrom(src);
+    }
+
+    /** One duration change (a random arc's weight) and the critical length after it; compare with longestFrom. */
+    @Benchmark
+    public long updateDuration() {
+        int i = edit++ & (editFrom.length - 1);
+        incremental.setWeight(editFrom[i], editTo[i], editWeight[i]);
+        return incremental.criticalLength();
+    }
+
+    @Benchmark
+    public long[] shortestFromWavefront() {
+        return waveShortest.shortestFrom(src);
+    }
+
+    @Benchmark
+    public DAGLongestPath.Result longestFromWavefront() {
+        return waveLongest.longestFrom(src);
+    }
+
+    @Benchmark
+    public DistanceBlock shortestFrom64Sources() {
+        return shortest.shortestFrom(batch);
+    }
+
+    @Benchmark
+    public DistanceBlock longestFrom64Sources() {
+        return longest.longestFrom(batch);
+    }
+}
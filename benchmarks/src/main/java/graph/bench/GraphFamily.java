@@ -0,0 +1,43 @@
+package graph.bench;
+
+import graph.common.CsrGraph;
+
+import java.util.SplittableRandom;
+
+/**
+ * Seeded synthetic graph families used by every benchmark.
+ * Sparse graphs have an average out-degree of 2, dense ones 8; DAG families
+ * only emit edges u -> v with u < v, cyclic ones pick both ends at random.
+ */
+public enum GraphFamily {
+    SPARSE_DAG(2, true),
+    DENSE_DAG(8, true),
+    SPARSE_CYCLIC(2, false),
+    DENSE_CYCLIC(8, false);
+
+    public final int avgDegree;
+    public final boolean acyclic;
+
+    GraphFamily(int avgDegree, boolean acyclic) {
+        this.avgDegree = avgDegree;
+        this.acyclic = acyclic;
+    }
+
+    public CsrGraph generate(int n, long seed) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        long m = (long) n * avgDegree;
+        CsrGraph.Builder b = new CsrGraph.Builder(n, true, (int) Math.min(m, Integer.MAX_VALUE - 16));
+        for (long i = 0; i < m; i++) {
+            int u, v;
+            if (acyclic) {
+                u = rnd.nextInt(n - 1);
+                v = u + 1 + rnd.nextInt(n - u - 1);
+            } else {
+                u = rnd.nextInt(n);
+                v = rnd.nextInt(n);
+            }
+            b.addArc(u, v, 1 + rnd.nextInt(9));
+        }
+        return b.build();
+    }
+}
@@ -0,0 +1,32 @@
+package graph.bench;
+
+import graph.common.CsrGraph;
+import graph.common.Metrics;
+import graph.scc.CondensationGraph;
+import graph.scc.IterativeTarjanSCC;
+import graph.scc.SccResult;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Shared benchmark input: one generated graph per (family, n) pair, plus its
+ * SCC decomposition and condensation DAG for the stages that start from them.
+ */
+@State(Scope.Benchmark)
+public class GraphState {
+    @Param({"SPARSE_DAG", "DENSE_DAG", "SPARSE_CYCLIC", "DENSE_CYCLIC"})
+    public GraphFamily family;
+
+    @Param({"1000", "100000", "10000000"})
+    public int n;
+
+    public CsrGraph graph;
+    public SccResult scc;
+    public CondensationGraph cg;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        graph = family.generate(n, 42L);
+        scc = new IterativeTarjanSCC().compute(graph, new Metrics());
+        cg = new CondensationGraph(graph, scc);
+    }
+}
@@ -0,0 +1,142 @@
+package graph.bench;
+
+import com.google.gson.stream.JsonWriter;
+import graph.common.CsrGraph;
+import graph.common.BinaryResultIO;
+import graph.common.CsvResultWriter;
+import graph.common.JsonIO;
+import graph.common.JsonResultWriter;
+import graph.common.Metrics;
+import graph.dagsp.DAGLongestPath;
+import graph.dagsp.DAGShortestPaths;
+import graph.scc.CondensationGraph;
+import graph.scc.IterativeTarjanSCC;
+import graph.scc.SccResult;
+import graph.topo.KahnTopologicalSort;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dataset loading and result writing. Files live in a temporary directory
+ * created per trial; sizes stop at 10^6 because the JSON grows ~30 bytes per edge.
+ * The summary CSV is truncated and reopened before every iteration, so rows do
+ * not pile up across the run and opening the file is not measured.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g", "-Xss4m"})
+@State(Scope.Benchmark)
+public class IoBenchmark {
+    @Param({"SPARSE_DAG", "DENSE_CYCLIC"})
+    public GraphFamily family;
+
+    @Param({"1000", "100000", "1000000"})
+    public int n;
+
+    private File dir, input, jsonOut, binOut, csvOut;
+    private List<List<Integer>> comps;
+    private List<Integer> topo, critical;
+    private SccResult scc;
+    private int[] topoArray, criticalArray;
+    private long[] dist;
+    private CsvResultWriter csv;
+    private final Metrics m = new Metrics();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("graph-bench").toFile();
+        input = new File(dir, "dataset.json");
+        jsonOut = new File(dir, "output.json");
+        binOut = new File(dir, "output" + BinaryResultIO.EXTENSION);
+        csvOut = new File(dir, "summary.csv");
+        CsrGraph g = family.generate(n, 42L);
+        writeDataset(g, input);
+
+        scc = new IterativeTarjanSCC().compute(g, new Metrics());
+        CondensationGraph cg = new CondensationGraph(g, scc);
+        comps = scc.components();
+        topo = new KahnTopologicalSort(cg.dag, new Metrics()).sort();
+        dist = new DAGShortestPaths(cg.dag, new Metrics()).shortestFrom(cg.compId[0]);
+        DAGLongestPath.Result lp = new DAGLongestPath(cg.dag, new Metrics()).longestFrom(cg.compId[0]);
+        int end = 0;
+        for (int v = 0; v < lp.dist.length; v++) if (lp.dist[v] > lp.dist[end]) end = v;
+        critical = new ArrayList<>();
+        for (int cur = end; cur != -1; cur = lp.parent[cur]) critical.add(0, cur);
+        topoArray = topo.stream().mapToInt(Integer::intValue).toArray();
+        criticalArray = critical.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    @Setup(Level.Iteration)
+    public void openCsv() throws IOException {
+        Files.deleteIfExists(csvOut.toPath());
+        csv = new CsvResultWriter(csvOut.getPath());
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeCsv() throws IOException {
+        csv.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        for (File f : dir.listFiles()) f.delete();
+        dir.delete();
+    }
+
+    @Benchmark
+    public JsonIO.LoadedGraph readGraph() throws IOException {
+        return JsonIO.readGraph(input.getPath());
+    }
+
+    @Benchmark
+    public File jsonResultWriter() throws IOException {
+        JsonResultWriter.write(jsonOut.getPath(), comps, topo, dist, critical, 0, m, m, m, m);
+        return jsonOut;
+    }
+
+    /** Streams straight from the primitive arrays, as the pipeline does. */
+    @Benchmark
+    public File jsonResultWriterPrimitive() throws IOException {
+        JsonResultWriter.write(jsonOut.getPath(), scc.offsets, scc.members, topoArray, dist, criticalArray, 0, m, m, m, m);
+        return jsonOut;
+    }
+
+    @Benchmark
+    public File binaryResultWriter() throws IOException {
+        BinaryResultIO.write(binOut.getPath(), scc.offsets, scc.members, topoArray, dist, criticalArray, 0, m, m, m, m);
+        return binOut;
+    }
+
+    /** One summary row through the pipeline's long-lived writer. */
+    @Benchmark
+    public File csvResultWriter() throws IOException {
+        csv.append("bench", n, n, m, m, m, m);
+        return csvOut;
+    }
+
+    /** Writes the dataset_*.json schema without going through DataGenerator. */
+    private static void writeDataset(CsrGraph g, File f) throws IOException {
+        try (JsonWriter w = new JsonWriter(new BufferedWriter(new FileWriter(f), 1 << 16))) {
+            w.beginObject();
+            w.name("directed").value(true);
+            w.name("n").value(g.n);
+            w.name("edges").beginArray();
+            for (int u = 0; u < g.n; u++) {
+                for (int e = g.offsets[u]; e < g.offsets[u + 1]; e++) {
+                    w.beginObject().name("u").value(u).name("v").value(g.targets[e]).name("w").value(g.weights[e]).endObject();
+                }
+            }
+            w.endArray();
+            w.name("source").value(0);
+            w.name("weight_model").value("edge");
+            w.endObject();
+        }
+    }
+}
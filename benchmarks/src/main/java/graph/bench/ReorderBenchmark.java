@@ -0,0 +1,83 @@
+package graph.bench;
+
+import graph.analysis.GraphAnalysis;
+import graph.common.CsrGraph;
+import graph.common.Metrics;
+import graph.common.VertexOrder;
+import graph.dagsp.DAGShortestPaths;
+import graph.scc.IterativeTarjanSCC;
+import graph.scc.SccResult;
+import graph.topo.KahnTopologicalSort;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tarjan, Kahn and DAG sweeps on a graph whose ids were shuffled (as input
+ * ids effectively are), then relabeled by each {@link VertexOrder.Kind}.
+ * {@code shortestFromRanked} sweeps the condensation renumbered by
+ * topological rank. Run with {@code -prof perfnorm} for cache misses per op.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g", "-Xss4m"})
+@State(Scope.Benchmark)
+public class ReorderBenchmark {
+    @Param({"NONE", "BFS", "RCM", "DEGREE"})
+    public String order;
+
+    private CsrGraph shuffled, graph, dag;
+    private DAGShortestPaths plain, ranked;
+    private int src;
+
+    @Setup(Level.Trial)
+    public void setUp(GraphState s) {
+        int[] perm = new int[s.n];
+        for (int i = 0; i < perm.length; i++) perm[i] = i;
+        SplittableRandom rnd = new SplittableRandom(7);
+        for (int i = perm.length - 1; i > 0; i--) {
+            int j = rnd.nextInt(i + 1), t = perm[i];
+            perm[i] = perm[j];
+            perm[j] = t;
+        }
+        shuffled = new VertexOrder(perm).apply(s.graph);
+        VertexOrder.Kind kind = VertexOrder.Kind.byName(order);
+        VertexOrder relabeling = kind == null ? null : kind.of(shuffled);
+        graph = relabeling == null ? shuffled : relabeling.apply(shuffled);
+        GraphAnalysis a = new GraphAnalysis(graph);
+        dag = a.dag();
+        plain = a.shortestPaths(new Metrics());
+        ranked = a.rankedShortestPaths(new Metrics());
+        src = a.componentOf(relabeling == null ? 0 : relabeling.newId[0]); // the same task under every order
+    }
+
+    /** The relabeling pass itself: computing the order and permuting the CSR arrays. */
+    @Benchmark
+    public CsrGraph relabel() {
+        VertexOrder.Kind kind = VertexOrder.Kind.byName(order);
+        return kind == null ? shuffled : kind.of(shuffled).apply(shuffled);
+    }
+
+    @Benchmark
+    public SccResult tarjan() {
+        return new IterativeTarjanSCC().compute(graph, new Metrics());
+    }
+
+    @Benchmark
+    public int[] kahnOrder() {
+        return new KahnTopologicalSort(dag, new Metrics()).order();
+    }
+
+    @Benchmark
+    public long[] shortestFrom() {
+        return plain.shortestFrom(src);
+    }
+
+    @Benchmark
+    public long[] shortestFromRanked() {
+        return ranked.shortestFrom(src);
+    }
+}
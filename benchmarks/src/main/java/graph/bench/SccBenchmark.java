@@ -0,0 +1,48 @@
+package graph.bench;
+
+import graph.common.Metrics;
+import graph.scc.CondensationGraph;
+import graph.scc.EdgeReduction;
+import graph.scc.ParallelSCC;
+import graph.scc.PearceSCC;
+import graph.scc.SccResult;
+import graph.scc.TarjanSCC;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/** SCC detection and condensation on every graph family. */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g", "-Xss4m"})
+public class SccBenchmark {
+
+    @Benchmark
+    public List<List<Integer>> tarjanRun(GraphState s) {
+        return new TarjanSCC(s.graph, new Metrics()).run();
+    }
+
+    @Benchmark
+    public SccResult pearce(GraphState s) {
+        return new PearceSCC().compute(s.graph, new Metrics());
+    }
+
+    @Benchmark
+    public SccResult parallel(GraphState s) {
+        return new ParallelSCC(0, ForkJoinPool.commonPool()).compute(s.graph, new Metrics());
+    }
+
+    @Benchmark
+    public CondensationGraph condensation(GraphState s) {
+        return new CondensationGraph(s.graph, s.scc);
+    }
+
+    @Benchmark
+    public CondensationGraph condensationSum(GraphState s) {
+        return new CondensationGraph(s.graph, s.scc, EdgeReduction.SUM);
+    }
+}
@@ -0,0 +1,43 @@
+package graph.bench;
+
+import graph.common.Metrics;
+import graph.schedule.DurationModel;
+import graph.schedule.ScheduleRisk;
+import graph.schedule.WeightModel;
+import graph.topo.KahnTopologicalSort;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Monte Carlo schedule risk over the condensation of every family:
+ * {@code scenarios} draws of all arc lags per op, so time per op divided by
+ * scenarios is the cost of one sampled critical-path sweep.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g", "-Xss4m"})
+@State(Scope.Benchmark)
+public class ScheduleRiskBenchmark {
+    @Param({"TRIANGULAR", "PERT", "LOGNORMAL"})
+    public DurationModel.Shape shape;
+
+    @Param({"1024"})
+    public int scenarios;
+
+    private DurationModel durations;
+    private int[] topo;
+
+    @Setup(Level.Trial)
+    public void setUp(GraphState s) {
+        durations = new DurationModel(shape, 0.75, 1.5);
+        topo = new KahnTopologicalSort(s.cg.dag, new Metrics()).order();
+    }
+
+    @Benchmark
+    public ScheduleRisk simulate(GraphState s) {
+        return new ScheduleRisk(s.cg.dag.csr(), topo, WeightModel.EDGE, null, durations, scenarios, 1, new Metrics());
+    }
+}
@@ -0,0 +1,90 @@
+package graph.bench;
+
+import graph.common.BinaryGraphIO;
+import graph.scc.SccAlgorithm;
+import graph.server.AnalysisServer;
+import graph.server.GraphRegistry;
+import graph.server.ResultCache;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request latency of the resident {@link AnalysisServer} over loopback with
+ * keep-alive: a warm (cached) {@code /critical}, an uncached one-pair
+ * {@code /reach}, and a bare {@link ResultCache} hit from four threads at once.
+ * The server answers on four worker threads.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g", "-Xss4m", "-Dsun.net.httpserver.nodelay=true"})
+@State(Scope.Benchmark)
+public class ServerBenchmark {
+    @Param({"SPARSE_DAG", "DENSE_CYCLIC"})
+    public GraphFamily family;
+
+    @Param({"1000", "100000"})
+    public int n;
+
+    private File dir;
+    private AnalysisServer server;
+    private ResultCache cache;
+    private URL critical, reach;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("graph-bench").toFile();
+        BinaryGraphIO.write(new File(dir, "dataset_bench" + BinaryGraphIO.EXTENSION).getPath(),
+                family.generate(n, 42L), 0, "edge");
+        cache = new ResultCache(64 << 20);
+        server = new AnalysisServer(GraphRegistry.load(dir, SccAlgorithm.byName("tarjan")), cache, 0, 4);
+        server.start();
+        String base = "http://localhost:" + server.port();
+        critical = new URL(base + "/critical?graph=dataset_bench");
+        reach = new URL(base + "/reach?graph=dataset_bench&from=0&to=" + (n - 1));
+        fetch(critical); // fills the cache
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.stop();
+        for (File f : dir.listFiles()) f.delete();
+        dir.delete();
+    }
+
+    @Benchmark
+    public int criticalWarm() throws IOException {
+        return fetch(critical);
+    }
+
+    @Benchmark
+    public int reachPair() throws IOException {
+        return fetch(reach);
+    }
+
+    /** In-process cache hit; hits only set a reference bit, so the threads do not contend. */
+    @Benchmark
+    @Threads(4)
+    public byte[] cacheHit() {
+        return cache.get("/critical|dataset_bench|0", () -> { throw new IllegalStateException("not cached"); });
+    }
+
+    /** Reads the whole body so the connection goes back to the keep-alive pool. */
+    private static int fetch(URL url) throws IOException {
+        HttpURLConnection c = (HttpURLConnection) url.openConnection();
+        int total = 0;
+        try (InputStream in = c.getInputStream()) {
+            byte[] buf = new byte[8192];
+            for (int r; (r = in.read(buf)) > 0; ) total += r;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,143 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Staged batch runner: every stage has its own worker threads and hands
+ * jobs to the next stage through a bounded queue, so at most a few graphs
+ * per stage are resident while all stages run at the same time.
+ * A job whose stage throws (any Throwable) is reported, counted and dropped;
+ * the others continue.
+ */
+class BatchPipeline {
+    interface Step {
+        void apply(DatasetJob job) throws Exception;
+    }
+
+    private static final DatasetJob END = new DatasetJob("<end>");
+
+    private final int queueCapacity;
+    private final List<Stage> stages = new ArrayList<>();
+    private final AtomicInteger failures = new AtomicInteger();
+
+    BatchPipeline(int queueCapacity) {
+        this.queueCapacity = Math.max(1, queueCapacity);
+    }
+
+    BatchPipeline stage(String name, int workers, ThreadFactory threads, Step step) {
+        stages.add(new Stage(name, Math.max(1, workers), threads, step));
+        return this;
+    }
+
+    /** Runs every path through all stages; finished jobs are passed to {@code done} in completion order. */
+    int run(List<String> paths, Consumer<DatasetJob> done) throws InterruptedException {
+        List<BlockingQueue<DatasetJob>> queues = new ArrayList<>();
+        for (int i = 0; i <= stages.size(); i++) queues.add(new ArrayBlockingQueue<>(queueCapacity));
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < stages.size(); i++) {
+            Stage s = stages.get(i);
+            BlockingQueue<DatasetJob> in = queues.get(i), out = queues.get(i + 1);
+            AtomicInteger alive = new AtomicInteger(s.workers);
+            for (int w = 0; w < s.workers; w++) {
+                Thread t = s.threads.newThread(() -> work(s, in, out, alive));
+                threads.add(t);
+                t.start();
+            }
+        }
+
+        Thread feeder = new Thread(() -> {
+            try {
+                for (String p : paths) queues.get(0).put(new DatasetJob(p));
+                queues.get(0).put(END);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "pipeline-feeder");
+        feeder.start();
+
+        BlockingQueue<DatasetJob> last = queues.get(stages.size());
+        for (DatasetJob job = last.take(); job != END; job = last.take()) done.accept(job);
+        for (Thread t : threads) t.join();
+        feeder.join();
+        return failures.get();
+    }
+
+    private void work(Stage s, BlockingQueue<DatasetJob> in, BlockingQueue<DatasetJob> out, AtomicInteger alive) {
+        boolean ended = false;
+        try {
+            while (true) {
+                DatasetJob job = in.take();
+                if (job == END) {
+                    ended = true;
+                    return;
+                }
+                try {
+                    s.step.apply(job);
+                } catch (Throwable e) { // an OutOfMemoryError on one dataset must not stall the others
+                    failures.incrementAndGet();
+                    System.err.println("Stage '" + s.name + "' failed for " + job.path + ": " + e);
+                    continue;
+                }
+                out.put(job);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // pass the marker to siblings; the last worker out forwards it downstream, however it left
+            try {
+                if (alive.decrementAndGet() == 0) out.put(END);
+                else if (ended) in.put(END);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /** Named daemon platform threads. */
+    static ThreadFactory platformThreads(String name) {
+        AtomicInteger seq = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, name + "-" + seq.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /**
+     * Virtual threads when the running JVM has them (Java 21+); looked up
+     * reflectively because the project still compiles for Java 17.
+     * Falls back to platform threads otherwise.
+     */
+    static ThreadFactory virtualThreads(String name) {
+        try {
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            Object b = Thread.class.getMethod("ofVirtual").invoke(null);
+            b = builder.getMethod("name", String.class, long.class).invoke(b, name + "-", 0L);
+            return (ThreadFactory) builder.getMethod("factory").invoke(b);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            System.err.println("Virtual threads unavailable, using platform threads for " + name);
+            return platformThreads(name);
+        }
+    }
+
+    private static final class Stage {
+        final String name;
+        final int workers;
+        final ThreadFactory threads;
+        final Step step;
+
+        Stage(String name, int workers, ThreadFactory threads, Step step) {
+            this.name = name;
+            this.workers = workers;
+            this.threads = threads;
+            this.step = step;
+        }
+    }
+}
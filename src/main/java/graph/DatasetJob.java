@@ -0,0 +1,236 @@
+package graph;
+
+import graph.analysis.GraphAnalysis;
+import graph.common.*;
+import graph.dagsp.DAGLongestPath;
+import graph.dagsp.DAGShortestPaths;
+import graph.external.SemiExternalScc;
+import graph.scc.CondensationGraph;
+import graph.scc.PartitionedSCC;
+import graph.scc.SccAlgorithm;
+import graph.scc.SccResult;
+import graph.schedule.CpmSchedule;
+import graph.schedule.DurationModel;
+import graph.schedule.ListSchedule;
+import graph.schedule.ScheduleRisk;
+import graph.schedule.WeightModel;
+import graph.topo.TopoLevels;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * One dataset travelling through the analysis pipeline.
+ * Each stage method fills in its part of the state and appends its report
+ * lines to {@link #log}, which is printed in one piece once the job is done,
+ * so parallel jobs do not interleave their output. The log shows counts and
+ * at most {@link #LOG_ITEMS} elements of each result array; the full results
+ * go only to the streamed result files.
+ */
+class DatasetJob {
+    static final int LOG_ITEMS = 32;
+
+    final String path;
+    final String base;
+    final StringBuilder log = new StringBuilder();
+
+    Adjacency graph;
+    int source;
+    WeightModel model;
+    long[] durations; // per task under the node model
+    GraphAnalysis analysis;
+    SccResult scc;
+    CondensationGraph cg;
+    int[] topoOrder;
+    long[] dist;
+    int[] pathComp;
+    long maxDist;
+    Metrics m1, m2;
+    final Metrics m3 = new Metrics(), m4 = new Metrics();
+
+    DatasetJob(String path) {
+        this.path = path;
+        this.base = baseName(new File(path).getName());
+    }
+
+    static String baseName(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot < 0 ? fileName : fileName.substring(0, dot);
+    }
+
+    /**
+     * Stage 1 (I/O): binary files are memory-mapped, JSON is streamed.
+     * With -Dgraph.compressed=true the graph is re-encoded as a {@link CompressedGraph}
+     * (same arc order, so identical results) and the CSR copy is dropped.
+     */
+    void load() throws IOException {
+        if (path.endsWith(BinaryGraphIO.EXTENSION)) {
+            MappedCsrGraph mg = BinaryGraphIO.map(path);
+            graph = mg;
+            source = mg.source;
+            model = WeightModel.of(mg.weightModel);
+        } else {
+            JsonIO.LoadedGraph lg = JsonIO.readGraph(path);
+            graph = lg.graph.csr();
+            source = lg.source;
+            model = WeightModel.of(lg.weightModel);
+            durations = lg.durations;
+        }
+        if (Boolean.getBoolean("graph.compressed")) graph = CompressedGraph.of(graph);
+        line("\n Processing " + new File(path).getName());
+    }
+
+    /**
+     * Stage 2: SCC (engine chosen with -Dscc.engine=tarjan|pearce|parallel|partitioned|external,
+     * on a copy relabeled by -Dgraph.reorder=bfs|rcm|degree if set) and condensation.
+     */
+    void condense() {
+        SccAlgorithm engine = engine(System.getProperty("scc.engine", "tarjan"));
+        if (engine instanceof PartitionedSCC && !(graph instanceof MappedCsrGraph)) {
+            line("Note: the partitioned coordinator holds this graph in its heap; convert it to "
+                    + BinaryGraphIO.EXTENSION + " to keep the arcs mapped");
+        }
+        analysis = new GraphAnalysis(graph, engine, VertexOrder.Kind.byName(System.getProperty("graph.reorder")));
+        m1 = analysis.sccMetrics;
+        m2 = analysis.topoMetrics;
+        scc = analysis.scc();
+        int largest = 0;
+        for (int c = 0; c < scc.count; c++) largest = Math.max(largest, scc.size(c));
+        line("SCCs: " + scc.count + " (largest " + largest + " vertices)");
+        line("Metrics SCC: " + m1);
+
+        cg = analysis.condensation();
+        line("Condensation DAG: nodes=" + cg.compCount + ", edges=" + cg.dag.edges.size());
+    }
+
+    /** {@link SccAlgorithm#byName}, plus "external" for the semi-external engine. */
+    static SccAlgorithm engine(String name) {
+        return "external".equalsIgnoreCase(name) ? new SemiExternalScc() : SccAlgorithm.byName(name);
+    }
+
+    /**
+     * Stage 3: topological order, DAG shortest paths and the critical path, all sharing one sort.
+     * With -Dpaths.wavefront=true the path sweeps run level by level in parallel;
+     * with -Dpaths.ranked=true they run over the condensation renumbered in topological order.
+     */
+    void solvePaths() {
+        topoOrder = analysis.topoOrder();
+        line("Topological order of components: " + head(topoOrder));
+        line("Metrics Topo: " + m2);
+        TopoLevels levels = analysis.topoLevels();
+        line("Parallel depth: " + levels.levelCount() + " levels, widest " + levels.maxWidth());
+
+        int srcComp = cg.compId[source];
+        boolean wavefront = Boolean.getBoolean("paths.wavefront"), ranked = Boolean.getBoolean("paths.ranked");
+        DAGShortestPaths dsp = wavefront ? analysis.wavefrontShortestPaths(m3)
+                : ranked ? analysis.rankedShortestPaths(m3) : analysis.shortestPaths(m3);
+        dist = dsp.shortestFrom(srcComp);
+        line("Shortest distances from comp(" + srcComp + "): " + head(dist));
+        line("Metrics Shortest: " + m3);
+
+        DAGLongestPath dlp = wavefront ? analysis.wavefrontLongestPaths(m4)
+                : ranked ? analysis.rankedLongestPaths(m4) : analysis.longestPaths(m4);
+        var res = dlp.longestFrom(srcComp);
+        maxDist = Long.MIN_VALUE;
+        int endNode = -1;
+        for (int i = 0; i < res.dist.length; i++) {
+            if (res.dist[i] > maxDist) {
+                maxDist = res.dist[i];
+                endNode = i;
+            }
+        }
+
+        int len = 0;
+        for (int cur = endNode; cur != -1; cur = res.parent[cur]) len++;
+        pathComp = new int[len];
+        for (int cur = endNode; cur != -1; cur = res.parent[cur]) pathComp[--len] = cur;
+
+        line("Critical path components: " + head(pathComp));
+        line("Critical length: " + maxDist);
+        line("Metrics Longest: " + m4);
+    }
+
+    /**
+     * Stage 3b: CPM over the whole plan (every task's float, not just the path
+     * from the source). Node-model files without "durations" count each task
+     * as one unit. Under the node model, -Dschedule.crews=K adds a list
+     * schedule for K crews (edge-model lags occupy no crew). -Drisk.scenarios=N
+     * adds a Monte Carlo risk run: durations drawn from -Drisk.durations
+     * (triangular|pert|lognormal, default pert) between -Drisk.low and
+     * -Drisk.high times their estimates (0.75 and 1.5), seeded by -Drisk.seed.
+     */
+    void schedule() {
+        long[] d = durations;
+        if (model == WeightModel.NODE && d == null) {
+            d = new long[graph.n()];
+            Arrays.fill(d, 1);
+        }
+        Metrics m = new Metrics();
+        CpmSchedule cpm = analysis.schedule(model, d, m);
+        line("CPM (" + model.name().toLowerCase() + " model): makespan=" + cpm.makespan
+                + ", critical components=" + cpm.criticalTasks().length + " of " + cg.compCount
+                + ", critical chain=" + head(cpm.criticalPath()));
+        int crews = Integer.getInteger("schedule.crews", 0);
+        if (crews > 0 && model == WeightModel.NODE) {
+            ListSchedule ls = new ListSchedule(cpm, crews, m);
+            line(String.format(Locale.ROOT, "List schedule on %d crews: makespan=%d, utilization=%.2f",
+                    crews, ls.makespan, ls.utilization()));
+        }
+        line("Metrics CPM: " + m);
+        int scenarios = Integer.getInteger("risk.scenarios", 0);
+        if (scenarios > 0) {
+            DurationModel.Shape shape = DurationModel.Shape.byName(System.getProperty("risk.durations", "pert"));
+            DurationModel spread = new DurationModel(shape,
+                    Double.parseDouble(System.getProperty("risk.low", "0.75")),
+                    Double.parseDouble(System.getProperty("risk.high", "1.5")));
+            Metrics mr = new Metrics();
+            ScheduleRisk risk = analysis.scheduleRisk(model, d, spread, scenarios, Long.getLong("risk.seed", 1), mr);
+            StringBuilder top = new StringBuilder();
+            for (int c : risk.mostCritical(5)) {
+                if (top.length() > 0) top.append(", ");
+                top.append(String.format(Locale.ROOT, "%d=%.2f", c, risk.criticality[c]));
+            }
+            line(String.format(Locale.ROOT, "Schedule risk (%s, %d scenarios): plan=%d, P50=%.1f, P90=%.1f, "
+                            + "mean=%.1f, on time=%.2f, criticality {%s}", shape.name().toLowerCase(), scenarios,
+                    risk.plannedMakespan, risk.p50(), risk.p90(), risk.makespan.mean(), risk.onTimeProbability(), top));
+            line("Metrics Risk: " + mr);
+        }
+    }
+
+    /**
+     * Stage 4 (I/O): detailed results per dataset plus one row in the shared CSV.
+     * -Dresults.format=json|bin|both picks streamed JSON, the columnar
+     * {@link BinaryResultIO} file, or both (default json).
+     */
+    void write(CsvResultWriter csv) throws IOException {
+        new File("results").mkdirs();
+        String format = System.getProperty("results.format", "json");
+        boolean json = !format.equals("bin"), bin = format.equals("bin") || format.equals("both");
+        String out = "results/output_" + base;
+        if (json) {
+            JsonResultWriter.write(out + ".json", scc.offsets, scc.members, topoOrder, dist, pathComp, maxDist,
+                    m1, m2, m3, m4);
+        }
+        if (bin) {
+            BinaryResultIO.write(out + BinaryResultIO.EXTENSION, scc.offsets, scc.members, topoOrder, dist,
+                    pathComp, maxDist, m1, m2, m3, m4);
+        }
+        csv.append(base, graph.n(), graph.edgeCount(), m1, m2, m3, m4);
+        line("Saved: " + (json ? out + ".json" + (bin ? ", " : "") : "")
+                + (bin ? out + BinaryResultIO.EXTENSION : "") + " + results/summary.csv");
+    }
+
+    private void line(String s) { log.append(s).append('\n'); }
+
+    /** The first {@link #LOG_ITEMS} elements, and the length if there are more. */
+    static String head(int[] a) {
+        return a.length <= LOG_ITEMS ? Arrays.toString(a)
+                : Arrays.toString(Arrays.copyOf(a, LOG_ITEMS)).replace("]", ", ... (" + a.length + " in all)]");
+    }
+
+    static String head(long[] a) {
+        return a.length <= LOG_ITEMS ? Arrays.toString(a)
+                : Arrays.toString(Arrays.copyOf(a, LOG_ITEMS)).replace("]", ", ... (" + a.length + " in all)]");
+    }
+}
@@ -0,0 +1,282 @@
+package graph.analysis;
+
+import graph.common.Adjacency;
+import graph.common.CsrGraph;
+import graph.common.Metrics;
+import graph.common.VertexOrder;
+import graph.dagsp.DAGLongestPath;
+import graph.dagsp.DAGShortestPaths;
+import graph.dagsp.IncrementalLongestPath;
+import graph.dagsp.LevelSweep;
+import graph.dagsp.ReachabilityIndex;
+import graph.dagsp.TargetedPaths;
+import graph.scc.CondensationGraph;
+import graph.scc.EdgeReduction;
+import graph.scc.PartitionedSCC;
+import graph.scc.SccAlgorithm;
+import graph.scc.SccResult;
+import graph.schedule.CpmSchedule;
+import graph.schedule.DurationModel;
+import graph.schedule.ScheduleRisk;
+import graph.schedule.WeightModel;
+import graph.topo.KahnTopologicalSort;
+import graph.topo.TopoLevels;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Memoized analysis of one loaded graph.
+ * Every derived artifact (SCCs, condensation, topological order of the
+ * condensation, in-degrees, reverse DAG) is computed on first use and then
+ * shared, so solvers built from here only pay for their relaxation sweep.
+ * Shortest paths run over the condensation with MIN-reduced parallel edges,
+ * critical paths over the MAX-reduced one; both share one topology and order.
+ * Getters are synchronized; the cached arrays must be treated as read-only.
+ * An optional {@link VertexOrder.Kind} relabels the graph for the SCC engine;
+ * components come back in the input's ids, numbered as the engine found them
+ * on the relabeled copy. The {@code ranked*} solvers sweep the condensation
+ * renumbered in topological order and return the same answers as the plain ones.
+ * A {@link PartitionedSCC} engine also returns both condensations and the
+ * order, assembled by its coordinator from the workers' reduced edges, so the
+ * arcs are never condensed again in this heap.
+ */
+public class GraphAnalysis {
+    private final Adjacency graph;
+    private final SccAlgorithm engine;
+    private final VertexOrder.Kind reorder;
+    public final Metrics sccMetrics = new Metrics();
+    public final Metrics topoMetrics = new Metrics();
+    public final Metrics levelMetrics = new Metrics();
+    public final Metrics reachMetrics = new Metrics();
+
+    private SccResult scc;
+    private final Map<EdgeReduction, CondensationGraph> condensations = new EnumMap<>(EdgeReduction.class);
+    private int[] topoOrder, topoRank, inDegrees;
+    private TopoLevels topoLevels;
+    private CsrGraph reverseDag;
+    private ReachabilityIndex reachability;
+    private final Map<EdgeReduction, LevelSweep> levelSweeps = new EnumMap<>(EdgeReduction.class);
+    private VertexOrder dagLayout;
+    private final Map<EdgeReduction, CsrGraph> rankedDags = new EnumMap<>(EdgeReduction.class);
+
+    public GraphAnalysis(Adjacency graph) {
+        this(graph, SccAlgorithm.byName("tarjan"));
+    }
+
+    public GraphAnalysis(Adjacency graph, SccAlgorithm engine) {
+        this(graph, engine, null);
+    }
+
+    /** {@code reorder} null runs the engine on the graph as loaded. */
+    public GraphAnalysis(Adjacency graph, SccAlgorithm engine, VertexOrder.Kind reorder) {
+        this.graph = graph;
+        this.engine = engine;
+        this.reorder = reorder;
+    }
+
+    public Adjacency graph() { return graph; }
+
+    public synchronized SccResult scc() {
+        if (scc != null) return scc;
+        VertexOrder order = reorder == null ? null : sccMetrics.phase("reorder", () -> reorder.of(graph));
+        Adjacency input = order == null ? graph : sccMetrics.phase("relabel", () -> order.apply(graph));
+        if (engine instanceof PartitionedSCC) {
+            // components, MIN and MAX condensations and the order in one distributed run
+            PartitionedSCC.Result r = ((PartitionedSCC) engine).run(input, sccMetrics, EdgeReduction.MIN, EdgeReduction.MAX);
+            if (order != null) r = r.restore(order);
+            condensations.putAll(r.condensations);
+            topoOrder = r.topoOrder;
+            scc = r.scc;
+        } else {
+            SccResult s = engine.compute(input, sccMetrics);
+            scc = order == null ? s : s.restore(order);
+        }
+        return scc;
+    }
+
+    /** The condensation keeping the cheapest of parallel edges. */
+    public CondensationGraph condensation() {
+        return condensation(EdgeReduction.MIN);
+    }
+
+    public synchronized CondensationGraph condensation(EdgeReduction reduction) {
+        CondensationGraph cg = condensations.get(reduction);
+        if (cg == null) {
+            SccResult components = scc();
+            cg = sccMetrics.phase("condensation", () -> new CondensationGraph(graph, components, reduction));
+            condensations.put(reduction, cg);
+        }
+        return cg;
+    }
+
+    /** The condensation DAG in CSR form (MIN-reduced). */
+    public CsrGraph dag() {
+        return condensation().dag.csr();
+    }
+
+    /** The condensation DAG with the heaviest of parallel edges, for critical paths. */
+    public CsrGraph criticalDag() {
+        return condensation(EdgeReduction.MAX).dag.csr();
+    }
+
+    /** Component of the given original vertex. */
+    public int componentOf(int v) {
+        return condensation().compId[v];
+    }
+
+    /** Topological order of the condensation DAG. */
+    public synchronized int[] topoOrder() {
+        if (topoOrder == null) topoOrder = new KahnTopologicalSort(dag(), topoMetrics).order();
+        return topoOrder;
+    }
+
+    /** Wavefronts of the condensation DAG; their count is the schedule's parallel depth. */
+    public synchronized TopoLevels topoLevels() {
+        if (topoLevels == null) topoLevels = new KahnTopologicalSort(dag(), levelMetrics).levels();
+        return topoLevels;
+    }
+
+    /** Position of every component in {@link #topoOrder()}. */
+    public synchronized int[] topoRank() {
+        if (topoRank == null) {
+            int[] order = topoOrder();
+            int[] rank = new int[order.length];
+            for (int i = 0; i < order.length; i++) rank[order[i]] = i;
+            topoRank = rank;
+        }
+        return topoRank;
+    }
+
+    public synchronized int[] inDegrees() {
+        if (inDegrees == null) inDegrees = dag().inDegrees();
+        return inDegrees;
+    }
+
+    /** The condensation DAG with every edge reversed. */
+    public synchronized CsrGraph reverseDag() {
+        if (reverseDag == null) reverseDag = dag().reverse();
+        return reverseDag;
+    }
+
+    /** Reachability index over the condensation, within {@link ReachabilityIndex#DEFAULT_BUDGET}. */
+    public synchronized ReachabilityIndex reachability() {
+        if (reachability == null) reachability = new ReachabilityIndex(dag(), topoOrder(), reachMetrics);
+        return reachability;
+    }
+
+    /** Whether original vertex {@code to} is reachable from {@code from}, i.e. {@code to} depends on {@code from}. */
+    public boolean reaches(int from, int to) {
+        int[] comp = condensation().compId;
+        return reachability().reaches(comp[from], comp[to]);
+    }
+
+    /** Batched {@link #reaches(int, int)} over original vertices. */
+    public boolean[] reaches(int[] from, int[] to) {
+        int[] comp = condensation().compId;
+        int[] cf = new int[from.length], ct = new int[to.length];
+        for (int i = 0; i < from.length; i++) cf[i] = comp[from[i]];
+        for (int i = 0; i < to.length; i++) ct[i] = comp[to[i]];
+        return reachability().reaches(cf, ct);
+    }
+
+    /** Shortest-path solver over the condensation that reuses the cached order. */
+    public DAGShortestPaths shortestPaths(Metrics m) {
+        return new DAGShortestPaths(dag(), topoOrder(), m);
+    }
+
+    /** Longest-path (critical path) solver over the condensation that reuses the cached order. */
+    public DAGLongestPath longestPaths(Metrics m) {
+        return new DAGLongestPath(criticalDag(), topoOrder(), m);
+    }
+
+    /** Source-to-targets shortest distances over the MIN condensation, sweeping only the cones between them. */
+    public TargetedPaths targetedShortestPaths(Metrics m) {
+        return new TargetedPaths(dag(), reverseDag(), topoOrder(), m);
+    }
+
+    /** Source-to-targets longest distances over the MAX condensation (same arcs, so the same reverse DAG). */
+    public TargetedPaths targetedLongestPaths(Metrics m) {
+        return new TargetedPaths(criticalDag(), reverseDag(), topoOrder(), m);
+    }
+
+    /** Critical-path engine over a private copy of the condensation that absorbs later edits. */
+    public IncrementalLongestPath incrementalLongestPath(int srcComp, Metrics m) {
+        return new IncrementalLongestPath(criticalDag(), topoOrder(), srcComp, m);
+    }
+
+    /**
+     * CPM schedule of the condensation (MAX-reduced arcs). Under NODE a
+     * component runs its cyclic tasks back to back, so its duration is the
+     * sum of its members' durations.
+     */
+    public CpmSchedule schedule(WeightModel model, long[] taskDurations, Metrics m) {
+        return new CpmSchedule(criticalDag(), topoOrder(), model, componentDurations(model, taskDurations), m);
+    }
+
+    /**
+     * Monte Carlo risk of the same schedule: each of {@code scenarios} draws
+     * every duration of the condensation (a MAX-reduced arc keeps the largest
+     * estimate) from {@code durations}.
+     */
+    public ScheduleRisk scheduleRisk(WeightModel model, long[] taskDurations, DurationModel durations,
+                                     int scenarios, long seed, Metrics m) {
+        return new ScheduleRisk(criticalDag(), topoOrder(), model, componentDurations(model, taskDurations),
+                durations, scenarios, seed, m);
+    }
+
+    private long[] componentDurations(WeightModel model, long[] taskDurations) {
+        if (model != WeightModel.NODE) return null;
+        SccResult s = scc();
+        long[] durations = new long[s.count];
+        for (int v = 0; v < taskDurations.length; v++) durations[s.compId[v]] += taskDurations[v];
+        return durations;
+    }
+
+    /** Shortest-path solver over the condensation renumbered by topological rank. */
+    public DAGShortestPaths rankedShortestPaths(Metrics m) {
+        return new DAGShortestPaths(rankedDag(EdgeReduction.MIN), dagLayout(), m);
+    }
+
+    /** Longest-path solver over the MAX condensation renumbered by topological rank. */
+    public DAGLongestPath rankedLongestPaths(Metrics m) {
+        return new DAGLongestPath(rankedDag(EdgeReduction.MAX), dagLayout(), m);
+    }
+
+    /** Numbering of the components by their position in {@link #topoOrder()}. */
+    public synchronized VertexOrder dagLayout() {
+        if (dagLayout == null) dagLayout = VertexOrder.topological(topoOrder());
+        return dagLayout;
+    }
+
+    private synchronized CsrGraph rankedDag(EdgeReduction reduction) {
+        CsrGraph ranked = rankedDags.get(reduction);
+        if (ranked == null) {
+            ranked = dagLayout().apply(condensation(reduction).dag.csr());
+            rankedDags.put(reduction, ranked);
+        }
+        return ranked;
+    }
+
+    /** Level-parallel shortest-path solver over the condensation. */
+    public DAGShortestPaths wavefrontShortestPaths(Metrics m) {
+        return new DAGShortestPaths(levelSweep(EdgeReduction.MIN), m);
+    }
+
+    /** Level-parallel longest-path solver over the condensation. */
+    public DAGLongestPath wavefrontLongestPaths(Metrics m) {
+        return new DAGLongestPath(levelSweep(EdgeReduction.MAX), m);
+    }
+
+    private synchronized LevelSweep levelSweep(EdgeReduction reduction) {
+        LevelSweep sweep = levelSweeps.get(reduction);
+        if (sweep == null) {
+            CsrGraph dag = condensation(reduction).dag.csr();
+            // ties broken as the push sweeps over topoOrder() break them, so -Dpaths.wavefront keeps the same parents
+            sweep = new LevelSweep(dag, reduction == EdgeReduction.MIN ? reverseDag() : CsrGraph.transpose(dag),
+                    topoLevels(), topoRank());
+            levelSweeps.put(reduction, sweep);
+        }
+        return sweep;
+    }
+}
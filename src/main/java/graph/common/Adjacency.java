@@ -0,0 +1,33 @@
+package graph.common;
+
+/**
+ * Read-only outgoing-edge access shared by every graph representation.
+ * Edges are addressed by a global index: the edges leaving u are
+ * {@code begin(u) .. end(u) - 1}, so algorithms can keep plain int cursors.
+ */
+public interface Adjacency {
+    int n();
+    boolean directed();
+    int edgeCount();
+
+    int begin(int u);
+    int end(int u);
+    int target(int e);
+    long weight(int e);
+
+    default int outDegree(int u) { return end(u) - begin(u); }
+
+    /** In-degree of every vertex. */
+    default int[] inDegrees() {
+        int n = n();
+        int[] indeg = new int[n];
+        EdgeCursor c = cursor();
+        for (int u = 0; u < n; u++) {
+            for (c.reset(u); c.hasNext(); ) indeg[c.next()]++;
+        }
+        return indeg;
+    }
+
+    /** A fresh sequential reader; the way to walk representations whose arcs are not cheaply indexable. */
+    default EdgeCursor cursor() { return new EdgeCursor.Indexed(this); }
+}
@@ -0,0 +1,278 @@
+package graph.common;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Compact little-endian binary graph format, loaded with FileChannel.map.
+ *
+ * Layout (every section starts on an 8-byte boundary):
+ * <pre>
+ *  0  int  magic "CTSG"
+ *  4  int  version (1 or 2)
+ *  8  int  n
+ * 12  int  flags (bit 0 = directed)
+ * 16  int  source
+ * 20  v1: int edge count m (stored arcs, reverse arcs included), int byte length of weight_model (UTF-8), int reserved
+ *     v2: int byte length of weight_model, long edge count m
+ * 32  weight_model bytes
+ *     offsets (v1 int[n+1], v2 long[n+1]), int[m] targets, long[m] weights
+ * </pre>
+ * Version 2 holds more than 2^31 - 1 arcs. Such a graph does not fit an
+ * int-indexed {@link Adjacency}, so only version 1 files can be mapped;
+ * version 2 files are streamed by {@code graph.external.EdgeFile}. Writers
+ * pick version 1 whenever m fits an int.
+ */
+public class BinaryGraphIO {
+    public static final int MAGIC = 0x47535443; // "CTSG" read little-endian
+    public static final int VERSION = 1;
+    public static final int WIDE_VERSION = 2;
+    public static final String EXTENSION = ".bin";
+    private static final int HEADER_BYTES = 32;
+    private static final int WRITE_BUFFER = 1 << 20;
+
+    /** Converts every data/dataset_*.json (or the given files) into .bin next to it. */
+    public static void main(String[] args) throws IOException {
+        File[] files;
+        if (args.length > 0) {
+            files = new File[args.length];
+            for (int i = 0; i < args.length; i++) files[i] = new File(args[i]);
+        } else {
+            files = new File("data").listFiles((dir, name) ->
+                    name.startsWith("dataset_") && name.endsWith(".json"));
+            if (files == null) files = new File[0];
+        }
+        for (File f : files) {
+            String out = f.getPath().replaceAll("\\.json$", "") + EXTENSION;
+            convert(f.getPath(), out);
+            System.out.println("Converted " + f.getPath() + " -> " + out);
+        }
+    }
+
+    /** Reads a dataset_*.json file and writes it in binary form. */
+    public static void convert(String jsonPath, String binPath) throws IOException {
+        JsonIO.LoadedGraph lg = JsonIO.readGraph(jsonPath);
+        write(binPath, lg.graph.csr(), lg.source, lg.weightModel);
+    }
+
+    public static void write(String path, CsrGraph g, int source, String weightModel) throws IOException {
+        Header h = new Header(g.n, g.directed, source, g.edgeCount(), weightModel);
+        try (FileChannel ch = FileChannel.open(Path.of(path), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buf = ByteBuffer.allocateDirect(WRITE_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+            h.put(buf);
+            for (int x : g.offsets) { if (buf.remaining() < 4) flush(ch, buf); buf.putInt(x); }
+            pad(buf);
+            for (int x : g.targets) { if (buf.remaining() < 4) flush(ch, buf); buf.putInt(x); }
+            pad(buf);
+            for (long x : g.weights) { if (buf.remaining() < 8) flush(ch, buf); buf.putLong(x); }
+            flush(ch, buf);
+        }
+    }
+
+    /** Maps a version 1 binary graph file; the returned graph reads straight from the page cache. */
+    public static MappedCsrGraph map(String path) throws IOException {
+        try (FileChannel ch = FileChannel.open(Path.of(path), StandardOpenOption.READ)) {
+            Header h = Header.read(ch, path);
+            if (h.version != VERSION) {
+                throw new IOException("Cannot map " + path + " (version " + h.version + ", " + h.m
+                        + " arcs): read it with graph.external.SemiExternalScc");
+            }
+            return new MappedCsrGraph(path, h.n, h.directed, h.source, h.weightModel, (int) h.m,
+                    mapInts(ch, h.offsetsPos, h.n + 1L), mapInts(ch, h.targetsPos, h.m), mapLongs(ch, h.weightsPos, h.m));
+        }
+    }
+
+    /**
+     * Writes a graph whose arcs arrive one at a time in source order, so it
+     * never has to be held as CSR: only the offsets are given up front. Targets
+     * and weights go through one buffer each, flushed to their own section.
+     */
+    public static final class Writer implements Closeable {
+        private final String path;
+        private final Header h;
+        private final FileChannel ch;
+        private final ByteBuffer targets, weights;
+        private long targetsAt, weightsAt, arcs;
+
+        public Writer(String path, Header h, long[] offsets) throws IOException {
+            if (offsets.length != h.n + 1 || offsets[0] != 0 || offsets[h.n] != h.m) {
+                throw new IllegalArgumentException("Offsets do not match n=" + h.n + ", m=" + h.m);
+            }
+            this.path = path;
+            this.h = h;
+            ch = FileChannel.open(Path.of(path), StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            try {
+                ByteBuffer buf = ByteBuffer.allocateDirect(WRITE_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+                h.put(buf);
+                for (long x : offsets) {
+                    if (buf.remaining() < 8) flush(ch, buf);
+                    if (h.version == VERSION) buf.putInt((int) x);
+                    else buf.putLong(x);
+                }
+                pad(buf);
+                flush(ch, buf);
+            } catch (IOException | RuntimeException e) {
+                ch.close();
+                throw e;
+            }
+            targets = ByteBuffer.allocateDirect(WRITE_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+            weights = ByteBuffer.allocateDirect(WRITE_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+            targetsAt = h.targetsPos;
+            weightsAt = h.weightsPos;
+        }
+
+        /** Appends the next arc; arcs come in source order, as many per source as its offsets give. */
+        public void arc(int target, long weight) throws IOException {
+            if (arcs == h.m) throw new IllegalStateException("More than " + h.m + " arcs");
+            if (!targets.hasRemaining()) targetsAt = flushAt(ch, targets, targetsAt);
+            targets.putInt(target);
+            if (!weights.hasRemaining()) weightsAt = flushAt(ch, weights, weightsAt);
+            weights.putLong(weight);
+            arcs++;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try (ch) {
+                flushAt(ch, targets, targetsAt);
+                flushAt(ch, weights, weightsAt);
+                if (arcs != h.m) throw new IOException("Wrote " + arcs + " of " + h.m + " arcs to " + path);
+            }
+        }
+    }
+
+    /** The fixed header plus the byte position of every section, for readers that stream the file. */
+    public static final class Header {
+        public final int version;
+        public final int n;
+        public final boolean directed;
+        public final int source;
+        public final long m;
+        public final String weightModel;
+        public final long offsetsPos, targetsPos, weightsPos, fileBytes;
+
+        /** The smallest version that holds m arcs. */
+        public Header(int n, boolean directed, int source, long m, String weightModel) {
+            this(m > Integer.MAX_VALUE ? WIDE_VERSION : VERSION, n, directed, source, m, weightModel);
+        }
+
+        public Header(int version, int n, boolean directed, int source, long m, String weightModel) {
+            if (version != VERSION && version != WIDE_VERSION) throw new IllegalArgumentException("Unknown version " + version);
+            if (m < 0 || version == VERSION && m > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(m + " arcs do not fit version " + version);
+            }
+            this.version = version;
+            this.n = n;
+            this.directed = directed;
+            this.source = source;
+            this.m = m;
+            this.weightModel = weightModel;
+            offsetsPos = align(HEADER_BYTES + weightModel.getBytes(StandardCharsets.UTF_8).length);
+            targetsPos = align(offsetsPos + (long) offsetBytes() * (n + 1));
+            weightsPos = align(targetsPos + 4L * m);
+            fileBytes = weightsPos + 8L * m;
+        }
+
+        /** Width of one entry of the offsets section. */
+        public int offsetBytes() { return version == VERSION ? Integer.BYTES : Long.BYTES; }
+
+        public static Header read(FileChannel ch, String path) throws IOException {
+            ByteBuffer h = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (h.hasRemaining() && ch.read(h, h.position()) > 0) { }
+            if (h.hasRemaining()) throw new IOException("Truncated header in " + path);
+            h.flip();
+            if (h.getInt() != MAGIC) throw new IOException("Not a binary graph file: " + path);
+            int version = h.getInt();
+            if (version != VERSION && version != WIDE_VERSION) {
+                throw new IOException("Unsupported version " + version + " in " + path);
+            }
+            int n = h.getInt();
+            boolean directed = (h.getInt() & 1) != 0;
+            int source = h.getInt();
+            long m;
+            int wmLen;
+            if (version == VERSION) {
+                m = h.getInt();
+                wmLen = h.getInt();
+            } else {
+                wmLen = h.getInt();
+                m = h.getLong();
+            }
+            if (n < 0 || m < 0 || wmLen < 0) throw new IOException("Corrupt header in " + path);
+
+            ByteBuffer wm = ByteBuffer.allocate(wmLen);
+            while (wm.hasRemaining() && ch.read(wm, HEADER_BYTES + wm.position()) > 0) { }
+            Header header = new Header(version, n, directed, source, m, new String(wm.array(), StandardCharsets.UTF_8));
+            if (header.fileBytes > ch.size()) throw new IOException("Truncated sections in " + path);
+            return header;
+        }
+
+        /** Writes the header and weight model, padded up to {@link #offsetsPos}. */
+        public void put(ByteBuffer buf) {
+            byte[] wm = weightModel.getBytes(StandardCharsets.UTF_8);
+            buf.putInt(MAGIC).putInt(version).putInt(n).putInt(directed ? 1 : 0).putInt(source);
+            if (version == VERSION) buf.putInt((int) m).putInt(wm.length).putInt(0);
+            else buf.putInt(wm.length).putLong(m);
+            buf.put(wm);
+            pad(buf);
+        }
+    }
+
+    private static IntBuffer[] mapInts(FileChannel ch, long pos, long count) throws IOException {
+        int chunk = 1 << MappedCsrGraph.INT_CHUNK_SHIFT;
+        IntBuffer[] out = new IntBuffer[(int) Math.max(1, (count + chunk - 1) / chunk)];
+        for (int i = 0; i < out.length; i++) {
+            long len = Math.min(chunk, count - (long) i * chunk);
+            out[i] = section(ch, pos + 4L * i * chunk, 4L * len).asIntBuffer();
+        }
+        return out;
+    }
+
+    private static LongBuffer[] mapLongs(FileChannel ch, long pos, long count) throws IOException {
+        int chunk = 1 << MappedCsrGraph.LONG_CHUNK_SHIFT;
+        LongBuffer[] out = new LongBuffer[(int) Math.max(1, (count + chunk - 1) / chunk)];
+        for (int i = 0; i < out.length; i++) {
+            long len = Math.min(chunk, count - (long) i * chunk);
+            out[i] = section(ch, pos + 8L * i * chunk, 8L * len).asLongBuffer();
+        }
+        return out;
+    }
+
+    private static ByteBuffer section(FileChannel ch, long pos, long bytes) throws IOException {
+        MappedByteBuffer mb = ch.map(FileChannel.MapMode.READ_ONLY, pos, Math.max(0, bytes));
+        return mb.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static long align(long pos) { return (pos + 7) & ~7L; }
+
+    /** The buffer is a multiple of 8 and only flushed when full, so its position has the file's alignment. */
+    private static void pad(ByteBuffer buf) {
+        while ((buf.position() & 7) != 0) buf.put((byte) 0);
+    }
+
+    private static void flush(FileChannel ch, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) ch.write(buf);
+        buf.clear();
+    }
+
+    /** Writes the buffer at pos; returns the position after it. */
+    private static long flushAt(FileChannel ch, ByteBuffer buf, long pos) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) pos += ch.write(buf, pos);
+        buf.clear();
+        return pos;
+    }
+}
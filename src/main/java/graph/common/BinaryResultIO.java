@@ -0,0 +1,169 @@
+package graph.common;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compact columnar result file: the same content as {@link JsonResultWriter},
+ * but every array is one little-endian column copied straight from the
+ * primitive result, so writing is a single buffered pass and reading needs
+ * no parsing.
+ *
+ * Layout (every column starts on an 8-byte boundary):
+ * <pre>
+ *  0  int  magic "CTSR"
+ *  4  int  version (1)
+ *  8  int  scc count c
+ * 12  int  vertex count n (length of the members column)
+ * 16  int  topological order length t
+ * 20  int  shortest distances length d
+ * 24  int  critical path length p
+ * 28  int  metric count k
+ * 32  long critical length
+ * 40  int[c+1] scc offsets, int[n] scc members, int[t] topo, long[d] distances, int[p] critical path
+ *     k x (int name length, UTF-8 name, long value), names like "SCC.time_ns"
+ * </pre>
+ */
+public class BinaryResultIO {
+    public static final int MAGIC = 0x52535443; // "CTSR" read little-endian
+    public static final int VERSION = 1;
+    public static final String EXTENSION = ".res";
+    private static final int HEADER_BYTES = 40;
+    private static final int WRITE_BUFFER = 1 << 20;
+
+    public static void write(String path,
+                             int[] sccOffsets, int[] sccMembers,
+                             int[] topo,
+                             long[] shortest,
+                             int[] criticalPath,
+                             long criticalLength,
+                             Metrics m1, Metrics m2, Metrics m3, Metrics m4) throws IOException {
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        flatten("SCC", m1.toMap(), metrics);
+        flatten("Topo", m2.toMap(), metrics);
+        flatten("Shortest", m3.toMap(), metrics);
+        flatten("Longest", m4.toMap(), metrics);
+        try (FileChannel ch = FileChannel.open(Path.of(path), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buf = ByteBuffer.allocateDirect(WRITE_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+            buf.putInt(MAGIC).putInt(VERSION).putInt(sccOffsets.length - 1).putInt(sccMembers.length)
+                    .putInt(topo.length).putInt(shortest.length).putInt(criticalPath.length).putInt(metrics.size())
+                    .putLong(criticalLength);
+            ints(ch, buf, sccOffsets);
+            ints(ch, buf, sccMembers);
+            ints(ch, buf, topo);
+            for (long x : shortest) { if (buf.remaining() < 8) flush(ch, buf); buf.putLong(x); }
+            ints(ch, buf, criticalPath);
+            pad(buf);
+            for (Map.Entry<String, Long> e : metrics.entrySet()) {
+                byte[] name = e.getKey().getBytes(StandardCharsets.UTF_8);
+                if (buf.remaining() < 12 + name.length) flush(ch, buf);
+                buf.putInt(name.length).put(name).putLong(e.getValue());
+            }
+            flush(ch, buf);
+        }
+    }
+
+    /** Reads a whole result file back onto the heap. */
+    public static Result read(String path) throws IOException {
+        try (FileChannel ch = FileChannel.open(Path.of(path), StandardOpenOption.READ)) {
+            if (ch.size() > Integer.MAX_VALUE) throw new IOException("Result file too large: " + path);
+            ByteBuffer b = ByteBuffer.allocate((int) ch.size()).order(ByteOrder.LITTLE_ENDIAN);
+            while (b.hasRemaining() && ch.read(b) > 0) { }
+            b.flip();
+            if (b.remaining() < HEADER_BYTES || b.getInt() != MAGIC) throw new IOException("Not a result file: " + path);
+            int version = b.getInt();
+            if (version != VERSION) throw new IOException("Unsupported version " + version + " in " + path);
+            int c = b.getInt(), n = b.getInt(), t = b.getInt(), d = b.getInt(), p = b.getInt(), k = b.getInt();
+            long criticalLength = b.getLong();
+            int[] offsets = ints(b, c + 1), members = ints(b, n), topo = ints(b, t);
+            long[] dist = new long[d];
+            align(b);
+            b.asLongBuffer().get(dist);
+            b.position(b.position() + 8 * d);
+            int[] critical = ints(b, p);
+            align(b);
+            Map<String, Long> metrics = new LinkedHashMap<>();
+            for (int i = 0; i < k; i++) {
+                byte[] name = new byte[b.getInt()];
+                b.get(name);
+                metrics.put(new String(name, StandardCharsets.UTF_8), b.getLong());
+            }
+            return new Result(offsets, members, topo, dist, critical, criticalLength, metrics);
+        } catch (java.nio.BufferUnderflowException e) {
+            throw new IOException("Truncated result file: " + path);
+        }
+    }
+
+    /** Contents of one result file. */
+    public static final class Result {
+        public final int[] sccOffsets, sccMembers, topo;
+        public final long[] shortest;
+        public final int[] criticalPath;
+        public final long criticalLength;
+        public final Map<String, Long> metrics;
+
+        Result(int[] sccOffsets, int[] sccMembers, int[] topo, long[] shortest,
+               int[] criticalPath, long criticalLength, Map<String, Long> metrics) {
+            this.sccOffsets = sccOffsets;
+            this.sccMembers = sccMembers;
+            this.topo = topo;
+            this.shortest = shortest;
+            this.criticalPath = criticalPath;
+            this.criticalLength = criticalLength;
+            this.metrics = metrics;
+        }
+
+        public int sccCount() { return sccOffsets.length - 1; }
+    }
+
+    /** Integer metrics as dotted names; fractional views such as time_ms are derived and skipped. */
+    private static void flatten(String prefix, Map<String, Object> map, Map<String, Long> out) {
+        for (Map.Entry<String, Object> e : map.entrySet()) {
+            Object v = e.getValue();
+            String name = prefix + '.' + e.getKey();
+            if (v instanceof Map) {
+                @SuppressWarnings("unchecked") Map<String, Object> nested = (Map<String, Object>) v;
+                flatten(name, nested, out);
+            } else if (v instanceof Long || v instanceof Integer) {
+                out.put(name, ((Number) v).longValue());
+            }
+        }
+    }
+
+    private static void ints(FileChannel ch, ByteBuffer buf, int[] xs) throws IOException {
+        pad(buf);
+        for (int x : xs) { if (buf.remaining() < 4) flush(ch, buf); buf.putInt(x); }
+        pad(buf);
+    }
+
+    private static int[] ints(ByteBuffer b, int count) {
+        align(b);
+        int[] out = new int[count];
+        b.asIntBuffer().get(out);
+        b.position(b.position() + 4 * count);
+        return out;
+    }
+
+    private static void align(ByteBuffer b) {
+        b.position((b.position() + 7) & ~7);
+    }
+
+    /** The buffer is a multiple of 8 and only flushed when full, so its position has the file's alignment. */
+    private static void pad(ByteBuffer buf) {
+        while ((buf.position() & 7) != 0) buf.put((byte) 0);
+    }
+
+    private static void flush(FileChannel ch, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) ch.write(buf);
+        buf.clear();
+    }
+}
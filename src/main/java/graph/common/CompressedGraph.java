@@ -0,0 +1,270 @@
+package graph.common;
+
+import java.util.Arrays;
+
+/**
+ * Immutable graph with byte-encoded adjacency lists, for graphs whose CSR
+ * arrays (12 bytes per arc) do not fit the heap.
+ * <p>
+ * Each arc is a varint of the zigzagged gap to the previous target of its list
+ * (the first one relative to the owning vertex), followed by the weight in the
+ * smallest fixed width that holds every weight of the graph (none at all when
+ * all weights are equal). Clustered ids and small weights therefore take about
+ * two bytes per arc. Lists keep their arc order unless built with
+ * {@code sortNeighbors}, which makes every gap non-negative and smallest.
+ * <p>
+ * Algorithms read it through {@link #cursor()}, which decodes on the fly.
+ * List bounds are {@link PackedOffsets} (about two bytes per vertex each).
+ * Arc indices ({@link #begin}, {@link #end}) keep their CSR meaning, and
+ * {@link #target(int)} / {@link #weight(int)} still work through a skip index
+ * holding the decode position of every {@value #SKIP}th arc, but cost a binary
+ * search plus up to {@value #SKIP} decodes each.
+ */
+public final class CompressedGraph implements Adjacency {
+    public static final int SKIP = 64;
+    private static final int SKIP_SHIFT = 6;
+
+    public final int n;
+    public final boolean directed;
+    private final PackedOffsets offsets; // arc index bounds, as in CsrGraph
+    private final PackedOffsets pos;     // byte offset of every list, n + 1 entries
+    private final byte[] data;
+    private final int weightBytes; // 0: every weight equals constWeight
+    private final long constWeight;
+    private final int[] skipPos, skipPrev;
+
+    private CompressedGraph(int n, boolean directed, PackedOffsets offsets, PackedOffsets pos, byte[] data,
+                            int weightBytes, long constWeight, int[] skipPos, int[] skipPrev) {
+        this.n = n;
+        this.directed = directed;
+        this.offsets = offsets;
+        this.pos = pos;
+        this.data = data;
+        this.weightBytes = weightBytes;
+        this.constWeight = constWeight;
+        this.skipPos = skipPos;
+        this.skipPrev = skipPrev;
+    }
+
+    /** Encodes g keeping the order of every list, so algorithms see exactly the arcs they would on g. */
+    public static CompressedGraph of(Adjacency g) {
+        return of(g, false);
+    }
+
+    public static CompressedGraph of(Adjacency g, boolean sortNeighbors) {
+        int n = g.n(), m = g.edgeCount();
+        long min = Long.MAX_VALUE, max = Long.MIN_VALUE;
+        EdgeCursor c = g.cursor();
+        for (int u = 0; u < n; u++) {
+            for (c.reset(u); c.hasNext(); ) {
+                c.next();
+                min = Math.min(min, c.weight());
+                max = Math.max(max, c.weight());
+            }
+        }
+        int width = m == 0 || min == max ? 0 : widthOf(min, max);
+
+        int[] offsets = new int[n + 1], pos = new int[n + 1];
+        int[] skipPos = new int[(m + SKIP - 1) >>> SKIP_SHIFT], skipPrev = new int[skipPos.length];
+        byte[] out = new byte[(int) Math.min(Integer.MAX_VALUE - 8, Math.max(16, (long) m * (2 + width)))];
+        int p = 0, e = 0;
+        int[] targets = new int[16];
+        long[] weights = new long[16];
+        long[] keys = new long[16];
+        for (int u = 0; u < n; u++) {
+            pos[u] = p;
+            offsets[u] = e;
+            int deg = 0;
+            for (c.reset(u); c.hasNext(); deg++) {
+                if (deg == targets.length) {
+                    targets = Arrays.copyOf(targets, deg * 2);
+                    weights = Arrays.copyOf(weights, deg * 2);
+                }
+                targets[deg] = c.next();
+                weights[deg] = c.weight();
+            }
+            if (sortNeighbors && deg > 1) {
+                if (keys.length < deg) keys = new long[targets.length];
+                for (int i = 0; i < deg; i++) keys[i] = (long) targets[i] << 32 | i;
+                Arrays.sort(keys, 0, deg); // by target, stable for parallel arcs
+                int[] t = new int[deg];
+                long[] w = new long[deg];
+                for (int i = 0; i < deg; i++) {
+                    t[i] = (int) (keys[i] >>> 32);
+                    w[i] = weights[(int) keys[i]];
+                }
+                System.arraycopy(t, 0, targets, 0, deg);
+                System.arraycopy(w, 0, weights, 0, deg);
+            }
+            int prev = u;
+            for (int i = 0; i < deg; i++, e++) {
+                if (out.length - p < 5 + width) {
+                    long grown = Math.max((long) out.length * 3 / 2, p + 5L + width);
+                    if (grown > Integer.MAX_VALUE - 8) throw new IllegalArgumentException("Encoded graph exceeds 2 GB");
+                    out = Arrays.copyOf(out, (int) grown);
+                }
+                if ((e & (SKIP - 1)) == 0) {
+                    skipPos[e >>> SKIP_SHIFT] = p;
+                    skipPrev[e >>> SKIP_SHIFT] = prev;
+                }
+                int gap = targets[i] - prev;
+                for (int z = (gap << 1) ^ (gap >> 31); ; z >>>= 7) {
+                    if ((z & ~0x7f) == 0) {
+                        out[p++] = (byte) z;
+                        break;
+                    }
+                    out[p++] = (byte) (z | 0x80);
+                }
+                for (int b = 0; b < width; b++) out[p++] = (byte) (weights[i] >> (8 * b));
+                prev = targets[i];
+            }
+        }
+        pos[n] = p;
+        offsets[n] = e;
+        return new CompressedGraph(n, g.directed(), new PackedOffsets(offsets), new PackedOffsets(pos), Arrays.copyOf(out, p),
+                width, width == 0 && m > 0 ? min : 0, skipPos, skipPrev);
+    }
+
+    /** Bytes per weight: the smallest of 1, 2, 4, 8 holding [min, max] as signed values. */
+    private static int widthOf(long min, long max) {
+        for (int w = 1; w < 8; w <<= 1) {
+            long lo = -(1L << (8 * w - 1)), hi = (1L << (8 * w - 1)) - 1;
+            if (min >= lo && max <= hi) return w;
+        }
+        return 8;
+    }
+
+    @Override public int n() { return n; }
+    @Override public boolean directed() { return directed; }
+    @Override public int edgeCount() { return offsets.get(n); }
+    @Override public int begin(int u) { return offsets.get(u); }
+    @Override public int end(int u) { return offsets.get(u + 1); }
+
+    @Override
+    public EdgeCursor cursor() {
+        return new Cursor();
+    }
+
+    /** Heap footprint of the encoded graph in bytes (arrays only). */
+    public long bytes() {
+        return data.length + offsets.bytes() + pos.bytes() + 4L * (skipPos.length + skipPrev.length);
+    }
+
+    @Override
+    public int target(int e) {
+        long mark = seek(e);
+        int[] p = {(int) (mark >>> 32)};
+        return (int) mark + readGap(p);
+    }
+
+    @Override
+    public long weight(int e) {
+        long mark = seek(e);
+        int[] p = {(int) (mark >>> 32)};
+        readGap(p);
+        return readWeight(p[0]);
+    }
+
+    /** Copies the graph back into CSR arrays. */
+    public CsrGraph toCsr() {
+        int m = edgeCount();
+        int[] tgt = new int[m];
+        long[] w = new long[m];
+        Cursor c = new Cursor();
+        for (int u = 0, e = 0; u < n; u++) {
+            for (c.reset(u); c.hasNext(); e++) {
+                tgt[e] = c.next();
+                w[e] = c.weight();
+            }
+        }
+        return new CsrGraph(n, directed, offsets.toArray(), tgt, w);
+    }
+
+    /** Decode position and previous target of arc e, packed as a cursor mark. */
+    private long seek(int e) {
+        if (e < 0 || e >= edgeCount()) throw new IndexOutOfBoundsException("arc " + e);
+        int lo = 0, hi = n - 1; // owner: last u with begin(u) <= e
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (offsets.get(mid) <= e) lo = mid; else hi = mid - 1;
+        }
+        int u = lo, k = e & ~(SKIP - 1), p, prev;
+        if (k <= offsets.get(u)) {
+            k = offsets.get(u);
+            p = pos.get(u);
+            prev = u;
+        } else {
+            p = skipPos[k >>> SKIP_SHIFT];
+            prev = skipPrev[k >>> SKIP_SHIFT];
+        }
+        int[] at = {p};
+        for (; k < e; k++) {
+            prev += readGap(at);
+            at[0] += weightBytes;
+        }
+        return (long) at[0] << 32 | (prev & 0xffffffffL);
+    }
+
+    private int readGap(int[] at) {
+        int p = at[0], z = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = data[p++];
+            z |= (b & 0x7f) << shift;
+            if (b >= 0) break;
+        }
+        at[0] = p;
+        return (z >>> 1) ^ -(z & 1);
+    }
+
+    private long readWeight(int p) {
+        switch (weightBytes) {
+            case 0: return constWeight;
+            case 1: return data[p];
+            case 2: return (data[p] & 0xff) | data[p + 1] << 8;
+            default: {
+                long w = 0;
+                for (int b = 0; b < weightBytes; b++) w |= (data[p + b] & 0xffL) << (8 * b);
+                int unused = 64 - 8 * weightBytes;
+                return w << unused >> unused;
+            }
+        }
+    }
+
+    /** Decodes one list at a time straight from the byte array. */
+    private final class Cursor extends EdgeCursor {
+        private int p, stop, prev, weightAt;
+
+        @Override
+        public EdgeCursor reset(int u) {
+            p = pos.get(u);
+            stop = pos.get(u + 1);
+            prev = u;
+            return this;
+        }
+
+        @Override public boolean hasNext() { return p < stop; }
+
+        @Override
+        public int next() {
+            byte[] d = data;
+            int q = p, b = d[q++], z = b & 0x7f;
+            for (int shift = 7; b < 0; shift += 7) {
+                b = d[q++];
+                z |= (b & 0x7f) << shift;
+            }
+            weightAt = q;
+            p = q + weightBytes;
+            return prev += (z >>> 1) ^ -(z & 1);
+        }
+
+        @Override public long weight() { return readWeight(weightAt); }
+        @Override public long mark() { return (long) p << 32 | (prev & 0xffffffffL); }
+
+        @Override
+        public void resume(int u, long mark) {
+            p = (int) (mark >>> 32);
+            prev = (int) mark;
+            stop = pos.get(u + 1);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package graph.common;
+
+import java.util.Arrays;
+
+/**
+ * Immutable compressed-sparse-row graph.
+ * The edges of u are stored at {@code offsets[u] .. offsets[u+1]-1} of
+ * {@code targets}/{@code weights}, in the order they were added.
+ * Undirected input is stored as two arcs, like {@link Graph} always did.
+ */
+public final class CsrGraph implements Adjacency {
+    public final int n;
+    public final boolean directed;
+    public final int[] offsets;
+    public final int[] targets;
+    public final long[] weights;
+
+    public CsrGraph(int n, boolean directed, int[] offsets, int[] targets, long[] weights) {
+        if (offsets.length != n + 1 || targets.length != offsets[n] || weights.length != targets.length)
+            throw new IllegalArgumentException("Inconsistent CSR arrays for n=" + n);
+        this.n = n;
+        this.directed = directed;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    @Override public int n() { return n; }
+    @Override public boolean directed() { return directed; }
+    @Override public int edgeCount() { return targets.length; }
+    @Override public int begin(int u) { return offsets[u]; }
+    @Override public int end(int u) { return offsets[u + 1]; }
+    @Override public int target(int e) { return targets[e]; }
+    @Override public long weight(int e) { return weights[e]; }
+
+    /** Returns the transposed graph (every arc u -> v becomes v -> u), built in one counting pass. */
+    public CsrGraph reverse() {
+        return transpose(this);
+    }
+
+    /** Transposes any adjacency into a new heap CSR graph. */
+    public static CsrGraph transpose(Adjacency g) {
+        int n = g.n(), m = g.edgeCount();
+        int[] off = new int[n + 1];
+        EdgeCursor c = g.cursor();
+        for (int u = 0; u < n; u++) {
+            for (c.reset(u); c.hasNext(); ) off[c.next() + 1]++;
+        }
+        for (int v = 0; v < n; v++) off[v + 1] += off[v];
+        int[] next = Arrays.copyOf(off, n);
+        int[] tgt = new int[m];
+        long[] w = new long[m];
+        for (int u = 0; u < n; u++) {
+            for (c.reset(u); c.hasNext(); ) {
+                int pos = next[c.next()]++;
+                tgt[pos] = u;
+                w[pos] = c.weight();
+            }
+        }
+        return new CsrGraph(n, g.directed(), off, tgt, w);
+    }
+
+    @Override
+    public int[] inDegrees() {
+        int[] indeg = new int[n];
+        for (int v : targets) indeg[v]++;
+        return indeg;
+    }
+
+    public static Builder builder(int n, boolean directed) { return new Builder(n, directed); }
+
+    /**
+     * Collects edges into growable primitive arrays and lays them out
+     * as CSR in one counting-sort pass. The builder stays usable after
+     * {@link #build()}, so more edges can be added and rebuilt.
+     */
+    public static final class Builder {
+        private final int n;
+        private final boolean directed;
+        private int[] us, vs;
+        private long[] ws;
+        private int m = 0;
+
+        public Builder(int n, boolean directed) { this(n, directed, 16); }
+
+        public Builder(int n, boolean directed, int expectedArcs) {
+            if (n < 0) throw new IllegalArgumentException("n must be >= 0: " + n);
+            this.n = n;
+            this.directed = directed;
+            int cap = Math.max(16, expectedArcs);
+            us = new int[cap];
+            vs = new int[cap];
+            ws = new long[cap];
+        }
+
+        /** Copies every arc of an existing graph (reverse arcs included). */
+        public static Builder of(Adjacency g) {
+            Builder b = new Builder(g.n(), g.directed(), g.edgeCount());
+            EdgeCursor c = g.cursor();
+            for (int u = 0; u < g.n(); u++) {
+                for (c.reset(u); c.hasNext(); ) {
+                    int v = c.next();
+                    b.addArc(u, v, c.weight());
+                }
+            }
+            return b;
+        }
+
+        /** Adds an edge; undirected graphs also get the reverse arc. */
+        public Builder addEdge(int u, int v, long w) {
+            addArc(u, v, w);
+            if (!directed) addArc(v, u, w);
+            return this;
+        }
+
+        /** Adds a single arc u -> v regardless of directedness. */
+        public Builder addArc(int u, int v, long w) {
+            if (u < 0 || u >= n || v < 0 || v >= n)
+                throw new IndexOutOfBoundsException("Edge (" + u + ", " + v + ") out of range for n=" + n);
+            if (m == us.length) grow();
+            us[m] = u;
+            vs[m] = v;
+            ws[m] = w;
+            m++;
+            return this;
+        }
+
+        public int arcCount() { return m; }
+
+        private void grow() {
+            int cap = us.length + (us.length >> 1) + 16;
+            if (cap < 0) throw new IllegalStateException("Too many edges for CSR layout");
+            us = Arrays.copyOf(us, cap);
+            vs = Arrays.copyOf(vs, cap);
+            ws = Arrays.copyOf(ws, cap);
+        }
+
+        public CsrGraph build() {
+            int[] offsets = new int[n + 1];
+            for (int i = 0; i < m; i++) offsets[us[i] + 1]++;
+            for (int u = 0; u < n; u++) offsets[u + 1] += offsets[u];
+
+            int[] next = Arrays.copyOf(offsets, n);
+            int[] targets = new int[m];
+            long[] weights = new long[m];
+            for (int i = 0; i < m; i++) {// stable scatter keeps insertion order per vertex
+                int pos = next[us[i]]++;
+                targets[pos] = vs[i];
+                weights[pos] = ws[i];
+            }
+            return new CsrGraph(n, directed, offsets, targets, weights);
+        }
+    }
+}
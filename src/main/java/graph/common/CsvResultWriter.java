@@ -1,30 +1,58 @@
 package graph.common;
 
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
 
 /**
  * Appends summarized algorithm metrics into a CSV file.
  * Used for performance analysis in the report.
+ * An instance owns the file for its whole lifetime: it is opened once,
+ * rows from any thread are appended under a lock, and it is closed at the end.
+ * Times are milliseconds with three decimals (the sweeps on the bundled
+ * datasets finish well below one millisecond).
  */
-public class CsvResultWriter {
+public class CsvResultWriter implements Closeable {
+    private static final String HEADER = "dataset,nodes,edges,"
+            + "scc_time,topo_time,shortest_time,longest_time,"
+            + "dfsCalls,dfsEdges,relaxations\n";
 
+    private final Writer out;
+
+    public CsvResultWriter(String path) throws IOException {
+        boolean exists = new File(path).exists();
+        this.out = new BufferedWriter(new FileWriter(path, true));
+        if (!exists) out.write(HEADER);
+    }
+
+    public synchronized void append(String datasetName, int n, int e,
+                                    Metrics scc, Metrics topo, Metrics sp, Metrics lp) throws IOException {
+        out.write(row(datasetName, n, e, scc, topo, sp, lp));
+        out.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+
+    /** One-shot variant that opens and closes the file for a single row. */
     public static void append(String path, String datasetName, int n, int e,
                               Metrics scc, Metrics topo, Metrics sp, Metrics lp) throws IOException {
-
-        boolean append = new java.io.File(path).exists();
-        try (FileWriter fw = new FileWriter(path, true)) {
-            if (!append) {
-                fw.write("dataset,nodes,edges,"
-                        + "scc_time,topo_time,shortest_time,longest_time,"
-                        + "dfsCalls,dfsEdges,relaxations\n");
-            }
-            fw.write(String.format("%s,%d,%d,%d,%d,%d,%d,%d,%d,%d\n",
-                    datasetName, n, e,
-                    scc.durationMs(), topo.durationMs(), sp.durationMs(), lp.durationMs(),
-                    scc.dfsCalls, scc.dfsEdges, lp.relaxations));
+        try (CsvResultWriter w = new CsvResultWriter(path)) {
+            w.append(datasetName, n, e, scc, topo, sp, lp);
         }
+    }
 
-        System.out.println("CSV updated -> " + path);
+    private static String row(String datasetName, int n, int e,
+                              Metrics scc, Metrics topo, Metrics sp, Metrics lp) {
+        return String.format(Locale.ROOT, "%s,%d,%d,%.3f,%.3f,%.3f,%.3f,%d,%d,%d\n",
+                datasetName, n, e,
+                scc.durationMs(), topo.durationMs(), sp.durationMs(), lp.durationMs(),
+                scc.dfsCalls, scc.dfsEdges, lp.relaxations);
     }
 }
@@ -1,11 +1,11 @@
 package graph.common;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
 
+import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.util.*;
+import java.util.SplittableRandom;
 
 /**
  * Final version of DataGenerator:
@@ -13,11 +13,59 @@ import java.util.*;
  * Uses both cyclic and acyclic (DAG) graphs
  * Supports density control (sparse vs dense)
  * Prevents infinite loops with iteration limits
+ *
+ * Every graph is reproducible from its seed. Besides the uniform model used
+ * for the report datasets it can produce large scale-test families, with
+ * edges deduplicated in a {@link LongHashSet} and streamed straight to JSON
+ * (or collected into CSR arrays for the binary format).
+ *
+ * Command line: {@code DataGenerator <family> <n> <edges> <seed> <out.json|out.bin>};
+ * without arguments the nine report datasets are regenerated.
  */
 public class DataGenerator {
-    private static final Random rnd = new Random();
+    private static final long DEFAULT_SEED = 2024L;
+    private static final int MAX_WEIGHT = 9;
+
+    /** Graph shapes the generator knows how to produce. */
+    public enum Family {
+        /** Uniform random pairs (may contain cycles). */
+        UNIFORM,
+        /** Uniform random pairs with u < v. */
+        UNIFORM_DAG,
+        /** About sqrt(n) layers; edges go mostly to the next layer, sometimes further. */
+        LAYERED_DAG,
+        /** R-MAT recursive matrix (a=.57, b=.19, c=.19): power-law degrees, cyclic. */
+        RMAT,
+        /** A backbone chain 0 -> 1 -> ... -> n-1 plus short forward skips: very deep DAG. */
+        CHAIN_HEAVY,
+        /** Groups of 2..8 vertices closed into cycles, linked forward: many small SCCs. */
+        SMALL_SCCS
+    }
+
+    /** Receives generated edges one by one. */
+    public interface EdgeSink {
+        void accept(int u, int v, long w) throws IOException;
+    }
 
     public static void main(String[] args) throws IOException {
+        if (args.length > 0) {
+            if (args.length != 5) {
+                System.err.println("Usage: DataGenerator <family> <n> <edges> <seed> <out.json|out.bin>");
+                return;
+            }
+            Family family = Family.valueOf(args[0].toUpperCase());
+            int n = Integer.parseInt(args[1]);
+            long m = Long.parseLong(args[2]);
+            long seed = Long.parseLong(args[3]);
+            long t0 = System.nanoTime();
+            long written = args[4].endsWith(BinaryGraphIO.EXTENSION)
+                    ? writeBinary(args[4], family, n, m, seed)
+                    : writeJson(args[4], family, n, m, seed, false);
+            System.out.printf("%s: %s n=%d edges=%d seed=%d (%.1f s)%n",
+                    args[4], family, n, written, seed, (System.nanoTime() - t0) / 1e9);
+            return;
+        }
+
         new java.io.File("data").mkdirs();
 //For report -------
         System.out.println("------------------------------------------------------------");
@@ -44,7 +92,7 @@ public class DataGenerator {
     }
 
     /**
-     * Generates one dataset with given parameters.
+     * Generates one dataset with given parameters (fixed default seed).
      *
      * @param filename path to save JSON
      * @param n        number of nodes
@@ -53,59 +101,33 @@ public class DataGenerator {
      * @param isDAG    true = acyclic, false = cyclic
      */
     public static void generateDataset(String filename, int n, double density, boolean directed, boolean isDAG) throws IOException {
-        int maxEdges = directed ? n * (n - 1) : n * (n - 1) / 2;
-        int targetEdges = Math.max(1, (int) (density * maxEdges));
-
-        List<Map<String, Object>> edges = new ArrayList<>();
-        Set<String> used = new HashSet<>();
-
-        int maxAttempts = n * n * 5; // safety limit to prevent infinite loop
-        int attempts = 0;
-
-        while (edges.size() < targetEdges && attempts < maxAttempts) {
-            int u = rnd.nextInt(n);
-            int v = rnd.nextInt(n);
-            attempts++;
-
-            if (u == v) continue;
-            if (isDAG && u >= v) continue; // enforce acyclic property
-
-            String key = u + "-" + v;
-            if (used.contains(key)) continue;
-            used.add(key);
+        generateDataset(filename, n, density, directed, isDAG, DEFAULT_SEED + filename.hashCode());
+    }
 
-            Map<String, Object> e = new LinkedHashMap<>();
-            e.put("u", u);
-            e.put("v", v);
-            e.put("w", 1 + rnd.nextInt(9));
-            edges.add(e);
-        }
+    public static void generateDataset(String filename, int n, double density, boolean directed,
+                                       boolean isDAG, long seed) throws IOException {
+        long maxEdges = directed ? (long) n * (n - 1) : (long) n * (n - 1) / 2;
+        long targetEdges = Math.max(1, (long) (density * maxEdges));
+        Family family = isDAG ? Family.UNIFORM_DAG : Family.UNIFORM;
 
-        if (edges.size() < targetEdges) {
-            System.out.printf("Warning: only %d edges generated (target was %d) for %s%n",
-                    edges.size(), targetEdges, filename);
-        }
+        long[] count = new long[1];
+        try (JsonWriter w = openJson(filename, true)) {
+            beginDataset(w, directed, n);
+            EdgeSink sink = jsonSink(w, count);
+            long generated = generate(family, n, targetEdges, seed, sink);
+            if (generated < targetEdges) {
+                System.out.printf("Warning: only %d edges generated (target was %d) for %s%n",
+                        generated, targetEdges, filename);
+            }
 
 // Add small guaranteed SCCs for cyclic graphs
-        if (!isDAG && n >= 6) {
-            edges.add(Map.of("u", 0, "v", 1, "w", 2));
-            edges.add(Map.of("u", 1, "v", 0, "w", 3));
-            edges.add(Map.of("u", 2, "v", 3, "w", 1));
-            edges.add(Map.of("u", 3, "v", 2, "w", 4));
-        }
-
-// Build JSON object
-        Map<String, Object> json = new LinkedHashMap<>();
-        json.put("directed", directed);
-        json.put("n", n);
-        json.put("edges", edges);
-        json.put("source", 0);
-        json.put("weight_model", "edge");
-
-// Save JSON
-        Gson gson = new GsonBuilder().setPrettyPrinting().create();
-        try (FileWriter fw = new FileWriter(filename)) {
-            gson.toJson(json, fw);
+            if (!isDAG && n >= 6) {
+                sink.accept(0, 1, 2);
+                sink.accept(1, 0, 3);
+                sink.accept(2, 3, 1);
+                sink.accept(3, 2, 4);
+            }
+            endDataset(w);
         }
 
 // Print concise summary (for report table)
@@ -113,10 +135,155 @@ public class DataGenerator {
                 "%-20s | %8d | %5d | %7.2f | %-7s | %-9s%n",
                 filename.replace("data/", ""),
                 n,
-                edges.size(),
+                count[0],
                 density,
                 isDAG ? "DAG" : "Cyclic",
                 directed ? "true" : "false"
         );
     }
+
+    /** Streams a generated directed graph to a dataset_*.json style file; returns the edge count. */
+    public static long writeJson(String path, Family family, int n, long m, long seed, boolean pretty) throws IOException {
+        long[] count = new long[1];
+        try (JsonWriter w = openJson(path, pretty)) {
+            beginDataset(w, true, n);
+            generate(family, n, m, seed, jsonSink(w, count));
+            endDataset(w);
+        }
+        return count[0];
+    }
+
+    /** Writes a generated directed graph in {@link BinaryGraphIO} format; returns the edge count. */
+    public static long writeBinary(String path, Family family, int n, long m, long seed) throws IOException {
+        if (m > Integer.MAX_VALUE - 16) throw new IllegalArgumentException("Too many edges for CSR: " + m);
+        CsrGraph.Builder b = new CsrGraph.Builder(n, true, (int) m);
+        generate(family, n, m, seed, b::addArc);
+        CsrGraph g = b.build();
+        BinaryGraphIO.write(path, g, 0, "edge");
+        return g.edgeCount();
+    }
+
+    /**
+     * Emits up to {@code m} distinct edges of the given family (no self-loops).
+     * Gives up after 10 attempts per edge, so the result can fall short of
+     * {@code m} when the family cannot hold that many edges.
+     *
+     * @return number of edges emitted
+     */
+    public static long generate(Family family, int n, long m, long seed, EdgeSink sink) throws IOException {
+        if (n < 2) return 0;
+        SplittableRandom rnd = new SplittableRandom(seed);
+        LongHashSet used = new LongHashSet((int) Math.min(m, 1 << 29));
+        long emitted = 0;
+
+        if (family == Family.CHAIN_HEAVY) {// backbone first: the deepest possible dependency chain
+            for (int u = 0; u + 1 < n && emitted < m; u++) {
+                used.add(LongHashSet.key(u, u + 1));
+                sink.accept(u, u + 1, 1 + rnd.nextInt(MAX_WEIGHT));
+                emitted++;
+            }
+        }
+        if (family == Family.SMALL_SCCS) {// close every group into a cycle
+            for (int start = 0; start < n && emitted < m; ) {
+                int size = Math.min(n - start, 2 + groupSize(start, seed));
+                for (int i = 0; i < size && size > 1 && emitted < m; i++) {
+                    int u = start + i, v = start + (i + 1) % size;
+                    if (used.add(LongHashSet.key(u, v))) {
+                        sink.accept(u, v, 1 + rnd.nextInt(MAX_WEIGHT));
+                        emitted++;
+                    }
+                }
+                start += size;
+            }
+        }
+
+        int layers = Math.max(2, (int) Math.sqrt(n));
+        int layerSize = (n + layers - 1) / layers;
+        int scale = 32 - Integer.numberOfLeadingZeros(n - 1);
+        long maxAttempts = m * 10 + 100; // safety limit to prevent infinite loop
+
+        for (long attempts = 0; emitted < m && attempts < maxAttempts; attempts++) {
+            int u, v;
+            switch (family) {
+                case UNIFORM:
+                    u = rnd.nextInt(n);
+                    v = rnd.nextInt(n);
+                    break;
+                case UNIFORM_DAG:
+                    u = rnd.nextInt(n - 1);
+                    v = u + 1 + rnd.nextInt(n - u - 1);
+                    break;
+                case LAYERED_DAG: {
+                    u = rnd.nextInt(n);
+                    int layer = u / layerSize;
+                    int skip = 1;
+                    while (skip < layers && rnd.nextInt(4) == 0) skip++; // 3/4 of edges hit the next layer
+                    int lo = (layer + skip) * layerSize;
+                    if (lo >= n) continue;
+                    v = lo + rnd.nextInt(Math.min(layerSize, n - lo));
+                    break;
+                }
+                case RMAT: {
+                    u = 0;
+                    v = 0;
+                    for (int bit = scale - 1; bit >= 0; bit--) {
+                        double p = rnd.nextDouble();
+                        if (p < 0.57) continue;
+                        if (p < 0.76) v |= 1 << bit;
+                        else if (p < 0.95) u |= 1 << bit;
+                        else { u |= 1 << bit; v |= 1 << bit; }
+                    }
+                    if (u >= n || v >= n) continue;
+                    break;
+                }
+                case CHAIN_HEAVY:
+                    u = rnd.nextInt(n - 1);
+                    v = Math.min(n - 1, u + 2 + rnd.nextInt(8));
+                    break;
+                case SMALL_SCCS:
+                    u = rnd.nextInt(n - 1);
+                    v = u + 1 + rnd.nextInt(Math.min(n - u - 1, 64)); // forward only: groups stay separate SCCs
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown family " + family);
+            }
+            if (u == v || !used.add(LongHashSet.key(u, v))) continue;
+            sink.accept(u, v, 1 + rnd.nextInt(MAX_WEIGHT));
+            emitted++;
+        }
+        return emitted;
+    }
+
+    /** Deterministic group size in [0, 6] for SMALL_SCCS, independent of the edge stream. */
+    private static int groupSize(int start, long seed) {
+        long h = (start + seed) * 0x9E3779B97F4A7C15L;
+        return (int) ((h >>> 40) % 7);
+    }
+
+    private static JsonWriter openJson(String path, boolean pretty) throws IOException {
+        JsonWriter w = new JsonWriter(new BufferedWriter(new FileWriter(path), 1 << 16));
+        if (pretty) w.setIndent("  ");
+        return w;
+    }
+
+    private static void beginDataset(JsonWriter w, boolean directed, int n) throws IOException {
+        w.beginObject();
+        w.name("directed").value(directed);
+        w.name("n").value(n);
+        w.name("edges").beginArray();
+    }
+
+    private static void endDataset(JsonWriter w) throws IOException {
+        w.endArray();
+        w.name("source").value(0);
+        w.name("weight_model").value("edge");
+        w.endObject();
+    }
+
+    private static EdgeSink jsonSink(JsonWriter w, long[] count) {
+        return (u, v, wt) -> {
+            w.beginObject().name("u").value(u).name("v").value(v).name("w").value(wt).endObject();
+            count[0]++;
+        };
+    }
 }
@@ -0,0 +1,56 @@
+package graph.common;
+
+/**
+ * Sequential reader over the out-arcs of one vertex at a time, for
+ * representations that cannot address an arc by index cheaply (see
+ * {@link CompressedGraph}). Every {@link Adjacency} hands one out through
+ * {@link Adjacency#cursor()}. A cursor belongs to one thread; {@link #mark()}
+ * and {@link #resume(int, long)} let a DFS park a half-read list in one long
+ * per stack frame.
+ */
+public abstract class EdgeCursor {
+
+    /** Positions the cursor before the first out-arc of u. */
+    public abstract EdgeCursor reset(int u);
+
+    public abstract boolean hasNext();
+
+    /** Advances to the next arc and returns its target. */
+    public abstract int next();
+
+    /** Weight of the arc last returned by {@link #next()}. */
+    public abstract long weight();
+
+    /** Opaque position, valid for {@link #resume(int, long)} on the same vertex. */
+    public abstract long mark();
+
+    public abstract void resume(int u, long mark);
+
+    /** Cursor over any adjacency through its global arc indices. */
+    static final class Indexed extends EdgeCursor {
+        private final Adjacency g;
+        private int e, end;
+
+        Indexed(Adjacency g) {
+            this.g = g;
+        }
+
+        @Override
+        public EdgeCursor reset(int u) {
+            e = g.begin(u);
+            end = g.end(u);
+            return this;
+        }
+
+        @Override public boolean hasNext() { return e < end; }
+        @Override public int next() { return g.target(e++); }
+        @Override public long weight() { return g.weight(e - 1); }
+        @Override public long mark() { return e; }
+
+        @Override
+        public void resume(int u, long mark) {
+            e = (int) mark;
+            end = g.end(u);
+        }
+    }
+}
@@ -2,27 +2,99 @@ package graph.common;
 
 import java.util.*;
 
+/**
+ * Mutable, list-style view of a {@link CsrGraph}.
+ * Edges are collected into a primitive builder and laid out as CSR arrays
+ * by {@link #csr()}; {@link #adj} and {@link #edges} decode {@link Edge}
+ * objects on demand instead of storing them. The builder is kept, so an
+ * edge added after a read is appended to it rather than copied back out of
+ * the CSR; the next read lays the CSR out again, so add edges in batches.
+ * Reads may run on several threads; {@code addEdge} must not overlap them.
+ */
 public class Graph {
     public final int n;
     public final boolean directed;
-    public final List<List<Edge>> adj;
-    public final List<Edge> edges = new ArrayList<>();
+    public final List<List<Edge>> adj = new AdjView();
+    public final List<Edge> edges = new EdgeView();
+
+    private CsrGraph.Builder builder; // guarded by this
+    private volatile CsrGraph csr;
 
     public Graph(int n, boolean directed) {
         this.n = n;
         this.directed = directed;
-        adj = new ArrayList<>(n);
-        for (int i = 0; i < n; i++) adj.add(new ArrayList<>());
+        this.builder = new CsrGraph.Builder(n, directed);
+    }
+
+    /** Wraps an already built CSR graph without copying it. */
+    public Graph(CsrGraph csr) {
+        this.n = csr.n;
+        this.directed = csr.directed;
+        this.csr = csr;
+    }
+
+    /** A wrapped CSR graph is copied into a builder once, on its first added edge. */
+    public synchronized void addEdge(int u, int v, long w) {
+        if (builder == null) builder = CsrGraph.Builder.of(csr);
+        builder.addEdge(u, v, w);
+        csr = null;
+    }
+
+    /** Returns the CSR form of this graph, building it once after the last change. */
+    public CsrGraph csr() {
+        CsrGraph g = csr;
+        if (g == null) {
+            synchronized (this) {
+                g = csr;
+                if (g == null) csr = g = builder.build();
+            }
+        }
+        return g;
     }
 
-    public void addEdge(int u, int v, long w) {
-        Edge e = new Edge(u, v, w);
-        adj.get(u).add(e);
-        edges.add(e);
-        if (!directed) {
-            Edge rev = new Edge(v, u, w);
-            adj.get(v).add(rev);
-            edges.add(rev);
+    private class AdjView extends AbstractList<List<Edge>> {
+        @Override public int size() { return n; }
+
+        @Override public List<Edge> get(int u) {
+            CsrGraph g = csr();
+            int b = g.offsets[u], len = g.offsets[u + 1] - b;
+            return new AbstractList<>() {
+                @Override public int size() { return len; }
+                @Override public Edge get(int i) {
+                    Objects.checkIndex(i, len);
+                    return new Edge(u, g.targets[b + i], g.weights[b + i]);
+                }
+            };
+        }
+    }
+
+    private class EdgeView extends AbstractList<Edge> {
+        @Override public int size() { return csr().edgeCount(); }
+
+        @Override public Edge get(int i) {
+            CsrGraph g = csr();
+            Objects.checkIndex(i, g.edgeCount());
+            int lo = 0, hi = g.n - 1;// last u with offsets[u] <= i
+            while (lo < hi) {
+                int mid = (lo + hi + 1) >>> 1;
+                if (g.offsets[mid] <= i) lo = mid; else hi = mid - 1;
+            }
+            return new Edge(lo, g.targets[i], g.weights[i]);
+        }
+
+        @Override public Iterator<Edge> iterator() {
+            CsrGraph g = csr();
+            return new Iterator<>() {
+                int u = 0, e = 0;
+                @Override public boolean hasNext() { return e < g.edgeCount(); }
+                @Override public Edge next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    while (g.offsets[u + 1] <= e) u++;
+                    Edge edge = new Edge(u, g.targets[e], g.weights[e]);
+                    e++;
+                    return edge;
+                }
+            };
         }
     }
 }
@@ -1,47 +1,148 @@
 package graph.common;
 
-import com.google.gson.*;
-import java.io.FileReader;
+import com.google.gson.stream.JsonReader;
+
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
 
 public class JsonIO {
+    private static final int BUFFER_CHARS = 1 << 20;
+
     /**
      * Reads a JSON file and constructs a Graph object.
-     * Returns a container with Graph + source + weight_model.
+     * Returns a container with Graph + source + weight_model (+ per-task
+     * "durations" for the node model, if the file has them).
+     * The document is streamed token by token: edges go straight into a
+     * {@link CsrGraph.Builder}, so no parse tree is ever materialized.
      */
     public static LoadedGraph readGraph(String path) throws IOException {
-        Gson gson = new Gson();
-        JsonObject obj = gson.fromJson(new FileReader(path), JsonObject.class);
+        try (FileChannel ch = FileChannel.open(Path.of(path));
+             Reader in = new BufferedReader(
+                     Channels.newReader(ch, StandardCharsets.UTF_8.newDecoder(), BUFFER_CHARS), BUFFER_CHARS)) {
+            return readGraph(in, path);
+        }
+    }
+
+    /** Streams a graph document from any reader; the caller owns the reader. */
+    public static LoadedGraph readGraph(Reader reader, String name) throws IOException {
+        JsonReader in = new JsonReader(reader);
+        int n = -1;
+        Boolean directed = null;
+        int source = 0;
+        String weightModel = "edge";
+        long[] durations = null;
+        CsrGraph.Builder builder = null;
+        EdgeStage staged = null; // only used when "edges" precedes "n" or "directed"
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "n": n = in.nextInt(); break;
+                case "directed": directed = in.nextBoolean(); break;
+                case "source": source = in.nextInt(); break;
+                case "weight_model": weightModel = in.nextString(); break;
+                case "durations": durations = readLongs(in); break;
+                case "edges":
+                    if (n >= 0 && directed != null) {
+                        if (builder == null) builder = new CsrGraph.Builder(n, directed);
+                        readEdges(in, builder, null, name);
+                    } else {
+                        if (staged == null) staged = new EdgeStage();
+                        readEdges(in, null, staged, name);
+                    }
+                    break;
+                default: in.skipValue();
+            }
+        }
+        in.endObject();
+
+        if (n < 0 || directed == null)
+            throw new IOException("Missing \"n\" or \"directed\" in " + name);
+        if (builder == null) builder = new CsrGraph.Builder(n, directed, staged == null ? 16 : staged.m);
+        if (staged != null) staged.replay(builder);
+
+        if (durations != null && durations.length != n)
+            throw new IOException("Expected " + n + " durations, found " + durations.length + " in " + name);
 
-        boolean directed = obj.get("directed").getAsBoolean();
-        int n = obj.get("n").getAsInt();
-        Graph g = new Graph(n, directed);
+        return new LoadedGraph(new Graph(builder.build()), source, weightModel, durations);
+    }
 
-        JsonArray arr = obj.getAsJsonArray("edges");
-        for (JsonElement el : arr) {
-            JsonObject e = el.getAsJsonObject();
-            int u = e.get("u").getAsInt();
-            int v = e.get("v").getAsInt();
-            long w = e.get("w").getAsLong();
-            g.addEdge(u, v, w);
+    private static long[] readLongs(JsonReader in) throws IOException {
+        long[] out = new long[16];
+        int k = 0;
+        in.beginArray();
+        while (in.hasNext()) {
+            if (k == out.length) out = Arrays.copyOf(out, k * 2);
+            out[k++] = in.nextLong();
         }
+        in.endArray();
+        return Arrays.copyOf(out, k);
+    }
+
+    private static void readEdges(JsonReader in, CsrGraph.Builder out, EdgeStage stage, String name) throws IOException {
+        in.beginArray();
+        while (in.hasNext()) {
+            int u = -1, v = -1;
+            long w = 0;
+            boolean hasW = false;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "u": u = in.nextInt(); break;
+                    case "v": v = in.nextInt(); break;
+                    case "w": w = in.nextLong(); hasW = true; break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            if (u < 0 || v < 0 || !hasW)
+                throw new IOException("Edge without u/v/w at " + in.getPath() + " in " + name);
+            if (out != null) out.addEdge(u, v, w); else stage.add(u, v, w);
+        }
+        in.endArray();
+    }
 
-        int source = obj.has("source") ? obj.get("source").getAsInt() : 0;
-        String weightModel = obj.has("weight_model")
-                ? obj.get("weight_model").getAsString()
-                : "edge";
+    /** Raw edge triples held back until the header fields are known. */
+    private static final class EdgeStage {
+        int[] us = new int[16], vs = new int[16];
+        long[] ws = new long[16];
+        int m = 0;
 
-        return new LoadedGraph(g, source, weightModel);
+        void add(int u, int v, long w) {
+            if (m == us.length) {
+                int cap = m + (m >> 1) + 16;
+                us = Arrays.copyOf(us, cap);
+                vs = Arrays.copyOf(vs, cap);
+                ws = Arrays.copyOf(ws, cap);
+            }
+            us[m] = u; vs[m] = v; ws[m] = w;
+            m++;
+        }
+
+        void replay(CsrGraph.Builder b) {
+            for (int i = 0; i < m; i++) b.addEdge(us[i], vs[i], ws[i]);
+        }
     }
 
     public static class LoadedGraph {
         public final Graph graph;
         public final int source;
         public final String weightModel;
+        public final long[] durations; // null unless the file lists them
         public LoadedGraph(Graph g, int s, String w) {
+            this(g, s, w, null);
+        }
+        public LoadedGraph(Graph g, int s, String w, long[] durations) {
             this.graph = g;
             this.source = s;
             this.weightModel = w;
+            this.durations = durations;
         }
     }
 }
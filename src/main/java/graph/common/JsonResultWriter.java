@@ -1,19 +1,58 @@
 package graph.common;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
 
-import java.io.FileWriter;
+import java.io.BufferedWriter;
 import java.io.IOException;
-import java.util.HashMap;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
 import java.util.Map;
 
 /**
  * Writes algorithm results into a structured JSON file.
  * Used for storing detailed outputs of SCC, Topo, and DAG-SP.
+ * Metrics are written as typed objects (see {@link Metrics#toMap()}).
+ * Arrays are streamed element by element through a {@link JsonWriter} on a
+ * buffered file channel, so no document tree is built and memory stays
+ * constant however many components there are.
  */
 public class JsonResultWriter {
+    private static final int BUFFER_CHARS = 1 << 20;
+
+    /** Primitive variant: SCCs in CSR layout ({@code offsets[c] .. offsets[c+1]} into {@code members}). */
+    public static void write(String path,
+                             int[] sccOffsets, int[] sccMembers,
+                             int[] topo,
+                             long[] shortest,
+                             int[] criticalPath,
+                             long criticalLength,
+                             Metrics m1, Metrics m2, Metrics m3, Metrics m4) throws IOException {
+        try (JsonWriter w = open(path)) {
+            w.beginObject();
+            w.name("scc_count").value(sccOffsets.length - 1);
+            w.name("scc_list").beginArray();
+            for (int c = 0; c + 1 < sccOffsets.length; c++) {
+                w.beginArray();
+                for (int i = sccOffsets[c]; i < sccOffsets[c + 1]; i++) w.value(sccMembers[i]);
+                w.endArray();
+            }
+            w.endArray();
+            w.name("topological_order");
+            ints(w, topo);
+            w.name("shortest_distances");
+            longs(w, shortest);
+            w.name("critical_path");
+            ints(w, criticalPath);
+            w.name("critical_length").value(criticalLength);
+            metrics(w, m1, m2, m3, m4);
+            w.endObject();
+        }
+    }
 
     public static void write(String path,
                              List<List<Integer>> sccs,
@@ -22,32 +61,77 @@ public class JsonResultWriter {
                              List<Integer> longestPath,
                              long longestLen,
                              Metrics m1, Metrics m2, Metrics m3, Metrics m4) throws IOException {
-
-        Map<String, Object> root = new HashMap<>();
-
-        root.put("scc_count", sccs.size());
-        root.put("scc_list", sccs);
-        root.put("topological_order", topo);
-        root.put("shortest_distances", shortest);
-        root.put("critical_path", longestPath);
-        root.put("critical_length", longestLen);
-
-        Map<String, Object> metrics = new HashMap<>();
-        metrics.put("SCC", m1.toString());
-        metrics.put("Topo", m2.toString());
-        metrics.put("Shortest", m3.toString());
-        metrics.put("Longest", m4.toString());
-        root.put("metrics", metrics);
-
-        Gson gson = new GsonBuilder()
-                .disableHtmlEscaping()
-                .setPrettyPrinting()
-                .create();
-
-        try (FileWriter fw = new FileWriter(path)) {
-            gson.toJson(root, fw);
+        try (JsonWriter w = open(path)) {
+            w.beginObject();
+            w.name("scc_count").value(sccs.size());
+            w.name("scc_list").beginArray();
+            for (List<Integer> comp : sccs) {
+                w.beginArray();
+                for (int v : comp) w.value(v);
+                w.endArray();
+            }
+            w.endArray();
+            w.name("topological_order").beginArray();
+            for (int v : topo) w.value(v);
+            w.endArray();
+            w.name("shortest_distances");
+            longs(w, shortest);
+            w.name("critical_path").beginArray();
+            for (int v : longestPath) w.value(v);
+            w.endArray();
+            w.name("critical_length").value(longestLen);
+            metrics(w, m1, m2, m3, m4);
+            w.endObject();
         }
+    }
 
-        System.out.println("JSON saved -> " + path);
+    private static JsonWriter open(String path) throws IOException {
+        FileChannel ch = FileChannel.open(Path.of(path), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        Writer out = new BufferedWriter(
+                Channels.newWriter(ch, StandardCharsets.UTF_8.newEncoder(), BUFFER_CHARS), BUFFER_CHARS);
+        JsonWriter w = new JsonWriter(out);
+        w.setIndent("  ");
+        return w;
+    }
+
+    private static void ints(JsonWriter w, int[] xs) throws IOException {
+        w.beginArray();
+        for (int x : xs) w.value(x);
+        w.endArray();
+    }
+
+    private static void longs(JsonWriter w, long[] xs) throws IOException {
+        w.beginArray();
+        for (long x : xs) w.value(x);
+        w.endArray();
+    }
+
+    private static void metrics(JsonWriter w, Metrics m1, Metrics m2, Metrics m3, Metrics m4) throws IOException {
+        w.name("metrics").beginObject();
+        w.name("SCC");
+        value(w, m1.toMap());
+        w.name("Topo");
+        value(w, m2.toMap());
+        w.name("Shortest");
+        value(w, m3.toMap());
+        w.name("Longest");
+        value(w, m4.toMap());
+        w.endObject();
+    }
+
+    private static void value(JsonWriter w, Object v) throws IOException {
+        if (v instanceof Map) {
+            w.beginObject();
+            for (Map.Entry<?, ?> e : ((Map<?, ?>) v).entrySet()) {
+                w.name(String.valueOf(e.getKey()));
+                value(w, e.getValue());
+            }
+            w.endObject();
+        } else if (v instanceof Number) {
+            w.value((Number) v);
+        } else {
+            w.value(String.valueOf(v));
+        }
     }
 }
@@ -0,0 +1,79 @@
+package graph.common;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing set of primitive longs (linear probing, load factor 1/2).
+ * Used wherever edge keys {@code (u << 32) | v} must be deduplicated
+ * without boxing each one into a {@code Long}.
+ */
+public final class LongHashSet {
+    private static final long EMPTY = 0L;
+
+    private long[] keys;
+    private int mask;
+    private int size;
+    private boolean hasEmptyKey; // the key 0 is tracked out of band
+
+    public LongHashSet(int expected) {
+        int cap = Integer.highestOneBit(Math.min(Math.max(4, expected), 1 << 29) * 2 - 1) << 1;
+        keys = new long[cap];
+        mask = cap - 1;
+    }
+
+    public static long key(int u, int v) {
+        return ((long) u << 32) | (v & 0xffffffffL);
+    }
+
+    /** Adds the key; returns false if it was already present. */
+    public boolean add(long k) {
+        if (k == EMPTY) {
+            if (hasEmptyKey) return false;
+            hasEmptyKey = true;
+            size++;
+            return true;
+        }
+        int i = slot(k);
+        while (keys[i] != EMPTY) {
+            if (keys[i] == k) return false;
+            i = (i + 1) & mask;
+        }
+        keys[i] = k;
+        if (++size > (mask + 1) >>> 1) rehash();
+        return true;
+    }
+
+    public boolean contains(long k) {
+        if (k == EMPTY) return hasEmptyKey;
+        for (int i = slot(k); keys[i] != EMPTY; i = (i + 1) & mask) {
+            if (keys[i] == k) return true;
+        }
+        return false;
+    }
+
+    public int size() { return size; }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        hasEmptyKey = false;
+    }
+
+    private int slot(long k) {
+        long h = k * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void rehash() {
+        long[] old = keys;
+        if (old.length >= 1 << 30) throw new IllegalStateException("LongHashSet is full");
+        keys = new long[old.length << 1];
+        mask = keys.length - 1;
+        for (long k : old) {
+            if (k == EMPTY) continue;
+            int i = slot(k);
+            while (keys[i] != EMPTY) i = (i + 1) & mask;
+            keys[i] = k;
+        }
+    }
+}
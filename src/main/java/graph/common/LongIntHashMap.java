@@ -0,0 +1,113 @@
+package graph.common;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from primitive long keys to int values (linear probing,
+ * load factor 1/2, backward-shift deletion so no tombstones build up).
+ * The companion of {@link LongHashSet} for edge keys that carry a payload,
+ * e.g. the slot of a condensation edge.
+ */
+public final class LongIntHashMap {
+    private static final long EMPTY = 0L;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private boolean hasEmptyKey; // the key 0 is tracked out of band
+    private int emptyKeyValue;
+
+    public LongIntHashMap(int expected) {
+        int cap = Integer.highestOneBit(Math.min(Math.max(4, expected), 1 << 29) * 2 - 1) << 1;
+        keys = new long[cap];
+        values = new int[cap];
+        mask = cap - 1;
+    }
+
+    /** Returns the value for the key, or {@code missing} if it is absent. */
+    public int get(long k, int missing) {
+        if (k == EMPTY) return hasEmptyKey ? emptyKeyValue : missing;
+        for (int i = slot(k); keys[i] != EMPTY; i = (i + 1) & mask) {
+            if (keys[i] == k) return values[i];
+        }
+        return missing;
+    }
+
+    public void put(long k, int v) {
+        if (k == EMPTY) {
+            if (!hasEmptyKey) size++;
+            hasEmptyKey = true;
+            emptyKeyValue = v;
+            return;
+        }
+        int i = slot(k);
+        while (keys[i] != EMPTY) {
+            if (keys[i] == k) {
+                values[i] = v;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = k;
+        values[i] = v;
+        if (++size > (mask + 1) >>> 1) rehash();
+    }
+
+    /** Removes the key; returns false if it was absent. */
+    public boolean remove(long k) {
+        if (k == EMPTY) {
+            if (!hasEmptyKey) return false;
+            hasEmptyKey = false;
+            size--;
+            return true;
+        }
+        int i = slot(k);
+        while (keys[i] != k) {
+            if (keys[i] == EMPTY) return false;
+            i = (i + 1) & mask;
+        }
+        // shift later entries of the probe run back into the hole
+        for (int j = (i + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+            int home = slot(keys[j]);
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                keys[i] = keys[j];
+                values[i] = values[j];
+                i = j;
+            }
+        }
+        keys[i] = EMPTY;
+        size--;
+        return true;
+    }
+
+    public int size() { return size; }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        hasEmptyKey = false;
+    }
+
+    private int slot(long k) {
+        long h = k * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        if (oldKeys.length >= 1 << 30) throw new IllegalStateException("LongIntHashMap is full");
+        keys = new long[oldKeys.length << 1];
+        values = new int[keys.length];
+        mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            long k = oldKeys[j];
+            if (k == EMPTY) continue;
+            int i = slot(k);
+            while (keys[i] != EMPTY) i = (i + 1) & mask;
+            keys[i] = k;
+            values[i] = oldValues[j];
+        }
+    }
+}
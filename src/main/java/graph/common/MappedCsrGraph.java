@@ -0,0 +1,66 @@
+package graph.common;
+
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * CSR graph whose offset, target and weight sections stay in a memory-mapped
+ * file (see {@link BinaryGraphIO}). Nothing is copied onto the heap; pages are
+ * loaded by the OS as the algorithms touch them. Each section is split into
+ * chunks because a single mapping is limited to 2 GB.
+ */
+public final class MappedCsrGraph implements Adjacency {
+    static final int INT_CHUNK_SHIFT = 28;  // 2^28 ints  = 1 GB per mapping
+    static final int LONG_CHUNK_SHIFT = 27; // 2^27 longs = 1 GB per mapping
+
+    public final String path;
+    public final int n;
+    public final boolean directed;
+    public final int source;
+    public final String weightModel;
+    private final int m;
+    private final IntBuffer[] offsets, targets;
+    private final LongBuffer[] weights;
+
+    MappedCsrGraph(String path, int n, boolean directed, int source, String weightModel, int m,
+                   IntBuffer[] offsets, IntBuffer[] targets, LongBuffer[] weights) {
+        this.path = path;
+        this.n = n;
+        this.directed = directed;
+        this.source = source;
+        this.weightModel = weightModel;
+        this.m = m;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    @Override public int n() { return n; }
+    @Override public boolean directed() { return directed; }
+    @Override public int edgeCount() { return m; }
+    @Override public int begin(int u) { return intAt(offsets, u); }
+    @Override public int end(int u) { return intAt(offsets, u + 1); }
+    @Override public int target(int e) { return intAt(targets, e); }
+
+    @Override
+    public long weight(int e) {
+        return weights[e >>> LONG_CHUNK_SHIFT].get(e & ((1 << LONG_CHUNK_SHIFT) - 1));
+    }
+
+    private static int intAt(IntBuffer[] chunks, int i) {
+        return chunks[i >>> INT_CHUNK_SHIFT].get(i & ((1 << INT_CHUNK_SHIFT) - 1));
+    }
+
+    /** Copies the mapped sections into an on-heap {@link CsrGraph}. */
+    public CsrGraph toHeap() {
+        int[] off = new int[n + 1];
+        int[] tgt = new int[m];
+        long[] w = new long[m];
+        for (int i = 0; i <= n; i++) off[i] = intAt(offsets, i);
+        for (int e = 0; e < m; e++) {
+            tgt[e] = target(e);
+            w[e] = weight(e);
+        }
+        return new CsrGraph(n, directed, off, tgt, w);
+    }
+}
@@ -1,22 +1,250 @@
 package graph.common;
 
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Work counters and timings of one algorithm run.
+ * {@link #start()}/{@link #stop()} bracket the main run in nanoseconds and,
+ * while {@link #ENABLED}, also record the bytes the calling thread allocated
+ * and the GC time spent in between. Named phases ({@link #phase(String, Step)})
+ * do the same for sub-steps and are also emitted as JFR events when a
+ * recording is active.
+ * Hot loops count into locals and flush them under {@code if (Metrics.ENABLED)};
+ * {@code -Dmetrics.enabled=false} makes that a constant false, so the JIT
+ * drops the counting altogether.
+ */
 public class Metrics {
+    public static final boolean ENABLED = !"false".equals(System.getProperty("metrics.enabled"));
+
+    private static final com.sun.management.ThreadMXBean THREADS = ENABLED ? threads() : null;
+    private static final List<GarbageCollectorMXBean> GCS =
+            ENABLED ? ManagementFactory.getGarbageCollectorMXBeans() : List.of();
+
     public long startTime, endTime;
+    public long allocatedBytes, gcMillis; // of the last start/stop interval
     public long dfsCalls = 0;
     public long dfsEdges = 0;
     public long kahnPushes = 0;
     public long kahnPops = 0;
     public long relaxations = 0;
+    private final Map<String, Long> counters = new LinkedHashMap<>();
+    private final Map<String, PhaseStats> phases = new LinkedHashMap<>();
+    private long startBytes, startGc;
+
+    public void start() {
+        if (ENABLED) {
+            startBytes = allocatedByThisThread();
+            startGc = gcTime();
+        }
+        startTime = System.nanoTime();
+    }
+
+    public void stop() {
+        endTime = System.nanoTime();
+        if (ENABLED) {
+            allocatedBytes = allocatedByThisThread() - startBytes;
+            gcMillis = gcTime() - startGc;
+        }
+    }
+
+    public long durationNanos() { return endTime - startTime; }
+
+    /** Duration in milliseconds, with the sub-millisecond part kept. */
+    public double durationMs() { return durationNanos() / 1e6; }
+
+    /** Adds to a named, engine-specific counter (e.g. per-phase work of a parallel engine). */
+    public synchronized void add(String counter, long delta) {
+        counters.merge(counter, delta, Long::sum);
+    }
 
-    public void start() { startTime = System.nanoTime(); }
-    public void stop() { endTime = System.nanoTime(); }
-    public long durationMs() { return (endTime - startTime) / 1_000_000; }
+    public synchronized long counter(String counter) {
+        return counters.getOrDefault(counter, 0L);
+    }
+
+    public synchronized Map<String, Long> counters() {
+        return new LinkedHashMap<>(counters);
+    }
+
+    /** A phase body that returns a value. */
+    @FunctionalInterface
+    public interface Step<T, E extends Exception> {
+        T run() throws E;
+    }
+
+    /** A phase body without a result. */
+    @FunctionalInterface
+    public interface Action<E extends Exception> {
+        void run() throws E;
+    }
+
+    /** Runs body as the named sub-step and returns its result. Repeats accumulate. */
+    public <T, E extends Exception> T phase(String name, Step<T, E> body) throws E {
+        Phase p = new Phase(this, name);
+        try {
+            return body.run();
+        } finally {
+            p.close();
+        }
+    }
+
+    /** Runs body as the named sub-step. Repeats accumulate. */
+    public <E extends Exception> void phase(String name, Action<E> body) throws E {
+        Phase p = new Phase(this, name);
+        try {
+            body.run();
+        } finally {
+            p.close();
+        }
+    }
+
+    public synchronized PhaseStats phaseStats(String name) {
+        return phases.get(name);
+    }
+
+    private synchronized void record(String name, long nanos, long bytes, long gc) {
+        phases.computeIfAbsent(name, k -> new PhaseStats()).add(nanos, bytes, gc);
+    }
+
+    /** Typed view for the JSON/CSV writers: numbers stay numbers, phases nest by name. */
+    public synchronized Map<String, Object> toMap() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("time_ns", durationNanos());
+        m.put("time_ms", durationMs());
+        m.put("allocated_bytes", allocatedBytes);
+        m.put("gc_ms", gcMillis);
+        m.put("dfsCalls", dfsCalls);
+        m.put("dfsEdges", dfsEdges);
+        m.put("kahnPushes", kahnPushes);
+        m.put("kahnPops", kahnPops);
+        m.put("relaxations", relaxations);
+        m.putAll(counters);
+        if (!phases.isEmpty()) {
+            Map<String, Object> p = new LinkedHashMap<>();
+            for (Map.Entry<String, PhaseStats> e : phases.entrySet()) p.put(e.getKey(), e.getValue().toMap());
+            m.put("phases", p);
+        }
+        return m;
+    }
 
     @Override
     public String toString() {
-        return String.format(
-                "time=%dms, dfsCalls=%d, dfsEdges=%d, kahnPushes=%d, kahnPops=%d, relax=%d",
+        StringBuilder sb = new StringBuilder(String.format(java.util.Locale.ROOT,
+                "time=%.3fms, dfsCalls=%d, dfsEdges=%d, kahnPushes=%d, kahnPops=%d, relax=%d",
                 durationMs(), dfsCalls, dfsEdges, kahnPushes, kahnPops, relaxations
-        );
+        ));
+        for (Map.Entry<String, Long> c : counters().entrySet()) {
+            sb.append(", ").append(c.getKey()).append('=').append(c.getValue());
+        }
+        synchronized (this) {
+            for (Map.Entry<String, PhaseStats> p : phases.entrySet()) {
+                sb.append(", ").append(p.getKey()).append('=')
+                        .append(String.format(java.util.Locale.ROOT, "%.3fms", p.getValue().nanos / 1e6));
+            }
+        }
+        return sb.toString();
+    }
+
+    /** Totals of every closed {@link Phase} with one name. */
+    public static final class PhaseStats {
+        public long count, nanos, allocatedBytes, gcMillis;
+
+        void add(long nanos, long bytes, long gc) {
+            count++;
+            this.nanos += nanos;
+            allocatedBytes += bytes;
+            gcMillis += gc;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("count", count);
+            m.put("time_ns", nanos);
+            m.put("allocated_bytes", allocatedBytes);
+            m.put("gc_ms", gcMillis);
+            return m;
+        }
+    }
+
+    /** One timed sub-step. Allocation is that of the opening thread, GC time is process-wide. */
+    private static final class Phase {
+        private final Metrics owner;
+        private final String name;
+        private final PhaseEvent event;
+        private final long t0, bytes0, gc0;
+
+        private Phase(Metrics owner, String name) {
+            this.owner = owner;
+            this.name = name;
+            if (ENABLED) {
+                event = new PhaseEvent();
+                event.begin();
+                bytes0 = allocatedByThisThread();
+                gc0 = gcTime();
+            } else {
+                event = null;
+                bytes0 = gc0 = 0;
+            }
+            t0 = System.nanoTime();
+        }
+
+        void close() {
+            long nanos = System.nanoTime() - t0;
+            if (!ENABLED) {
+                owner.record(name, nanos, 0, 0);
+                return;
+            }
+            long bytes = allocatedByThisThread() - bytes0, gc = gcTime() - gc0;
+            owner.record(name, nanos, bytes, gc);
+            event.end();
+            if (event.shouldCommit()) {
+                event.phase = name;
+                event.allocatedBytes = bytes;
+                event.gcMillis = gc;
+                event.commit();
+            }
+        }
+    }
+
+    @Name("graph.Phase")
+    @Label("Graph Phase")
+    @Category("Graph")
+    @StackTrace(false)
+    static final class PhaseEvent extends Event {
+        @Label("Phase")
+        String phase;
+        @Label("Allocated")
+        @DataAmount
+        long allocatedBytes;
+        @Label("GC Time (ms)")
+        long gcMillis;
+    }
+
+    private static long allocatedByThisThread() {
+        return THREADS == null ? 0 : THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    private static long gcTime() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : GCS) total += Math.max(0, gc.getCollectionTime());
+        return total;
+    }
+
+    private static com.sun.management.ThreadMXBean threads() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean t
+                && t.isThreadAllocatedMemorySupported() && t.isThreadAllocatedMemoryEnabled()) {
+            return t;
+        }
+        return null;
     }
 }
@@ -0,0 +1,131 @@
+package graph.common;
+
+import java.util.Arrays;
+
+/**
+ * Directed multigraph with per-vertex arc lists in both directions, for the
+ * structures that edit a graph in place ({@code DynamicScc},
+ * {@code IncrementalLongestPath}). Arcs are addressed by their position in
+ * the tail's out-list; removal swaps the last arc into the hole, so
+ * positions are only valid until the next removal.
+ */
+public final class MutableDigraph {
+    private static final int[] NO_INTS = new int[0];
+    private static final long[] NO_LONGS = new long[0];
+
+    private final int n;
+    private final int[][] outT, inT;
+    private final long[][] outW, inW;
+    private final int[] outN, inN;
+    private long arcs;
+
+    /** Copies every arc of {@code g}. */
+    public MutableDigraph(Adjacency g) {
+        n = g.n();
+        outT = new int[n][];
+        outW = new long[n][];
+        inT = new int[n][];
+        inW = new long[n][];
+        outN = new int[n];
+        inN = new int[n];
+        int[] indeg = g.inDegrees();
+        for (int u = 0; u < n; u++) {
+            int d = g.end(u) - g.begin(u);
+            outT[u] = d == 0 ? NO_INTS : new int[d];
+            outW[u] = d == 0 ? NO_LONGS : new long[d];
+            inT[u] = indeg[u] == 0 ? NO_INTS : new int[indeg[u]];
+            inW[u] = indeg[u] == 0 ? NO_LONGS : new long[indeg[u]];
+        }
+        EdgeCursor c = g.cursor();
+        for (int u = 0; u < n; u++) {
+            for (c.reset(u); c.hasNext(); ) {
+                int v = c.next();
+                long w = c.weight();
+                outT[u][outN[u]] = v;
+                outW[u][outN[u]++] = w;
+                inT[v][inN[v]] = u;
+                inW[v][inN[v]++] = w;
+            }
+        }
+        arcs = g.edgeCount();
+    }
+
+    public int n() { return n; }
+
+    public long arcCount() { return arcs; }
+
+    public int outDegree(int u) { return outN[u]; }
+
+    public int outTarget(int u, int i) { return outT[u][i]; }
+
+    public long outWeight(int u, int i) { return outW[u][i]; }
+
+    public int inDegree(int v) { return inN[v]; }
+
+    public int inSource(int v, int i) { return inT[v][i]; }
+
+    public long inWeight(int v, int i) { return inW[v][i]; }
+
+    public void addArc(int u, int v, long w) {
+        if (outN[u] == outT[u].length) {
+            int cap = Math.max(4, outN[u] * 2);
+            outT[u] = Arrays.copyOf(outT[u], cap);
+            outW[u] = Arrays.copyOf(outW[u], cap);
+        }
+        outT[u][outN[u]] = v;
+        outW[u][outN[u]++] = w;
+        if (inN[v] == inT[v].length) {
+            int cap = Math.max(4, inN[v] * 2);
+            inT[v] = Arrays.copyOf(inT[v], cap);
+            inW[v] = Arrays.copyOf(inW[v], cap);
+        }
+        inT[v][inN[v]] = u;
+        inW[v][inN[v]++] = w;
+        arcs++;
+    }
+
+    /** Position of the most recently placed arc u -> v in u's out-list, or -1. */
+    public int indexOfArc(int u, int v) {
+        for (int i = outN[u] - 1; i >= 0; i--) if (outT[u][i] == v) return i;
+        return -1;
+    }
+
+    /** Removes out-arc {@code i} of u together with its entry in the head's in-list. */
+    public void removeArc(int u, int i) {
+        int v = outT[u][i];
+        int j = mirror(u, i);
+        int last = --outN[u];
+        outT[u][i] = outT[u][last];
+        outW[u][i] = outW[u][last];
+        last = --inN[v];
+        inT[v][j] = inT[v][last];
+        inW[v][j] = inW[v][last];
+        arcs--;
+    }
+
+    /** Changes the weight of out-arc {@code i} of u (and of its in-list entry). */
+    public void setWeight(int u, int i, long w) {
+        int j = mirror(u, i);
+        outW[u][i] = w;
+        inW[outT[u][i]][j] = w;
+    }
+
+    /** Freezes the current arcs into CSR form. */
+    public CsrGraph toCsr() {
+        CsrGraph.Builder b = new CsrGraph.Builder(n, true, (int) Math.min(arcs, Integer.MAX_VALUE - 16));
+        for (int u = 0; u < n; u++) {
+            for (int i = 0; i < outN[u]; i++) b.addArc(u, outT[u][i], outW[u][i]);
+        }
+        return b.build();
+    }
+
+    /** In-list position of the entry for out-arc i of u (same tail and weight; parallel copies are interchangeable). */
+    private int mirror(int u, int i) {
+        int v = outT[u][i];
+        long w = outW[u][i];
+        for (int j = inN[v] - 1; j >= 0; j--) {
+            if (inT[v][j] == u && inW[v][j] == w) return j;
+        }
+        throw new IllegalStateException("Arc lists out of sync at " + u + " -> " + v);
+    }
+}
@@ -0,0 +1,57 @@
+package graph.common;
+
+import java.util.Arrays;
+
+/**
+ * Non-decreasing int sequence (CSR-style offsets) at about two bytes per entry:
+ * one int base per block of 64 entries plus a 16-bit difference per entry.
+ * Blocks spanning 2^16 or more (hub vertices) keep their 64 values as plain ints.
+ */
+final class PackedOffsets {
+    private static final int SHIFT = 6, BLOCK = 1 << SHIFT;
+
+    private final int[] base; // first value of the block, or -1 - index of the block in wide
+    private final char[] rel;
+    private final int[] wide;
+    private final int length;
+
+    PackedOffsets(int[] values) {
+        length = values.length;
+        int blocks = (length + BLOCK - 1) >>> SHIFT;
+        base = new int[blocks];
+        rel = new char[length];
+        int[] w = new int[0];
+        int wideBlocks = 0;
+        for (int b = 0; b < blocks; b++) {
+            int lo = b << SHIFT, hi = Math.min(length, lo + BLOCK);
+            if (values[hi - 1] - values[lo] <= Character.MAX_VALUE) {
+                base[b] = values[lo];
+                for (int i = lo; i < hi; i++) rel[i] = (char) (values[i] - values[lo]);
+            } else {
+                if ((wideBlocks + 1) << SHIFT > w.length) w = Arrays.copyOf(w, Math.max(BLOCK, w.length * 2));
+                System.arraycopy(values, lo, w, wideBlocks << SHIFT, hi - lo);
+                base[b] = -1 - wideBlocks++;
+            }
+        }
+        wide = Arrays.copyOf(w, wideBlocks << SHIFT);
+    }
+
+    int get(int i) {
+        int b = base[i >>> SHIFT];
+        return b >= 0 ? b + rel[i] : wide[((-1 - b) << SHIFT) | (i & (BLOCK - 1))];
+    }
+
+    int length() {
+        return length;
+    }
+
+    int[] toArray() {
+        int[] out = new int[length];
+        for (int i = 0; i < length; i++) out[i] = get(i);
+        return out;
+    }
+
+    long bytes() {
+        return 4L * base.length + 2L * rel.length + 4L * wide.length;
+    }
+}
@@ -0,0 +1,165 @@
+package graph.common;
+
+import java.util.Arrays;
+
+/**
+ * A relabeling of vertex ids for memory locality: {@code newId[v]} is the id
+ * original vertex v gets, {@code oldId} the inverse. {@link #apply} permutes
+ * a graph once (every vertex keeps its arc order, only targets are renamed);
+ * results computed on the copy are mapped back with {@link #restore} and
+ * {@link #toOld}, so callers keep seeing the ids of the input.
+ */
+public final class VertexOrder {
+    public final int[] newId;
+    public final int[] oldId;
+
+    /** Orders that only look at the graph itself; see {@link #topological(int[])} for the DAG one. */
+    public enum Kind {
+        /** Breadth-first discovery over arcs in both directions, from every unvisited vertex in id order. */
+        BFS,
+        /** Reverse Cuthill-McKee: BFS from a minimum-degree vertex, neighbors by ascending degree, reversed. */
+        RCM,
+        /** Descending in+out degree, ties by id: hubs share the first cache lines. */
+        DEGREE;
+
+        public VertexOrder of(Adjacency g) {
+            switch (this) {
+                case BFS: return new VertexOrder(breadthFirst(g, false));
+                case RCM: return new VertexOrder(breadthFirst(g, true));
+                default: return new VertexOrder(byDegree(g));
+            }
+        }
+
+        /** "bfs", "rcm" or "degree"; null or "none" mean no relabeling. */
+        public static Kind byName(String name) {
+            if (name == null || name.equalsIgnoreCase("none")) return null;
+            switch (name.toLowerCase()) {
+                case "bfs": return BFS;
+                case "rcm": return RCM;
+                case "degree": return DEGREE;
+                default: throw new IllegalArgumentException("Unknown vertex order: " + name);
+            }
+        }
+    }
+
+    /** Builds the order from the sequence of original ids, new id 0 first. */
+    public VertexOrder(int[] oldId) {
+        this.oldId = oldId;
+        newId = new int[oldId.length];
+        Arrays.fill(newId, -1);
+        for (int i = 0; i < oldId.length; i++) {
+            if (newId[oldId[i]] != -1) throw new IllegalArgumentException("Vertex " + oldId[i] + " listed twice");
+            newId[oldId[i]] = i;
+        }
+    }
+
+    /** Numbers a DAG's vertices by their position in a topological order, so every arc points to a higher id. */
+    public static VertexOrder topological(int[] topoOrder) {
+        return new VertexOrder(topoOrder);
+    }
+
+    public int size() { return oldId.length; }
+
+    /** The graph with vertex v renamed to newId[v]; arc lists keep their order. */
+    public CsrGraph apply(Adjacency g) {
+        int n = g.n(), m = g.edgeCount();
+        int[] off = new int[n + 1];
+        for (int x = 0; x < n; x++) off[x + 1] = off[x] + g.end(oldId[x]) - g.begin(oldId[x]);
+        int[] tgt = new int[m];
+        long[] w = new long[m];
+        EdgeCursor cur = g.cursor();
+        int k = 0;
+        for (int x = 0; x < n; x++) {
+            for (cur.reset(oldId[x]); cur.hasNext(); k++) {
+                tgt[k] = newId[cur.next()];
+                w[k] = cur.weight();
+            }
+        }
+        return new CsrGraph(n, g.directed(), off, tgt, w);
+    }
+
+    /** Per-vertex values computed on the relabeled graph, indexed by original id. */
+    public long[] restore(long[] byNew) {
+        long[] out = new long[byNew.length];
+        for (int v = 0; v < out.length; v++) out[v] = byNew[newId[v]];
+        return out;
+    }
+
+    /** Per-vertex vertex ids (parents, say) computed on the relabeled graph, both sides renamed back; -1 stays. */
+    public int[] restoreIds(int[] byNew) {
+        int[] out = new int[byNew.length];
+        for (int v = 0; v < out.length; v++) {
+            int x = byNew[newId[v]];
+            out[v] = x < 0 ? x : oldId[x];
+        }
+        return out;
+    }
+
+    /** A list of new ids (an order, a path) as original ids. */
+    public int[] toOld(int[] ids) {
+        int[] out = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) out[i] = oldId[ids[i]];
+        return out;
+    }
+
+    private static int[] byDegree(Adjacency g) {
+        int n = g.n();
+        int[] deg = g.inDegrees();
+        int max = 0;
+        for (int v = 0; v < n; v++) {
+            deg[v] += g.end(v) - g.begin(v);
+            max = Math.max(max, deg[v]);
+        }
+        int[] start = new int[max + 2]; // counting sort, highest degree first
+        for (int v = 0; v < n; v++) start[max - deg[v] + 1]++;
+        for (int d = 0; d <= max; d++) start[d + 1] += start[d];
+        int[] seq = new int[n];
+        for (int v = 0; v < n; v++) seq[start[max - deg[v]]++] = v;
+        return seq;
+    }
+
+    private static int[] breadthFirst(Adjacency g, boolean cuthillMcKee) {
+        int n = g.n();
+        CsrGraph in = CsrGraph.transpose(g);
+        int[] deg = new int[n];
+        for (int v = 0; v < n; v++) deg[v] = g.end(v) - g.begin(v) + in.end(v) - in.begin(v);
+        int[] starts = cuthillMcKee ? byDegree(g) : null; // reversed below: lowest degree first
+        boolean[] seen = new boolean[n];
+        int[] seq = new int[n];
+        long[] keys = cuthillMcKee ? new long[16] : null;
+        EdgeCursor cur = g.cursor();
+        int tail = 0;
+        for (int i = 0; i < n; i++) {
+            int s = cuthillMcKee ? starts[n - 1 - i] : i;
+            if (seen[s]) continue;
+            seen[s] = true;
+            int head = tail;
+            seq[tail++] = s;
+            while (head < tail) {
+                int u = seq[head++], first = tail;
+                for (cur.reset(u); cur.hasNext(); ) tail = visit(cur.next(), seen, seq, tail);
+                for (int e = in.begin(u), end = in.end(u); e < end; e++) tail = visit(in.target(e), seen, seq, tail);
+                if (cuthillMcKee && tail - first > 1) {
+                    int k = tail - first;
+                    if (keys.length < k) keys = new long[Math.max(k, 2 * keys.length)];
+                    for (int j = 0; j < k; j++) keys[j] = ((long) deg[seq[first + j]] << 32) | seq[first + j];
+                    Arrays.sort(keys, 0, k);
+                    for (int j = 0; j < k; j++) seq[first + j] = (int) keys[j];
+                }
+            }
+        }
+        if (cuthillMcKee) {
+            for (int i = 0, j = n - 1; i < j; i++, j--) {
+                int t = seq[i]; seq[i] = seq[j]; seq[j] = t;
+            }
+        }
+        return seq;
+    }
+
+    private static int visit(int v, boolean[] seen, int[] seq, int tail) {
+        if (seen[v]) return tail;
+        seen[v] = true;
+        seq[tail++] = v;
+        return tail;
+    }
+}
@@ -1,28 +1,67 @@
 package graph.dagsp;
 
-import graph.common.Edge;
+import graph.common.Adjacency;
+import graph.common.EdgeCursor;
 import graph.common.Graph;
 import graph.common.Metrics;
+import graph.common.VertexOrder;
 import graph.topo.KahnTopologicalSort;
 import java.util.*;
 
 /** Computes the longest path in a Directed Acyclic Graph (DAG).*/
 
  public class DAGLongestPath {
-    private final Graph dag;
-    private final List<Integer> topo;
+    private final Adjacency dag;
+    private final int[] topo;
     private final Metrics metrics;
+    private final LevelSweep wavefront; // null: plain sequential sweep
+    private final VertexOrder layout; // non-null: dag is renumbered by it and topo is the identity
 
     public DAGLongestPath(Graph dag, Metrics m) {
+        this(dag.csr(), m);
+    }
+
+    public DAGLongestPath(Adjacency dag, Metrics m) {
         this.dag = dag; this.metrics = m;
-        topo = new KahnTopologicalSort(dag, new Metrics()).sort();
+        topo = new KahnTopologicalSort(dag, new Metrics()).order();
+        wavefront = null;
+        layout = null;
+    }
+
+    /** Reuses a topological order computed elsewhere (see {@code GraphAnalysis}). */
+    public DAGLongestPath(Adjacency dag, int[] topo, Metrics m) {
+        this.dag = dag; this.topo = topo; this.metrics = m;
+        this.wavefront = null;
+        this.layout = null;
+    }
+
+    /** Sweeps a copy renumbered by {@link VertexOrder#topological}; ids in and out are the original DAG's. */
+    public DAGLongestPath(Adjacency rankedDag, VertexOrder layout, Metrics m) {
+        this.dag = rankedDag; this.layout = layout; this.metrics = m;
+        this.topo = DAGShortestPaths.identity(rankedDag.n());
+        this.wavefront = null;
+    }
+
+    /** Relaxes level by level, in parallel across each level. */
+    public DAGLongestPath(LevelSweep wavefront, Metrics m) {
+        this.dag = wavefront.dag(); this.topo = wavefront.levels().order; this.metrics = m;
+        this.wavefront = wavefront;
+        this.layout = null;
     }
 
     /**
      * Initializes the longest path solver with a given DAG and metrics tracker.
      */
     public Result longestFrom(int src) {
-        int n = dag.n;
+        if (wavefront != null) return wavefront.longest(src, metrics);
+        if (layout == null) return sweep(src, 0);
+        Result r = sweep(layout.newId[src], layout.newId[src]);
+        return new Result(layout.restore(r.dist), layout.restoreIds(r.parent));
+    }
+
+    /** Relaxes topo[first..] from src; everything before first must be unreachable from it. */
+    private Result sweep(int src, int first) {
+        int n = dag.n();
         long NEG_INF = Long.MIN_VALUE / 4;
         long[] dist = new long[n];
         int[] parent = new int[n];
@@ -30,21 +69,37 @@ import java.util.*;
         Arrays.fill(parent, -1);
         dist[src] = 0;
 
+        long relaxed = 0;
+        EdgeCursor cur = dag.cursor();
         metrics.start();
-        for (int u : topo) {
+        for (int i = first, end = topo.length; i < end; i++) {
+            int u = topo[i];
             if (dist[u] == NEG_INF) continue;
-            for (Edge e : dag.adj.get(u)) {
-                if (dist[e.v] < dist[u] + e.w) {
-                    dist[e.v] = dist[u] + e.w;
-                    parent[e.v] = u;
-                    metrics.relaxations++;
+            for (cur.reset(u); cur.hasNext(); ) {
+                int v = cur.next();
+                if (dist[v] < dist[u] + cur.weight()) {
+                    dist[v] = dist[u] + cur.weight();
+                    parent[v] = u;
+                    relaxed++;
                 }
             }
         }
         metrics.stop();
+        if (Metrics.ENABLED) metrics.relaxations += relaxed;
         return new Result(dist, parent);
     }
 
+    /**
+     * Longest distances from every source in one topological sweep
+     * (chunks of sources run in parallel); unreachable entries hold Long.MIN_VALUE / 4.
+     */
+    public DistanceBlock longestFrom(int[] sources) {
+        if (layout == null) return new MultiSourceSweep(dag, topo).longest(sources, metrics);
+        int[] ranked = new int[sources.length];
+        for (int i = 0; i < sources.length; i++) ranked[i] = layout.newId[sources[i]];
+        return new MultiSourceSweep(dag, topo).longest(ranked, metrics).restore(layout, sources);
+    }
+
     /**
      * Container for returning both distance and predecessor arrays.
      */
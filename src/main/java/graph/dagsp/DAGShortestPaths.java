@@ -1,17 +1,21 @@
 package graph.dagsp;
 
-import graph.common.Edge;
+import graph.common.Adjacency;
+import graph.common.EdgeCursor;
 import graph.common.Graph;
 import graph.common.Metrics;
+import graph.common.VertexOrder;
 import graph.topo.KahnTopologicalSort;
 import java.util.*;
 
 /** Computes single-source shortest paths in a Directed Acyclic Graph (DAG).
  */
 public class DAGShortestPaths {
-    private final Graph dag;
-    private final List<Integer> topo;
+    private final Adjacency dag;
+    private final int[] topo;
     private final Metrics metrics;
+    private final LevelSweep wavefront; // null: plain sequential sweep
+    private final VertexOrder layout; // non-null: dag is renumbered by it and topo is the identity
 
     /**
      * Initializes the shortest-path solver with a given DAG and metrics tracker.
@@ -20,33 +24,93 @@ public class DAGShortestPaths {
      * @param metrics shared metrics collector for performance statistics
      */
     public DAGShortestPaths(Graph dag, Metrics metrics) {
+        this(dag.csr(), metrics);
+    }
+
+    public DAGShortestPaths(Adjacency dag, Metrics metrics) {
         this.dag = dag; this.metrics = metrics;
 // Compute topological order once before relaxation
         KahnTopologicalSort k = new KahnTopologicalSort(dag, new Metrics());
-        topo = k.sort();
+        topo = k.order();
+        wavefront = null;
+        layout = null;
+    }
+
+    /** Reuses a topological order computed elsewhere (see {@code GraphAnalysis}). */
+    public DAGShortestPaths(Adjacency dag, int[] topo, Metrics metrics) {
+        this.dag = dag; this.topo = topo; this.metrics = metrics;
+        this.wavefront = null;
+        this.layout = null;
+    }
+
+    /**
+     * Sweeps a copy of the DAG renumbered by {@link VertexOrder#topological}, so
+     * the relaxation walks dist and the arc arrays front to back. Sources and
+     * results stay in the ids of the original DAG.
+     */
+    public DAGShortestPaths(Adjacency rankedDag, VertexOrder layout, Metrics metrics) {
+        this.dag = rankedDag; this.layout = layout; this.metrics = metrics;
+        this.topo = identity(rankedDag.n()); // src sits at rank src: the sweep starts there
+        this.wavefront = null;
+    }
+
+    /** Relaxes level by level, in parallel across each level. */
+    public DAGShortestPaths(LevelSweep wavefront, Metrics metrics) {
+        this.dag = wavefront.dag(); this.topo = wavefront.levels().order; this.metrics = metrics;
+        this.wavefront = wavefront;
+        this.layout = null;
     }
 
     /**
      * Computes the shortest distances from a single source node to all others.
      */
     public long[] shortestFrom(int src) {
-        int n = dag.n;
+        if (wavefront != null) return wavefront.shortest(src, metrics);
+        if (layout != null) return layout.restore(sweep(layout.newId[src], layout.newId[src]));
+        return sweep(src, 0);
+    }
+
+    /** Relaxes topo[first..] from src; everything before first must be unreachable from it. */
+    private long[] sweep(int src, int first) {
+        int n = dag.n();
         long INF = Long.MAX_VALUE / 4;
         long[] dist = new long[n];
         Arrays.fill(dist, INF);
         dist[src] = 0;
+        long relaxed = 0;
+        EdgeCursor cur = dag.cursor();
         metrics.start();
 
  // Relax edges in topological order each edge only once
-        for (int u : topo) {
+        for (int i = first, end = topo.length; i < end; i++) {
+            int u = topo[i];
             if (dist[u] == INF) continue;
-            for (Edge e : dag.adj.get(u)) {
-                metrics.relaxations++;
-                if (dist[e.v] > dist[u] + e.w)
-                    dist[e.v] = dist[u] + e.w;
+            relaxed += dag.end(u) - dag.begin(u);
+            for (cur.reset(u); cur.hasNext(); ) {
+                int v = cur.next();
+                if (dist[v] > dist[u] + cur.weight())
+                    dist[v] = dist[u] + cur.weight();
             }
         }
         metrics.stop();
+        if (Metrics.ENABLED) metrics.relaxations += relaxed;
         return dist;
     }
+
+    /**
+     * Shortest distances from every source in one topological sweep
+     * (chunks of sources run in parallel); unreachable entries hold Long.MAX_VALUE / 4.
+     */
+    public DistanceBlock shortestFrom(int[] sources) {
+        if (layout == null) return new MultiSourceSweep(dag, topo).shortest(sources, metrics);
+        int[] ranked = new int[sources.length];
+        for (int i = 0; i < sources.length; i++) ranked[i] = layout.newId[sources[i]];
+        return new MultiSourceSweep(dag, topo).shortest(ranked, metrics).restore(layout, sources);
+    }
+
+    static int[] identity(int n) {
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        return order;
+    }
 }
@@ -0,0 +1,53 @@
+package graph.dagsp;
+
+import graph.common.VertexOrder;
+
+/**
+ * Distances from a batch of sources, as produced by {@link MultiSourceSweep}.
+ * Sources are split into chunks of {@code lanes}; inside a chunk the block is
+ * laid out vertex by vertex with the chunk's sources contiguous, which is the
+ * layout the relaxation loop walks linearly.
+ */
+public final class DistanceBlock {
+    public final int n;
+    public final int[] sources;
+    public final long unreachable;
+    final int lanes;
+    final long[][] chunks;
+    private final int[] slot; // vertex -> position in the chunks; null when they coincide
+
+    DistanceBlock(int n, int[] sources, int lanes, long[][] chunks, long unreachable) {
+        this(n, sources, lanes, chunks, unreachable, null);
+    }
+
+    private DistanceBlock(int n, int[] sources, int lanes, long[][] chunks, long unreachable, int[] slot) {
+        this.n = n;
+        this.sources = sources;
+        this.lanes = lanes;
+        this.chunks = chunks;
+        this.unreachable = unreachable;
+        this.slot = slot;
+    }
+
+    /** The same block, swept over a relabeled DAG, addressed by original ids ({@code sources} included). */
+    DistanceBlock restore(VertexOrder order, int[] originalSources) {
+        return new DistanceBlock(n, originalSources.clone(), lanes, chunks, unreachable, order.newId);
+    }
+
+    /** Distance from {@code sources[i]} to vertex v. */
+    public long get(int i, int v) {
+        int x = slot == null ? v : slot[v];
+        return chunks[i / lanes][x * width(i / lanes) + i % lanes];
+    }
+
+    /** All distances from {@code sources[i]}, laid out like a single-source dist array. */
+    public long[] row(int i) {
+        long[] out = new long[n];
+        for (int v = 0; v < n; v++) out[v] = get(i, v);
+        return out;
+    }
+
+    int width(int chunk) {
+        return Math.min(lanes, sources.length - chunk * lanes);
+    }
+}
@@ -0,0 +1,289 @@
+package graph.dagsp;
+
+import graph.common.Adjacency;
+import graph.common.Metrics;
+import graph.common.MutableDigraph;
+import graph.topo.KahnTopologicalSort;
+
+import java.util.Arrays;
+
+/**
+ * Longest paths from one source that stay current while the DAG changes.
+ * Weight changes and arc insertions/deletions only seed their head vertex;
+ * {@link #refresh()} then pops seeds in topological-rank order from a
+ * min-heap, recomputes each one from its in-arcs and, if its distance
+ * moved, seeds its successors. Every vertex of the affected downstream cone
+ * is visited at most once per refresh; once the cone covers a sixteenth of
+ * the graph the rest is finished by one linear scan of the order. An
+ * inserted arc that runs against the current order repairs the ranks
+ * locally (Pearce–Kelly) and is rejected if it would close a cycle. The
+ * critical endpoint is kept in a max tree, so {@link #criticalLength()} and
+ * {@link #criticalPath()} never scan all vertices.
+ */
+public class IncrementalLongestPath {
+    private static final long NEG_INF = Long.MIN_VALUE / 4;
+
+    private final MutableDigraph dag;
+    private final int src;
+    private final Metrics metrics;
+    private final int n;
+    private final int[] order, rank;
+    private final long[] dist;
+    private final int[] parent;
+    private final long[] best; // max tree over dist: leaves at size + v, ties to the lower index
+    private final int[] bestAt;
+    private final int size;
+
+    private final int[] heap;
+    private final boolean[] queued;
+    private int heapSize;
+    private final int[] mark;
+    private int stamp;
+    private long relaxed; // flushed into metrics once per refresh
+
+    public IncrementalLongestPath(Adjacency dag, int src, Metrics metrics) {
+        this(dag, new KahnTopologicalSort(dag, new Metrics()).order(), src, metrics);
+    }
+
+    /** Reuses a topological order computed elsewhere (see {@code GraphAnalysis}). */
+    public IncrementalLongestPath(Adjacency dag, int[] topo, int src, Metrics metrics) {
+        this.dag = new MutableDigraph(dag);
+        this.src = src;
+        this.metrics = metrics;
+        this.n = dag.n();
+        order = topo.clone();
+        rank = new int[n];
+        for (int i = 0; i < n; i++) rank[order[i]] = i;
+        DAGLongestPath.Result r = new DAGLongestPath(dag, order, metrics).longestFrom(src);
+        dist = r.dist;
+        parent = r.parent;
+
+        int s = 1;
+        while (s < Math.max(1, n)) s <<= 1;
+        size = s;
+        best = new long[2 * s];
+        bestAt = new int[2 * s];
+        Arrays.fill(best, Long.MIN_VALUE);
+        Arrays.fill(bestAt, Integer.MAX_VALUE);
+        for (int v = 0; v < n; v++) {
+            best[s + v] = dist[v];
+            bestAt[s + v] = v;
+        }
+        for (int i = s - 1; i >= 1; i--) pull(i);
+
+        heap = new int[n];
+        queued = new boolean[n];
+        mark = new int[n];
+    }
+
+    /** Sets the weight of one arc u -> v. */
+    public void setWeight(int u, int v, long w) {
+        int i = arc(u, v);
+        dag.setWeight(u, i, w);
+        seed(v);
+    }
+
+    /** Adds arc u -> v; throws IllegalArgumentException (and changes nothing) if it would close a cycle. */
+    public void addEdge(int u, int v, long w) {
+        if (u == v) throw new IllegalArgumentException("Self-loop " + u + " -> " + v + " would close a cycle");
+        if (rank[u] > rank[v]) reorder(u, v);
+        dag.addArc(u, v, w);
+        seed(v);
+    }
+
+    /** Removes one arc u -> v. */
+    public void removeEdge(int u, int v) {
+        dag.removeArc(u, arc(u, v));
+        seed(v);
+    }
+
+    /** Current distances and parents (shared arrays: read-only). */
+    public DAGLongestPath.Result result() {
+        refresh();
+        return new DAGLongestPath.Result(dist, parent);
+    }
+
+    /** Largest distance from the source (as the pipeline reports it). */
+    public long criticalLength() {
+        refresh();
+        return best[1];
+    }
+
+    /** Source to the lowest-numbered vertex at {@link #criticalLength()}. */
+    public int[] criticalPath() {
+        refresh();
+        int end = bestAt[1];
+        int len = 0;
+        for (int v = end; v != -1; v = parent[v]) len++;
+        int[] path = new int[len];
+        for (int v = end; v != -1; v = parent[v]) path[--len] = v;
+        return path;
+    }
+
+    /** Re-relaxes everything seeded since the last refresh; returns the number of vertices recomputed. */
+    public int refresh() {
+        int visited = 0;
+        while (heapSize > 0) {
+            if (visited > n >>> 4) {// the cone is large: a linear scan from here beats the heap
+                visited += scanFrom(rank[heap[0]]);
+                break;
+            }
+            int v = poll();
+            queued[v] = false;
+            visited++;
+            if (relax(v)) {
+                for (int i = 0, deg = dag.outDegree(v); i < deg; i++) seed(dag.outTarget(v, i));
+            }
+        }
+        if (Metrics.ENABLED && visited > 0) {
+            metrics.add("incrementalVisited", visited);
+            metrics.relaxations += relaxed;
+        }
+        relaxed = 0;
+        return visited;
+    }
+
+    /** Walks the order from rank r on, recomputing the queued vertices; empties the heap. */
+    private int scanFrom(int r) {
+        heapSize = 0; // queued[] still flags every pending vertex
+        int visited = 0;
+        for (; r < n; r++) {
+            int v = order[r];
+            if (!queued[v]) continue;
+            queued[v] = false;
+            visited++;
+            if (relax(v)) {
+                for (int i = 0, deg = dag.outDegree(v); i < deg; i++) queued[dag.outTarget(v, i)] = true;
+            }
+        }
+        if (Metrics.ENABLED) metrics.add("incrementalScans", 1);
+        return visited;
+    }
+
+    /** Recomputes v from its in-arcs; returns true if its distance changed. */
+    private boolean relax(int v) {
+        if (v == src) return false;
+        long d = NEG_INF;
+        int from = -1;
+        for (int i = 0, deg = dag.inDegree(v); i < deg; i++) {
+            int u = dag.inSource(v, i);
+            if (dist[u] == NEG_INF) continue;
+            long c = dist[u] + dag.inWeight(v, i);
+            relaxed++;
+            if (from < 0 || c > d || (c == d && rank[u] < rank[from])) { d = c; from = u; }
+        }
+        parent[v] = from;
+        if (d == dist[v]) return false;
+        dist[v] = d;
+        update(v);
+        return true;
+    }
+
+    private int arc(int u, int v) {
+        int i = dag.indexOfArc(u, v);
+        if (i < 0) throw new IllegalArgumentException("No arc " + u + " -> " + v);
+        return i;
+    }
+
+    /**
+     * Makes room for u -> v when rank(u) > rank(v): the vertices reachable
+     * from v with rank below rank(u) move after those reaching u with rank
+     * above rank(v), reusing the same rank slots.
+     */
+    private void reorder(int u, int v) {
+        refresh(); // pending seeds are keyed by the ranks about to change
+        int lo = rank[v], hi = rank[u];
+        int[] fwd = collect(v, true, lo, hi, ++stamp);
+        for (int x : fwd) {
+            if (x == u) throw new IllegalArgumentException("Arc " + u + " -> " + v + " would close a cycle");
+        }
+        int[] bwd = collect(u, false, lo, hi, ++stamp);
+        if (Metrics.ENABLED) metrics.add("reranked", fwd.length + bwd.length);
+        int[] slots = new int[fwd.length + bwd.length];
+        int k = 0;
+        for (int x : bwd) slots[k++] = rank[x];
+        for (int x : fwd) slots[k++] = rank[x];
+        Arrays.sort(slots);
+        sortByRank(bwd);
+        sortByRank(fwd);
+        k = 0;
+        for (int x : bwd) place(x, slots[k++]);
+        for (int x : fwd) place(x, slots[k++]);
+    }
+
+    private int[] collect(int start, boolean forward, int lo, int hi, int s) {
+        int[] stack = new int[16], seen = new int[16];
+        int sp = 0, count = 0;
+        mark[start] = s;
+        stack[sp++] = start;
+        while (sp > 0) {
+            int x = stack[--sp];
+            if (count == seen.length) seen = Arrays.copyOf(seen, count * 2);
+            seen[count++] = x;
+            for (int i = 0, deg = forward ? dag.outDegree(x) : dag.inDegree(x); i < deg; i++) {
+                int y = forward ? dag.outTarget(x, i) : dag.inSource(x, i);
+                if (mark[y] == s || rank[y] < lo || rank[y] > hi) continue;
+                mark[y] = s;
+                if (sp == stack.length) stack = Arrays.copyOf(stack, sp * 2);
+                stack[sp++] = y;
+            }
+        }
+        return Arrays.copyOf(seen, count);
+    }
+
+    private void sortByRank(int[] vs) {
+        for (int i = 0; i < vs.length; i++) vs[i] = rank[vs[i]];
+        Arrays.sort(vs);
+        for (int i = 0; i < vs.length; i++) vs[i] = order[vs[i]];
+    }
+
+    private void place(int x, int r) {
+        rank[x] = r;
+        order[r] = x;
+    }
+
+    // ---- max tree over dist ----
+
+    private void update(int v) {
+        int i = size + v;
+        best[i] = dist[v];
+        for (i >>= 1; i >= 1; i >>= 1) pull(i);
+    }
+
+    private void pull(int i) {
+        int l = 2 * i, r = l + 1;
+        boolean left = best[l] > best[r] || (best[l] == best[r] && bestAt[l] < bestAt[r]);
+        best[i] = left ? best[l] : best[r];
+        bestAt[i] = left ? bestAt[l] : bestAt[r];
+    }
+
+    // ---- min-heap of seeded vertices keyed by rank ----
+
+    private void seed(int v) {
+        if (queued[v]) return;
+        queued[v] = true;
+        int i = heapSize++;
+        while (i > 0) {
+            int p = (i - 1) >>> 1;
+            if (rank[heap[p]] <= rank[v]) break;
+            heap[i] = heap[p];
+            i = p;
+        }
+        heap[i] = v;
+    }
+
+    private int poll() {
+        int top = heap[0], last = heap[--heapSize];
+        int i = 0;
+        while (true) {
+            int c = 2 * i + 1;
+            if (c >= heapSize) break;
+            if (c + 1 < heapSize && rank[heap[c + 1]] < rank[heap[c]]) c++;
+            if (rank[heap[c]] >= rank[last]) break;
+            heap[i] = heap[c];
+            i = c;
+        }
+        if (heapSize > 0) heap[i] = last;
+        return top;
+    }
+}
@@ -0,0 +1,135 @@
+package graph.dagsp;
+
+import graph.common.Adjacency;
+import graph.common.CsrGraph;
+import graph.common.EdgeCursor;
+import graph.common.Metrics;
+import graph.topo.TopoLevels;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Single-source relaxation one topological level at a time.
+ * Every vertex pulls from its in-edges, whose sources all sit on earlier
+ * levels, so the vertices of a level are relaxed in parallel without locks
+ * and each one writes only its own distance. Narrow levels run sequentially.
+ * Distances equal the push-style sweeps. On ties the longest-path parent is
+ * the predecessor with the lowest tie rank, which is what a push sweep keeps
+ * when the ranks are positions in its topological order; pass that order's
+ * ranks for identical parents, otherwise the level order is used.
+ */
+public class LevelSweep {
+    private static final int GRAIN = 2048;
+
+    private final Adjacency dag;
+    private final Adjacency reverse;
+    private final TopoLevels levels;
+    private final int[] rank; // tie rank: position of each vertex in the push sweep's order
+
+    public LevelSweep(Adjacency dag, TopoLevels levels) {
+        this(dag, CsrGraph.transpose(dag), levels);
+    }
+
+    /** Reuses an already built reverse DAG (see {@code GraphAnalysis}). */
+    public LevelSweep(Adjacency dag, Adjacency reverse, TopoLevels levels) {
+        this(dag, reverse, levels, null);
+    }
+
+    /** Breaks longest-path ties by {@code tieRank} (null: position in the level order). */
+    public LevelSweep(Adjacency dag, Adjacency reverse, TopoLevels levels, int[] tieRank) {
+        this.dag = dag;
+        this.reverse = reverse;
+        this.levels = levels;
+        if (tieRank == null) {
+            tieRank = new int[levels.order.length];
+            for (int i = 0; i < tieRank.length; i++) tieRank[levels.order[i]] = i;
+        }
+        this.rank = tieRank;
+    }
+
+    public Adjacency dag() { return dag; }
+
+    public TopoLevels levels() { return levels; }
+
+    public long[] shortest(int src, Metrics metrics) {
+        long INF = Long.MAX_VALUE / 4;
+        long[] dist = new long[dag.n()];
+        Arrays.fill(dist, INF);
+        dist[src] = 0;
+        metrics.start();
+        long relaxed = sweep((c, v) -> {
+            long best = dist[v], seen = 0;
+            for (c.reset(v); c.hasNext(); ) {
+                long du = dist[c.next()];
+                if (du == INF) continue;
+                seen++;
+                if (du + c.weight() < best) best = du + c.weight();
+            }
+            dist[v] = best;
+            return seen;
+        });
+        if (Metrics.ENABLED) metrics.relaxations += relaxed;
+        metrics.stop();
+        return dist;
+    }
+
+    public DAGLongestPath.Result longest(int src, Metrics metrics) {
+        long NEG_INF = Long.MIN_VALUE / 4;
+        long[] dist = new long[dag.n()];
+        int[] parent = new int[dag.n()];
+        Arrays.fill(dist, NEG_INF);
+        Arrays.fill(parent, -1);
+        dist[src] = 0;
+        metrics.start();
+        long relaxed = sweep((c, v) -> {
+            if (v == src) return 0;
+            long best = NEG_INF;
+            int from = -1;
+            for (c.reset(v); c.hasNext(); ) {
+                int u = c.next();
+                if (dist[u] == NEG_INF) continue;
+                long d = dist[u] + c.weight();
+                if (d > best || (d == best && (from == -1 || rank[u] < rank[from]))) { best = d; from = u; }
+            }
+            if (from < 0) return 0;
+            dist[v] = best;
+            parent[v] = from;
+            return 1;
+        });
+        if (Metrics.ENABLED) metrics.relaxations += relaxed;
+        metrics.stop();
+        return new DAGLongestPath.Result(dist, parent);
+    }
+
+    /**
+     * Relaxes every vertex level by level, each task of up to GRAIN vertices
+     * reading in-edges through its own cursor; returns the summed per-vertex counts.
+     */
+    private long sweep(Relax relax) {
+        int[] order = levels.order;
+        long total = 0;
+        int grain = ForkJoinPool.getCommonPoolParallelism() > 1 ? GRAIN : Integer.MAX_VALUE;
+        EdgeCursor cur = reverse.cursor();
+        for (int l = 1; l < levels.levelCount(); l++) { // level 0 has no in-edges
+            int from = levels.begin(l), to = levels.end(l);
+            if (to - from < grain) {
+                for (int i = from; i < to; i++) total += relax.apply(cur, order[i]);
+            } else {
+                total += IntStream.range(0, (to - from + GRAIN - 1) / GRAIN).parallel().mapToLong(t -> {
+                    EdgeCursor c = reverse.cursor();
+                    long sum = 0;
+                    for (int i = from + t * GRAIN, end = Math.min(to, i + GRAIN); i < end; i++) sum += relax.apply(c, order[i]);
+                    return sum;
+                }).sum();
+            }
+        }
+        return total;
+    }
+
+    /** Relaxes vertex v from its in-edges, read through c; returns how many it counted. */
+    private interface Relax {
+        long apply(EdgeCursor c, int v);
+    }
+}
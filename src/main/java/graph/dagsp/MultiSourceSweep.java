@@ -0,0 +1,122 @@
+package graph.dagsp;
+
+import graph.common.Adjacency;
+import graph.common.EdgeCursor;
+import graph.common.Metrics;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Relaxes many sources in one pass over the topological order.
+ * Each vertex carries one lane per source, so an edge is read once per chunk
+ * of sources and the per-lane min/max is a tight loop over contiguous longs
+ * that the JIT can vectorize. Chunks of sources are independent and run in
+ * parallel on the common fork/join pool.
+ */
+public class MultiSourceSweep {
+    public static final int DEFAULT_LANES = 16;
+
+    private final Adjacency dag;
+    private final int[] topo;
+    private final int lanes;
+
+    public MultiSourceSweep(Adjacency dag, int[] topo) {
+        this(dag, topo, DEFAULT_LANES);
+    }
+
+    public MultiSourceSweep(Adjacency dag, int[] topo, int lanes) {
+        if (lanes < 1) throw new IllegalArgumentException("lanes must be >= 1");
+        this.dag = dag;
+        this.topo = topo;
+        this.lanes = lanes;
+    }
+
+    public DistanceBlock shortest(int[] sources, Metrics metrics) {
+        return run(sources, false, metrics);
+    }
+
+    public DistanceBlock longest(int[] sources, Metrics metrics) {
+        return run(sources, true, metrics);
+    }
+
+    private DistanceBlock run(int[] sources, boolean longest, Metrics metrics) {
+        int n = dag.n();
+        long none = longest ? Long.MIN_VALUE / 4 : Long.MAX_VALUE / 4;
+        if ((long) n * Math.min(lanes, sources.length) > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("Too many lanes for n=" + n + "; use fewer lanes per chunk");
+        int chunkCount = (sources.length + lanes - 1) / lanes;
+        long[][] chunks = new long[chunkCount][];
+        long[] relaxed = new long[chunkCount];
+        DistanceBlock block = new DistanceBlock(n, sources.clone(), lanes, chunks, none);
+
+        metrics.start();
+        IntStream range = IntStream.range(0, chunkCount);
+        (chunkCount > 1 ? range.parallel() : range).forEach(c -> {
+            int width = block.width(c);
+            long[] d = new long[n * width];
+            Arrays.fill(d, none);
+            boolean[] reached = new boolean[n];
+            for (int k = 0; k < width; k++) {
+                int s = sources[c * lanes + k];
+                d[s * width + k] = 0;
+                reached[s] = true;
+            }
+            relaxed[c] = longest ? sweepMax(d, width, reached) : sweepMin(d, width, reached);
+            clamp(d, none, longest);
+            chunks[c] = d;
+        });
+        metrics.stop();
+        if (Metrics.ENABLED) {
+            for (long r : relaxed) metrics.relaxations += r;
+        }
+        return block;
+    }
+
+    private long sweepMin(long[] d, int width, boolean[] reached) {
+        long relaxed = 0;
+        EdgeCursor cur = dag.cursor();
+        for (int u : topo) {
+            if (!reached[u]) continue;
+            int ub = u * width;
+            for (cur.reset(u); cur.hasNext(); ) {
+                int v = cur.next();
+                long w = cur.weight();
+                int vb = v * width;
+                reached[v] = true;
+                for (int k = 0; k < width; k++) d[vb + k] = Math.min(d[vb + k], d[ub + k] + w);
+                relaxed += width;
+            }
+        }
+        return relaxed;
+    }
+
+    private long sweepMax(long[] d, int width, boolean[] reached) {
+        long relaxed = 0;
+        EdgeCursor cur = dag.cursor();
+        for (int u : topo) {
+            if (!reached[u]) continue;
+            int ub = u * width;
+            for (cur.reset(u); cur.hasNext(); ) {
+                int v = cur.next();
+                long w = cur.weight();
+                int vb = v * width;
+                reached[v] = true;
+                for (int k = 0; k < width; k++) d[vb + k] = Math.max(d[vb + k], d[ub + k] + w);
+                relaxed += width;
+            }
+        }
+        return relaxed;
+    }
+
+    /**
+     * Lanes that were unreachable from their source still received "sentinel + w"
+     * from reached neighbours (the loop is branch-free); snap them back.
+     */
+    private static void clamp(long[] d, long none, boolean longest) {
+        long limit = none / 2;
+        for (int i = 0; i < d.length; i++) {
+            if (longest ? d[i] < limit : d[i] > limit) d[i] = none;
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package graph.dagsp;
+
+import graph.common.Adjacency;
+import graph.common.Metrics;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Reachability queries over a DAG (normally the condensation) without a
+ * traversal per question.
+ * <p>
+ * Every query first goes through O(1) labels: topological rank (nothing
+ * reaches an earlier vertex), a DFS post-order interval of the spanning
+ * forest (a tree descendant is always reachable) and the smallest post-order
+ * number below each vertex (a vertex whose descendants reach lower than
+ * ours cannot be below us). What the labels leave open is answered from the
+ * transitive closure, stored as bitsets with columns in topological order
+ * and split into chunks of columns; a chunk's rows are built in one reverse
+ * topological sweep (row |= rows of successors), only over the ranks before
+ * the chunk's end, and chunks build in parallel.
+ * <p>
+ * If the whole closure fits into the memory budget it is built up front and
+ * every query costs O(1). Otherwise nothing is kept: {@link #reaches(int[], int[])}
+ * groups the open queries by chunk, first tries a DFS that never leaves the
+ * target's rank and label range for each, and builds a chunk (from the lowest
+ * remaining source rank up, as many at a time as the budget allows) only for
+ * the queries whose search outgrew their share of that build. Single queries
+ * always search.
+ */
+public final class ReachabilityIndex {
+    public static final long DEFAULT_BUDGET = 64L << 20;
+    private static final int RESIDENT_WORDS = 8; // 512 columns per chunk when resident
+
+    private final Adjacency dag;
+    private final int n;
+    private final int[] topo, rank;
+    private final int[] post, treeLow, low;
+    private final int chunkWords, chunkCols, chunkCount, concurrent;
+    private final long[][] chunks; // null when not resident
+    private final long[] edgesBefore; // arcs leaving ranks below i, only when not resident
+    private final ScratchPool<int[][]> scratch; // seen stamps, DFS stack, last stamp
+
+    public ReachabilityIndex(Adjacency dag, int[] topo, Metrics metrics) {
+        this(dag, topo, DEFAULT_BUDGET, metrics);
+    }
+
+    public ReachabilityIndex(Adjacency dag, int[] topo, long budgetBytes, Metrics metrics) {
+        this.dag = dag;
+        this.n = dag.n();
+        this.topo = topo;
+        if (topo.length != n) throw new IllegalArgumentException("Topological order does not cover the graph");
+        rank = new int[n];
+        for (int i = 0; i < n; i++) rank[topo[i]] = i;
+        post = new int[n];
+        treeLow = new int[n];
+        low = new int[n];
+        scratch = new ScratchPool<>(() -> new int[][]{new int[n], new int[n], {0}});
+
+        metrics.start();
+        metrics.phase("labels", this::label);
+        long residentBytes = residentBytes(n, RESIDENT_WORDS);
+        if (residentBytes <= budgetBytes) {
+            chunkWords = RESIDENT_WORDS;
+            concurrent = Integer.MAX_VALUE;
+        } else {
+            int par = Math.max(1, java.util.concurrent.ForkJoinPool.getCommonPoolParallelism());
+            long cap = Math.min(1 << 10, (Integer.MAX_VALUE - 8) / Math.max(n, 1));
+            chunkWords = (int) Math.max(1, Math.min(cap, budgetBytes / (8L * Math.max(n, 1) * par)));
+            concurrent = (int) Math.max(1, budgetBytes / (8L * Math.max(n, 1) * chunkWords));
+        }
+        chunkCols = chunkWords * 64;
+        chunkCount = (n + chunkCols - 1) / chunkCols;
+        if (residentBytes <= budgetBytes) {
+            chunks = new long[chunkCount][];
+            metrics.phase("closure", () -> {
+                long[] work = new long[chunkCount];
+                IntStream range = IntStream.range(0, chunkCount);
+                (chunkCount > 1 ? range.parallel() : range).forEach(c -> chunks[c] = build(c, 0, work));
+                if (Metrics.ENABLED) metrics.relaxations += Arrays.stream(work).sum();
+            });
+            edgesBefore = null;
+        } else {
+            chunks = null;
+            edgesBefore = new long[n + 1];
+            for (int i = 0; i < n; i++) edgesBefore[i + 1] = edgesBefore[i] + dag.end(topo[i]) - dag.begin(topo[i]);
+        }
+        metrics.stop();
+        if (Metrics.ENABLED) metrics.add("closureChunks", chunks == null ? 0 : chunkCount);
+    }
+
+    /** Whether the whole closure is held in memory (every query O(1)). */
+    public boolean isResident() {
+        return chunks != null;
+    }
+
+    /** Closure bytes held in memory. */
+    public long residentBytes() {
+        return chunks == null ? 0 : residentBytes(n, chunkWords);
+    }
+
+    /** Whether {@code to} is reachable from {@code from} (every vertex reaches itself). */
+    public boolean reaches(int from, int to) {
+        int cut = cut(from, to);
+        if (cut >= 0) return cut == 1;
+        if (chunks != null) return bit(chunks[rank[to] / chunkCols], 0, from, to);
+        return search(from, to, Long.MAX_VALUE) == 1;
+    }
+
+    /** Answers {@code from[i] -> to[i]} for every i, building closure chunks only where the labels cannot decide. */
+    public boolean[] reaches(int[] from, int[] to) {
+        if (from.length != to.length) throw new IllegalArgumentException("from and to differ in length");
+        int q = from.length;
+        boolean[] out = new boolean[q];
+        int[] perChunk = new int[chunkCount + 1];
+        int open = 0;
+        for (int i = 0; i < q; i++) {
+            int cut = cut(from[i], to[i]);
+            if (cut >= 0) {
+                out[i] = cut == 1;
+            } else if (chunks != null) {
+                out[i] = bit(chunks[rank[to[i]] / chunkCols], 0, from[i], to[i]);
+            } else {
+                perChunk[rank[to[i]] / chunkCols + 1]++;
+                open++;
+            }
+        }
+        if (open == 0) return out;
+
+        for (int c = 0; c < chunkCount; c++) perChunk[c + 1] += perChunk[c];
+        int[] next = Arrays.copyOf(perChunk, chunkCount);
+        int[] byChunk = new int[open];
+        for (int i = 0; i < q; i++) {
+            if (cut(from[i], to[i]) < 0) byChunk[next[rank[to[i]] / chunkCols]++] = i;
+        }
+        int[] needed = IntStream.range(0, chunkCount).filter(c -> perChunk[c + 1] > perChunk[c]).toArray();
+        for (int w = 0; w < needed.length; w += concurrent) { // at most `concurrent` chunks alive at once
+            IntStream wave = IntStream.range(w, Math.min(needed.length, w + concurrent));
+            (needed.length - w > 1 ? wave.parallel() : wave).forEach(k -> {
+                int c = needed[k];
+                int hi = Math.min(n, (c + 1) * chunkCols), words = (hi - c * chunkCols + 63) >>> 6;
+                int lowest = n;
+                for (int j = perChunk[c]; j < perChunk[c + 1]; j++) lowest = Math.min(lowest, rank[from[byChunk[j]]]);
+                // ski rental: each query may search as long as its share of the sweep would take,
+                // and only the ones that run out pay for the sweep, so a chunk costs at most twice the cheaper way
+                long share = ((edgesBefore[hi] - edgesBefore[lowest]) * words + hi - lowest) / (perChunk[c + 1] - perChunk[c]);
+                int first = n;
+                for (int j = perChunk[c]; j < perChunk[c + 1]; j++) {
+                    int i = byChunk[j];
+                    int found = search(from[i], to[i], share);
+                    if (found >= 0) {
+                        out[i] = found == 1;
+                        byChunk[j] = -1 - i;
+                    } else {
+                        first = Math.min(first, rank[from[i]]);
+                    }
+                }
+                if (first == n) return;
+                long[] chunk = build(c, first, new long[chunkCount]);
+                for (int j = perChunk[c]; j < perChunk[c + 1]; j++) {
+                    int i = byChunk[j];
+                    if (i >= 0) out[i] = bit(chunk, first, from[i], to[i]);
+                }
+            });
+        }
+        return out;
+    }
+
+    /** 1 = reachable, 0 = not reachable, -1 = the labels cannot tell. */
+    private int cut(int from, int to) {
+        if (from == to) return 1;
+        if (rank[from] > rank[to] || post[to] > post[from] || low[to] < low[from]) return 0;
+        if (treeLow[from] <= post[to]) return 1; // post[to] < post[from] already holds: tree descendant
+        return -1;
+    }
+
+    private boolean bit(long[] chunk, int first, int from, int to) {
+        int lo = rank[to] / chunkCols * chunkCols, col = rank[to] - lo;
+        int words = (Math.min(n, lo + chunkCols) - lo + 63) >>> 6;
+        return (chunk[(rank[from] - first) * words + (col >>> 6)] >>> col & 1L) != 0;
+    }
+
+    /**
+     * Rows {@code first .. hi-1} (by rank) of the closure restricted to chunk c's
+     * columns; adds the OR count to work[c].
+     */
+    private long[] build(int c, int first, long[] work) {
+        int lo = c * chunkCols, hi = Math.min(n, lo + chunkCols);
+        int words = (hi - lo + 63) >>> 6;
+        long[] bits = new long[(hi - first) * words];
+        long ors = 0;
+        for (int i = hi - 1; i >= first; i--) {
+            int u = topo[i], base = (i - first) * words;
+            if (i >= lo) bits[base + ((i - lo) >>> 6)] |= 1L << (i - lo);
+            for (int e = dag.begin(u), end = dag.end(u); e < end; e++) {
+                int j = rank[dag.target(e)];
+                if (j >= hi) continue;
+                int from = (j - first) * words;
+                for (int k = 0; k < words; k++) bits[base + k] |= bits[from + k];
+                ors += words;
+            }
+        }
+        work[c] += ors;
+        return bits;
+    }
+
+    /**
+     * Depth-first search that skips every vertex the labels rule out as a way to {@code to};
+     * 1 = reachable, 0 = not reachable, -1 = gave up after {@code limit} arcs.
+     */
+    private int search(int from, int to, long limit) {
+        int[][] s = scratch.take();
+        try {
+            return search(from, to, limit, s);
+        } finally {
+            scratch.give(s);
+        }
+    }
+
+    private int search(int from, int to, long limit, int[][] s) {
+        int[] seen = s[0], stack = s[1];
+        int stamp = ++s[2][0];
+        if (stamp == 0) { // wrapped: start the stamps over
+            Arrays.fill(seen, 0);
+            stamp = s[2][0] = 1;
+        }
+        int top = 0;
+        stack[top++] = from;
+        seen[from] = stamp;
+        long scanned = 0;
+        while (top > 0) {
+            int u = stack[--top];
+            if ((scanned += dag.end(u) - dag.begin(u)) > limit) return -1;
+            for (int e = dag.begin(u), end = dag.end(u); e < end; e++) {
+                int v = dag.target(e);
+                if (v == to) return 1;
+                if (seen[v] == stamp) continue;
+                seen[v] = stamp;
+                int cut = cut(v, to);
+                if (cut == 1) return 1;
+                if (cut == 0) continue;
+                stack[top++] = v;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Post-order numbers of an iterative DFS forest (roots taken in topological
+     * order), the first number inside each vertex's tree interval, and the
+     * smallest number reachable below each vertex.
+     */
+    private void label() {
+        int[] cursor = new int[n], stack = new int[n];
+        boolean[] seen = new boolean[n];
+        int counter = 0;
+        for (int root : topo) {
+            if (seen[root]) continue;
+            int top = 0;
+            stack[top++] = root;
+            seen[root] = true;
+            cursor[root] = dag.begin(root);
+            treeLow[root] = counter;
+            while (top > 0) {
+                int u = stack[top - 1];
+                if (cursor[u] < dag.end(u)) {
+                    int v = dag.target(cursor[u]++);
+                    if (!seen[v]) {
+                        seen[v] = true;
+                        cursor[v] = dag.begin(v);
+                        treeLow[v] = counter;
+                        stack[top++] = v;
+                    }
+                } else { // every successor is finished, so their low labels are final
+                    top--;
+                    post[u] = counter++;
+                    int l = post[u];
+                    for (int e = dag.begin(u), end = dag.end(u); e < end; e++) l = Math.min(l, low[dag.target(e)]);
+                    low[u] = l;
+                }
+            }
+        }
+    }
+
+    private static long residentBytes(int n, int words) {
+        long cols = words * 64L, total = 0;
+        for (long lo = 0; lo < n; lo += cols) {
+            long hi = Math.min(n, lo + cols);
+            total += hi * ((hi - lo + 63) >>> 6) * 8;
+        }
+        return total;
+    }
+}
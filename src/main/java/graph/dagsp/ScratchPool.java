@@ -0,0 +1,45 @@
+package graph.dagsp;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * Per-query scratch objects shared by the threads of one solver. A query
+ * takes an idle object or builds one and gives it back when done; at most
+ * {@code slots} idle objects are kept and any beyond that are dropped, so
+ * what stays allocated follows the queries that ran at once, not the number
+ * of threads that ever asked. Taking and giving back is one atomic swap on a
+ * slot, without a lock.
+ */
+final class ScratchPool<T> {
+    private final AtomicReferenceArray<T> idle;
+    private final Supplier<T> factory;
+
+    /** As many slots as processors: more queries than that rarely run at once. */
+    ScratchPool(Supplier<T> factory) {
+        this(Runtime.getRuntime().availableProcessors(), factory);
+    }
+
+    ScratchPool(int slots, Supplier<T> factory) {
+        idle = new AtomicReferenceArray<>(Math.max(1, slots));
+        this.factory = factory;
+    }
+
+    T take() {
+        int k = idle.length(), start = (int) (Thread.currentThread().getId() % k);
+        for (int i = 0; i < k; i++) {
+            int slot = (start + i) % k;
+            if (idle.get(slot) == null) continue;
+            T s = idle.getAndSet(slot, null);
+            if (s != null) return s;
+        }
+        return factory.get();
+    }
+
+    void give(T s) {
+        int k = idle.length(), start = (int) (Thread.currentThread().getId() % k);
+        for (int i = 0; i < k; i++) {
+            if (idle.compareAndSet((start + i) % k, null, s)) return;
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package graph.dagsp;
+
+import graph.common.Adjacency;
+import graph.common.EdgeCursor;
+import graph.common.Metrics;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Shortest and longest distances from one source to a few targets, without
+ * a sweep of the whole DAG. A query marks the source's forward cone and the
+ * targets' backward cone, both confined to the topological ranks between the
+ * source and the last target and grown alternately until one is complete,
+ * after which the other stays inside it. Only their intersection is relaxed,
+ * in rank order, and the sweep stops once the last reachable target is
+ * final. Work follows the arcs between source and targets, not the size of
+ * the graph; when the cones have scanned a sixteenth of the arcs in the rank
+ * window, the query falls back to a plain sweep of the window instead.
+ * <p>
+ * Scratch arrays come from a {@link ScratchPool} and are reused from query
+ * to query: every query takes a new epoch and a vertex counts as marked only
+ * if its stamp equals it, so nothing is cleared in between. Instances are
+ * thread-safe; queries only add to the metrics' counters, and with null
+ * metrics (a server answering many threads) they count nothing.
+ */
+public final class TargetedPaths {
+    public static final long INF = Long.MAX_VALUE / 4, NEG_INF = Long.MIN_VALUE / 4;
+
+    private final Adjacency dag, reverse;
+    private final int[] topo, rank;
+    private final int[] arcsBefore; // arcs leaving ranks below i
+    private final Metrics metrics; // may be null
+    private final ScratchPool<Scratch> pool;
+
+    /** {@code reverse} must be {@code dag} with every arc turned around; {@code metrics} may be null. */
+    public TargetedPaths(Adjacency dag, Adjacency reverse, int[] topo, Metrics metrics) {
+        if (reverse.n() != dag.n() || topo.length != dag.n())
+            throw new IllegalArgumentException("Reverse DAG and topological order must cover the same vertices");
+        this.dag = dag;
+        this.reverse = reverse;
+        this.topo = topo;
+        rank = new int[topo.length];
+        arcsBefore = new int[topo.length + 1];
+        for (int i = 0; i < topo.length; i++) {
+            rank[topo[i]] = i;
+            arcsBefore[i + 1] = arcsBefore[i] + dag.end(topo[i]) - dag.begin(topo[i]);
+        }
+        this.metrics = metrics;
+        pool = new ScratchPool<>(() -> new Scratch(dag.n()));
+    }
+
+    /** Shortest distance from src to target, {@link #INF} if there is no path. */
+    public long shortest(int src, int target) {
+        return shortest(src, new int[]{target})[0];
+    }
+
+    /** Shortest distance to each target, {@link #INF} where there is no path. */
+    public long[] shortest(int src, int[] targets) {
+        return query(src, targets, false, s -> distances(s, targets, INF));
+    }
+
+    /** Longest distance from src to target, {@link #NEG_INF} if there is no path. */
+    public long longest(int src, int target) {
+        return longest(src, new int[]{target})[0];
+    }
+
+    /** Longest distance to each target, {@link #NEG_INF} where there is no path. */
+    public long[] longest(int src, int[] targets) {
+        return query(src, targets, true, s -> distances(s, targets, NEG_INF));
+    }
+
+    /** Vertices of a shortest path from src to target, both included; empty if there is none. */
+    public int[] shortestPath(int src, int target) {
+        return query(src, new int[]{target}, false, s -> path(s, target));
+    }
+
+    /** Vertices of a longest path from src to target, both included; empty if there is none. */
+    public int[] longestPath(int src, int target) {
+        return query(src, new int[]{target}, true, s -> path(s, target));
+    }
+
+    /** Runs one query on a pooled scratch and reads the answer off it before giving it back. */
+    private <R> R query(int src, int[] targets, boolean longest, Function<Scratch, R> answer) {
+        Scratch s = pool.take();
+        try {
+            return answer.apply(run(s, src, targets, longest));
+        } finally {
+            pool.give(s);
+        }
+    }
+
+    /** Fills s for one query; dist and parent are valid where both fwd and back hold the epoch. */
+    private Scratch run(Scratch s, int src, int[] targets, boolean longest) {
+        int n = dag.n();
+        if (src < 0 || src >= n) throw new IllegalArgumentException("Source out of range: " + src);
+        for (int t : targets) {
+            if (t < 0 || t >= n) throw new IllegalArgumentException("Target out of range: " + t);
+        }
+        int ep = s.next();
+        int[] back = s.back, fwd = s.fwd, goal = s.goal, fStack = s.fStack, bStack = s.bStack;
+        long[] keys = s.keys;
+        int lo = rank[src], hi = -1, fTop = 0, bTop = 0, found = 0;
+        for (int t : targets) {
+            if (rank[t] < lo || back[t] == ep) continue;
+            back[t] = ep;
+            goal[t] = ep;
+            bStack[bTop++] = t;
+            hi = Math.max(hi, rank[t]);
+        }
+        if (bTop == 0) {
+            count(0, 0, 0);
+            return s;
+        }
+        fwd[src] = ep;
+        fStack[fTop++] = src;
+        keys[found++] = (long) lo << 32 | src;
+
+        // Grow both cones inside ranks lo..hi, always on the side that has scanned fewer arcs. Once
+        // one is complete the other only enters its vertices: a vertex outside the finished cone has
+        // no successor (or predecessor) inside the intersection.
+        long fScanned = 0, bScanned = 0, budget = (arcsBefore[hi + 1] - arcsBefore[lo]) / 16;
+        boolean fDone = false, bDone = false;
+        while (fTop > 0 || bTop > 0) {
+            if (fScanned + bScanned > budget) return window(s, src, targets, lo, hi, longest, fScanned + bScanned);
+            if (fTop > 0 && (bTop == 0 || fScanned <= bScanned)) {
+                int u = fStack[--fTop];
+                if (bDone && back[u] != ep) continue;
+                fScanned += dag.end(u) - dag.begin(u);
+                for (int e = dag.begin(u), end = dag.end(u); e < end; e++) {
+                    int v = dag.target(e);
+                    if (fwd[v] == ep || rank[v] > hi || bDone && back[v] != ep) continue;
+                    fwd[v] = ep;
+                    fStack[fTop++] = v;
+                    keys[found++] = (long) rank[v] << 32 | v;
+                }
+                fDone = fTop == 0;
+            } else {
+                int v = bStack[--bTop];
+                if (fDone && fwd[v] != ep || v == src) continue;
+                bScanned += reverse.end(v) - reverse.begin(v);
+                for (int e = reverse.begin(v), end = reverse.end(v); e < end; e++) {
+                    int u = reverse.target(e);
+                    if (back[u] == ep || rank[u] < lo || fDone && fwd[u] != ep) continue;
+                    back[u] = ep;
+                    bStack[bTop++] = u;
+                }
+                bDone = bTop == 0;
+            }
+        }
+
+        // The intersection in rank order (sorted, or read off the order when it fills much of the
+        // rank window); relax it until the last reachable target is final.
+        int kept = 0, remaining = 0;
+        long[] dist = s.dist;
+        int[] parent = s.parent;
+        long none = longest ? NEG_INF : INF;
+        for (int i = 0; i < found; i++) {
+            int v = (int) keys[i];
+            if (back[v] != ep) continue;
+            keys[kept++] = keys[i];
+            dist[v] = none;
+            parent[v] = -1;
+            if (goal[v] == ep) remaining++;
+        }
+        boolean dense = kept * 8L > hi - lo;
+        if (!dense) Arrays.sort(keys, 0, kept);
+        dist[src] = 0;
+        long relaxed = 0;
+        int settled = 0;
+        EdgeCursor cur = dag.cursor();
+        for (int i = dense ? lo : 0, end = dense ? hi + 1 : kept; i < end; i++) {
+            int u = dense ? topo[i] : (int) keys[i];
+            if (dense && (fwd[u] != ep || back[u] != ep)) continue;
+            settled++;
+            if (goal[u] == ep && --remaining == 0) break; // every reachable target is final
+            long du = dist[u];
+            for (cur.reset(u); cur.hasNext(); ) {
+                int v = cur.next();
+                if (fwd[v] != ep || back[v] != ep) continue;
+                long d = du + cur.weight();
+                relaxed++;
+                if (longest ? d > dist[v] : d < dist[v]) {
+                    dist[v] = d;
+                    parent[v] = u;
+                }
+            }
+        }
+        count(fScanned + bScanned, relaxed, settled);
+        return s;
+    }
+
+    /**
+     * Fallback when the cones cover much of the rank window: a plain sweep of
+     * ranks lo..hi from src. Only the window's entries are reset, so arcs
+     * that leave it write entries nobody reads; the targets are stamped at
+     * the end.
+     */
+    private Scratch window(Scratch s, int src, int[] targets, int lo, int hi, boolean longest, long scanned) {
+        int ep = s.next();
+        long[] dist = s.dist;
+        int[] parent = s.parent;
+        long none = longest ? NEG_INF : INF;
+        if (hi - lo >= dist.length / 8) Arrays.fill(dist, none); // in address order, cheaper than by rank
+        else for (int i = lo; i <= hi; i++) dist[topo[i]] = none;
+        dist[src] = 0;
+        parent[src] = -1;
+        long relaxed = 0;
+        int settled = 0;
+        EdgeCursor cur = dag.cursor();
+        for (int i = lo; i <= hi; i++) {
+            int u = topo[i];
+            long du = dist[u];
+            if (du == none) continue;
+            settled++;
+            relaxed += dag.end(u) - dag.begin(u);
+            for (cur.reset(u); cur.hasNext(); ) {
+                int v = cur.next();
+                long d = du + cur.weight();
+                if (longest ? d > dist[v] : d < dist[v]) {
+                    dist[v] = d;
+                    parent[v] = u;
+                }
+            }
+        }
+        for (int t : targets) {
+            if (rank[t] >= lo && rank[t] <= hi && dist[t] != none) s.fwd[t] = s.back[t] = ep;
+        }
+        count(scanned, relaxed, settled);
+        if (Metrics.ENABLED && metrics != null) metrics.add("windowSweeps", 1);
+        return s;
+    }
+
+    private void count(long scanned, long relaxed, long settled) {
+        if (Metrics.ENABLED && metrics != null) {
+            metrics.add("coneArcs", scanned);
+            metrics.add("settled", settled);
+            metrics.add("relaxed", relaxed);
+        }
+    }
+
+    private static long[] distances(Scratch s, int[] targets, long none) {
+        long[] out = new long[targets.length];
+        for (int i = 0; i < targets.length; i++) out[i] = s.reached(targets[i]) ? s.dist[targets[i]] : none;
+        return out;
+    }
+
+    private static int[] path(Scratch s, int target) {
+        if (!s.reached(target)) return new int[0];
+        int len = 0;
+        for (int v = target; v != -1; v = s.parent[v]) len++;
+        int[] out = new int[len];
+        for (int v = target; v != -1; v = s.parent[v]) out[--len] = v;
+        return out;
+    }
+
+    /** One query's arrays at a time; a vertex's entries are live only while its stamp equals {@link #epoch}. */
+    private static final class Scratch {
+        final int[] back, fwd, goal, fStack, bStack, parent;
+        final long[] dist, keys;
+        int epoch;
+
+        Scratch(int n) {
+            back = new int[n];
+            fwd = new int[n];
+            goal = new int[n];
+            fStack = new int[n];
+            bStack = new int[n];
+            parent = new int[n];
+            dist = new long[n];
+            keys = new long[n];
+        }
+
+        boolean reached(int v) {
+            return fwd[v] == epoch && back[v] == epoch;
+        }
+
+        int next() {
+            if (++epoch == 0) { // wrapped: start the stamps over
+                Arrays.fill(back, 0);
+                Arrays.fill(fwd, 0);
+                Arrays.fill(goal, 0);
+                epoch = 1;
+            }
+            return epoch;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package graph.external;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+
+/** Buffered little-endian reads of one byte range of a file, refilled with positioned reads. */
+final class ChannelReader {
+    private final FileChannel ch;
+    private final ByteBuffer buf;
+    private final IoStats io;
+    private long limit;
+    private long pos;
+
+    ChannelReader(FileChannel ch, long pos, long limit, int bufferBytes, IoStats io) {
+        this.ch = ch;
+        this.pos = pos;
+        this.limit = limit;
+        this.io = io;
+        buf = ByteBuffer.allocateDirect(bufferBytes).order(ByteOrder.LITTLE_ENDIAN);
+        buf.limit(0);
+    }
+
+    /** Moves to another byte range of the same file, dropping what is buffered. */
+    void seek(long pos, long limit) {
+        this.pos = pos;
+        this.limit = limit;
+        buf.limit(0);
+    }
+
+    int nextInt() throws IOException {
+        if (buf.remaining() < Integer.BYTES) fill(Integer.BYTES);
+        return buf.getInt();
+    }
+
+    long nextLong() throws IOException {
+        if (buf.remaining() < Long.BYTES) fill(Long.BYTES);
+        return buf.getLong();
+    }
+
+    /** Bulk form of {@link #nextInt()}. */
+    void read(int[] into, int off, int len) throws IOException {
+        while (len > 0) {
+            if (buf.remaining() < Integer.BYTES) fill(Integer.BYTES);
+            IntBuffer ints = buf.asIntBuffer();
+            int k = Math.min(len, ints.remaining());
+            ints.get(into, off, k);
+            buf.position(buf.position() + Integer.BYTES * k);
+            off += k;
+            len -= k;
+        }
+    }
+
+    private void fill(int need) throws IOException {
+        if (buf.remaining() + (limit - pos) < need) throw new IOException("Read past the end of a section");
+        buf.compact();
+        buf.limit((int) Math.min(buf.capacity(), buf.position() + (limit - pos)));
+        while (buf.position() < need) {
+            int r = ch.read(buf, pos);
+            if (r < 0) throw new IOException("Unexpected end of file");
+            pos += r;
+            io.bytesRead += r;
+        }
+        buf.flip();
+    }
+}
@@ -0,0 +1,39 @@
+package graph.external;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/** Buffered little-endian appends from a file position on, written with positioned writes. */
+final class ChannelWriter {
+    private final FileChannel ch;
+    private final ByteBuffer buf;
+    private final IoStats io;
+    private long pos;
+
+    ChannelWriter(FileChannel ch, long pos, int bufferBytes, IoStats io) {
+        this.ch = ch;
+        this.pos = pos;
+        this.io = io;
+        buf = ByteBuffer.allocateDirect(bufferBytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    void putInt(int v) throws IOException {
+        if (buf.remaining() < Integer.BYTES) flush();
+        buf.putInt(v);
+    }
+
+    /** Writes out what is buffered and continues at {@code pos}. */
+    void seek(long pos) throws IOException {
+        flush();
+        this.pos = pos;
+    }
+
+    void flush() throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) pos += ch.write(buf, pos);
+        io.bytesWritten += buf.limit();
+        buf.clear();
+    }
+}
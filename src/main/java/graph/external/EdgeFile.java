@@ -0,0 +1,100 @@
+package graph.external;
+
+import graph.common.BinaryGraphIO;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A {@link BinaryGraphIO} file read through explicit buffers instead of a
+ * mapping, for graphs whose arcs do not fit the heap. Only the offsets
+ * (O(V)) are loaded; targets are streamed in source order ({@link #targets(long)})
+ * or fetched a list, or a chunk of one, at a time ({@link #readTargets}).
+ * Arc positions are longs, so version 2 files with more than 2^31 arcs are
+ * read like any other. Every byte read is counted so engines can report
+ * their I/O volume.
+ */
+public final class EdgeFile implements Closeable {
+    static final int BUFFER = 1 << 20;
+
+    public final String path;
+    public final BinaryGraphIO.Header header;
+    public final int n;
+    public final long m;
+    private final FileChannel ch;
+    private final long[] offsets;
+    private final IoStats io;
+
+    private EdgeFile(String path, FileChannel ch, BinaryGraphIO.Header header, long[] offsets, IoStats io) {
+        this.path = path;
+        this.ch = ch;
+        this.header = header;
+        this.n = header.n;
+        this.m = header.m;
+        this.offsets = offsets;
+        this.io = io;
+    }
+
+    public static EdgeFile open(String path) throws IOException {
+        return open(path, new IoStats());
+    }
+
+    static EdgeFile open(String path, IoStats io) throws IOException {
+        FileChannel ch = FileChannel.open(Path.of(path), StandardOpenOption.READ);
+        try {
+            BinaryGraphIO.Header h = BinaryGraphIO.Header.read(ch, path);
+            long[] offsets = new long[h.n + 1];
+            ChannelReader in = new ChannelReader(ch, h.offsetsPos, h.targetsPos, BUFFER, io);
+            boolean wide = h.version == BinaryGraphIO.WIDE_VERSION;
+            for (int u = 0; u <= h.n; u++) offsets[u] = wide ? in.nextLong() : in.nextInt();
+            return new EdgeFile(path, ch, h, offsets, io);
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    public long begin(int u) { return offsets[u]; }
+    public long end(int u) { return offsets[u + 1]; }
+
+    public long maxDegree() {
+        long max = 0;
+        for (int u = 0; u < n; u++) max = Math.max(max, offsets[u + 1] - offsets[u]);
+        return max;
+    }
+
+    /** Bytes read through this file's counter so far. */
+    public long bytesRead() { return io.bytesRead; }
+
+    /** Sequential reader over the target section from arc {@code from} on. */
+    ChannelReader targets(long from) {
+        return new ChannelReader(ch, header.targetsPos + 4L * from, header.targetsPos + 4L * m, BUFFER, io);
+    }
+
+    /**
+     * Reads targets {@code from ..} of u with one positioned read, as many as
+     * fit in scratch and {@code into}; returns how many were read.
+     */
+    int readTargets(int u, long from, ByteBuffer scratch, int[] into) throws IOException {
+        int k = (int) Math.min(offsets[u + 1] - offsets[u] - from, Math.min(scratch.capacity() >>> 2, into.length));
+        if (k <= 0) return 0;
+        ByteBuffer buf = scratch.clear().limit(4 * k);
+        long pos = header.targetsPos + 4L * (offsets[u] + from);
+        while (buf.hasRemaining()) {
+            if (ch.read(buf, pos + buf.position()) < 0) throw new IOException("Truncated targets in " + path);
+        }
+        io.bytesRead += 4L * k;
+        buf.flip().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(into, 0, k);
+        return k;
+    }
+
+    @Override
+    public void close() throws IOException {
+        ch.close();
+    }
+}
@@ -0,0 +1,83 @@
+package graph.external;
+
+import graph.common.Metrics;
+import graph.scc.SccResult;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * Kahn's algorithm over the condensation of a graph file, without building
+ * the condensation: in-degrees of the components are counted in one
+ * sequential pass over the arcs (parallel arcs counted as often as they
+ * occur), and a component taken from the queue releases its successors by
+ * reading the lists of its members. The ready queue is a {@link SpillQueue},
+ * and lists are read at most {@code listChunk} targets at a time, so memory
+ * is O(V) plus two queue segments and one chunk, whatever the largest degree.
+ * Every member list costs a positioned read of its own: in the order
+ * components are released, not the file's, so this pass is random I/O.
+ * With every vertex its own component this is Kahn on the graph itself.
+ */
+public final class ExternalTopoSort {
+    private ExternalTopoSort() {}
+
+    public static int[] order(EdgeFile g, SccResult scc, int queueSegment, int listChunk, Path tmpDir, Metrics metrics) throws IOException {
+        return order(g, scc, queueSegment, listChunk, tmpDir, new IoStats(), metrics);
+    }
+
+    static int[] order(EdgeFile g, SccResult scc, int queueSegment, int listChunk, Path tmpDir, IoStats io, Metrics metrics)
+            throws IOException {
+        int[] comp = scc.compId;
+        int[] indeg = new int[scc.count];
+        ChannelReader targets = g.targets(0);
+        for (int u = 0; u < g.n; u++) {
+            int cu = comp[u];
+            for (long e = g.begin(u), end = g.end(u); e < end; e++) {
+                int cv = comp[targets.nextInt()];
+                if (cv != cu) indeg[cv]++;
+            }
+        }
+
+        int chunk = (int) Math.max(1, Math.min(g.maxDegree(), listChunk));
+        ByteBuffer scratch = ByteBuffer.allocateDirect(4 * chunk);
+        int[] list = new int[chunk];
+        int[] order = new int[scc.count];
+        int k = 0;
+        long pushes = 0, listReads = 0;
+        try (SpillQueue queue = new SpillQueue(queueSegment, tmpDir, io)) {
+            for (int c = 0; c < scc.count; c++) {
+                if (indeg[c] == 0) {
+                    queue.push(c);
+                    pushes++;
+                }
+            }
+            while (!queue.isEmpty()) {
+                int c = queue.pop();
+                order[k++] = c;
+                for (int i = scc.offsets[c]; i < scc.offsets[c + 1]; i++) {
+                    int u = scc.members[i];
+                    int got;
+                    for (long from = 0; (got = g.readTargets(u, from, scratch, list)) > 0; from += got) {
+                        listReads++;
+                        for (int j = 0; j < got; j++) {
+                            int cv = comp[list[j]];
+                            if (cv != c && --indeg[cv] == 0) {
+                                queue.push(cv);
+                                pushes++;
+                            }
+                        }
+                    }
+                }
+            }
+            if (Metrics.ENABLED) metrics.add("queueSpills", queue.spills);
+        }
+        if (Metrics.ENABLED) {
+            metrics.kahnPushes += pushes;
+            metrics.kahnPops += k;
+        }
+        if (Metrics.ENABLED) metrics.add("listReads", listReads);
+        if (k != scc.count) throw new IllegalStateException("Graph contains a cycle");
+        return order;
+    }
+}
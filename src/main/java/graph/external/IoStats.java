@@ -0,0 +1,15 @@
+package graph.external;
+
+import graph.common.Metrics;
+
+/** Bytes moved between heap and disk by one external run; reported as counters. */
+final class IoStats {
+    long bytesRead, bytesWritten;
+
+    void report(Metrics metrics) {
+        if (Metrics.ENABLED) {
+            metrics.add("bytesRead", bytesRead);
+            metrics.add("bytesWritten", bytesWritten);
+        }
+    }
+}
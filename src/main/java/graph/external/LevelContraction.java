@@ -0,0 +1,213 @@
+package graph.external;
+
+import graph.common.Metrics;
+import graph.scc.SccResult;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * SCCs of a graph file by contraction in sequential passes, with O(V) state
+ * plus one batch of arcs (after Zhang et al.'s semi-external SCC). Between
+ * batches memory holds a union-find over the vertices, a level per
+ * representative and one kept arc into it (the tree). Each batch is merged
+ * with the tree, its components are found with Tarjan and contracted, and
+ * levels are raised along the resulting DAG so that every arc seen goes to a
+ * strictly higher level, the arc that set a level becoming the kept one.
+ * Cycles split across batches come together through the kept arcs as their
+ * levels climb. A pass that contracts nothing and raises no level proves the
+ * levels are a topological numbering of the contracted graph, so its classes
+ * are the components; a graph read in one batch needs one pass.
+ */
+final class LevelContraction {
+    final int n;
+    private final int[] rep, level, parent;
+    private final int[] off, tgt, idx, low, stack, callV, callE, compOf, members, compStart;
+    int passes, batches, contractions;
+
+    private LevelContraction(int n, int batchArcs) {
+        this.n = n;
+        rep = new int[n];
+        for (int v = 0; v < n; v++) rep[v] = v;
+        level = new int[n];
+        parent = new int[n];
+        Arrays.fill(parent, -1);
+        off = new int[n + 1];
+        tgt = new int[n + batchArcs];
+        idx = new int[n];
+        low = new int[n];
+        stack = new int[n];
+        callV = new int[n];
+        callE = new int[n];
+        compOf = new int[n];
+        members = new int[n];
+        compStart = new int[n + 1];
+    }
+
+    static LevelContraction run(EdgeFile g, int batchArcs, Metrics metrics) throws IOException {
+        int cap = (int) Math.min(Math.max(1, g.m), batchArcs);
+        LevelContraction lc = new LevelContraction(g.n, cap);
+        int[] batch = new int[cap];
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            lc.passes++;
+            ChannelReader targets = g.targets(0);
+            long e0 = 0;
+            int u0 = 0;
+            do {
+                long e1 = Math.min(g.m, e0 + cap);
+                targets.read(batch, 0, (int) (e1 - e0));
+                while (u0 < g.n - 1 && g.end(u0) <= e0) u0++;
+                changed |= lc.step(g, batch, e0, e1, u0);
+                lc.batches++;
+                e0 = e1;
+            } while (e0 < g.m);
+            if (cap >= g.m) break; // the whole graph was one batch: nothing left to meet
+        }
+        if (Metrics.ENABLED) {
+            metrics.add("passes", lc.passes);
+            metrics.add("batches", lc.batches);
+            metrics.add("contractions", lc.contractions);
+        }
+        return lc;
+    }
+
+    /** Folds arcs e0..e1-1 (sources from u0 on) into the state; returns whether anything changed. */
+    private boolean step(EdgeFile g, int[] batch, long e0, long e1, int u0) {
+        // Contraction only ever points old representatives at new ones, so one hop flattens the union-find.
+        for (int v = 0; v < n; v++) rep[v] = rep[rep[v]];
+
+        // Tree plus batch as CSR over representatives; low serves as the fill cursor.
+        Arrays.fill(off, 0);
+        for (int x = 0; x < n; x++) {
+            if (rep[x] != x || parent[x] == -1) continue;
+            int p = rep[parent[x]];
+            if (p == x) {
+                parent[x] = -1;
+            } else {
+                parent[x] = p;
+                off[p + 1]++;
+            }
+        }
+        for (int u = u0; u < n && g.begin(u) < e1; u++) {
+            int a = rep[u];
+            for (int i = (int) (Math.max(g.begin(u), e0) - e0), end = (int) (Math.min(g.end(u), e1) - e0); i < end; i++) {
+                if (rep[batch[i]] != a) off[a + 1]++;
+            }
+        }
+        for (int v = 0; v < n; v++) off[v + 1] += off[v];
+        int[] pos = low;
+        System.arraycopy(off, 0, pos, 0, n);
+        for (int x = 0; x < n; x++) {
+            if (rep[x] == x && parent[x] != -1) tgt[pos[parent[x]]++] = x;
+        }
+        for (int u = u0; u < n && g.begin(u) < e1; u++) {
+            int a = rep[u];
+            for (int i = (int) (Math.max(g.begin(u), e0) - e0), end = (int) (Math.min(g.end(u), e1) - e0); i < end; i++) {
+                int b = rep[batch[i]];
+                if (b != a) tgt[pos[a]++] = b;
+            }
+        }
+
+        int comps = tarjan();
+
+        // Contract, then raise levels in topological order (Tarjan numbers sinks first).
+        int[] compLevel = callV, compParent = callE;
+        boolean changed = false;
+        for (int c = 0; c < comps; c++) {
+            int root = members[compStart[c]], best = root;
+            for (int i = compStart[c] + 1; i < compStart[c + 1]; i++) {
+                int x = members[i];
+                rep[x] = root;
+                if (level[x] > level[best]) best = x;
+                contractions++;
+                changed = true;
+            }
+            compLevel[c] = level[best];
+            int p = parent[best];
+            compParent[c] = p != -1 && compOf[p] != c ? p : -1;
+        }
+        for (int c = comps - 1; c >= 0; c--) {
+            int up = compLevel[c] + 1, root = members[compStart[c]];
+            for (int i = compStart[c]; i < compStart[c + 1]; i++) {
+                int x = members[i];
+                for (int e = off[x]; e < off[x + 1]; e++) {
+                    int t = compOf[tgt[e]];
+                    if (t != c && up > compLevel[t]) {
+                        compLevel[t] = up;
+                        compParent[t] = root;
+                        changed = true;
+                    }
+                }
+            }
+        }
+        for (int c = 0; c < comps; c++) {
+            int root = members[compStart[c]];
+            level[root] = compLevel[c];
+            parent[root] = compParent[c];
+        }
+        return changed;
+    }
+
+    /** Iterative Tarjan over the representatives; fills compOf, members and compStart. */
+    private int tarjan() {
+        Arrays.fill(idx, -1);
+        int counter = 0, comps = 0, sp = 0, mk = 0;
+        for (int r = 0; r < n; r++) {
+            if (rep[r] != r || idx[r] != -1) continue;
+            int cs = 0;
+            idx[r] = low[r] = counter++;
+            compOf[r] = -1;
+            stack[sp++] = r;
+            callV[cs] = r;
+            callE[cs++] = off[r];
+            while (cs > 0) {
+                int v = callV[cs - 1], e = callE[cs - 1];
+                if (e < off[v + 1]) {
+                    callE[cs - 1]++;
+                    int w = tgt[e];
+                    if (idx[w] == -1) {
+                        idx[w] = low[w] = counter++;
+                        compOf[w] = -1;
+                        stack[sp++] = w;
+                        callV[cs] = w;
+                        callE[cs++] = off[w];
+                    } else if (compOf[w] == -1 && idx[w] < low[v]) {
+                        low[v] = idx[w];
+                    }
+                } else {
+                    cs--;
+                    if (cs > 0 && low[v] < low[callV[cs - 1]]) low[callV[cs - 1]] = low[v];
+                    if (low[v] == idx[v]) {
+                        compStart[comps] = mk;
+                        int x;
+                        do {
+                            x = stack[--sp];
+                            compOf[x] = comps;
+                            members[mk++] = x;
+                        } while (x != v);
+                        comps++;
+                    }
+                }
+            }
+        }
+        compStart[comps] = mk;
+        return comps;
+    }
+
+    /** The contracted classes, numbered by level: every arc between components goes to a higher id. */
+    SccResult components() {
+        for (int v = 0; v < n; v++) rep[v] = rep[rep[v]];
+        int k = 0;
+        long[] keys = new long[n];
+        for (int v = 0; v < n; v++) {
+            if (rep[v] == v) keys[k++] = ((long) level[v] << 32) | v;
+        }
+        Arrays.sort(keys, 0, k);
+        int[] id = new int[n];
+        for (int i = 0; i < k; i++) id[(int) keys[i]] = i;
+        for (int v = 0; v < n; v++) id[v] = id[rep[v]];
+        return SccResult.fromComponentIds(k, id);
+    }
+}
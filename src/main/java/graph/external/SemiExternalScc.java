@@ -0,0 +1,107 @@
+package graph.external;
+
+import graph.common.Adjacency;
+import graph.common.BinaryGraphIO;
+import graph.common.CsrGraph;
+import graph.common.MappedCsrGraph;
+import graph.common.Metrics;
+import graph.scc.SccAlgorithm;
+import graph.scc.SccResult;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * SCCs of a graph file whose arcs need not fit the heap: a
+ * {@link LevelContraction} streams the arcs in batches until its contracted
+ * classes are the components. Memory is O(V) per-vertex state plus the arc
+ * budget ({@code -Dexternal.memoryMb}, 64), spent on the batch and, when a
+ * topological order is asked for, on the {@link ExternalTopoSort} queue;
+ * queue spills go to {@code -Dexternal.tmpdir} (java.io.tmpdir). Component
+ * ids come out in topological order of the condensation, sources first.
+ * Bytes read and written, passes and batches are reported as counters.
+ */
+public class SemiExternalScc implements SccAlgorithm {
+    public static final long DEFAULT_MEMORY_MB = 64;
+    private static final int BYTES_PER_BATCH_ARC = 8; // the arc as read plus its slot in the batch graph
+
+    private final long memoryBytes;
+    private final Path tmpDir;
+
+    public SemiExternalScc() {
+        this(Long.getLong("external.memoryMb", DEFAULT_MEMORY_MB) << 20,
+                Path.of(System.getProperty("external.tmpdir", System.getProperty("java.io.tmpdir"))));
+    }
+
+    public SemiExternalScc(long memoryBytes, Path tmpDir) {
+        if (memoryBytes < 1024) throw new IllegalArgumentException("Memory budget too small: " + memoryBytes);
+        this.memoryBytes = memoryBytes;
+        this.tmpDir = tmpDir;
+    }
+
+    /** Components and a topological order of them from {@link ExternalTopoSort}. */
+    public static final class Result {
+        public final SccResult scc;
+        public final int[] topoOrder;
+
+        Result(SccResult scc, int[] topoOrder) {
+            this.scc = scc;
+            this.topoOrder = topoOrder;
+        }
+    }
+
+    /** Mapped graphs are read from their file; anything else is written to a scratch file first. */
+    @Override
+    public SccResult compute(Adjacency g, Metrics metrics) {
+        try {
+            if (g instanceof MappedCsrGraph) return compute(((MappedCsrGraph) g).path, metrics);
+            Path tmp = Files.createTempFile(tmpDir, "graph", BinaryGraphIO.EXTENSION);
+            try {
+                CsrGraph csr = g instanceof CsrGraph ? (CsrGraph) g : CsrGraph.Builder.of(g).build();
+                BinaryGraphIO.write(tmp.toString(), csr, 0, "edge");
+                return compute(tmp.toString(), metrics);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public SccResult compute(String path, Metrics metrics) throws IOException {
+        return run(path, false, metrics).scc;
+    }
+
+    /** Components, plus (if {@code sort}) the order of a semi-external Kahn pass over the condensation. */
+    public Result run(String path, boolean sort, Metrics metrics) throws IOException {
+        IoStats io = new IoStats();
+        int batchArcs = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, memoryBytes / BYTES_PER_BATCH_ARC));
+        metrics.start();
+        try (EdgeFile g = EdgeFile.open(path, io)) {
+            SccResult scc = metrics.phase("contract", () -> LevelContraction.run(g, batchArcs, metrics).components());
+
+            int[] order = null;
+            if (sort) {
+                // half the budget for the queue's two segments, half for one list chunk (int[] + direct buffer)
+                int segment = (int) Math.min(1 << 28, Math.max(64, memoryBytes / 16));
+                order = metrics.phase("topo", () -> ExternalTopoSort.order(g, scc, segment, segment, tmpDir, io, metrics));
+            }
+            io.report(metrics);
+            metrics.stop();
+            return new Result(scc, order);
+        }
+    }
+
+    /** Decomposes the given graph files and prints component counts and I/O. */
+    public static void main(String[] args) throws IOException {
+        SemiExternalScc engine = new SemiExternalScc();
+        for (String path : args) {
+            Metrics metrics = new Metrics();
+            Result r = engine.run(path, true, metrics);
+            System.out.println(path + ": " + r.scc.count + " components, " + r.topoOrder.length + " sorted");
+            System.out.println("Metrics: " + metrics);
+        }
+    }
+}
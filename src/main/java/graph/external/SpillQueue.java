@@ -0,0 +1,101 @@
+package graph.external;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * FIFO of ints holding two segments in memory: the oldest values (read end)
+ * and the newest (write end). A full write segment goes to the back of a
+ * temporary file while the read end still has values to hand out; the read
+ * end refills from the file before it takes the write segment. Memory stays
+ * at two segments however many values wait, plus one read and one write
+ * buffer (at most a segment each) that are kept for the queue's lifetime.
+ */
+final class SpillQueue implements Closeable {
+    private final Path tmpDir;
+    private final IoStats io;
+    private int[] head, tail;
+    private int headPos, headLen, tailLen;
+    private long size;
+    private Path path;
+    private FileChannel file;
+    private ChannelReader reader;
+    private ChannelWriter writer;
+    private long spilledInts, readInts;
+    int spills;
+
+    SpillQueue(int segmentInts, Path tmpDir, IoStats io) {
+        head = new int[segmentInts];
+        tail = new int[segmentInts];
+        this.tmpDir = tmpDir;
+        this.io = io;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void push(int x) throws IOException {
+        if (tailLen == tail.length) {
+            if (headPos == headLen && spilledInts == readInts) {
+                int[] t = head; head = tail; tail = t;
+                headPos = 0;
+                headLen = tailLen;
+            } else {
+                spill();
+            }
+            tailLen = 0;
+        }
+        tail[tailLen++] = x;
+        size++;
+    }
+
+    int pop() throws IOException {
+        if (headPos == headLen) {
+            if (readInts < spilledInts) {
+                writer.flush();
+                int k = (int) Math.min(head.length, spilledInts - readInts);
+                reader.seek(4 * readInts, 4 * (readInts + k));
+                reader.read(head, 0, k);
+                readInts += k;
+                headLen = k;
+                if (readInts == spilledInts) { // drained: the file starts over
+                    readInts = spilledInts = 0;
+                    writer.seek(0);
+                }
+            } else {
+                int[] t = head; head = tail; tail = t;
+                headLen = tailLen;
+                tailLen = 0;
+            }
+            headPos = 0;
+        }
+        size--;
+        return head[headPos++];
+    }
+
+    private void spill() throws IOException {
+        if (file == null) {
+            path = Files.createTempFile(tmpDir, "queue", ".spill");
+            file = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            int bytes = (int) Math.min(EdgeFile.BUFFER, 4L * tail.length);
+            reader = new ChannelReader(file, 0, 0, bytes, io);
+            writer = new ChannelWriter(file, 0, bytes, io);
+        }
+        for (int i = 0; i < tailLen; i++) writer.putInt(tail[i]);
+        spilledInts += tailLen;
+        spills++;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (file != null) {
+            file.close();
+            Files.deleteIfExists(path);
+        }
+    }
+}
@@ -1,34 +1,157 @@
 package graph.scc;
 
-import graph.common.Edge;
+import graph.common.Adjacency;
+import graph.common.CsrGraph;
+import graph.common.EdgeCursor;
 import graph.common.Graph;
-import java.util.*;
+import graph.common.LongIntHashMap;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 /**
  * Builds a condensation graph (DAG) from SCCs.
  * Each component becomes a node; edges connect different components.
+ * Parallel arcs between two components become one edge whose weight is
+ * reduced by an {@link EdgeReduction} (MIN unless stated otherwise).
+ * Components are walked in id order, each one's members ascending, so the
+ * out-edges of a component land contiguously and CSR is written directly;
+ * a primitive map keyed by the head component finds repeated arcs and is
+ * emptied again after every component. Large inputs split the components
+ * into chunks of similar arc volume that are reduced in parallel.
  */
 public class CondensationGraph {
+    private static final int PARALLEL_ARCS = 1 << 17;
+
     public final Graph dag;
     public final int[] compId;
     public final int compCount;
+    public final EdgeReduction reduction;
 
     public CondensationGraph(Graph g, List<List<Integer>> comps) {
-        compCount = comps.size();
-        dag = new Graph(compCount, true);
-        compId = new int[g.n];
-        for (int i = 0; i < compCount; i++) {// Assign component IDs to vertices
-            for (int v : comps.get(i)) compId[v] = i;
+        this(g.csr(), comps);
+    }
+
+    public CondensationGraph(Adjacency g, List<List<Integer>> comps) {
+        this(g, comps.size(), idsOf(g.n(), comps), EdgeReduction.MIN);
+    }
+
+    public CondensationGraph(Adjacency g, SccResult scc) {
+        this(g, scc, EdgeReduction.MIN);
+    }
+
+    public CondensationGraph(Adjacency g, SccResult scc, EdgeReduction reduction) {
+        this(g, scc.count, scc.compId, reduction);
+    }
+
+    private CondensationGraph(Adjacency g, int compCount, int[] compId, EdgeReduction reduction) {
+        this.compCount = compCount;
+        this.compId = compId;
+        this.reduction = reduction;
+        this.dag = new Graph(build(g, SccResult.fromComponentIds(compCount, compId), reduction));
+    }
+
+    /** Wraps an already reduced DAG (see {@link DynamicScc#condensation()}, {@link PartitionedSCC}). */
+    CondensationGraph(CsrGraph dag, int[] compId, int compCount, EdgeReduction reduction) {
+        this.dag = new Graph(dag);
+        this.compId = compId;
+        this.compCount = compCount;
+        this.reduction = reduction;
+    }
+
+    private static CsrGraph build(Adjacency g, SccResult byComp, EdgeReduction reduction) {
+        int count = byComp.count;
+        int chunks = 1;
+        if (g.edgeCount() >= PARALLEL_ARCS && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            chunks = Math.min(count, 4 * ForkJoinPool.getCommonPoolParallelism());
         }
+        int[] bounds = split(g, byComp, Math.max(1, chunks));
+        Chunk[] parts = new Chunk[bounds.length - 1];
+        IntStream range = IntStream.range(0, parts.length);
+        (parts.length > 1 ? range.parallel() : range)
+                .forEach(i -> parts[i] = new Chunk(g, byComp, bounds[i], bounds[i + 1], reduction));
 
-        Set<Long> seen = new HashSet<>(); // Add edges between components and no duplicates
-        for (Edge e : g.edges) {
-            int cu = compId[e.u];
-            int cv = compId[e.v];
-            if (cu != cv) {
-                long key = (((long) cu) << 32) | (cv & 0xffffffffL);
-                if (seen.add(key)) dag.addEdge(cu, cv, e.w);
+        int[] offsets = new int[count + 1];
+        int total = 0;
+        for (Chunk p : parts) {
+            for (int c = p.lo; c < p.hi; c++) offsets[c + 1] = offsets[c] + p.degree[c - p.lo];
+            total += p.size;
+        }
+        int[] targets = new int[total];
+        long[] weights = new long[total];
+        for (Chunk p : parts) {
+            System.arraycopy(p.targets, 0, targets, offsets[p.lo], p.size);
+            System.arraycopy(p.weights, 0, weights, offsets[p.lo], p.size);
+        }
+        return new CsrGraph(count, true, offsets, targets, weights);
+    }
+
+    /** Component boundaries of {@code chunks} ranges holding similar numbers of arcs. */
+    private static int[] split(Adjacency g, SccResult byComp, int chunks) {
+        int[] bounds = new int[chunks + 1];
+        bounds[chunks] = byComp.count;
+        if (chunks == 1) return bounds;
+        long total = g.edgeCount(), seen = 0;
+        int k = 1;
+        for (int c = 0; c < byComp.count && k < chunks; c++) {
+            for (int i = byComp.offsets[c]; i < byComp.offsets[c + 1]; i++) {
+                int u = byComp.members[i];
+                seen += g.end(u) - g.begin(u);
             }
+            while (k < chunks && seen * chunks >= total * k) bounds[k++] = c + 1;
+        }
+        while (k < chunks) bounds[k++] = byComp.count;
+        return bounds;
+    }
+
+    /** Reduced out-edges of the components in [lo, hi), laid out back to back. */
+    private static final class Chunk {
+        final int lo, hi;
+        final int[] degree;
+        int[] targets = new int[16];
+        long[] weights = new long[16];
+        int size;
+
+        Chunk(Adjacency g, SccResult byComp, int lo, int hi, EdgeReduction reduction) {
+            this.lo = lo;
+            this.hi = hi;
+            degree = new int[hi - lo];
+            int[] compId = byComp.compId;
+            LongIntHashMap slot = new LongIntHashMap(16); // head component -> position in targets
+            EdgeCursor cur = g.cursor();
+            for (int cu = lo; cu < hi; cu++) {
+                int start = size;
+                for (int i = byComp.offsets[cu]; i < byComp.offsets[cu + 1]; i++) {
+                    for (cur.reset(byComp.members[i]); cur.hasNext(); ) {
+                        int cv = compId[cur.next()];
+                        if (cv == cu) continue;
+                        int s = slot.get(cv, -1);
+                        if (s >= 0) {
+                            weights[s] = reduction.apply(weights[s], cur.weight());
+                            continue;
+                        }
+                        if (size == targets.length) {
+                            targets = Arrays.copyOf(targets, size * 2);
+                            weights = Arrays.copyOf(weights, size * 2);
+                        }
+                        slot.put(cv, size);
+                        targets[size] = cv;
+                        weights[size++] = cur.weight();
+                    }
+                }
+                for (int s = start; s < size; s++) slot.remove(targets[s]);
+                degree[cu - lo] = size - start;
+            }
+        }
+    }
+
+    private static int[] idsOf(int n, List<List<Integer>> comps) {
+        int[] ids = new int[n];
+        for (int i = 0; i < comps.size(); i++) {// Assign component IDs to vertices
+            for (int v : comps.get(i)) ids[v] = i;
         }
+        return ids;
     }
 }
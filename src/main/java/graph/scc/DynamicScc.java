@@ -0,0 +1,598 @@
+package graph.scc;
+
+import graph.common.Adjacency;
+import graph.common.CsrGraph;
+import graph.common.LongHashSet;
+import graph.common.LongIntHashMap;
+import graph.common.Metrics;
+import graph.common.MutableDigraph;
+
+import java.util.*;
+
+/**
+ * SCC decomposition and condensation DAG maintained under batches of arc
+ * insertions and deletions.
+ * <ul>
+ *   <li>Components carry a topological key (Pearce–Kelly). An inserted arc
+ *       that goes against the key order only reorders the components whose
+ *       keys lie between its endpoints; if it closes a cycle, the components
+ *       on that cycle are merged.</li>
+ *   <li>Deleting an arc u -> v inside a component is remembered; at the end
+ *       of the batch the component survives if u still reaches v in it
+ *       (bidirectional search), otherwise Tarjan is re-run on its members
+ *       and it is split into its pieces.</li>
+ *   <li>Condensation edges are counted per component pair, so they appear
+ *       and disappear with the first and last underlying arc. Their weight
+ *       is the minimum over those arcs.</li>
+ * </ul>
+ * Work is proportional to the components that are touched, not to the graph.
+ * Component ids are stable for untouched components; merged and split
+ * components are retired and their pieces get fresh ids. Not thread-safe.
+ */
+public class DynamicScc {
+    private static final long GAP = 1L << 20; // initial spacing of topological keys
+
+    private final int n;
+    private final Metrics metrics;
+
+    private final MutableDigraph arcs;
+    private final int[] compId;
+    private final int[] local, seenFw, seenBw; // scratch for splits and reachability checks
+    private int stamp;
+
+    // per component id; members[c] == null marks a retired id
+    private IntList[] members;
+    private IntList[] succ, pred; // slots of the condensation edges leaving / entering c
+    private long[] key;
+    private int[] markFw, markBw;
+    private int idCount;
+    private final TreeMap<Long, Integer> byKey = new TreeMap<>();
+    private final ArrayDeque<Integer> freeIds = new ArrayDeque<>();
+
+    // condensation edges, one slot each
+    private final LongIntHashMap slotOf;
+    private int[] linkFrom, linkTo, linkCount, succPos, predPos;
+    private long[] linkWeight;
+    private int slotCount;
+    private final IntList freeSlots = new IntList(16);
+
+    // bookkeeping of the batch in progress
+    private final Map<Integer, IntList> cuts = new HashMap<>(); // component -> deleted inner arcs (u, v pairs)
+    private final Set<Integer> created = new HashSet<>(), relinked = new HashSet<>();
+    private final List<Integer> removed = new ArrayList<>(), retired = new ArrayList<>();
+
+    public DynamicScc(Adjacency g, Metrics metrics) {
+        this(g, new IterativeTarjanSCC().compute(g, new Metrics()), metrics);
+    }
+
+    /** Starts from an existing decomposition of {@code g} (any engine). */
+    public DynamicScc(Adjacency g, SccResult scc, Metrics metrics) {
+        this.n = g.n();
+        this.metrics = metrics;
+        arcs = new MutableDigraph(g);
+        local = new int[n];
+        seenFw = new int[n];
+        seenBw = new int[n];
+
+        int count = scc.count;
+        compId = scc.compId.clone();
+        members = new IntList[Math.max(16, count)];
+        succ = new IntList[members.length];
+        pred = new IntList[members.length];
+        key = new long[members.length];
+        markFw = new int[members.length];
+        markBw = new int[members.length];
+        idCount = count;
+        for (int c = 0; c < count; c++) {
+            IntList mem = new IntList(scc.size(c));
+            for (int i = scc.offsets[c]; i < scc.offsets[c + 1]; i++) mem.add(scc.members[i]);
+            members[c] = mem;
+            succ[c] = new IntList(2);
+            pred[c] = new IntList(2);
+        }
+        slotOf = new LongIntHashMap(Math.max(16, g.edgeCount() / 2));
+        int cap = 16;
+        linkFrom = new int[cap];
+        linkTo = new int[cap];
+        linkCount = new int[cap];
+        succPos = new int[cap];
+        predPos = new int[cap];
+        linkWeight = new long[cap];
+        for (int u = 0; u < n; u++) {
+            for (int i = 0; i < arcs.outDegree(u); i++) {
+                int cu = compId[u], cv = compId[arcs.outTarget(u, i)];
+                if (cu != cv) addLink(cu, cv, 1, arcs.outWeight(u, i));
+            }
+        }
+        initialKeys(count);
+        relinked.clear();
+    }
+
+    /** Kahn over the component links; keys are spaced GAP apart in topological order. */
+    private void initialKeys(int count) {
+        int[] indeg = new int[count], queue = new int[count];
+        int head = 0, tail = 0;
+        for (int c = 0; c < count; c++) if ((indeg[c] = pred[c].size) == 0) queue[tail++] = c;
+        while (head < tail) {
+            int c = queue[head];
+            setKey(c, head++ * GAP);
+            IntList out = succ[c];
+            for (int i = 0; i < out.size; i++) {
+                int d = linkTo[out.data[i]];
+                if (--indeg[d] == 0) queue[tail++] = d;
+            }
+        }
+        if (tail != count) throw new IllegalArgumentException("Components do not form a DAG: not an SCC decomposition");
+    }
+
+    // ---- batch API ----
+
+    /** A list of arc insertions and deletions, applied in order by {@link #apply}. */
+    public static final class Batch {
+        private int[] us = new int[8], vs = new int[8];
+        private long[] ws = new long[8];
+        private boolean[] adds = new boolean[8];
+        private int size;
+
+        public Batch addEdge(int u, int v, long w) { return push(u, v, w, true); }
+
+        /** Removes one arc u -> v; a no-op if there is none. */
+        public Batch removeEdge(int u, int v) { return push(u, v, 0, false); }
+
+        public int size() { return size; }
+
+        private Batch push(int u, int v, long w, boolean add) {
+            if (size == us.length) {
+                int cap = size * 2;
+                us = Arrays.copyOf(us, cap);
+                vs = Arrays.copyOf(vs, cap);
+                ws = Arrays.copyOf(ws, cap);
+                adds = Arrays.copyOf(adds, cap);
+            }
+            us[size] = u; vs[size] = v; ws[size] = w; adds[size] = add;
+            size++;
+            return this;
+        }
+    }
+
+    /** What one batch changed, in component ids of this structure. */
+    public static final class Update {
+        /** Components that existed before the batch and were merged or split away. */
+        public final int[] removed;
+        /** Components created by the batch (merges and split pieces). */
+        public final int[] added;
+        /** Surviving components whose condensation edges were added or dropped. */
+        public final int[] relinked;
+
+        Update(int[] removed, int[] added, int[] relinked) {
+            this.removed = removed;
+            this.added = added;
+            this.relinked = relinked;
+        }
+
+        public boolean sccChanged() { return removed.length > 0; }
+    }
+
+    public Update apply(Batch batch) {
+        metrics.start();
+        for (int i = 0; i < batch.size; i++) {
+            int u = batch.us[i], v = batch.vs[i];
+            Objects.checkIndex(u, n);
+            Objects.checkIndex(v, n);
+            if (batch.adds[i]) insert(u, v, batch.ws[i]); else delete(u, v);
+        }
+        for (Map.Entry<Integer, IntList> cut : new ArrayList<>(cuts.entrySet())) {
+            IntList pairs = cut.getValue();
+            for (int i = 0; i < pairs.size; i += 2) {
+                if (!reaches(pairs.data[i], pairs.data[i + 1], cut.getKey())) {
+                    split(cut.getKey());
+                    break;
+                }
+            }
+        }
+
+        int[] added = created.stream().mapToInt(Integer::intValue).sorted().toArray();
+        int[] gone = removed.stream().mapToInt(Integer::intValue).sorted().toArray();
+        int[] touched = relinked.stream().filter(c -> !created.contains(c))
+                .mapToInt(Integer::intValue).sorted().toArray();
+        freeIds.addAll(retired);
+        cuts.clear();
+        created.clear();
+        relinked.clear();
+        removed.clear();
+        retired.clear();
+        metrics.stop();
+        return new Update(gone, added, touched);
+    }
+
+    public int componentOf(int v) { return compId[v]; }
+
+    public int componentCount() { return byKey.size(); }
+
+    /** Members of a live component, ascending. */
+    public int[] members(int c) {
+        int[] m = members[c].toArray();
+        Arrays.sort(m);
+        return m;
+    }
+
+    /** Topological key of a live component: every condensation edge goes to a larger key. */
+    public long key(int c) { return key[c]; }
+
+    /** Dense snapshot; ids follow the topological order of the components. */
+    public SccResult scc() {
+        return SccResult.fromComponentIds(byKey.size(), denseVertexIds(denseComponentIds()));
+    }
+
+    /** Dense snapshot of the condensation (ids as in {@link #scc()}, so 0..k-1 is a topological order). */
+    public CondensationGraph condensation() {
+        int[] dense = denseComponentIds();
+        CsrGraph.Builder b = new CsrGraph.Builder(byKey.size(), true, slotOf.size());
+        for (int c : byKey.values()) {
+            IntList out = succ[c];
+            for (int i = 0; i < out.size; i++) {
+                int s = out.data[i];
+                b.addArc(dense[c], dense[linkTo[s]], linkWeight[s]);
+            }
+        }
+        return new CondensationGraph(b.build(), denseVertexIds(dense), byKey.size(), EdgeReduction.MIN);
+    }
+
+    private int[] denseComponentIds() {
+        int[] dense = new int[idCount];
+        int k = 0;
+        for (int c : byKey.values()) dense[c] = k++;
+        return dense;
+    }
+
+    private int[] denseVertexIds(int[] dense) {
+        int[] ids = new int[n];
+        for (int v = 0; v < n; v++) ids[v] = dense[compId[v]];
+        return ids;
+    }
+
+    // ---- insertion ----
+
+    private void insert(int u, int v, long w) {
+        arcs.addArc(u, v, w);
+        int cu = compId[u], cv = compId[v];
+        if (cu == cv) return;
+        if (addLink(cu, cv, 1, w) && key[cu] > key[cv]) reorder(cu, cv);
+    }
+
+    /**
+     * Pearce–Kelly step for a new condensation edge cu -> cv that runs against
+     * the key order. Only components with keys in [key(cv), key(cu)] move:
+     * those reaching cu take the lowest of their keys, those reachable from
+     * cv the highest, and the ones that are both form a cycle and merge.
+     */
+    private void reorder(int cu, int cv) {
+        int s = ++stamp;
+        IntList fwd = search(cv, succ, true, key[cu], markFw, s);
+        IntList bwd = search(cu, pred, false, key[cv], markBw, s);
+        if (Metrics.ENABLED) metrics.add("pkVisited", fwd.size + bwd.size);
+        boolean cycle = markFw[cu] == s;
+
+        IntList before = new IntList(bwd.size), after = new IntList(fwd.size), merge = new IntList(4);
+        for (int i = 0; i < bwd.size; i++) {
+            int c = bwd.data[i];
+            if (cycle && markFw[c] == s) merge.add(c); else before.add(c);
+        }
+        for (int i = 0; i < fwd.size; i++) {
+            int c = fwd.data[i];
+            if (!cycle || markBw[c] != s) after.add(c);
+        }
+        long[] pool = new long[before.size + after.size + merge.size];
+        int p = 0;
+        for (int i = 0; i < before.size; i++) pool[p++] = key[before.data[i]];
+        for (int i = 0; i < after.size; i++) pool[p++] = key[after.data[i]];
+        for (int i = 0; i < merge.size; i++) pool[p++] = key[merge.data[i]];
+        for (long k : pool) byKey.remove(k);
+        Arrays.sort(pool);
+        sortByKey(before);
+        sortByKey(after);
+        for (int i = 0; i < before.size; i++) setKey(before.data[i], pool[i]);
+        for (int i = 0; i < after.size; i++) setKey(after.data[i], pool[pool.length - after.size + i]);
+        if (cycle) merge(merge, s, pool[before.size]);
+    }
+
+    /** DFS over condensation edges, staying within the key bound; marks what it visits. */
+    private IntList search(int start, IntList[] links, boolean forward, long bound, int[] mark, int s) {
+        IntList seen = new IntList(8), stack = new IntList(8);
+        mark[start] = s;
+        seen.add(start);
+        stack.add(start);
+        while (stack.size > 0) {
+            IntList edges = links[stack.data[--stack.size]];
+            for (int i = 0; i < edges.size; i++) {
+                int d = forward ? linkTo[edges.data[i]] : linkFrom[edges.data[i]];
+                if (mark[d] == s || (forward ? key[d] > bound : key[d] < bound)) continue;
+                mark[d] = s;
+                seen.add(d);
+                stack.add(d);
+            }
+        }
+        return seen;
+    }
+
+    private void sortByKey(IntList comps) {
+        Integer[] idx = new Integer[comps.size];
+        for (int i = 0; i < comps.size; i++) idx[i] = comps.data[i];
+        Arrays.sort(idx, Comparator.comparingLong(c -> key[c]));
+        for (int i = 0; i < comps.size; i++) comps.data[i] = idx[i];
+    }
+
+    /** Merges the components marked {@code markFw == markBw == s} into one new component. */
+    private void merge(IntList comps, int s, long k) {
+        IntList mem = new IntList(16), pairs = null;
+        Map<Integer, long[]> out = new HashMap<>(), in = new HashMap<>(); // neighbour -> {count, min weight}
+        for (int i = 0; i < comps.size; i++) {
+            int c = comps.data[i];
+            mem.addAll(members[c]);
+            IntList cut = cuts.remove(c);
+            if (cut != null) {
+                if (pairs == null) pairs = new IntList(cut.size);
+                pairs.addAll(cut);
+            }
+            while (succ[c].size > 0) {
+                int slot = succ[c].data[succ[c].size - 1];
+                int d = linkTo[slot];
+                if (!(markFw[d] == s && markBw[d] == s)) combine(out, d, slot);
+                dropLink(slot);
+            }
+            while (pred[c].size > 0) {
+                int slot = pred[c].data[pred[c].size - 1];
+                int d = linkFrom[slot];
+                if (!(markFw[d] == s && markBw[d] == s)) combine(in, d, slot);
+                dropLink(slot);
+            }
+        }
+        for (int i = 0; i < comps.size; i++) retire(comps.data[i]);
+        int id = newComponent(mem, k);
+        for (Map.Entry<Integer, long[]> l : out.entrySet()) addLink(id, l.getKey(), (int) l.getValue()[0], l.getValue()[1]);
+        for (Map.Entry<Integer, long[]> l : in.entrySet()) addLink(l.getKey(), id, (int) l.getValue()[0], l.getValue()[1]);
+        if (pairs != null) cuts.put(id, pairs);
+        if (Metrics.ENABLED) metrics.add("merged", comps.size);
+    }
+
+    private void combine(Map<Integer, long[]> into, int d, int slot) {
+        long[] cur = into.get(d);
+        if (cur == null) {
+            into.put(d, new long[]{linkCount[slot], linkWeight[slot]});
+        } else {
+            cur[0] += linkCount[slot];
+            cur[1] = Math.min(cur[1], linkWeight[slot]);
+        }
+    }
+
+    // ---- deletion ----
+
+    private void delete(int u, int v) {
+        int i = arcs.indexOfArc(u, v);
+        if (i < 0) return;
+        long w = arcs.outWeight(u, i);
+        arcs.removeArc(u, i);
+
+        int cu = compId[u], cv = compId[v];
+        if (cu == cv) {
+            IntList pairs = cuts.computeIfAbsent(cu, c -> new IntList(4));
+            pairs.add(u);
+            pairs.add(v);
+            return;
+        }
+        int slot = slotOf.get(LongHashSet.key(cu, cv), -1);
+        if (--linkCount[slot] == 0) {
+            dropLink(slot);
+        } else if (w == linkWeight[slot]) {// the minimum may have gone: rescan the arcs between the two components
+            long min = Long.MAX_VALUE;
+            IntList mem = members[cu];
+            for (int a = 0; a < mem.size; a++) {
+                int x = mem.data[a];
+                for (int b = 0; b < arcs.outDegree(x); b++) {
+                    if (compId[arcs.outTarget(x, b)] == cv) min = Math.min(min, arcs.outWeight(x, b));
+                }
+            }
+            linkWeight[slot] = min;
+        }
+    }
+
+    /** Does u still reach v inside component c? Grows the smaller of two frontiers until they meet. */
+    private boolean reaches(int u, int v, int c) {
+        if (u == v) return true;
+        int s = ++stamp;
+        IntList fq = new IntList(8), bq = new IntList(8);
+        seenFw[u] = s;
+        seenBw[v] = s;
+        fq.add(u);
+        bq.add(v);
+        long visited = 0;
+        try {
+            while (fq.size > 0 && bq.size > 0) {
+                boolean forward = fq.size <= bq.size;
+                IntList from = forward ? fq : bq, next = new IntList(from.size * 2);
+                int[] mine = forward ? seenFw : seenBw, theirs = forward ? seenBw : seenFw;
+                for (int i = 0; i < from.size; i++) {
+                    int x = from.data[i];
+                    for (int j = 0, deg = forward ? arcs.outDegree(x) : arcs.inDegree(x); j < deg; j++) {
+                        int y = forward ? arcs.outTarget(x, j) : arcs.inSource(x, j);
+                        if (compId[y] != c || mine[y] == s) continue;
+                        if (theirs[y] == s) return true;
+                        mine[y] = s;
+                        next.add(y);
+                    }
+                }
+                visited += next.size;
+                if (forward) fq = next; else bq = next;
+            }
+            return false;
+        } finally {
+            if (Metrics.ENABLED) metrics.add("reachVisited", visited);
+        }
+    }
+
+    /** Re-runs Tarjan on one component's members and replaces it by its pieces. */
+    private void split(int c) {
+        IntList mem = members[c];
+        for (int i = 0; i < mem.size; i++) local[mem.data[i]] = i;
+        CsrGraph.Builder b = CsrGraph.builder(mem.size, true);
+        for (int i = 0; i < mem.size; i++) {
+            int x = mem.data[i];
+            for (int j = 0; j < arcs.outDegree(x); j++) {
+                int y = arcs.outTarget(x, j);
+                if (compId[y] == c) b.addArc(i, local[y], 0);
+            }
+        }
+        SccResult pieces = new IterativeTarjanSCC().compute(b.build(), new Metrics());
+        if (Metrics.ENABLED) metrics.add("splitPieces", pieces.count);
+
+        long hi = key[c];
+        Long below = byKey.lowerKey(hi);
+        if (below != null && hi - below < pieces.count) {
+            renumber(Math.max(GAP, Long.highestOneBit(pieces.count) << 1)); // room for every piece below c
+            hi = key[c];
+            below = byKey.lowerKey(hi);
+        }
+        long step = below == null ? GAP : (hi - below) / pieces.count;
+
+        while (succ[c].size > 0) dropLink(succ[c].data[succ[c].size - 1]);
+        while (pred[c].size > 0) dropLink(pred[c].data[pred[c].size - 1]);
+        int[] old = mem.toArray();
+        retire(c);
+        int[] ids = new int[pieces.count];
+        for (int p = 0; p < pieces.count; p++) {// Tarjan emits sinks first: they take the highest keys
+            IntList part = new IntList(pieces.size(p));
+            for (int i = pieces.offsets[p]; i < pieces.offsets[p + 1]; i++) part.add(old[pieces.members[i]]);
+            ids[p] = newComponent(part, hi - p * step);
+        }
+        int s = ++stamp;
+        for (int id : ids) markFw[id] = s;
+        for (int id : ids) {
+            IntList part = members[id];
+            for (int i = 0; i < part.size; i++) {
+                int x = part.data[i];
+                for (int j = 0; j < arcs.outDegree(x); j++) {
+                    int d = compId[arcs.outTarget(x, j)];
+                    if (d != id) addLink(id, d, 1, arcs.outWeight(x, j));
+                }
+                for (int j = 0; j < arcs.inDegree(x); j++) {
+                    int d = compId[arcs.inSource(x, j)];
+                    if (markFw[d] != s) addLink(d, id, 1, arcs.inWeight(x, j)); // arcs between pieces were added above
+                }
+            }
+        }
+    }
+
+    /** Spaces all keys {@code gap} apart, keeping their order. */
+    private void renumber(long gap) {
+        List<Integer> order = new ArrayList<>(byKey.values());
+        byKey.clear();
+        for (int i = 0; i < order.size(); i++) setKey(order.get(i), i * gap);
+        if (Metrics.ENABLED) metrics.add("renumbers", 1);
+    }
+
+    // ---- component bookkeeping ----
+
+    private int newComponent(IntList mem, long k) {
+        Integer free = freeIds.poll();
+        int id = free != null ? free : idCount++;
+        if (id >= members.length) {
+            int cap = Math.max(id + 1, members.length * 2);
+            members = Arrays.copyOf(members, cap);
+            succ = Arrays.copyOf(succ, cap);
+            pred = Arrays.copyOf(pred, cap);
+            key = Arrays.copyOf(key, cap);
+            markFw = Arrays.copyOf(markFw, cap);
+            markBw = Arrays.copyOf(markBw, cap);
+        }
+        members[id] = mem;
+        succ[id] = new IntList(2);
+        pred[id] = new IntList(2);
+        markFw[id] = markBw[id] = 0;
+        setKey(id, k);
+        for (int i = 0; i < mem.size; i++) compId[mem.data[i]] = id;
+        created.add(id);
+        return id;
+    }
+
+    private void retire(int c) {
+        byKey.remove(key[c], c);
+        members[c] = succ[c] = pred[c] = null;
+        cuts.remove(c);
+        relinked.remove(c);
+        if (!created.remove(c)) removed.add(c);
+        retired.add(c);
+    }
+
+    private void setKey(int c, long k) {
+        key[c] = k;
+        byKey.put(k, c);
+    }
+
+    /** Adds {@code count} arcs a -> b; returns true if they form a new condensation edge. */
+    private boolean addLink(int a, int b, int count, long w) {
+        long pair = LongHashSet.key(a, b);
+        int slot = slotOf.get(pair, -1);
+        if (slot >= 0) {
+            linkCount[slot] += count;
+            linkWeight[slot] = Math.min(linkWeight[slot], w);
+            return false;
+        }
+        slot = freeSlots.size > 0 ? freeSlots.data[--freeSlots.size] : slotCount++;
+        if (slot == linkFrom.length) {
+            int cap = slot * 2;
+            linkFrom = Arrays.copyOf(linkFrom, cap);
+            linkTo = Arrays.copyOf(linkTo, cap);
+            linkCount = Arrays.copyOf(linkCount, cap);
+            linkWeight = Arrays.copyOf(linkWeight, cap);
+            succPos = Arrays.copyOf(succPos, cap);
+            predPos = Arrays.copyOf(predPos, cap);
+        }
+        linkFrom[slot] = a;
+        linkTo[slot] = b;
+        linkCount[slot] = count;
+        linkWeight[slot] = w;
+        succPos[slot] = succ[a].size;
+        succ[a].add(slot);
+        predPos[slot] = pred[b].size;
+        pred[b].add(slot);
+        slotOf.put(pair, slot);
+        relinked.add(a);
+        relinked.add(b);
+        return true;
+    }
+
+    private void dropLink(int slot) {
+        int a = linkFrom[slot], b = linkTo[slot];
+        slotOf.remove(LongHashSet.key(a, b));
+        IntList out = succ[a], in = pred[b];
+        int moved = out.data[--out.size]; // swap-remove from both endpoint lists
+        out.data[succPos[slot]] = moved;
+        succPos[moved] = succPos[slot];
+        moved = in.data[--in.size];
+        in.data[predPos[slot]] = moved;
+        predPos[moved] = predPos[slot];
+        freeSlots.add(slot);
+        relinked.add(a);
+        relinked.add(b);
+    }
+
+    private static final class IntList {
+        int[] data;
+        int size;
+
+        IntList(int cap) { data = new int[Math.max(cap, 1)]; }
+
+        void add(int x) {
+            if (size == data.length) data = Arrays.copyOf(data, size * 2);
+            data[size++] = x;
+        }
+
+        void addAll(IntList o) {
+            if (size + o.size > data.length) data = Arrays.copyOf(data, Math.max(size + o.size, data.length * 2));
+            System.arraycopy(o.data, 0, data, size, o.size);
+            size += o.size;
+        }
+
+        int[] toArray() { return Arrays.copyOf(data, size); }
+    }
+}
@@ -0,0 +1,19 @@
+package graph.scc;
+
+/** How parallel arcs between the same two components collapse into one condensation edge. */
+public enum EdgeReduction {
+    /** Cheapest arc: what shortest paths over the condensation need. */
+    MIN {
+        @Override public long apply(long a, long b) { return Math.min(a, b); }
+    },
+    /** Heaviest arc: what the critical path over the condensation needs. */
+    MAX {
+        @Override public long apply(long a, long b) { return Math.max(a, b); }
+    },
+    /** Total weight of the arcs, e.g. the traffic between two components. */
+    SUM {
+        @Override public long apply(long a, long b) { return a + b; }
+    };
+
+    public abstract long apply(long a, long b);
+}
@@ -0,0 +1,94 @@
+package graph.scc;
+
+import graph.common.Adjacency;
+import graph.common.EdgeCursor;
+import graph.common.Metrics;
+import java.util.Arrays;
+
+/**
+ * Recursion-free Tarjan SCC.
+ * The DFS call stack is kept in two arrays (vertex and the parked
+ * {@link EdgeCursor} mark of its out-arcs), so chain depth is bounded by the
+ * heap instead of the thread stack and compressed graphs decode each list once.
+ * Produces exactly the components, member order and counters of the
+ * classic recursive version.
+ */
+public class IterativeTarjanSCC implements SccAlgorithm {
+
+    @Override
+    public SccResult compute(Adjacency g, Metrics metrics) {
+        int n = g.n();
+        int[] index = new int[n];
+        int[] lowlink = new int[n];
+        boolean[] onStack = new boolean[n];
+        int[] stack = new int[n];
+        int[] callV = new int[n];
+        long[] callE = new long[n];
+        EdgeCursor cur = g.cursor();
+        int[] compId = new int[n];
+        int[] members = new int[n];
+        int[] offsets = new int[n + 1];
+        Arrays.fill(index, -1);
+        int idx = 0, sp = 0, count = 0, filled = 0;
+
+        long calls = 0, edges = 0;
+        metrics.start();
+        for (int root = 0; root < n; root++) {
+            if (index[root] != -1) continue;
+            calls++;
+            index[root] = lowlink[root] = idx++;
+            stack[sp++] = root;
+            onStack[root] = true;
+            callV[0] = root;
+            callE[0] = cur.reset(root).mark();
+            int depth = 1;
+
+            while (depth > 0) {
+                int v = callV[depth - 1];
+                cur.resume(v, callE[depth - 1]);
+                boolean descended = false;
+                while (cur.hasNext()) {
+                    int w = cur.next();
+                    edges++;
+                    if (index[w] == -1) {// "recursive call": park v, push a new frame
+                        callE[depth - 1] = cur.mark();
+                        calls++;
+                        index[w] = lowlink[w] = idx++;
+                        stack[sp++] = w;
+                        onStack[w] = true;
+                        callV[depth] = w;
+                        callE[depth] = cur.reset(w).mark();
+                        depth++;
+                        descended = true;
+                        break;
+                    } else if (onStack[w]) {
+                        lowlink[v] = Math.min(lowlink[v], index[w]);
+                    }
+                }
+                if (descended) continue;
+
+                depth--;
+                if (lowlink[v] == index[v]) {// Root node -> extract new SCC
+                    int w;
+                    do {
+                        w = stack[--sp];
+                        onStack[w] = false;
+                        compId[w] = count;
+                        members[filled++] = w;
+                    } while (w != v);
+                    offsets[++count] = filled;
+                }
+                if (depth > 0) {
+                    int parent = callV[depth - 1];
+                    lowlink[parent] = Math.min(lowlink[parent], lowlink[v]);
+                }
+            }
+        }
+        metrics.stop();
+        if (Metrics.ENABLED) {
+            metrics.dfsCalls += calls;
+            metrics.dfsEdges += edges;
+        }
+        return new SccResult(count, compId, Arrays.copyOf(offsets, count + 1), members);
+    }
+}
@@ -0,0 +1,289 @@
+package graph.scc;
+
+import graph.common.Adjacency;
+import graph.common.CsrGraph;
+import graph.common.EdgeCursor;
+import graph.common.Metrics;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Parallel SCC decomposition on a fork/join pool, in three phases:
+ * <ol>
+ *   <li>trimming: vertices with no live in- or out-edges are singleton SCCs
+ *       and are peeled level by level;</li>
+ *   <li>forward-backward: from a high-degree pivot, FW ∩ BW reachability is
+ *       one SCC and the three remainders are independent subproblems, solved
+ *       as parallel tasks while they and the SCCs they yield stay large;</li>
+ *   <li>coloring: the long tail of small subproblems is finished together by
+ *       max-id label propagation plus one backward search per label root.</li>
+ * </ol>
+ * Graphs smaller than the threshold go straight to {@link IterativeTarjanSCC}.
+ * Component ids are assigned in discovery order, not topological order.
+ * Per-phase work and time are reported as named counters on the Metrics.
+ * The input is read through {@link EdgeCursor}s (one per task), so compressed
+ * graphs are not decoded arc by arc; the reverse graph is a heap CSR copy.
+ */
+public class ParallelSCC implements SccAlgorithm {
+    public static final int DEFAULT_THRESHOLD = 50_000;
+    private static final int GRAIN = 2048; // frontiers smaller than this are expanded sequentially
+    private static final int TAIL = 1024;  // FW-BW subproblems smaller than this are left to coloring
+    private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private final int threshold;
+    private final ForkJoinPool pool;
+
+    public ParallelSCC() {
+        this(DEFAULT_THRESHOLD, ForkJoinPool.commonPool());
+    }
+
+    public ParallelSCC(int threshold, ForkJoinPool pool) {
+        this.threshold = threshold;
+        this.pool = pool;
+    }
+
+    @Override
+    public SccResult compute(Adjacency g, Metrics metrics) {
+        if (g.n() < threshold) return new IterativeTarjanSCC().compute(g, metrics);
+        metrics.start();
+        Run run = new Run(g, metrics);
+        pool.invoke(ForkJoinTask.adapt(run::execute));
+        metrics.stop();
+        return SccResult.fromComponentIds(run.nextComp.get(), run.comp);
+    }
+
+    /** State of one decomposition; comp[v] == -1 marks a vertex that is still live. */
+    private static final class Run {
+        final Adjacency g;
+        final CsrGraph rg;
+        final Metrics metrics;
+        final int n;
+        final int[] comp, part, fw, bw;
+        final AtomicInteger nextComp = new AtomicInteger();
+        final AtomicInteger nextPart = new AtomicInteger(1);
+        final AtomicInteger nextStamp = new AtomicInteger(1);
+
+        Run(Adjacency g, Metrics metrics) {
+            this.g = g;
+            this.rg = CsrGraph.transpose(g);
+            this.metrics = metrics;
+            this.n = g.n();
+            comp = new int[n];
+            part = new int[n];
+            fw = new int[n];
+            bw = new int[n];
+            Arrays.fill(comp, -1);
+        }
+
+        void execute() {
+            metrics.phase("trim", this::trim);
+            metrics.phase("fwbw", () -> {
+                int[] live = IntStream.range(0, n).parallel().filter(v -> comp[v] == -1).toArray();
+                new FwBw(this, live, 0).invoke();
+            });
+            metrics.phase("color", this::color);
+        }
+
+        boolean live(int v, int p) {
+            return comp[v] == -1 && part[v] == p;
+        }
+
+        // ---- phase 1: trimming ----
+
+        void trim() {
+            int[] indeg = new int[n], outdeg = new int[n];
+            IntStream.range(0, n).parallel().forEach(v -> {
+                outdeg[v] = g.outDegree(v);
+                indeg[v] = rg.outDegree(v);
+            });
+            int[] cur = new int[2 * n + 1], next = new int[2 * n + 1];
+            int size = 0;
+            for (int v = 0; v < n; v++) if (indeg[v] == 0 || outdeg[v] == 0) cur[size++] = v;
+
+            long trimmed = 0;
+            AtomicInteger tail = new AtomicInteger();
+            while (size > 0) {
+                tail.set(0);
+                int[] frontier = cur, out = next;
+                int width = size;
+                AtomicInteger claimed = new AtomicInteger();
+                IntStream tasks = IntStream.range(0, (width + GRAIN - 1) / GRAIN);
+                (width >= GRAIN ? tasks.parallel() : tasks).forEach(t -> {
+                    EdgeCursor fc = g.cursor(), bc = rg.cursor();
+                    for (int i = t * GRAIN, end = Math.min(width, i + GRAIN); i < end; i++) {
+                        int v = frontier[i];
+                        if (!INTS.compareAndSet(comp, v, -1, -2)) continue; // a vertex can be queued twice
+                        comp[v] = nextComp.getAndIncrement();
+                        claimed.incrementAndGet();
+                        for (fc.reset(v); fc.hasNext(); ) {
+                            int w = fc.next();
+                            if (comp[w] == -1 && (int) INTS.getAndAdd(indeg, w, -1) == 1) out[tail.getAndIncrement()] = w;
+                        }
+                        for (bc.reset(v); bc.hasNext(); ) {
+                            int u = bc.next();
+                            if (comp[u] == -1 && (int) INTS.getAndAdd(outdeg, u, -1) == 1) out[tail.getAndIncrement()] = u;
+                        }
+                    }
+                });
+                trimmed += claimed.get();
+                size = tail.get();
+                cur = out;
+                next = frontier;
+            }
+            if (Metrics.ENABLED) metrics.add("trimmed", trimmed);
+        }
+
+        // ---- phase 2: forward-backward ----
+
+        /** Marks every live vertex of subproblem p reachable from start in graph a. */
+        void reach(Adjacency a, int start, int p, int[] mark, int stamp, int[] queue) {
+            mark[start] = stamp;
+            queue[0] = start;
+            int head = 0;
+            AtomicInteger tail = new AtomicInteger(1);
+            EdgeCursor cur = a.cursor();
+            while (head < tail.get()) {
+                int from = head, to = tail.get();
+                head = to;
+                if (to - from < GRAIN) {
+                    for (int i = from; i < to; i++) expand(cur, queue[i], p, mark, stamp, queue, tail);
+                } else {
+                    IntStream.range(0, (to - from + GRAIN - 1) / GRAIN).parallel().forEach(t -> {
+                        EdgeCursor c = a.cursor();
+                        for (int i = from + t * GRAIN, end = Math.min(to, i + GRAIN); i < end; i++) {
+                            expand(c, queue[i], p, mark, stamp, queue, tail);
+                        }
+                    });
+                }
+            }
+        }
+
+        private void expand(EdgeCursor c, int v, int p, int[] mark, int stamp, int[] queue, AtomicInteger tail) {
+            for (c.reset(v); c.hasNext(); ) {
+                int w = c.next();
+                if (mark[w] != stamp && live(w, p) && (int) INTS.getAndSet(mark, w, stamp) != stamp) {
+                    queue[tail.getAndIncrement()] = w;
+                }
+            }
+        }
+
+        int pivot(int[] verts) {
+            int best = verts[0];
+            long bestScore = -1;
+            int step = Math.max(1, verts.length / 32);
+            for (int i = 0; i < verts.length; i += step) {
+                int v = verts[i];
+                long score = (long) (g.outDegree(v) + 1) * (rg.outDegree(v) + 1);
+                if (score > bestScore) { bestScore = score; best = v; }
+            }
+            return best;
+        }
+
+        // ---- phase 3: coloring ----
+
+        void color() {
+            int[] c = new int[n];
+            int[] live = IntStream.range(0, n).parallel().filter(v -> comp[v] == -1).toArray();
+            long rounds = 0, colored = live.length;
+            while (live.length > 0) {
+                rounds++;
+                int[] act = live;
+                IntStream.of(act).parallel().forEach(v -> c[v] = v);
+                boolean changed = true;
+                while (changed) {// every vertex only writes its own label, so passes need no locking
+                    changed = IntStream.of(act).parallel().map(v -> {
+                        int best = c[v];
+                        for (int e = rg.begin(v), end = rg.end(v); e < end; e++) {
+                            int u = rg.target(e);
+                            if (comp[u] == -1 && part[u] == part[v] && c[u] > best) best = c[u];
+                        }
+                        if (best == c[v]) return 0;
+                        c[v] = best;
+                        return 1;
+                    }).sum() > 0;
+                }
+                // a label root reaches its whole label; the ones that also reach it back form its SCC
+                IntStream.of(act).parallel().filter(v -> c[v] == v).forEach(r -> {
+                    int id = nextComp.getAndIncrement();
+                    int[] stack = {r};
+                    int sp = 1;
+                    comp[r] = id;
+                    while (sp > 0) {
+                        int v = stack[--sp];
+                        for (int e = rg.begin(v), end = rg.end(v); e < end; e++) {
+                            int u = rg.target(e);
+                            if (comp[u] == -1 && c[u] == r) {
+                                comp[u] = id;
+                                if (sp == stack.length) stack = Arrays.copyOf(stack, sp * 2);
+                                stack[sp++] = u;
+                            }
+                        }
+                    }
+                });
+                IntStream.of(act).parallel().forEach(v -> part[v] = c[v]);
+                live = IntStream.of(act).parallel().filter(v -> comp[v] == -1).toArray();
+            }
+            if (Metrics.ENABLED) {
+                metrics.add("colorRounds", rounds);
+                metrics.add("colorVertices", colored);
+            }
+        }
+    }
+
+    /** One FW-BW subproblem: the live vertices whose part id is p. */
+    private static final class FwBw extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Run run;
+        private final int[] verts;
+        private final int p;
+
+        FwBw(Run run, int[] verts, int p) {
+            this.run = run;
+            this.verts = verts;
+            this.p = p;
+        }
+
+        @Override
+        protected void compute() {
+            if (verts.length < TAIL) return;
+            int pivot = run.pivot(verts);
+            int fs = run.nextStamp.getAndIncrement(), bs = run.nextStamp.getAndIncrement();
+            int[] queue = new int[verts.length];
+            run.reach(run.g, pivot, p, run.fw, fs, queue);
+            run.reach(run.rg, pivot, p, run.bw, bs, queue);
+
+            int id = run.nextComp.getAndIncrement();
+            int pf = run.nextPart.getAndIncrement(), pb = run.nextPart.getAndIncrement(), pr = run.nextPart.getAndIncrement();
+            int nf = 0, nb = 0, nr = 0, scc = 0;
+            for (int v : verts) {
+                boolean f = run.fw[v] == fs, b = run.bw[v] == bs;
+                if (f && b) { run.comp[v] = id; scc++; }
+                else if (f) { run.part[v] = pf; nf++; }
+                else if (b) { run.part[v] = pb; nb++; }
+                else { run.part[v] = pr; nr++; }
+            }
+            if (Metrics.ENABLED) {
+                run.metrics.add("fwbwPivots", 1);
+                run.metrics.add("fwbwVertices", scc);
+            }
+            if (scc < TAIL) return; // a small SCC around a good pivot: the rest is long tail, leave it to coloring
+
+            int[] sf = new int[nf], sb = new int[nb], sr = new int[nr];
+            nf = nb = nr = 0;
+            for (int v : verts) {
+                if (run.comp[v] != -1) continue;
+                int q = run.part[v];
+                if (q == pf) sf[nf++] = v; else if (q == pb) sb[nb++] = v; else sr[nr++] = v;
+            }
+            invokeAll(new FwBw(run, sf, pf), new FwBw(run, sb, pb), new FwBw(run, sr, pr));
+        }
+    }
+}
@@ -0,0 +1,395 @@
+package graph.scc;
+
+import graph.common.Adjacency;
+import graph.common.CsrGraph;
+import graph.common.EdgeCursor;
+import graph.common.Metrics;
+import graph.common.VertexOrder;
+import graph.topo.KahnTopologicalSort;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SCC decomposition and condensation split across {@link ShardWorker}s that
+ * talk to this coordinator over loopback sockets, so a graph can be condensed
+ * with more memory than one heap has. Vertices are cut into contiguous ranges
+ * of equal size; the coordinator streams every worker the out-arcs of its
+ * range and keeps only per-vertex state itself.
+ * <ol>
+ *   <li>each worker finds the SCCs of its shard-internal arcs and returns them
+ *       with a boundary summary (see {@link ShardWorker});</li>
+ *   <li>the coordinator runs Tarjan over the summaries alone, so local
+ *       components on a cycle through several shards are merged;</li>
+ *   <li>with the final ids sent back, each worker reduces its arcs to
+ *       condensation edges under every requested rule at once, which the
+ *       coordinator reduces once more across shards into the DAGs and sorts
+ *       topologically.</li>
+ * </ol>
+ * The coordinator reads the arcs twice through the {@link Adjacency}, in vertex
+ * order, and keeps only per-vertex ids, a bit set and the reduced DAGs; the
+ * arcs stay in one heap only if the input was loaded into one. Inputs larger
+ * than the coordinator's heap must therefore be memory-mapped {@code .bin}
+ * files ({@link graph.common.BinaryGraphIO#map}); JSON is parsed into a heap CSR first.
+ * Workers are forked JVMs on this machine's classpath, or threads of this JVM
+ * when {@code forkJvms} is false (tests). Component ids follow the shards, not
+ * a topological order. Per-phase times and the summary size are reported as
+ * counters and phases on the Metrics.
+ */
+public class PartitionedSCC implements SccAlgorithm {
+    public static final int DEFAULT_WORKERS = 2;
+    private static final int CONNECT_TIMEOUT_MS = 60_000;
+
+    private final int workers;
+    private final boolean forkJvms;
+    private final List<String> jvmOptions;
+
+    /** {@code -Dscc.workers} (2) forked JVMs, started with {@code -Dscc.workerOpts} (e.g. "-Xmx8g"). */
+    public PartitionedSCC() {
+        this(Integer.getInteger("scc.workers", DEFAULT_WORKERS), true,
+                optionsOf(System.getProperty("scc.workerOpts", "")));
+    }
+
+    public PartitionedSCC(int workers, boolean forkJvms) {
+        this(workers, forkJvms, List.of());
+    }
+
+    public PartitionedSCC(int workers, boolean forkJvms, List<String> jvmOptions) {
+        if (workers < 1) throw new IllegalArgumentException("workers must be positive: " + workers);
+        this.workers = workers;
+        this.forkJvms = forkJvms;
+        this.jvmOptions = jvmOptions;
+    }
+
+    /** Components, the condensation under each requested rule and their shared topological order. */
+    public static final class Result {
+        public final SccResult scc;
+        public final Map<EdgeReduction, CondensationGraph> condensations;
+        public final int[] topoOrder;
+
+        Result(SccResult scc, Map<EdgeReduction, CondensationGraph> condensations, int[] topoOrder) {
+            this.scc = scc;
+            this.condensations = condensations;
+            this.topoOrder = topoOrder;
+        }
+
+        public CondensationGraph condensation(EdgeReduction reduction) {
+            return condensations.get(reduction);
+        }
+
+        /** The same result in the ids of the graph {@code order} was applied to. */
+        public Result restore(VertexOrder order) {
+            SccResult restored = scc.restore(order);
+            Map<EdgeReduction, CondensationGraph> cgs = new EnumMap<>(EdgeReduction.class);
+            condensations.forEach((r, cg) -> cgs.put(r, new CondensationGraph(cg.dag.csr(), restored.compId, restored.count, r)));
+            return new Result(restored, cgs, topoOrder);
+        }
+    }
+
+    @Override
+    public SccResult compute(Adjacency g, Metrics metrics) {
+        return run(g, metrics).scc;
+    }
+
+    /**
+     * All three rounds; without reductions it stops after the components (no
+     * condensation, no order). The order is that of the first reduction's DAG;
+     * all of them have the same edges.
+     */
+    public Result run(Adjacency g, Metrics metrics, EdgeReduction... reductions) {
+        metrics.start();
+        try (Cluster cluster = new Cluster(Math.max(1, Math.min(workers, g.n())), metrics)) {
+            Result r = new Run(g, cluster).execute(reductions, metrics);
+            metrics.stop();
+            return r;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Partitioned SCC failed", e);
+        }
+    }
+
+    private static List<String> optionsOf(String s) {
+        return s.isBlank() ? List.of() : List.of(s.trim().split("\\s+"));
+    }
+
+    /** One socket per worker, in the order they connected. */
+    private final class Cluster implements AutoCloseable {
+        final ServerSocket server;
+        final List<Process> processes = new ArrayList<>();
+        final List<Thread> threads = new ArrayList<>();
+        final Socket[] sockets;
+        final Wire.In[] in;
+        final Wire.Out[] out;
+
+        Cluster(int k, Metrics metrics) throws IOException {
+            sockets = new Socket[k];
+            in = new Wire.In[k];
+            out = new Wire.Out[k];
+            server = new ServerSocket(0, k, InetAddress.getLoopbackAddress());
+            try {
+                metrics.phase("launch", () -> connect(k));
+            } catch (IOException | RuntimeException e) {
+                close();
+                throw e;
+            }
+        }
+
+        private void connect(int k) throws IOException {
+            for (int i = 0; i < k; i++) start(i);
+            server.setSoTimeout(1000);
+            long deadline = System.nanoTime() + CONNECT_TIMEOUT_MS * 1_000_000L;
+            for (int i = 0; i < k; ) {
+                try {
+                    Socket s = server.accept();
+                    sockets[i] = s;
+                    s.setTcpNoDelay(true);
+                    in[i] = new Wire.In(s.getInputStream());
+                    out[i] = new Wire.Out(s.getOutputStream());
+                    if (in[i].readInt() != ShardWorker.HELLO) throw new IOException("Not a shard worker: " + s);
+                    i++;
+                } catch (SocketTimeoutException e) {
+                    for (Process pr : processes) {
+                        if (!pr.isAlive()) throw new IOException("Shard worker exited with status " + pr.exitValue());
+                    }
+                    if (System.nanoTime() > deadline) throw new IOException("Shard workers did not connect in time");
+                }
+            }
+        }
+
+        private void start(int i) throws IOException {
+            int port = server.getLocalPort();
+            if (!forkJvms) {
+                Thread t = new Thread(new ShardWorker(port), "shard-worker-" + i);
+                t.setDaemon(true);
+                t.start();
+                threads.add(t);
+                return;
+            }
+            List<String> cmd = new ArrayList<>();
+            cmd.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+            cmd.addAll(jvmOptions);
+            cmd.add("-cp");
+            cmd.add(System.getProperty("java.class.path"));
+            cmd.add(ShardWorker.class.getName());
+            cmd.add(String.valueOf(port));
+            processes.add(new ProcessBuilder(cmd).inheritIO().start());
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (Socket s : sockets) if (s != null) s.close();
+            server.close();
+            try {
+                for (Process p : processes) {
+                    if (!p.waitFor(10, TimeUnit.SECONDS)) p.destroyForcibly();
+                }
+                for (Thread t : threads) t.join(10_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /** Coordinator state of one decomposition. */
+    private static final class Run {
+        final Adjacency g;
+        final Cluster cluster;
+        final int k;
+        final int[] bounds;   // shard s owns vertices bounds[s] .. bounds[s + 1] - 1
+        final int[] base;     // local component c of shard s is pre-merge component base[s] + c
+        final int[] compId;   // pre-merge ids until the merge, final ids after it
+        final int[][] kept;   // per shard: local components in the boundary summary
+        final long[][] inner, leaving;
+        int[] finalOf;
+        int count;
+
+        Run(Adjacency g, Cluster cluster) {
+            this.g = g;
+            this.cluster = cluster;
+            k = cluster.sockets.length;
+            bounds = new int[k + 1];
+            for (int s = 0; s <= k; s++) bounds[s] = (int) ((long) g.n() * s / k);
+            base = new int[k + 1];
+            compId = new int[g.n()];
+            kept = new int[k][];
+            inner = new long[k][];
+            leaving = new long[k][];
+        }
+
+        Result execute(EdgeReduction[] reductions, Metrics metrics) throws IOException {
+            metrics.phase("distribute", () -> distribute(metrics));
+            metrics.phase("local", () -> {
+                long slowest = 0;
+                for (int s = 0; s < k; s++) slowest = Math.max(slowest, receiveSummary(s));
+                if (Metrics.ENABLED) metrics.add("workerSccNanosMax", slowest);
+            });
+            metrics.phase("merge", () -> merge(metrics));
+            SccResult scc = SccResult.fromComponentIds(count, compId);
+            if (reductions.length == 0) {
+                for (Wire.Out o : cluster.out) {
+                    o.writeInt(0);
+                    o.flush();
+                }
+                return new Result(scc, Map.of(), null);
+            }
+            CsrGraph[] dags = metrics.phase("condense", () -> condense(reductions, metrics));
+            int[] order = metrics.phase("topo", () -> new KahnTopologicalSort(dags[0], new Metrics()).order());
+            Map<EdgeReduction, CondensationGraph> condensations = new EnumMap<>(EdgeReduction.class);
+            for (int r = 0; r < reductions.length; r++) {
+                condensations.put(reductions[r], new CondensationGraph(dags[r], compId, count, reductions[r]));
+            }
+            return new Result(scc, condensations, order);
+        }
+
+        /** Streams every shard its arcs, then the vertices of each shard that arcs from other shards enter. */
+        private void distribute(Metrics metrics) throws IOException {
+            int n = g.n();
+            long[] entered = new long[(n + 63) >>> 6];
+            EdgeCursor cur = g.cursor();
+            long crossArcs = 0;
+            for (int s = 0; s < k; s++) {
+                int lo = bounds[s], hi = bounds[s + 1];
+                Wire.Out o = cluster.out[s];
+                o.writeInt(lo);
+                o.writeInt(hi - lo);
+                for (int u = lo; u < hi; u++) {
+                    o.writeInt(g.outDegree(u));
+                    for (cur.reset(u); cur.hasNext(); ) {
+                        int v = cur.next();
+                        o.writeInt(v);
+                        o.writeLong(cur.weight());
+                        if (v < lo || v >= hi) {
+                            entered[v >>> 6] |= 1L << v;
+                            crossArcs++;
+                        }
+                    }
+                }
+                o.flush(); // the worker starts its local Tarjan now
+            }
+            for (int s = 0; s < k; s++) {
+                int cnt = 0;
+                for (int v = bounds[s]; v < bounds[s + 1]; v++) if ((entered[v >>> 6] & 1L << v) != 0) cnt++;
+                Wire.Out o = cluster.out[s];
+                o.writeInt(cnt);
+                for (int v = bounds[s]; v < bounds[s + 1]; v++) if ((entered[v >>> 6] & 1L << v) != 0) o.writeInt(v);
+                o.flush();
+            }
+            if (Metrics.ENABLED) {
+                metrics.add("workers", k);
+                metrics.add("crossArcs", crossArcs);
+            }
+        }
+
+        /** Reads one shard's local components and boundary summary; returns its local SCC time. */
+        private long receiveSummary(int s) throws IOException {
+            Wire.In in = cluster.in[s];
+            long nanos = in.readLong();
+            int local = in.readInt();
+            base[s + 1] = base[s] + local;
+            for (int v = bounds[s]; v < bounds[s + 1]; v++) compId[v] = base[s] + in.readInt();
+            kept[s] = new int[in.readInt()];
+            for (int i = 0; i < kept[s].length; i++) kept[s][i] = in.readInt();
+            inner[s] = new long[in.readInt()];
+            for (int i = 0; i < inner[s].length; i++) inner[s][i] = in.readLong();
+            leaving[s] = new long[in.readInt()];
+            for (int i = 0; i < leaving[s].length; i++) leaving[s][i] = in.readLong();
+            return nanos;
+        }
+
+        /** Tarjan over the summaries: a summary SCC of several local components is one global component. */
+        private void merge(Metrics metrics) {
+            int total = base[k];
+            int[] node = new int[total];
+            Arrays.fill(node, -1);
+            int nodes = 0;
+            for (int s = 0; s < k; s++) for (int c : kept[s]) node[base[s] + c] = nodes++;
+            CsrGraph.Builder b = new CsrGraph.Builder(nodes, true, 16);
+            int arcs = 0;
+            for (int s = 0; s < k; s++) {
+                for (long key : inner[s]) {
+                    b.addArc(node[base[s] + (int) (key >>> 32)], node[base[s] + (int) key], 0);
+                    arcs++;
+                }
+                for (long key : leaving[s]) {
+                    int head = node[compId[(int) key]];
+                    if (head < 0) continue; // enters a component that leads nowhere else: no cycle through it
+                    b.addArc(node[base[s] + (int) (key >>> 32)], head, 0);
+                    arcs++;
+                }
+            }
+            SccResult summary = new IterativeTarjanSCC().compute(b.build(), new Metrics());
+
+            int[] groupId = new int[summary.count];
+            Arrays.fill(groupId, -1);
+            finalOf = new int[total];
+            int merged = 0;
+            for (int p = 0; p < total; p++) {
+                int c = node[p] < 0 ? -1 : summary.compId[node[p]];
+                if (c < 0 || summary.size(c) == 1) {
+                    finalOf[p] = count++;
+                } else {
+                    if (groupId[c] < 0) {
+                        groupId[c] = count++;
+                        merged++;
+                    }
+                    finalOf[p] = groupId[c];
+                }
+            }
+            for (int v = 0; v < compId.length; v++) compId[v] = finalOf[compId[v]];
+            if (Metrics.ENABLED) {
+                metrics.add("summaryNodes", nodes);
+                metrics.add("summaryArcs", arcs);
+                metrics.add("crossShardComponents", merged);
+            }
+        }
+
+        /**
+         * Sends the rules and final ids, collects each shard's reduced edges (one weight
+         * per rule) and reduces them across shards into one DAG per rule.
+         */
+        private CsrGraph[] condense(EdgeReduction[] reductions, Metrics metrics) throws IOException {
+            EdgeCursor cur = g.cursor();
+            for (int s = 0; s < k; s++) {
+                int lo = bounds[s], hi = bounds[s + 1];
+                Wire.Out o = cluster.out[s];
+                o.writeInt(reductions.length);
+                for (EdgeReduction r : reductions) o.writeInt(r.ordinal());
+                for (int p = base[s]; p < base[s + 1]; p++) o.writeInt(finalOf[p]);
+                for (int u = lo; u < hi; u++) {
+                    for (cur.reset(u); cur.hasNext(); ) {
+                        int v = cur.next();
+                        if (v < lo || v >= hi) o.writeInt(compId[v]);
+                    }
+                }
+                o.flush();
+            }
+            CsrGraph.Builder[] b = new CsrGraph.Builder[reductions.length];
+            for (int r = 0; r < b.length; r++) b[r] = new CsrGraph.Builder(count, true, 16);
+            long edges = 0;
+            for (int s = 0; s < k; s++) {
+                Wire.In in = cluster.in[s];
+                for (int i = in.readInt(); i > 0; i--, edges++) {
+                    long key = in.readLong();
+                    for (CsrGraph.Builder br : b) br.addArc((int) (key >>> 32), (int) key, in.readLong());
+                }
+            }
+            if (Metrics.ENABLED) metrics.add("shardEdges", edges);
+            int[] identity = new int[count];
+            for (int c = 0; c < count; c++) identity[c] = c;
+            SccResult byComp = SccResult.fromComponentIds(count, identity);
+            CsrGraph[] dags = new CsrGraph[b.length];
+            for (int r = 0; r < b.length; r++) dags[r] = new CondensationGraph(b[r].build(), byComp, reductions[r]).dag.csr();
+            return dags;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package graph.scc;
+
+import graph.common.Adjacency;
+import graph.common.EdgeCursor;
+import graph.common.Metrics;
+
+/**
+ * Pearce's space-efficient SCC algorithm (PEA_FIND_SCC2), iterative.
+ * A single rindex array replaces Tarjan's index, lowlink and onStack:
+ * visiting vertices count up from 1, finished components count down
+ * from n-1, so a finished vertex never lowers anyone's rindex.
+ * After the run rindex is turned in place into the component id array.
+ * Components come out in the same order as Tarjan; members are listed
+ * by ascending vertex id.
+ */
+public class PearceSCC implements SccAlgorithm {
+
+    @Override
+    public SccResult compute(Adjacency g, Metrics metrics) {
+        int n = g.n();
+        int[] rindex = new int[n];
+        int[] stack = new int[n];
+        int[] callV = new int[n];
+        long[] callE = new long[n]; // parked cursor positions
+        EdgeCursor cur = g.cursor();
+        long[] root = new long[(n + 63) >>> 6];
+        int index = 1, c = n - 1, sp = 0;
+
+        long calls = 0, edges = 0;
+        metrics.start();
+        for (int r = 0; r < n; r++) {
+            if (rindex[r] != 0) continue;
+            calls++;
+            rindex[r] = index++;
+            root[r >>> 6] |= 1L << r;
+            callV[0] = r;
+            callE[0] = cur.reset(r).mark();
+            int depth = 1;
+
+            while (depth > 0) {
+                int v = callV[depth - 1];
+                cur.resume(v, callE[depth - 1]);
+                boolean descended = false;
+                while (cur.hasNext()) {
+                    int w = cur.next();
+                    edges++;
+                    if (rindex[w] == 0) {
+                        callE[depth - 1] = cur.mark();
+                        calls++;
+                        rindex[w] = index++;
+                        root[w >>> 6] |= 1L << w;
+                        callV[depth] = w;
+                        callE[depth] = cur.reset(w).mark();
+                        depth++;
+                        descended = true;
+                        break;
+                    } else if (rindex[w] < rindex[v]) {
+                        rindex[v] = rindex[w];
+                        root[v >>> 6] &= ~(1L << v);
+                    }
+                }
+                if (descended) continue;
+
+                depth--;
+                if ((root[v >>> 6] & (1L << v)) != 0) {
+                    index--;
+                    while (sp > 0 && rindex[v] <= rindex[stack[sp - 1]]) {
+                        rindex[stack[--sp]] = c;
+                        index--;
+                    }
+                    rindex[v] = c--;
+                } else {
+                    stack[sp++] = v;
+                }
+                if (depth > 0) {// propagate to the parent frame, as after a recursive return
+                    int p = callV[depth - 1];
+                    if (rindex[v] < rindex[p]) {
+                        rindex[p] = rindex[v];
+                        root[p >>> 6] &= ~(1L << p);
+                    }
+                }
+            }
+        }
+        metrics.stop();
+        if (Metrics.ENABLED) {
+            metrics.dfsCalls += calls;
+            metrics.dfsEdges += edges;
+        }
+
+        int count = n - 1 - c;
+        for (int v = 0; v < n; v++) rindex[v] = n - 1 - rindex[v];
+        return SccResult.fromComponentIds(count, rindex);
+    }
+}
@@ -0,0 +1,28 @@
+package graph.scc;
+
+import graph.common.Adjacency;
+import graph.common.Metrics;
+
+/**
+ * Strongly connected component engine.
+ * Tarjan-style engines number components in the order they complete, i.e.
+ * sinks of the condensation first; other engines only guarantee a valid
+ * partition, which is all {@link CondensationGraph} needs.
+ */
+public interface SccAlgorithm {
+    SccResult compute(Adjacency g, Metrics metrics);
+
+    /**
+     * Selects an engine by name: "tarjan" (default), "pearce", "parallel" or "partitioned" (worker JVMs).
+     * The semi-external engine builds on this package, so callers resolve "external" themselves.
+     */
+    static SccAlgorithm byName(String name) {
+        switch (name == null ? "tarjan" : name.toLowerCase()) {
+            case "tarjan": return new IterativeTarjanSCC();
+            case "pearce": return new PearceSCC();
+            case "parallel": return new ParallelSCC();
+            case "partitioned": return new PartitionedSCC();
+            default: throw new IllegalArgumentException("Unknown SCC engine: " + name);
+        }
+    }
+}
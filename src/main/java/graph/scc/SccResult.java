@@ -0,0 +1,54 @@
+package graph.scc;
+
+import graph.common.VertexOrder;
+
+import java.util.*;
+
+/**
+ * Primitive SCC decomposition: a component id per vertex plus the members
+ * of every component laid out CSR-style in the order the engine emitted them.
+ */
+public final class SccResult {
+    public final int count;
+    public final int[] compId;
+    public final int[] offsets;
+    public final int[] members;
+
+    public SccResult(int count, int[] compId, int[] offsets, int[] members) {
+        this.count = count;
+        this.compId = compId;
+        this.offsets = offsets;
+        this.members = members;
+    }
+
+    /** Groups vertices by an existing component id array (members ascending by vertex). */
+    public static SccResult fromComponentIds(int count, int[] compId) {
+        int[] offsets = new int[count + 1];
+        for (int c : compId) offsets[c + 1]++;
+        for (int c = 0; c < count; c++) offsets[c + 1] += offsets[c];
+        int[] next = Arrays.copyOf(offsets, count);
+        int[] members = new int[compId.length];
+        for (int v = 0; v < compId.length; v++) members[next[compId[v]]++] = v;
+        return new SccResult(count, compId, offsets, members);
+    }
+
+    /** The same decomposition of a graph that was relabeled by {@code order}, in the original vertex ids. */
+    public SccResult restore(VertexOrder order) {
+        int[] comp = new int[compId.length];
+        for (int x = 0; x < comp.length; x++) comp[order.oldId[x]] = compId[x];
+        return new SccResult(count, comp, offsets, order.toOld(members));
+    }
+
+    public int size(int c) { return offsets[c + 1] - offsets[c]; }
+
+    /** Boxed component lists, in the same layout {@link TarjanSCC#run()} has always returned. */
+    public List<List<Integer>> components() {
+        List<List<Integer>> list = new ArrayList<>(count);
+        for (int c = 0; c < count; c++) {
+            List<Integer> comp = new ArrayList<>(size(c));
+            for (int i = offsets[c]; i < offsets[c + 1]; i++) comp.add(members[i]);
+            list.add(comp);
+        }
+        return list;
+    }
+}
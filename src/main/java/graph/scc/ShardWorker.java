@@ -0,0 +1,237 @@
+package graph.scc;
+
+import graph.common.CsrGraph;
+import graph.common.LongHashSet;
+import graph.common.LongIntHashMap;
+import graph.common.Metrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Arrays;
+
+/**
+ * One shard of a {@link PartitionedSCC} run, normally a JVM of its own
+ * ({@code java -cp ... graph.scc.ShardWorker <port>}). It connects back to the
+ * coordinator on the loopback interface, receives the out-arcs of its vertex
+ * range and then answers two rounds:
+ * <ol>
+ *   <li>the local SCCs of the arcs that stay inside the shard, plus a boundary
+ *       summary: the local components that are reachable from an arc entering
+ *       the shard and reach an arc leaving it (only those can lie on a cycle
+ *       through other shards), the local DAG edges among them and their
+ *       leaving arcs;</li>
+ *   <li>given the global component of each local component and of the head of
+ *       every leaving arc, its share of the condensation edges, already reduced
+ *       under each rule the coordinator asked for (none skips the round).</li>
+ * </ol>
+ * Only the shard's arcs are ever held, so the capacity grows with the workers.
+ */
+final class ShardWorker implements Runnable {
+    static final int HELLO = 0x43545357; // "CTSW"
+
+    private final int port;
+
+    ShardWorker(int port) {
+        this.port = port;
+    }
+
+    public static void main(String[] args) throws IOException {
+        new ShardWorker(Integer.parseInt(args[0])).serve();
+    }
+
+    @Override
+    public void run() {
+        try {
+            serve();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    void serve() throws IOException {
+        try (Socket s = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            s.setTcpNoDelay(true);
+            Wire.In in = new Wire.In(s.getInputStream());
+            Wire.Out out = new Wire.Out(s.getOutputStream());
+            out.writeInt(HELLO);
+            out.flush();
+            Shard shard = new Shard(in);
+            shard.summarize(in, out);
+            EdgeReduction[] reductions = new EdgeReduction[in.readInt()];
+            for (int r = 0; r < reductions.length; r++) reductions[r] = EdgeReduction.values()[in.readInt()];
+            if (reductions.length > 0) shard.condense(reductions, in, out);
+        }
+    }
+
+    /** The arcs leaving one vertex range, split into those staying inside it and those leaving it. */
+    private static final class Shard {
+        final int lo, size;
+        final CsrGraph local;                 // local vertex ids: v - lo
+        final int[] leaveOffsets, leaveHeads; // leaving arcs, global heads
+        final long[] leaveWeights;
+        final SccResult scc;
+        final long sccNanos;
+
+        /** Reads the shard and computes its local SCCs while the coordinator streams the other shards. */
+        Shard(Wire.In in) throws IOException {
+            lo = in.readInt();
+            size = in.readInt();
+            int[] offsets = new int[size + 1], targets = new int[16];
+            long[] weights = new long[16];
+            int[] lOffsets = new int[size + 1], lHeads = new int[16];
+            long[] lWeights = new long[16];
+            int m = 0, l = 0;
+            for (int u = 0; u < size; u++) {
+                for (int k = in.readInt(); k > 0; k--) {
+                    int v = in.readInt() - lo;
+                    long w = in.readLong();
+                    if (v >= 0 && v < size) {
+                        if (m == targets.length) {
+                            targets = Arrays.copyOf(targets, m * 2);
+                            weights = Arrays.copyOf(weights, m * 2);
+                        }
+                        targets[m] = v;
+                        weights[m++] = w;
+                    } else {
+                        if (l == lHeads.length) {
+                            lHeads = Arrays.copyOf(lHeads, l * 2);
+                            lWeights = Arrays.copyOf(lWeights, l * 2);
+                        }
+                        lHeads[l] = v + lo;
+                        lWeights[l++] = w;
+                    }
+                }
+                offsets[u + 1] = m;
+                lOffsets[u + 1] = l;
+            }
+            local = new CsrGraph(size, true, offsets, Arrays.copyOf(targets, m), Arrays.copyOf(weights, m));
+            leaveOffsets = lOffsets;
+            leaveHeads = Arrays.copyOf(lHeads, l);
+            leaveWeights = Arrays.copyOf(lWeights, l);
+            Metrics metrics = new Metrics();
+            scc = new IterativeTarjanSCC().compute(local, metrics);
+            sccNanos = metrics.durationNanos();
+        }
+
+        /** Round 1: reads the entered vertices, answers local components and the boundary summary. */
+        void summarize(Wire.In in, Wire.Out out) throws IOException {
+            int count = scc.count;
+            int[] comp = scc.compId;
+            boolean[] fromEntry = new boolean[count], toExit = new boolean[count];
+            for (int k = in.readInt(); k > 0; k--) fromEntry[comp[in.readInt() - lo]] = true;
+            for (int u = 0; u < size; u++) {
+                if (leaveOffsets[u + 1] > leaveOffsets[u]) toExit[comp[u]] = true;
+            }
+            // Tarjan numbers sinks first: every local DAG edge runs from a higher id to a lower one
+            for (int c = 0; c < count; c++) {
+                for (int i = scc.offsets[c]; i < scc.offsets[c + 1] && !toExit[c]; i++) {
+                    int u = scc.members[i];
+                    for (int e = local.offsets[u]; e < local.offsets[u + 1]; e++) {
+                        if (toExit[comp[local.targets[e]]]) {
+                            toExit[c] = true;
+                            break;
+                        }
+                    }
+                }
+            }
+            for (int c = count - 1; c >= 0; c--) {
+                if (!fromEntry[c]) continue;
+                for (int i = scc.offsets[c]; i < scc.offsets[c + 1]; i++) {
+                    int u = scc.members[i];
+                    for (int e = local.offsets[u]; e < local.offsets[u + 1]; e++) fromEntry[comp[local.targets[e]]] = true;
+                }
+            }
+
+            out.writeLong(sccNanos);
+            out.writeInt(count);
+            for (int u = 0; u < size; u++) out.writeInt(comp[u]);
+            int kept = 0;
+            for (int c = 0; c < count; c++) if (fromEntry[c] && toExit[c]) kept++;
+            out.writeInt(kept);
+            for (int c = 0; c < count; c++) if (fromEntry[c] && toExit[c]) out.writeInt(c);
+
+            // a path between two kept components only passes kept ones, so these edges are the whole story
+            LongHashSet seen = new LongHashSet(16);
+            long[] inner = new long[16], leaving = new long[16];
+            int ni = 0, nl = 0;
+            for (int u = 0; u < size; u++) {
+                int c = comp[u];
+                if (!fromEntry[c] || !toExit[c]) continue;
+                for (int e = local.offsets[u]; e < local.offsets[u + 1]; e++) {
+                    int d = comp[local.targets[e]];
+                    long key = LongHashSet.key(c, d);
+                    if (d != c && fromEntry[d] && toExit[d] && seen.add(key)) {
+                        if (ni == inner.length) inner = Arrays.copyOf(inner, ni * 2);
+                        inner[ni++] = key;
+                    }
+                }
+            }
+            seen.clear();
+            for (int u = 0; u < size; u++) {
+                int c = comp[u];
+                if (!fromEntry[c] || !toExit[c]) continue;
+                for (int e = leaveOffsets[u]; e < leaveOffsets[u + 1]; e++) {
+                    long key = LongHashSet.key(c, leaveHeads[e]);
+                    if (seen.add(key)) {
+                        if (nl == leaving.length) leaving = Arrays.copyOf(leaving, nl * 2);
+                        leaving[nl++] = key;
+                    }
+                }
+            }
+            out.writeInt(ni);
+            for (int i = 0; i < ni; i++) out.writeLong(inner[i]);
+            out.writeInt(nl);
+            for (int i = 0; i < nl; i++) out.writeLong(leaving[i]);
+            out.flush();
+        }
+
+        /** Round 2: global ids in, this shard's condensation edges (one per component pair, a weight per rule) out. */
+        void condense(EdgeReduction[] reductions, Wire.In in, Wire.Out out) throws IOException {
+            int[] global = new int[scc.count];
+            for (int c = 0; c < global.length; c++) global[c] = in.readInt();
+            int rules = reductions.length;
+            LongIntHashMap slot = new LongIntHashMap(16);
+            long[] keys = new long[16], weights = new long[16 * rules];
+            int k = 0;
+            for (int u = 0; u < size; u++) {
+                int cu = global[scc.compId[u]];
+                int inner = local.offsets[u + 1] - local.offsets[u], leaving = leaveOffsets[u + 1] - leaveOffsets[u];
+                for (int i = 0; i < inner + leaving; i++) {
+                    int cv;
+                    long w;
+                    if (i < inner) {
+                        int e = local.offsets[u] + i;
+                        cv = global[scc.compId[local.targets[e]]];
+                        w = local.weights[e];
+                    } else {
+                        int e = leaveOffsets[u] + i - inner;
+                        cv = in.readInt(); // the coordinator sends leaving heads in arc order
+                        w = leaveWeights[e];
+                    }
+                    if (cu == cv) continue;
+                    long key = LongHashSet.key(cu, cv);
+                    int s = slot.get(key, -1);
+                    if (s >= 0) {
+                        for (int r = 0; r < rules; r++) weights[s * rules + r] = reductions[r].apply(weights[s * rules + r], w);
+                        continue;
+                    }
+                    if (k == keys.length) {
+                        keys = Arrays.copyOf(keys, k * 2);
+                        weights = Arrays.copyOf(weights, k * 2 * rules);
+                    }
+                    slot.put(key, k);
+                    keys[k] = key;
+                    Arrays.fill(weights, k * rules, ++k * rules, w);
+                }
+            }
+            out.writeInt(k);
+            for (int i = 0; i < k; i++) {
+                out.writeLong(keys[i]);
+                for (int r = 0; r < rules; r++) out.writeLong(weights[i * rules + r]);
+            }
+            out.flush();
+        }
+    }
+}
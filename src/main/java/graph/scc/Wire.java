@@ -0,0 +1,76 @@
+package graph.scc;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Big-endian ints and longs over the {@link PartitionedSCC} sockets, staged
+ * in one heap buffer per direction so arcs are not copied a byte at a time
+ * (what Data streams do) and the stream sees only large writes.
+ */
+final class Wire {
+    static final int BUFFER = 1 << 16;
+
+    private Wire() {}
+
+    static final class Out {
+        private final OutputStream os;
+        private final ByteBuffer buf = ByteBuffer.allocate(BUFFER);
+
+        Out(OutputStream os) {
+            this.os = os;
+        }
+
+        void writeInt(int v) throws IOException {
+            if (buf.remaining() < Integer.BYTES) drain();
+            buf.putInt(v);
+        }
+
+        void writeLong(long v) throws IOException {
+            if (buf.remaining() < Long.BYTES) drain();
+            buf.putLong(v);
+        }
+
+        void flush() throws IOException {
+            drain();
+            os.flush();
+        }
+
+        private void drain() throws IOException {
+            os.write(buf.array(), 0, buf.position());
+            buf.clear();
+        }
+    }
+
+    static final class In {
+        private final InputStream is;
+        private final ByteBuffer buf = ByteBuffer.allocate(BUFFER).flip();
+
+        In(InputStream is) {
+            this.is = is;
+        }
+
+        int readInt() throws IOException {
+            if (buf.remaining() < Integer.BYTES) fill(Integer.BYTES);
+            return buf.getInt();
+        }
+
+        long readLong() throws IOException {
+            if (buf.remaining() < Long.BYTES) fill(Long.BYTES);
+            return buf.getLong();
+        }
+
+        private void fill(int need) throws IOException {
+            buf.compact();
+            while (buf.position() < need) {
+                int r = is.read(buf.array(), buf.position(), buf.remaining());
+                if (r < 0) throw new EOFException("Shard connection closed");
+                buf.position(buf.position() + r);
+            }
+            buf.flip();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package graph.schedule;
+
+import graph.common.Adjacency;
+import graph.common.Metrics;
+import graph.topo.KahnTopologicalSort;
+
+import java.util.Arrays;
+
+/**
+ * Critical path method over a DAG of tasks: earliest/latest start and finish,
+ * total and free float of every task from one forward and one reverse sweep
+ * of a topological order, instead of one longest-path query per task.
+ * Under {@link WeightModel#EDGE} an arc's weight is the lag between its ends
+ * and tasks take no time; under {@link WeightModel#NODE} tasks carry
+ * durations and arcs are plain precedences. Both sweeps only read out-arcs,
+ * so neither model needs a reverse graph or split vertices.
+ */
+public final class CpmSchedule {
+    public final WeightModel model;
+    public final long[] duration; // all zero under EDGE
+    public final long[] es, ef, ls, lf;
+    public final long[] freeFloat;
+    public final long makespan;
+
+    final Adjacency dag;
+    final int[] topo;
+
+    public CpmSchedule(Adjacency dag, WeightModel model, long[] durations, Metrics metrics) {
+        this(dag, new KahnTopologicalSort(dag, new Metrics()).order(), model, durations, metrics);
+    }
+
+    /**
+     * Reuses a topological order computed elsewhere (see {@code GraphAnalysis}).
+     * {@code durations} is required under NODE and ignored under EDGE.
+     */
+    public CpmSchedule(Adjacency dag, int[] topo, WeightModel model, long[] durations, Metrics metrics) {
+        int n = dag.n();
+        if (model == WeightModel.NODE && (durations == null || durations.length != n))
+            throw new IllegalArgumentException("NODE model needs one duration per task");
+        this.dag = dag;
+        this.topo = topo;
+        this.model = model;
+        this.duration = model == WeightModel.NODE ? durations : new long[n];
+        boolean lags = model == WeightModel.EDGE;
+        es = new long[n];
+        ef = new long[n];
+        ls = new long[n];
+        lf = new long[n];
+        freeFloat = new long[n];
+
+        metrics.start();
+        long end = 0;
+        for (int u : topo) { // forward: es[u] is final once u is reached
+            ef[u] = es[u] + duration[u];
+            end = Math.max(end, ef[u]);
+            for (int e = dag.begin(u), stop = dag.end(u); e < stop; e++) {
+                int v = dag.target(e);
+                long t = ef[u] + (lags ? dag.weight(e) : 0);
+                if (t > es[v]) es[v] = t;
+            }
+        }
+        makespan = end;
+        for (int i = topo.length - 1; i >= 0; i--) { // reverse: successors are final
+            int u = topo[i];
+            long late = end, next = end;
+            for (int e = dag.begin(u), stop = dag.end(u); e < stop; e++) {
+                int v = dag.target(e);
+                long lag = lags ? dag.weight(e) : 0;
+                late = Math.min(late, ls[v] - lag);
+                next = Math.min(next, es[v] - lag);
+            }
+            lf[u] = late;
+            ls[u] = late - duration[u];
+            freeFloat[u] = next - ef[u];
+        }
+        metrics.stop();
+        if (Metrics.ENABLED) metrics.relaxations += 2L * dag.edgeCount();
+    }
+
+    /** Slack of task v: how far it can slip without moving the makespan. */
+    public long totalFloat(int v) {
+        return ls[v] - es[v];
+    }
+
+    public boolean isCritical(int v) {
+        return ls[v] == es[v];
+    }
+
+    /** Zero-float tasks in topological order. */
+    public int[] criticalTasks() {
+        int[] out = new int[topo.length];
+        int k = 0;
+        for (int v : topo) if (isCritical(v)) out[k++] = v;
+        return Arrays.copyOf(out, k);
+    }
+
+    /** One chain of zero-float tasks from time 0 to the makespan (empty for an empty plan). */
+    public int[] criticalPath() {
+        int[] path = new int[topo.length];
+        int len = 0, cur = -1;
+        for (int v : topo) {
+            if (es[v] == 0 && isCritical(v)) { cur = v; break; }
+        }
+        boolean lags = model == WeightModel.EDGE;
+        while (cur != -1) {
+            path[len++] = cur;
+            int next = -1;
+            for (int e = dag.begin(cur), stop = dag.end(cur); e < stop && next == -1; e++) {
+                int v = dag.target(e);
+                if (isCritical(v) && ef[cur] + (lags ? dag.weight(e) : 0) == es[v]) next = v;
+            }
+            cur = next;
+        }
+        return Arrays.copyOf(path, len);
+    }
+}
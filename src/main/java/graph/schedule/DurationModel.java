@@ -0,0 +1,118 @@
+package graph.schedule;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Uncertain durations around the plan's estimates. Every duration is its
+ * estimate times a factor drawn from one {@link Shape} spanning
+ * {@code low..high} (mode 1 for the bounded shapes), so arcs with different
+ * estimates share a single standardized distribution. Its quantile function
+ * is tabulated once; a draw is one uniform and a linear interpolation in the
+ * table, whatever the shape.
+ */
+public final class DurationModel {
+    static final int TABLE = 4096; // 12 index bits per draw, see draw()
+    private static final int GRID = 1 << 14;
+    private static final double Z_TAIL = 3.719; // the normal's 0.01% quantile: lognormal tails beyond it are cut
+
+    public enum Shape {
+        /** Triangular on [low, high] with mode 1. */
+        TRIANGULAR,
+        /** Beta-PERT on [low, high] with mode 1 (shape weight 4). */
+        PERT,
+        /** Lognormal whose 5th and 95th percentiles are low and high. */
+        LOGNORMAL;
+
+        /** "triangular", "pert" or "lognormal" (case-insensitive). */
+        public static Shape byName(String name) {
+            for (Shape s : values()) {
+                if (s.name().equalsIgnoreCase(name)) return s;
+            }
+            throw new IllegalArgumentException("Unknown duration shape: " + name);
+        }
+    }
+
+    public final Shape shape;
+    public final double low, high;
+    private final double[] quantile = new double[TABLE + 1];
+
+    public DurationModel(Shape shape, double low, double high) {
+        if (!(low <= 1 && 1 <= high) || low < 0 || (shape == Shape.LOGNORMAL && !(0 < low && low < high)))
+            throw new IllegalArgumentException("Need 0 <= low <= 1 <= high (low > 0, low < high for lognormal), got "
+                    + low + ".." + high);
+        this.shape = shape;
+        this.low = low;
+        this.high = high;
+        if (shape == Shape.TRIANGULAR) {
+            double split = high == low ? 0 : (1 - low) / (high - low);
+            for (int j = 0; j <= TABLE; j++) {
+                double u = (double) j / TABLE;
+                quantile[j] = u <= split ? low + Math.sqrt(u * (high - low) * (1 - low))
+                        : high - Math.sqrt((1 - u) * (high - low) * (high - 1));
+            }
+        } else if (shape == Shape.PERT) {
+            if (high == low) {
+                Arrays.fill(quantile, 1);
+            } else {
+                double a = 1 + 4 * (1 - low) / (high - low), b = 1 + 4 * (high - 1) / (high - low);
+                invert(x -> Math.pow(x, a - 1) * Math.pow(1 - x, b - 1), 0, 1);
+                for (int j = 0; j <= TABLE; j++) quantile[j] = low + (high - low) * quantile[j];
+            }
+        } else {
+            double mu = (Math.log(low) + Math.log(high)) / 2;
+            double sigma = (Math.log(high) - Math.log(low)) / (2 * 1.6448536); // z of the 95th percentile
+            invert(x -> Math.exp(-x * x / 2), -Z_TAIL, Z_TAIL);
+            for (int j = 0; j <= TABLE; j++) quantile[j] = Math.exp(mu + sigma * quantile[j]);
+        }
+    }
+
+    /** The duration factor at cumulative probability u in [0, 1). */
+    public double factor(double u) {
+        double x = u * TABLE;
+        int i = (int) x;
+        return quantile[i] + (x - i) * (quantile[i + 1] - quantile[i]);
+    }
+
+    /**
+     * Fills out[0..count) with factors (count rounded up to even, so out needs
+     * room for it): one 64-bit draw feeds two factors, each a 12-bit table
+     * index plus a 20-bit fraction for the interpolation.
+     */
+    void draw(SplittableRandom rnd, double[] out, int count) {
+        double[] q = quantile;
+        for (int k = 0; k < count; k += 2) {
+            long r = rnd.nextLong();
+            int i = (int) (r >>> 52), j = (int) (r >>> 20) & 0xFFF;
+            double fi = ((r >>> 32) & 0xFFFFF) * 0x1p-20, fj = (r & 0xFFFFF) * 0x1p-20;
+            out[k] = q[i] + fi * (q[i + 1] - q[i]);
+            out[k + 1] = q[j] + fj * (q[j + 1] - q[j]);
+        }
+    }
+
+    /** Smallest and largest factor a draw can return; a plan's sampled makespan lies within these multiples. */
+    public double minFactor() { return quantile[0]; }
+
+    public double maxFactor() { return quantile[TABLE]; }
+
+    /** Fills the table with quantiles of the density on [from, to] (unnormalized), by trapezoids on a fine grid. */
+    private void invert(DoubleUnaryOperator density, double from, double to) {
+        double step = (to - from) / GRID;
+        double[] cdf = new double[GRID + 1];
+        double prev = density.applyAsDouble(from);
+        for (int i = 1; i <= GRID; i++) {
+            double next = density.applyAsDouble(from + i * step);
+            cdf[i] = cdf[i - 1] + (prev + next) / 2;
+            prev = next;
+        }
+        int i = 0;
+        for (int j = 0; j <= TABLE; j++) {
+            double target = cdf[GRID] * j / TABLE;
+            while (i < GRID - 1 && cdf[i + 1] < target) i++;
+            double span = cdf[i + 1] - cdf[i];
+            double f = span > 0 ? Math.min(1, Math.max(0, (target - cdf[i]) / span)) : 0;
+            quantile[j] = from + (i + f) * step;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package graph.schedule;
+
+/**
+ * Fixed-range histogram of a stream of values, in constant memory however
+ * many are added. Quantiles interpolate within a bin, so they are exact to
+ * one bin width; count, mean, min and max are exact. Not thread-safe: give
+ * every worker its own and {@link #merge} them afterwards.
+ */
+public final class Histogram {
+    public final double lo, hi;
+    private final long[] bins;
+    private final double scale;
+    private long count;
+    private double sum, sumSq, min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+
+    /** Bins of equal width over [lo, hi); values outside land in the first or last bin. */
+    public Histogram(double lo, double hi, int binCount) {
+        if (!(hi > lo) || binCount < 1) throw new IllegalArgumentException("Bad histogram range " + lo + ".." + hi);
+        this.lo = lo;
+        this.hi = hi;
+        bins = new long[binCount];
+        scale = binCount / (hi - lo);
+    }
+
+    public void add(double x) {
+        int b = (int) ((x - lo) * scale);
+        bins[Math.max(0, Math.min(bins.length - 1, b))]++;
+        count++;
+        sum += x;
+        sumSq += x * x;
+        if (x < min) min = x;
+        if (x > max) max = x;
+    }
+
+    /** Adds another histogram over the same range and bins. */
+    public void merge(Histogram other) {
+        if (other.lo != lo || other.hi != hi || other.bins.length != bins.length)
+            throw new IllegalArgumentException("Histograms differ in range or bins");
+        for (int b = 0; b < bins.length; b++) bins[b] += other.bins[b];
+        count += other.count;
+        sum += other.sum;
+        sumSq += other.sumSq;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long count() { return count; }
+
+    public long binCount(int b) { return bins[b]; }
+
+    public int bins() { return bins.length; }
+
+    public double min() { return min; }
+
+    public double max() { return max; }
+
+    public double mean() { return count == 0 ? Double.NaN : sum / count; }
+
+    public double stdDev() {
+        if (count < 2) return 0;
+        double mean = sum / count;
+        return Math.sqrt(Math.max(0, (sumSq - count * mean * mean) / (count - 1)));
+    }
+
+    /** The value below which a fraction p of the values lie (NaN when empty). */
+    public double quantile(double p) {
+        if (count == 0) return Double.NaN;
+        double rank = p * count, seen = 0, width = (hi - lo) / bins.length;
+        for (int b = 0; b < bins.length; b++) {
+            if (bins[b] > 0 && seen + bins[b] >= rank) {
+                double x = lo + (b + (rank - seen) / bins[b]) * width;
+                return Math.max(min, Math.min(max, x));
+            }
+            seen += bins[b];
+        }
+        return max;
+    }
+
+    /** Fraction of the values at or below x. */
+    public double cdf(double x) {
+        if (count == 0) return Double.NaN;
+        if (x >= max) return 1;
+        if (x < min) return 0;
+        double pos = (x - lo) * scale, seen = 0;
+        int b = (int) Math.max(0, Math.min(bins.length - 1, pos));
+        for (int i = 0; i < b; i++) seen += bins[i];
+        return Math.min(1, (seen + bins[b] * Math.max(0, Math.min(1, pos - b))) / count);
+    }
+}
@@ -0,0 +1,84 @@
+package graph.schedule;
+
+import graph.common.Adjacency;
+import graph.common.EdgeCursor;
+import graph.common.Metrics;
+
+/**
+ * Resource-constrained list schedule of a {@link CpmSchedule} on K identical crews.
+ * Whenever a crew is free it takes the released task with the smallest
+ * latest start (least slack first, ties to the lower id). Released tasks
+ * wait in a heap by release time, runnable ones in a heap by priority, and
+ * running ones in a heap by finish time, so the simulation jumps from event
+ * to event in O((n + m) log n). With at least as many crews as tasks every
+ * task starts at its earliest start.
+ */
+public final class ListSchedule {
+    public final int crews;
+    public final long[] start, finish;
+    public final int[] crew;
+    public final long makespan;
+
+    public ListSchedule(CpmSchedule cpm, int crews, Metrics metrics) {
+        if (crews < 1) throw new IllegalArgumentException("Need at least one crew, got " + crews);
+        Adjacency dag = cpm.dag;
+        int n = dag.n();
+        boolean lags = cpm.model == WeightModel.EDGE;
+        this.crews = crews;
+        start = new long[n];
+        finish = new long[n];
+        crew = new int[n];
+        long[] release = new long[n];
+        int[] waiting = dag.inDegrees(); // unfinished predecessors
+        EdgeCursor cur = dag.cursor();
+
+        metrics.start();
+        TaskHeap pending = new TaskHeap(release, n), ready = new TaskHeap(cpm.ls, n), running = new TaskHeap(finish, n);
+        int[] idle = new int[Math.min(crews, Math.max(n, 1))];
+        int free = idle.length;
+        for (int i = 0; i < free; i++) idle[i] = free - 1 - i; // crew 0 on top
+        for (int v = 0; v < n; v++) if (waiting[v] == 0) pending.push(v);
+
+        long now = 0, end = 0;
+        int done = 0;
+        while (done < n) {
+            while (!pending.isEmpty() && pending.peekKey() <= now) ready.push(pending.poll());
+            while (free > 0 && !ready.isEmpty()) {
+                int v = ready.poll();
+                start[v] = now;
+                finish[v] = now + cpm.duration[v];
+                crew[v] = idle[--free];
+                running.push(v);
+            }
+            long next = Long.MAX_VALUE;
+            if (!running.isEmpty()) next = running.peekKey();
+            if (free > 0 && !pending.isEmpty()) next = Math.min(next, pending.peekKey());
+            if (next == Long.MAX_VALUE) throw new IllegalStateException("Graph contains a cycle");
+            now = next;
+            while (!running.isEmpty() && running.peekKey() <= now) {
+                int u = running.poll();
+                idle[free++] = crew[u];
+                done++;
+                end = Math.max(end, finish[u]);
+                for (cur.reset(u); cur.hasNext(); ) {
+                    int v = cur.next();
+                    release[v] = Math.max(release[v], finish[u] + (lags ? cur.weight() : 0));
+                    if (--waiting[v] == 0) {
+                        if (release[v] <= now) ready.push(v); else pending.push(v);
+                    }
+                }
+            }
+        }
+        makespan = end;
+        metrics.stop();
+        if (Metrics.ENABLED) metrics.add("scheduled", n);
+    }
+
+    /** Busy time over crew time, in [0, 1]. */
+    public double utilization() {
+        if (makespan == 0) return 1.0;
+        long busy = 0;
+        for (int v = 0; v < start.length; v++) busy += finish[v] - start[v];
+        return (double) busy / ((double) makespan * Math.min(crews, start.length));
+    }
+}
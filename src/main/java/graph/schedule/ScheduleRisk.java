@@ -0,0 +1,169 @@
+package graph.schedule;
+
+import graph.common.Adjacency;
+import graph.common.CsrGraph;
+import graph.common.Metrics;
+import graph.common.VertexOrder;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Monte Carlo schedule risk: the makespan distribution and every task's
+ * criticality index when durations (arc lags under {@link WeightModel#EDGE},
+ * task durations under NODE) are drawn from a {@link DurationModel} around
+ * their estimates. Each sweep of the shared topological order runs a batch
+ * of {@link #LANES} scenarios side by side, one lane per scenario, like
+ * {@code MultiSourceSweep}, over a copy renumbered by topological rank so the
+ * sweep reads its rows in address order. Every batch draws from its own split of one
+ * seeded {@link SplittableRandom}, so results do not depend on how batches
+ * are spread over the fork/join workers; each worker streams makespans into
+ * its own {@link Histogram} and critical-path hits into its own counts, which
+ * are merged at the end.
+ */
+public final class ScheduleRisk {
+    public static final int LANES = 16;
+    public static final int BINS = 2048;
+
+    public final WeightModel model;
+    public final DurationModel durations;
+    public final int scenarios;
+    public final long plannedMakespan; // with every duration at its estimate
+    public final Histogram makespan;
+    public final double[] criticality; // fraction of scenarios in which a task is on the critical path
+
+    private final CsrGraph dag; // renumbered by topological rank
+    private final long[] duration; // per rank, null under EDGE
+
+    /** {@code taskDurations} is required under NODE and ignored under EDGE, as for {@link CpmSchedule}. */
+    public ScheduleRisk(Adjacency dag, int[] topo, WeightModel model, long[] taskDurations, DurationModel durations,
+                        int scenarios, long seed, Metrics metrics) {
+        if (scenarios < 1) throw new IllegalArgumentException("Need at least one scenario, got " + scenarios);
+        int n = dag.n();
+        if ((long) n * LANES > Integer.MAX_VALUE - 8) throw new IllegalArgumentException("Too many tasks: " + n);
+        this.model = model;
+        this.durations = durations;
+        this.scenarios = scenarios;
+        plannedMakespan = new CpmSchedule(dag, topo, model, taskDurations, new Metrics()).makespan;
+        VertexOrder layout = VertexOrder.topological(topo);
+        this.dag = layout.apply(dag);
+        if (model == WeightModel.NODE) {
+            duration = new long[n];
+            for (int v = 0; v < n; v++) duration[layout.newId[v]] = taskDurations[v];
+        } else {
+            duration = null;
+        }
+
+        // Every draw lies in [minFactor, maxFactor] times its estimate, and the makespan is monotone in them.
+        double lo = durations.minFactor() * plannedMakespan, hi = durations.maxFactor() * plannedMakespan;
+        int batches = (scenarios + LANES - 1) / LANES;
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] streams = new SplittableRandom[batches];
+        for (int b = 0; b < batches; b++) streams[b] = root.split();
+        int workers = Math.max(1, Math.min(batches, ForkJoinPool.getCommonPoolParallelism()));
+        Histogram[] hists = new Histogram[workers];
+        long[][] hits = new long[workers][];
+
+        metrics.start();
+        IntStream range = IntStream.range(0, workers);
+        (workers > 1 ? range.parallel() : range).forEach(w -> {
+            Histogram h = new Histogram(lo, hi > lo ? hi : lo + 1, BINS);
+            long[] onPath = new long[n];
+            double[] t = new double[n * LANES];
+            int[] parent = new int[n * LANES];
+            for (int b = (int) ((long) batches * w / workers), end = (int) ((long) batches * (w + 1) / workers);
+                 b < end; b++) {
+                int width = Math.min(LANES, scenarios - b * LANES);
+                sweep(streams[b], width, t, parent, h, onPath);
+            }
+            hists[w] = h;
+            hits[w] = onPath;
+        });
+        makespan = hists[0];
+        for (int w = 1; w < workers; w++) makespan.merge(hists[w]);
+        criticality = new double[n];
+        for (long[] onPath : hits) {
+            for (int v = 0; v < n; v++) criticality[v] += onPath[layout.newId[v]];
+        }
+        for (int v = 0; v < n; v++) criticality[v] /= scenarios;
+        metrics.stop();
+        if (Metrics.ENABLED) {
+            metrics.relaxations += (long) scenarios * dag.edgeCount();
+            metrics.add("scenarios", scenarios);
+            metrics.add("batches", batches);
+        }
+    }
+
+    /**
+     * One batch in rank order: t[v * width + k] is v's start in scenario k
+     * until v is reached, then (after adding its drawn duration) its finish.
+     */
+    private void sweep(SplittableRandom rnd, int width, double[] t, int[] parent, Histogram h, long[] onPath) {
+        int n = dag.n();
+        Arrays.fill(t, 0, n * width, 0);
+        Arrays.fill(parent, 0, n * width, -1);
+        double[] end = new double[width];
+        int[] last = new int[width];
+        double[] f = new double[width + 1];
+        Arrays.fill(end, -1);
+        Arrays.fill(last, -1);
+        boolean lags = duration == null;
+        for (int u = 0; u < n; u++) {
+            int ub = u * width;
+            if (!lags) {
+                double d = duration[u];
+                durations.draw(rnd, f, width);
+                for (int k = 0; k < width; k++) t[ub + k] += d * f[k];
+            }
+            for (int k = 0; k < width; k++) {
+                if (t[ub + k] > end[k]) {
+                    end[k] = t[ub + k];
+                    last[k] = u;
+                }
+            }
+            for (int e = dag.begin(u), stop = dag.end(u); e < stop; e++) {
+                int vb = dag.target(e) * width;
+                double w = lags ? dag.weight(e) : 0;
+                if (lags) durations.draw(rnd, f, width);
+                for (int k = 0; k < width; k++) {
+                    double s = t[ub + k] + w * f[k];
+                    if (s > t[vb + k]) {
+                        t[vb + k] = s;
+                        parent[vb + k] = u;
+                    }
+                }
+            }
+        }
+        for (int k = 0; k < width; k++) {
+            h.add(Math.max(0, end[k]));
+            for (int v = last[k]; v != -1; v = parent[v * width + k]) onPath[v]++;
+        }
+    }
+
+    public double percentile(double p) {
+        return makespan.quantile(p);
+    }
+
+    public double p50() { return percentile(0.5); }
+
+    public double p90() { return percentile(0.9); }
+
+    /** Probability of finishing within the deterministic plan. */
+    public double onTimeProbability() {
+        return makespan.cdf(plannedMakespan);
+    }
+
+    /** The k tasks with the highest criticality index, most critical first (ties to the lower id). */
+    public int[] mostCritical(int k) {
+        long[] keys = new long[criticality.length];
+        for (int v = 0; v < keys.length; v++) {
+            keys[v] = ((long) (criticality[v] * Integer.MAX_VALUE) << 32) | (Integer.MAX_VALUE - v);
+        }
+        Arrays.sort(keys);
+        int[] out = new int[Math.min(k, keys.length)];
+        for (int i = 0; i < out.length; i++) out[i] = Integer.MAX_VALUE - (int) keys[keys.length - 1 - i];
+        return out;
+    }
+}
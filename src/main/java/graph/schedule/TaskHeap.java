@@ -0,0 +1,65 @@
+package graph.schedule;
+
+/**
+ * Binary min-heap of task ids ordered by {@code key[task]}, ties to the lower id.
+ * Keys are copied in next to the ids when a task is pushed, so sifting
+ * never jumps into the key array; a task's key must not change while it is queued.
+ */
+final class TaskHeap {
+    private final long[] key;
+    private final long[] keys;
+    private final int[] ids;
+    private int size;
+
+    TaskHeap(long[] key, int capacity) {
+        this.key = key;
+        this.keys = new long[capacity];
+        this.ids = new int[capacity];
+    }
+
+    boolean isEmpty() { return size == 0; }
+
+    int peek() { return ids[0]; }
+
+    long peekKey() { return keys[0]; }
+
+    void push(int v) {
+        long k = key[v];
+        int i = size++;
+        while (i > 0) {
+            int p = (i - 1) >>> 1;
+            if (!less(k, v, keys[p], ids[p])) break;
+            keys[i] = keys[p];
+            ids[i] = ids[p];
+            i = p;
+        }
+        keys[i] = k;
+        ids[i] = v;
+    }
+
+    int poll() {
+        int top = ids[0];
+        int n = --size;
+        long k = keys[n];
+        int v = ids[n];
+        int i = 0;
+        while (true) {
+            int c = 2 * i + 1;
+            if (c >= n) break;
+            if (c + 1 < n && less(keys[c + 1], ids[c + 1], keys[c], ids[c])) c++;
+            if (!less(keys[c], ids[c], k, v)) break;
+            keys[i] = keys[c];
+            ids[i] = ids[c];
+            i = c;
+        }
+        if (n > 0) {
+            keys[i] = k;
+            ids[i] = v;
+        }
+        return top;
+    }
+
+    private static boolean less(long ka, int a, long kb, int b) {
+        return ka < kb || (ka == kb && a < b);
+    }
+}
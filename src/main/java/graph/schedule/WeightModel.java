@@ -0,0 +1,17 @@
+package graph.schedule;
+
+/** Where a plan keeps its durations (the dataset's {@code weight_model} field). */
+public enum WeightModel {
+    /** Arc weights are lags between events; vertices themselves take no time. */
+    EDGE,
+    /** Every vertex is a task with its own duration; arcs are plain precedences. */
+    NODE;
+
+    /** Parses "edge" or "node" (case-insensitive). */
+    public static WeightModel of(String name) {
+        for (WeightModel m : values()) {
+            if (m.name().equalsIgnoreCase(name)) return m;
+        }
+        throw new IllegalArgumentException("Unknown weight model: " + name);
+    }
+}
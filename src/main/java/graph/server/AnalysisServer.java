@@ -0,0 +1,269 @@
+package graph.server;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import graph.common.Metrics;
+import graph.dagsp.DAGLongestPath;
+import graph.dagsp.DAGShortestPaths;
+import graph.external.SemiExternalScc;
+import graph.scc.SccAlgorithm;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Long-running local HTTP server over a {@link GraphRegistry}, so repeated
+ * queries skip JVM startup and parsing. Answers JSON in the layout of the
+ * pipeline's output files:
+ * <pre>
+ *   GET /graphs
+ *   GET /scc?graph=dataset_small_1
+ *   GET /topo?graph=...
+ *   GET /shortest?graph=...[&amp;source=v][&amp;to=x,y,...]
+ *   GET /critical?graph=...[&amp;source=v][&amp;to=x,y,...]
+ *   GET /reach?graph=...&amp;from=a,b,...&amp;to=x,y,...
+ *   GET /stats
+ * </pre>
+ * {@code source} is an original vertex (default: the file's source).
+ * {@code /reach} answers whether each {@code to[i]} depends on {@code from[i]}
+ * straight from the graph's reachability index, without the cache. With
+ * {@code to}, {@code /shortest} and {@code /critical} answer only the distance
+ * to each listed vertex's component (and, for one target, the critical path to
+ * it), sweeping just the part of the condensation between source and targets;
+ * these answers bypass the cache as well.
+ * Query results are kept encoded in a byte-bounded {@link ResultCache}.
+ */
+public class AnalysisServer {
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+
+    private final GraphRegistry registry;
+    private final ResultCache cache;
+    private final HttpServer http;
+    private final ExecutorService workers;
+
+    public AnalysisServer(GraphRegistry registry, ResultCache cache, int port, int threads) throws IOException {
+        this.registry = registry;
+        this.cache = cache;
+        this.http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 128);
+        AtomicInteger ids = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, "server-" + ids.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+        http.createContext("/", this::handle);
+        http.setExecutor(workers);
+    }
+
+    /** {@code -Dserver.port} (8080), {@code -Dserver.threads}, {@code -Dserver.cacheMb} (64), {@code -Dscc.engine}. */
+    public static void main(String[] args) throws Exception {
+        // the JDK server writes headers and body separately; with Nagle on, keep-alive
+        // clients wait out the peer's delayed ACK (~40 ms) on every request
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        File folder = new File(args.length > 0 ? args[0] : "data");
+        long t0 = System.nanoTime();
+        String engine = System.getProperty("scc.engine", "tarjan");
+        GraphRegistry registry = GraphRegistry.load(folder,
+                "external".equalsIgnoreCase(engine) ? new SemiExternalScc() : SccAlgorithm.byName(engine));
+        AnalysisServer server = new AnalysisServer(registry,
+                new ResultCache(Long.getLong("server.cacheMb", 64) << 20),
+                Integer.getInteger("server.port", 8080),
+                Integer.getInteger("server.threads", Runtime.getRuntime().availableProcessors()));
+        server.start();
+        System.out.printf("Loaded %d graphs in %d ms; listening on http://localhost:%d/%n",
+                registry.size(), (System.nanoTime() - t0) / 1_000_000, server.port());
+    }
+
+    public void start() { http.start(); }
+
+    public void stop() {
+        http.stop(0);
+        workers.shutdownNow();
+    }
+
+    public int port() { return http.getAddress().getPort(); }
+
+    private void handle(HttpExchange ex) throws IOException {
+        int status = 200;
+        byte[] body;
+        try {
+            body = answer(ex.getRequestURI().getPath(), params(ex.getRequestURI().getRawQuery()));
+        } catch (NotFound e) {
+            status = 404;
+            body = error(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            status = 400;
+            body = error(e.getMessage());
+        } catch (RuntimeException e) {
+            status = 500;
+            body = error(String.valueOf(e));
+        }
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(status, body.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /** Encoded response for one request path; query results go through the cache. */
+    byte[] answer(String path, Map<String, String> q) {
+        switch (path) {
+            case "/graphs": return json(Map.of("graphs", registry.names()));
+            case "/stats": return json(stats());
+            case "/scc": case "/topo": case "/shortest": case "/critical": case "/reach": break;
+            default: throw new NotFound("Unknown path " + path);
+        }
+        GraphRegistry.Entry g = registry.get(q.get("graph"));
+        if (g == null) throw new NotFound("Unknown graph " + q.get("graph"));
+        if (path.equals("/reach")) return json(reach(g, q));
+        int source = g.source;
+        if (q.containsKey("source")) {
+            try {
+                source = Integer.parseInt(q.get("source"));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Bad source " + q.get("source"));
+            }
+            if (source < 0 || source >= g.graph.n()) throw new IllegalArgumentException("Source out of range: " + source);
+        }
+        if (q.containsKey("to") && !path.equals("/scc") && !path.equals("/topo")) return json(targeted(path, g, source, q));
+        String key = path + '|' + g.name + (path.equals("/shortest") || path.equals("/critical") ? "|" + source : "");
+        int src = source;
+        return cache.get(key, () -> json(compute(path, g, src)));
+    }
+
+    private static Map<String, Object> compute(String path, GraphRegistry.Entry g, int source) {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("graph", g.name);
+        int comp = g.scc.compId[source];
+        switch (path) {
+            case "/scc":
+                out.put("scc_count", g.scc.count);
+                out.put("scc_list", g.scc.components());
+                break;
+            case "/topo":
+                out.put("topological_order", g.topo);
+                break;
+            case "/shortest":
+                out.put("source_component", comp);
+                out.put("shortest_distances",
+                        new DAGShortestPaths(g.condensation.dag.csr(), g.topo, new Metrics()).shortestFrom(comp));
+                break;
+            default: {
+                DAGLongestPath.Result r = new DAGLongestPath(g.criticalDag, g.topo, new Metrics()).longestFrom(comp);
+                long max = Long.MIN_VALUE;
+                int end = -1;
+                for (int i = 0; i < r.dist.length; i++) {
+                    if (r.dist[i] > max) { max = r.dist[i]; end = i; }
+                }
+                List<Integer> chain = new ArrayList<>();
+                for (int cur = end; cur != -1; cur = r.parent[cur]) chain.add(cur);
+                Collections.reverse(chain);
+                out.put("source_component", comp);
+                out.put("critical_path", chain);
+                out.put("critical_length", max);
+            }
+        }
+        return out;
+    }
+
+    private static Map<String, Object> targeted(String path, GraphRegistry.Entry g, int source, Map<String, String> q) {
+        int[] to = vertices(g, q.get("to"));
+        for (int i = 0; i < to.length; i++) to[i] = g.scc.compId[to[i]];
+        int comp = g.scc.compId[source];
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("graph", g.name);
+        out.put("source_component", comp);
+        out.put("target_components", to);
+        if (path.equals("/shortest")) {
+            out.put("shortest_distances", g.shortestTo.shortest(comp, to));
+        } else {
+            out.put("critical_lengths", g.criticalTo.longest(comp, to));
+            if (to.length == 1) out.put("critical_path", g.criticalTo.longestPath(comp, to[0]));
+        }
+        return out;
+    }
+
+    private static Map<String, Object> reach(GraphRegistry.Entry g, Map<String, String> q) {
+        int[] from = vertices(g, q.get("from")), to = vertices(g, q.get("to"));
+        if (from.length != to.length) throw new IllegalArgumentException("from and to differ in length");
+        int[] comp = g.scc.compId;
+        for (int i = 0; i < from.length; i++) {
+            from[i] = comp[from[i]];
+            to[i] = comp[to[i]];
+        }
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("graph", g.name);
+        out.put("reachable", g.reach.reaches(from, to));
+        return out;
+    }
+
+    private static int[] vertices(GraphRegistry.Entry g, String list) {
+        if (list == null || list.isEmpty()) throw new IllegalArgumentException("Missing vertex list");
+        String[] parts = list.split(",");
+        int[] out = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            try {
+                out[i] = Integer.parseInt(parts[i].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Bad vertex " + parts[i]);
+            }
+            if (out[i] < 0 || out[i] >= g.graph.n()) throw new IllegalArgumentException("Vertex out of range: " + out[i]);
+        }
+        return out;
+    }
+
+    private Map<String, Object> stats() {
+        Map<String, Object> s = new LinkedHashMap<>();
+        s.put("graphs", registry.size());
+        s.put("cache_entries", cache.size());
+        s.put("cache_bytes", cache.bytes());
+        s.put("cache_hits", cache.hits());
+        s.put("cache_misses", cache.misses());
+        s.put("cache_evictions", cache.evictions());
+        return s;
+    }
+
+    private static Map<String, String> params(String rawQuery) {
+        Map<String, String> q = new HashMap<>();
+        if (rawQuery == null) return q;
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq <= 0) continue;
+            q.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return q;
+    }
+
+    private static byte[] json(Object value) {
+        return GSON.toJson(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] error(String message) {
+        return json(Map.of("error", message));
+    }
+
+    private static final class NotFound extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        NotFound(String message) { super(message); }
+    }
+}
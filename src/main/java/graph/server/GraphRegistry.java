@@ -0,0 +1,106 @@
+package graph.server;
+
+import graph.analysis.GraphAnalysis;
+import graph.common.Adjacency;
+import graph.common.BinaryGraphIO;
+import graph.common.CsrGraph;
+import graph.common.JsonIO;
+import graph.common.MappedCsrGraph;
+import graph.dagsp.ReachabilityIndex;
+import graph.dagsp.TargetedPaths;
+import graph.scc.CondensationGraph;
+import graph.scc.SccAlgorithm;
+import graph.scc.SccResult;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Graphs loaded once at server start, with every artifact a query needs
+ * (SCCs, both condensations, topological order, reachability index, targeted
+ * path solvers) computed up front.
+ * The map and the entries are never modified afterwards, so request threads
+ * read them without any locking.
+ */
+public final class GraphRegistry {
+    private final Map<String, Entry> graphs;
+
+    public GraphRegistry(Map<String, Entry> graphs) {
+        this.graphs = java.util.Collections.unmodifiableMap(new LinkedHashMap<>(graphs));
+    }
+
+    /** Loads every dataset_* file of a folder; a .bin file takes the place of the .json with the same name. */
+    public static GraphRegistry load(File folder, SccAlgorithm engine) throws IOException {
+        File[] files = folder.listFiles((dir, name) -> name.startsWith("dataset_")
+                && (name.endsWith(BinaryGraphIO.EXTENSION)
+                    || name.endsWith(".json") && !new File(dir, baseName(name) + BinaryGraphIO.EXTENSION).exists()));
+        if (files == null) throw new IOException("Not a folder: " + folder);
+        Arrays.sort(files, Comparator.comparing(File::getName));
+        Map<String, Entry> graphs = new LinkedHashMap<>();
+        for (File f : files) {
+            Adjacency g;
+            int source;
+            if (f.getName().endsWith(BinaryGraphIO.EXTENSION)) {
+                MappedCsrGraph mg = BinaryGraphIO.map(f.getPath());
+                g = mg;
+                source = mg.source;
+            } else {
+                JsonIO.LoadedGraph lg = JsonIO.readGraph(f.getPath());
+                g = lg.graph.csr();
+                source = lg.source;
+            }
+            String name = baseName(f.getName());
+            graphs.put(name, new Entry(name, g, source, new GraphAnalysis(g, engine)));
+        }
+        return new GraphRegistry(graphs);
+    }
+
+    public Entry get(String name) {
+        return graphs.get(name);
+    }
+
+    public List<String> names() {
+        return new ArrayList<>(graphs.keySet());
+    }
+
+    public int size() {
+        return graphs.size();
+    }
+
+    private static String baseName(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot < 0 ? fileName : fileName.substring(0, dot);
+    }
+
+    /** One loaded graph and its precomputed, read-only artifacts. */
+    public static final class Entry {
+        public final String name;
+        public final Adjacency graph;
+        public final int source;
+        public final SccResult scc;
+        public final CondensationGraph condensation; // MIN-reduced, for shortest paths
+        public final CsrGraph criticalDag;           // MAX-reduced, for critical paths
+        public final int[] topo;
+        public final ReachabilityIndex reach;        // over the MIN condensation
+        public final TargetedPaths shortestTo, criticalTo; // source-to-targets queries over either condensation
+
+        public Entry(String name, Adjacency graph, int source, GraphAnalysis analysis) {
+            this.name = name;
+            this.graph = graph;
+            this.source = source;
+            this.scc = analysis.scc();
+            this.condensation = analysis.condensation();
+            this.criticalDag = analysis.criticalDag();
+            this.topo = analysis.topoOrder();
+            this.reach = analysis.reachability();
+            this.shortestTo = analysis.targetedShortestPaths(null); // no counters: a shared Metrics would lock every query
+            this.criticalTo = analysis.targetedLongestPaths(null);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package graph.server;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Cache of encoded query results, bounded by their total size in bytes.
+ * Recency is approximate (CLOCK): a hit only sets the entry's reference bit,
+ * so reads take no lock and request threads never serialize on a warm
+ * cache. Inserting past the bound sweeps the clock, giving referenced
+ * entries a second chance and evicting the first unreferenced one, until
+ * the total fits again; inserts and evictions share one lock. A single
+ * result larger than the whole bound is returned but not kept.
+ * Values are computed outside the lock, so two racing misses may both compute.
+ */
+public final class ResultCache {
+    private final long capacityBytes;
+    private final ConcurrentHashMap<String, Node> map = new ConcurrentHashMap<>();
+    private final ArrayDeque<Node> clock = new ArrayDeque<>(); // insertion order, guarded by this
+    private final AtomicLong bytes = new AtomicLong();
+    private final LongAdder hits = new LongAdder(), misses = new LongAdder(), evictions = new LongAdder();
+
+    public ResultCache(long capacityBytes) {
+        this.capacityBytes = capacityBytes;
+    }
+
+    public byte[] get(String key, Supplier<byte[]> compute) {
+        Node node = map.get(key);
+        if (node != null) {
+            if (!node.referenced) node.referenced = true; // skip the store (and its cache-line traffic) when set
+            hits.increment();
+            return node.value;
+        }
+        misses.increment();
+        byte[] v = compute.get();
+        put(key, v);
+        return v;
+    }
+
+    public synchronized void put(String key, byte[] value) {
+        if (value.length > capacityBytes) return;
+        Node node = new Node(key, value);
+        Node old = map.put(key, node);
+        bytes.addAndGet(value.length - (old == null ? 0 : old.value.length));
+        clock.addLast(node);
+        if (old != null && clock.size() > 2 * map.size()) clock.removeIf(n -> map.get(n.key) != n); // stale slots
+        while (bytes.get() > capacityBytes) {
+            Node n = clock.pollFirst();
+            if (map.get(n.key) != n) continue; // replaced since it was inserted
+            if (n.referenced) {
+                n.referenced = false;
+                clock.addLast(n);
+            } else {
+                map.remove(n.key, n);
+                bytes.addAndGet(-n.value.length);
+                evictions.increment();
+            }
+        }
+    }
+
+    public int size() { return map.size(); }
+
+    public long bytes() { return bytes.get(); }
+
+    public long hits() { return hits.sum(); }
+
+    public long misses() { return misses.sum(); }
+
+    public long evictions() { return evictions.sum(); }
+
+    private static final class Node {
+        final String key;
+        final byte[] value;
+        volatile boolean referenced;
+
+        Node(String key, byte[] value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
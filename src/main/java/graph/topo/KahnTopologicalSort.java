@@ -1,46 +1,142 @@
 package graph.topo;
 
+import graph.common.Adjacency;
+import graph.common.EdgeCursor;
 import graph.common.Graph;
 import graph.common.Metrics;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
 
 /**
  * Performs topological sorting using Kahn's algorithm.
  * Works only on acyclic directed graphs (DAGs).
  */
 public class KahnTopologicalSort {
-    private final Graph g;
+    private static final int GRAIN = 2048; // levels narrower than this are peeled sequentially
+    private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private final Adjacency g;
     private final Metrics metrics;
 
     public KahnTopologicalSort(Graph g, Metrics m) {
+        this(g.csr(), m);
+    }
+
+    public KahnTopologicalSort(Adjacency g, Metrics m) {
         this.g = g; this.metrics = m;
     }
 
 /** Returns a topological order of vertices or throws if a cycle exists. */
     public List<Integer> sort() {
+        int[] order = order();
+        List<Integer> list = new ArrayList<>(order.length);
+        for (int v : order) list.add(v);
+        return list;
+    }
+
+    /** Same as {@link #sort()} but returns the order as a primitive array. */
+    public int[] order() {
         metrics.start();
-        int n = g.n;
-        int[] indeg = new int[n];
-        for (var e : g.edges) indeg[e.v]++;
-        Deque<Integer> q = new ArrayDeque<>();
-        for (int i = 0; i < n; i++) if (indeg[i] == 0) q.add(i);
-        List<Integer> order = new ArrayList<>();
-
-        while (!q.isEmpty()) {// Process queue in BFS-like manner
-            metrics.kahnPops++;
-            int u = q.remove();
-            order.add(u);
-            for (var e : g.adj.get(u)) {
-                indeg[e.v]--;
-                if (indeg[e.v] == 0) {
-                    q.add(e.v);
-                    metrics.kahnPushes++;
+        int n = g.n();
+        int[] indeg = g.inDegrees();
+        EdgeCursor cur = g.cursor();
+        int[] q = new int[n]; // FIFO queue; popped prefix is the order itself
+        int head = 0, tail = 0;
+        for (int i = 0; i < n; i++) if (indeg[i] == 0) q[tail++] = i;
+        int roots = tail;
+
+        while (head < tail) {// Process queue in BFS-like manner
+            int u = q[head++];
+            for (cur.reset(u); cur.hasNext(); ) {
+                int v = cur.next();
+                if (--indeg[v] == 0) q[tail++] = v;
+            }
+        }
+        metrics.stop();
+        if (Metrics.ENABLED) {
+            metrics.kahnPops += head;
+            metrics.kahnPushes += tail - roots;
+        }
+        if (tail != n)
+            throw new IllegalStateException("Graph contains a cycle");
+        return q;
+    }
+
+    /**
+     * Wavefront variant: peels all zero in-degree vertices at once, level by
+     * level. Wide levels are expanded on the common fork/join pool with atomic
+     * in-degree decrements; each level is then sorted so the result does not
+     * depend on thread timing. Throws if a cycle exists.
+     */
+    public TopoLevels levels() {
+        metrics.start();
+        int n = g.n();
+        int grain = ForkJoinPool.getCommonPoolParallelism() > 1 ? GRAIN : Integer.MAX_VALUE;
+        int[] indeg;
+        if (g.edgeCount() >= grain) {
+            int[] counts = new int[n];
+            IntStream.range(0, (n + GRAIN - 1) / GRAIN).parallel().forEach(t -> {
+                EdgeCursor c = g.cursor(); // one per task of GRAIN vertices
+                for (int u = t * GRAIN, end = Math.min(n, u + GRAIN); u < end; u++) {
+                    for (c.reset(u); c.hasNext(); ) INTS.getAndAdd(counts, c.next(), 1);
                 }
+            });
+            indeg = counts;
+        } else {
+            indeg = g.inDegrees();
+        }
+        EdgeCursor cur = g.cursor();
+
+        int[] order = new int[n];
+        int[] offsets = new int[n + 1];
+        int levels = 0, head = 0, size = 0;
+        for (int i = 0; i < n; i++) if (indeg[i] == 0) order[size++] = i;
+        AtomicInteger tail = new AtomicInteger(size);
+
+        while (head < size) {
+            offsets[levels++] = head;
+            int from = head, to = size;
+            if (to - from < grain) {
+                for (int i = from; i < to; i++) {
+                    for (cur.reset(order[i]); cur.hasNext(); ) {
+                        int v = cur.next();
+                        if (--indeg[v] == 0) order[size++] = v;
+                    }
+                }
+                tail.set(size);
+            } else {
+                IntStream.range(0, (to - from + GRAIN - 1) / GRAIN).parallel().forEach(t -> {
+                    EdgeCursor c = g.cursor();
+                    for (int i = from + t * GRAIN, end = Math.min(to, i + GRAIN); i < end; i++) {
+                        release(c, order[i], indeg, order, tail);
+                    }
+                });
+            }
+            head = to;
+            size = tail.get();
+            Arrays.sort(order, head, size);
+            if (Metrics.ENABLED) {
+                metrics.kahnPops += to - from;
+                metrics.kahnPushes += size - head;
             }
         }
+        offsets[levels] = size;
+        if (Metrics.ENABLED) metrics.add("levels", levels);
         metrics.stop();
-        if (order.size() != n)
+        if (size != n)
             throw new IllegalStateException("Graph contains a cycle");
-        return order;
+        return new TopoLevels(Arrays.copyOf(offsets, levels + 1), order);
+    }
+
+    private static void release(EdgeCursor c, int u, int[] indeg, int[] order, AtomicInteger tail) {
+        for (c.reset(u); c.hasNext(); ) {
+            int v = c.next();
+            if ((int) INTS.getAndAdd(indeg, v, -1) == 1) order[tail.getAndIncrement()] = v;
+        }
     }
 }
@@ -0,0 +1,46 @@
+package graph.topo;
+
+/**
+ * Topological order grouped into wavefronts, CSR style: level {@code l} is
+ * {@code order[levelOffsets[l] .. levelOffsets[l + 1])}. A vertex sits on the
+ * level equal to the longest edge count from any source, so all vertices of
+ * one level are independent and the level count is the parallel depth.
+ * Vertices inside a level are sorted ascending.
+ */
+public final class TopoLevels {
+    public final int[] levelOffsets;
+    public final int[] order;
+
+    public TopoLevels(int[] levelOffsets, int[] order) {
+        this.levelOffsets = levelOffsets;
+        this.order = order;
+    }
+
+    public int levelCount() {
+        return levelOffsets.length - 1;
+    }
+
+    public int begin(int level) { return levelOffsets[level]; }
+
+    public int end(int level) { return levelOffsets[level + 1]; }
+
+    public int width(int level) {
+        return levelOffsets[level + 1] - levelOffsets[level];
+    }
+
+    /** Widest level, i.e. the most tasks that can ever run at once. */
+    public int maxWidth() {
+        int max = 0;
+        for (int l = 0; l < levelCount(); l++) max = Math.max(max, width(l));
+        return max;
+    }
+
+    /** Level of every vertex. */
+    public int[] levelOf() {
+        int[] level = new int[order.length];
+        for (int l = 0; l < levelCount(); l++) {
+            for (int i = levelOffsets[l]; i < levelOffsets[l + 1]; i++) level[order[i]] = l;
+        }
+        return level;
+    }
+}
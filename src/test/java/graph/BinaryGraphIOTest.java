@@ -0,0 +1,168 @@
+package graph;
+
+import graph.common.*;
+import graph.external.*;
+import graph.scc.*;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import java.io.*;
+import java.util.*;
+import static org.junit.Assert.*;
+
+public class BinaryGraphIOTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testRoundTripThroughMapping() throws IOException {
+        CsrGraph g = CsrGraph.builder(5, true)
+                .addEdge(0, 1, 3).addEdge(1, 2, -4).addEdge(2, 0, 1L << 40).addEdge(3, 4, 2)
+                .build();
+        String path = tmp.newFile("g.bin").getPath();
+
+        BinaryGraphIO.write(path, g, 3, "node");
+        MappedCsrGraph mg = BinaryGraphIO.map(path);
+
+        assertEquals(5, mg.n);
+        assertTrue(mg.directed);
+        assertEquals(3, mg.source);
+        assertEquals("node", mg.weightModel);
+        CsrGraph copy = mg.toHeap();
+        assertArrayEquals(g.offsets, copy.offsets);
+        assertArrayEquals(g.targets, copy.targets);
+        assertArrayEquals(g.weights, copy.weights);
+
+        SccResult r = new IterativeTarjanSCC().compute(mg, new Metrics());
+        assertEquals(3, r.count);
+    }
+
+    @Test
+    public void testConvertFromJson() throws IOException {
+        File json = tmp.newFile("d.json");
+        try (Writer w = new FileWriter(json)) {
+            w.write("{\"directed\": false, \"n\": 2, \"edges\": [{\"u\": 0, \"v\": 1, \"w\": 6}], \"source\": 1}");
+        }
+        String bin = new File(tmp.getRoot(), "d.bin").getPath();
+
+        BinaryGraphIO.convert(json.getPath(), bin);
+        MappedCsrGraph mg = BinaryGraphIO.map(bin);
+
+        assertFalse(mg.directed);
+        assertEquals(2, mg.edgeCount());
+        assertEquals("edge", mg.weightModel);
+        assertEquals(6, mg.weight(mg.begin(1)));
+    }
+
+    @Test
+    public void testSemiExternalSccMatchesTarjan() throws IOException {
+        long spills = 0;
+        for (DataGenerator.Family f : DataGenerator.Family.values()) {
+            CsrGraph.Builder b = CsrGraph.builder(5_000, true);
+            DataGenerator.generate(f, 5_000, 15_000, 7, b::addArc);
+            CsrGraph g = b.build();
+            String path = new File(tmp.getRoot(), f + ".bin").getPath();
+            BinaryGraphIO.write(path, g, 0, "edge");
+
+            SccResult t = new IterativeTarjanSCC().compute(g, new Metrics());
+            Metrics m = new Metrics();
+            SemiExternalScc.Result r = new SemiExternalScc(4096, tmp.getRoot().toPath()).run(path, true, m);
+
+            assertEquals(f.name(), t.count, r.scc.count);
+            int[] map = new int[r.scc.count];
+            Arrays.fill(map, -1);
+            for (int v = 0; v < g.n; v++) {
+                if (map[r.scc.compId[v]] == -1) map[r.scc.compId[v]] = t.compId[v];
+                assertEquals(f.name(), map[r.scc.compId[v]], t.compId[v]);
+            }
+            int[] rank = new int[r.scc.count];
+            for (int i = 0; i < r.topoOrder.length; i++) rank[r.topoOrder[i]] = i;
+            for (int u = 0; u < g.n; u++) {
+                for (int e = g.begin(u); e < g.end(u); e++) {
+                    int cu = r.scc.compId[u], cv = r.scc.compId[g.target(e)];
+                    if (cu != cv) assertTrue(f.name(), cu < cv && rank[cu] < rank[cv]);
+                }
+            }
+            assertTrue(f.name(), m.counter("batches") > m.counter("passes")); // 512-arc batches
+            assertTrue(m.counter("bytesRead") >= 4L * g.edgeCount() * m.counter("passes"));
+            spills += m.counter("queueSpills");
+        }
+        assertTrue(spills > 0);
+        assertEquals(DataGenerator.Family.values().length, tmp.getRoot().list().length); // queue files removed
+    }
+
+    @Test
+    public void testExternalTopoSortReadsHubInChunks() throws IOException {
+        CsrGraph.Builder b = CsrGraph.builder(3_001, true);
+        for (int v = 1; v <= 3_000; v++) b.addArc(0, v, 1);
+        String path = new File(tmp.getRoot(), "hub.bin").getPath();
+        BinaryGraphIO.write(path, b.build(), 0, "edge");
+
+        Metrics m = new Metrics();
+        SemiExternalScc.Result r = new SemiExternalScc(4096, tmp.getRoot().toPath()).run(path, true, m);
+        assertEquals(3_001, r.topoOrder.length);
+        assertEquals(r.scc.compId[0], r.topoOrder[0]);
+        assertEquals(12, m.counter("listReads")); // 3000 targets, 256 per read
+    }
+
+    @Test
+    public void testStreamedWriterMatchesCsrWriter() throws IOException {
+        CsrGraph g = CsrGraph.builder(4, true)
+                .addEdge(0, 1, 3).addEdge(0, 2, -1).addEdge(2, 3, 1L << 40).addEdge(3, 0, 2)
+                .build();
+        String csr = new File(tmp.getRoot(), "csr.bin").getPath(), streamed = new File(tmp.getRoot(), "s.bin").getPath();
+        BinaryGraphIO.write(csr, g, 2, "edge");
+        write(streamed, g, new BinaryGraphIO.Header(g.n, true, 2, g.edgeCount(), "edge"));
+
+        assertArrayEquals(java.nio.file.Files.readAllBytes(new File(csr).toPath()),
+                java.nio.file.Files.readAllBytes(new File(streamed).toPath()));
+    }
+
+    @Test
+    public void testWideFileStreamsLikeNarrowOne() throws IOException {
+        CsrGraph.Builder b = CsrGraph.builder(3_000, true);
+        DataGenerator.generate(DataGenerator.Family.SMALL_SCCS, 3_000, 9_000, 5, b::addArc);
+        CsrGraph g = b.build();
+        String narrow = new File(tmp.getRoot(), "v1.bin").getPath(), wide = new File(tmp.getRoot(), "v2.bin").getPath();
+        BinaryGraphIO.write(narrow, g, 0, "edge");
+        write(wide, g, new BinaryGraphIO.Header(BinaryGraphIO.WIDE_VERSION, g.n, true, 0, g.edgeCount(), "edge"));
+
+        try (EdgeFile f = EdgeFile.open(wide)) {
+            assertEquals(BinaryGraphIO.WIDE_VERSION, f.header.version);
+            assertEquals(g.edgeCount(), f.m);
+            for (int u = 0; u < g.n; u++) assertEquals(g.end(u), f.end(u));
+        }
+        SemiExternalScc engine = new SemiExternalScc(4096, tmp.getRoot().toPath());
+        SemiExternalScc.Result r1 = engine.run(narrow, true, new Metrics()), r2 = engine.run(wide, true, new Metrics());
+        assertArrayEquals(r1.scc.compId, r2.scc.compId);
+        assertArrayEquals(r1.topoOrder, r2.topoOrder);
+        try {
+            BinaryGraphIO.map(wide);
+            fail("mapped a version 2 file");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().contains("version 2"));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNarrowHeaderRejectsLongArcCount() {
+        new BinaryGraphIO.Header(BinaryGraphIO.VERSION, 10, true, 0, 1L << 31, "edge");
+    }
+
+    private static void write(String path, CsrGraph g, BinaryGraphIO.Header h) throws IOException {
+        long[] offsets = new long[g.n + 1];
+        for (int u = 0; u <= g.n; u++) offsets[u] = g.offsets[u];
+        try (BinaryGraphIO.Writer w = new BinaryGraphIO.Writer(path, h, offsets)) {
+            for (int e = 0; e < g.edgeCount(); e++) w.arc(g.targets[e], g.weights[e]);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsForeignFile() throws IOException {
+        File f = tmp.newFile("junk.bin");
+        try (OutputStream out = new FileOutputStream(f)) {
+            out.write(new byte[64]);
+        }
+        BinaryGraphIO.map(f.getPath());
+    }
+}
@@ -0,0 +1,176 @@
+package graph;
+
+import graph.common.*;
+import graph.dagsp.*;
+import graph.scc.*;
+import graph.topo.*;
+import org.junit.Test;
+import java.util.*;
+import static org.junit.Assert.*;
+
+public class CsrGraphTest {
+
+    @Test
+    public void testBuilderKeepsInsertionOrderPerVertex() {
+        CsrGraph g = CsrGraph.builder(4, true)
+                .addEdge(2, 3, 5)
+                .addEdge(0, 2, 1)
+                .addEdge(0, 1, 7)
+                .build();
+
+        assertArrayEquals(new int[]{0, 2, 2, 3, 3}, g.offsets);
+        assertArrayEquals(new int[]{2, 1, 3}, g.targets);
+        assertArrayEquals(new long[]{1, 7, 5}, g.weights);
+    }
+
+    @Test
+    public void testUndirectedStoresBothArcs() {
+        CsrGraph g = CsrGraph.builder(3, false).addEdge(0, 2, 4).build();
+
+        assertEquals(2, g.edgeCount());
+        assertEquals(2, g.target(g.begin(0)));
+        assertEquals(0, g.target(g.begin(2)));
+    }
+
+    @Test
+    public void testGraphViewMatchesCsr() {
+        Graph g = new Graph(3, true);
+        g.addEdge(1, 2, 3);
+        g.addEdge(0, 1, 2);
+
+        assertEquals(2, g.edges.size());
+        assertEquals(1, g.adj.get(0).size());
+        assertEquals(2, g.adj.get(1).get(0).v);
+
+        List<String> seen = new ArrayList<>();
+        for (Edge e : g.edges) seen.add(e.toString());
+        assertEquals(List.of("(0 -> 1 : 2)", "(1 -> 2 : 3)"), seen);
+
+        g.addEdge(2, 0, 1); // view picks up later additions
+        assertEquals(3, g.csr().edgeCount());
+        assertEquals(2, g.edges.get(2).u);
+    }
+
+    @Test
+    public void testWrappedGraphKeepsAppending() {
+        Graph g = new Graph(CsrGraph.builder(3, true).addEdge(0, 1, 5).build());
+        for (int i = 0; i < 3; i++) {
+            g.addEdge(1, 2, i);
+            assertEquals(2 + i, g.edges.size());
+            assertEquals(1 + i, g.adj.get(1).size());
+        }
+        assertEquals(2, g.adj.get(1).get(2).w);
+        assertSame(g.csr(), g.csr());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testRejectsOutOfRangeVertex() {
+        new Graph(2, true).addEdge(0, 2, 1);
+    }
+
+    @Test
+    public void testRcmRecoversShuffledChain() {
+        int n = 1000;
+        List<Integer> shuffled = new ArrayList<>();
+        for (int i = 0; i < n; i++) shuffled.add(i);
+        Collections.shuffle(shuffled, new Random(1));
+        CsrGraph.Builder b = CsrGraph.builder(n, true);
+        for (int i = 0; i + 1 < n; i++) b.addArc(shuffled.get(i), shuffled.get(i + 1), i);
+        CsrGraph g = b.build();
+
+        VertexOrder order = VertexOrder.Kind.RCM.of(g);
+        CsrGraph r = order.apply(g);
+        for (int x = 0; x < n; x++) {
+            for (int e = r.begin(x); e < r.end(x); e++) assertEquals(1, Math.abs(r.target(e) - x)); // bandwidth 1
+        }
+        for (int v = 0; v < n; v++) {
+            assertEquals(v, order.oldId[order.newId[v]]);
+            assertEquals(g.end(v) - g.begin(v), r.end(order.newId[v]) - r.begin(order.newId[v]));
+        }
+        assertEquals(g.weight(g.begin(shuffled.get(5))), r.weight(r.begin(order.newId[shuffled.get(5)])));
+
+        int[] byDegree = VertexOrder.Kind.DEGREE.of(CsrGraph.builder(3, true).addArc(2, 1, 1).addArc(2, 0, 1).build()).oldId;
+        assertArrayEquals(new int[]{2, 0, 1}, byDegree);
+    }
+
+    @Test
+    public void testCompressedGraphMatchesCsr() {
+        Random rnd = new Random(7);
+        int n = 5000;
+        CsrGraph.Builder b = CsrGraph.builder(n, true);
+        for (int i = 0; i < 40000; i++) {
+            int u = rnd.nextInt(n);
+            int v = i % 10 == 0 ? rnd.nextInt(n) : Math.floorMod(u + rnd.nextInt(41) - 20, n); // clustered, some far
+            b.addEdge(u, v, 1 + rnd.nextInt(100));
+        }
+        b.addEdge(0, n - 1, -300); // needs two-byte weights
+        CsrGraph g = b.build();
+        CompressedGraph c = CompressedGraph.of(g);
+
+        assertEquals(g.edgeCount(), c.edgeCount());
+        assertArrayEquals(g.targets, c.toCsr().targets);
+        assertArrayEquals(g.weights, c.toCsr().weights);
+        for (int k = 0; k < 2000; k++) { // random access through the skip index
+            int e = rnd.nextInt(g.edgeCount());
+            assertEquals(g.target(e), c.target(e));
+            assertEquals(g.weight(e), c.weight(e));
+        }
+        assertTrue("encoded " + c.bytes() + " bytes", c.bytes() * 5 / 2 < 12L * g.edgeCount() + 4L * (n + 1));
+
+        // same arcs in the same order: every algorithm gives identical results
+        SccResult expected = new IterativeTarjanSCC().compute(g, new Metrics());
+        SccResult actual = new IterativeTarjanSCC().compute(c, new Metrics());
+        assertArrayEquals(expected.compId, actual.compId);
+        assertArrayEquals(expected.members, actual.members);
+        CsrGraph dag = new CondensationGraph(g, expected).dag.csr(), cdagFromCompressed = new CondensationGraph(c, actual).dag.csr();
+        assertArrayEquals(dag.targets, cdagFromCompressed.targets);
+        assertArrayEquals(dag.weights, cdagFromCompressed.weights);
+
+        CompressedGraph cdag = CompressedGraph.of(dag, true);
+        int[] topo = new KahnTopologicalSort(dag, new Metrics()).order();
+        assertArrayEquals(dag.inDegrees(), cdag.inDegrees());
+        int[] ctopo = new KahnTopologicalSort(cdag, new Metrics()).order();
+        assertEquals(topo.length, ctopo.length);
+        assertArrayEquals(new DAGShortestPaths(dag, topo, new Metrics()).shortestFrom(0),
+                new DAGShortestPaths(cdag, ctopo, new Metrics()).shortestFrom(0));
+        assertArrayEquals(new DAGLongestPath(dag, topo, new Metrics()).longestFrom(0).dist,
+                new DAGLongestPath(cdag, ctopo, new Metrics()).longestFrom(0).dist);
+    }
+
+    @Test
+    public void testCompressedSortedListsAndConstantWeights() {
+        CsrGraph g = CsrGraph.builder(4, true)
+                .addEdge(0, 3, 2).addEdge(0, 1, 2).addEdge(0, 3, 2).addEdge(2, 0, 2)
+                .build();
+        CompressedGraph c = CompressedGraph.of(g, true);
+
+        EdgeCursor cur = c.cursor().reset(0);
+        assertEquals(1, cur.next());
+        long mark = cur.mark();
+        assertEquals(3, cur.next());
+        assertEquals(2, cur.weight());
+        cur.reset(2);
+        assertEquals(0, cur.next());
+        cur.resume(0, mark); // parked half way through vertex 0's list
+        assertEquals(3, cur.next());
+        assertEquals(3, cur.next()); // parallel arc, gap 0
+        assertFalse(cur.hasNext());
+        assertFalse(c.cursor().reset(1).hasNext());
+        assertEquals(2, c.weight(3));
+    }
+
+    @Test
+    public void testCompressedHubKeepsBounds() {
+        int n = 100;
+        CsrGraph.Builder b = CsrGraph.builder(n, true);
+        for (int i = 0; i < 70000; i++) b.addEdge(3, i % n, i); // list bounds span more than 16 bits
+        b.addEdge(99, 0, 1);
+        CsrGraph g = b.build();
+        CompressedGraph c = CompressedGraph.of(g);
+
+        for (int u = 0; u <= n; u++) assertEquals(g.offsets[Math.min(u, n)], u < n ? c.begin(u) : c.end(n - 1));
+        assertEquals(69999, c.weight(69999));
+        assertEquals(0, c.target(70000));
+        assertArrayEquals(g.weights, c.toCsr().weights);
+    }
+}
@@ -34,4 +34,285 @@ public class DagSpTest {
         assertEquals(3, res.dist[2]);
         assertEquals(4, res.dist[3]);
     }
+
+    @Test
+    public void testBatchedSourcesMatchSingleSource() {
+        Random rnd = new Random(5);
+        int n = 400;
+        CsrGraph.Builder b = CsrGraph.builder(n, true);
+        for (int i = 0; i < 2000; i++) {
+            int u = rnd.nextInt(n - 1);
+            b.addEdge(u, u + 1 + rnd.nextInt(n - u - 1), rnd.nextInt(20) - 5);
+        }
+        CsrGraph g = b.build();
+        int[] sources = new int[37]; // three chunks of 16 lanes, last one partial
+        for (int i = 0; i < sources.length; i++) sources[i] = rnd.nextInt(n);
+
+        DAGShortestPaths dsp = new DAGShortestPaths(g, new Metrics());
+        DAGLongestPath dlp = new DAGLongestPath(g, new Metrics());
+        DistanceBlock shortest = dsp.shortestFrom(sources);
+        DistanceBlock longest = dlp.longestFrom(sources);
+
+        for (int i = 0; i < sources.length; i++) {
+            assertArrayEquals(dsp.shortestFrom(sources[i]), shortest.row(i));
+            assertArrayEquals(dlp.longestFrom(sources[i]).dist, longest.row(i));
+        }
+    }
+
+    @Test
+    public void testWavefrontMatchesSequential() {
+        Random rnd = new Random(9);
+        int n = 30000;
+        CsrGraph.Builder b = CsrGraph.builder(n, true);
+        for (int i = 0; i < 120000; i++) {
+            int u = rnd.nextInt(n - 1);
+            b.addEdge(u, u + 1 + rnd.nextInt(Math.min(n - u - 1, 3000)), rnd.nextInt(20));
+        }
+        CsrGraph g = b.build();
+        LevelSweep sweep = new LevelSweep(g, new KahnTopologicalSort(g, new Metrics()).levels());
+        int[] topo = new KahnTopologicalSort(g, new Metrics()).order(), rank = new int[n];
+        for (int i = 0; i < n; i++) rank[topo[i]] = i;
+        LevelSweep ranked = new LevelSweep(g, CsrGraph.transpose(g), sweep.levels(), rank);
+
+        for (int src : new int[]{0, 17, n / 2}) {
+            Metrics seq = new Metrics(), par = new Metrics();
+            assertArrayEquals(new DAGShortestPaths(g, seq).shortestFrom(src),
+                    new DAGShortestPaths(sweep, par).shortestFrom(src));
+            assertEquals(seq.relaxations, par.relaxations);
+
+            var expected = new DAGLongestPath(g, new Metrics()).longestFrom(src);
+            var actual = new DAGLongestPath(sweep, new Metrics()).longestFrom(src);
+            assertArrayEquals(expected.dist, actual.dist);
+            assertArrayEquals(expected.parent, new DAGLongestPath(ranked, new Metrics()).longestFrom(src).parent);
+            for (int v = 0; v < n; v++) {
+                int p = actual.parent[v];
+                if (p < 0) continue;
+                boolean tight = false;
+                for (int e = g.begin(p); e < g.end(p); e++)
+                    tight |= g.target(e) == v && actual.dist[p] + g.weight(e) == actual.dist[v];
+                assertTrue(tight);
+            }
+        }
+    }
+
+    @Test
+    public void testWavefrontBreaksTiesLikePushSweep() {
+        // Kahn pops 3 before 2, the sorted level holds 2 first: both reach 1 at length 2
+        CsrGraph g = CsrGraph.builder(4, true)
+                .addEdge(0, 3, 1).addEdge(0, 2, 1).addEdge(3, 1, 1).addEdge(2, 1, 1)
+                .build();
+        int[] topo = new KahnTopologicalSort(g, new Metrics()).order(), rank = new int[4];
+        for (int i = 0; i < 4; i++) rank[topo[i]] = i;
+        TopoLevels levels = new KahnTopologicalSort(g, new Metrics()).levels();
+
+        assertEquals(3, new DAGLongestPath(g, topo, new Metrics()).longestFrom(0).parent[1]);
+        LevelSweep sweep = new LevelSweep(g, CsrGraph.transpose(g), levels, rank);
+        assertEquals(3, new DAGLongestPath(sweep, new Metrics()).longestFrom(0).parent[1]);
+        assertEquals(2, new DAGLongestPath(new LevelSweep(g, levels), new Metrics()).longestFrom(0).parent[1]);
+    }
+
+    @Test
+    public void testIncrementalMatchesFullSweep() {
+        Random rnd = new Random(13);
+        int n = 300;
+        CsrGraph.Builder b = CsrGraph.builder(n, true);
+        for (int i = 0; i < 900; i++) {
+            int u = rnd.nextInt(n - 1);
+            b.addEdge(u, u + 1 + rnd.nextInt(Math.min(n - u - 1, 40)), rnd.nextInt(20));
+        }
+        MutableDigraph mirror = new MutableDigraph(b.build());
+        Metrics m = new Metrics();
+        IncrementalLongestPath inc = new IncrementalLongestPath(mirror.toCsr(), 0, m);
+
+        for (int step = 0; step < 400; step++) {
+            int u = rnd.nextInt(n), v = rnd.nextInt(n);
+            int op = rnd.nextInt(3);
+            if (op == 0 && mirror.outDegree(u) > 0) {
+                int i = rnd.nextInt(mirror.outDegree(u));
+                v = mirror.outTarget(u, i);
+                long w = rnd.nextInt(20);
+                inc.setWeight(u, v, w);
+                mirror.setWeight(u, mirror.indexOfArc(u, v), w);
+            } else if (op == 1 && mirror.outDegree(u) > 0) {
+                v = mirror.outTarget(u, rnd.nextInt(mirror.outDegree(u)));
+                inc.removeEdge(u, v);
+                mirror.removeArc(u, mirror.indexOfArc(u, v));
+            } else if (u != v) {
+                long w = rnd.nextInt(20);
+                try {
+                    inc.addEdge(u, v, w); // arcs against the original index order force re-ranking
+                    mirror.addArc(u, v, w);
+                } catch (IllegalArgumentException cycle) {
+                    CsrGraph.Builder withArc = CsrGraph.Builder.of(mirror.toCsr());
+                    withArc.addArc(u, v, w);
+                    try {
+                        new KahnTopologicalSort(withArc.build(), new Metrics()).order();
+                        fail("rejected an arc that keeps the graph acyclic");
+                    } catch (IllegalStateException expected) {
+                        // the arc really closes a cycle
+                    }
+                }
+            }
+
+            DAGLongestPath.Result full = new DAGLongestPath(mirror.toCsr(), new Metrics()).longestFrom(0);
+            DAGLongestPath.Result cur = inc.result();
+            assertArrayEquals(full.dist, cur.dist);
+            long max = Long.MIN_VALUE;
+            for (long d : full.dist) max = Math.max(max, d);
+            assertEquals(max, inc.criticalLength());
+            int[] path = inc.criticalPath();
+            assertEquals(0, path[0]);
+            assertEquals(max, cur.dist[path[path.length - 1]]);
+        }
+        assertTrue(m.counter("incrementalVisited") > 0);
+        assertTrue(m.counter("reranked") > 0);
+    }
+
+    @Test
+    public void testReachabilityMatchesTraversal() {
+        Random rnd = new Random(19);
+        int n = 1500; // three 512-column chunks when resident
+        int[] label = new int[n]; // shuffled ids, so vertex order is not a topological order
+        for (int i = 0; i < n; i++) label[i] = i;
+        for (int i = n - 1; i > 0; i--) {
+            int j = rnd.nextInt(i + 1), t = label[i];
+            label[i] = label[j];
+            label[j] = t;
+        }
+        CsrGraph.Builder b = CsrGraph.builder(n, true);
+        for (int i = 0; i < 2500; i++) {
+            int u = rnd.nextInt(n - 1);
+            b.addEdge(label[u], label[u + 1 + rnd.nextInt(Math.min(n - u - 1, 200))], 1);
+        }
+        CsrGraph g = b.build();
+        int[] topo = new KahnTopologicalSort(g, new Metrics()).order();
+
+        boolean[][] expected = new boolean[n][];
+        for (int s = 0; s < n; s++) {
+            boolean[] seen = new boolean[n];
+            ArrayDeque<Integer> queue = new ArrayDeque<>(List.of(s));
+            seen[s] = true;
+            while (!queue.isEmpty()) {
+                int u = queue.poll();
+                for (int e = g.begin(u); e < g.end(u); e++) {
+                    if (!seen[g.target(e)]) { seen[g.target(e)] = true; queue.add(g.target(e)); }
+                }
+            }
+            expected[s] = seen;
+        }
+
+        Metrics m = new Metrics();
+        ReachabilityIndex resident = new ReachabilityIndex(g, topo, m);
+        ReachabilityIndex chunked = new ReachabilityIndex(g, topo, 1, new Metrics()); // one 64-column chunk at a time
+        assertTrue(resident.isResident());
+        assertFalse(chunked.isResident());
+        assertEquals(0, chunked.residentBytes());
+        assertEquals(3, m.counter("closureChunks"));
+
+        int q = 20000;
+        int[] from = new int[q], to = new int[q];
+        for (int i = 0; i < q; i++) {
+            from[i] = rnd.nextInt(n);
+            to[i] = rnd.nextInt(n);
+        }
+        boolean[] batchResident = resident.reaches(from, to), batchChunked = chunked.reaches(from, to);
+        for (int i = 0; i < q; i++) {
+            boolean want = expected[from[i]][to[i]];
+            assertEquals(want, resident.reaches(from[i], to[i]));
+            assertEquals(want, chunked.reaches(from[i], to[i]));
+            assertEquals(want, batchResident[i]);
+            assertEquals(want, batchChunked[i]);
+        }
+    }
+
+    @Test
+    public void testTargetedPathsMatchFullSweeps() throws java.io.IOException {
+        Random rnd = new Random(23);
+        for (DataGenerator.Family f : DataGenerator.Family.values()) {
+            CsrGraph.Builder b = CsrGraph.builder(2000, true);
+            DataGenerator.generate(f, 2000, 6000, 13, b::addArc);
+            graph.analysis.GraphAnalysis a = new graph.analysis.GraphAnalysis(b.build());
+            CsrGraph minDag = a.dag(), maxDag = a.criticalDag();
+            int n = minDag.n;
+            DAGShortestPaths sp = a.shortestPaths(new Metrics());
+            DAGLongestPath lp = a.longestPaths(new Metrics());
+            TargetedPaths ts = a.targetedShortestPaths(new Metrics()), tl = a.targetedLongestPaths(new Metrics());
+            for (int q = 0; q < 60; q++) {
+                int src = a.topoOrder()[rnd.nextInt(Math.min(n, 1 + n / 3 * (q % 3 + 1)))];
+                int[] targets = new int[1 + rnd.nextInt(4)];
+                for (int i = 0; i < targets.length; i++) targets[i] = rnd.nextInt(n);
+                if (q % 7 == 0) targets[0] = src;
+                if (q % 5 == 0 && targets.length > 1) targets[1] = targets[0];
+                long[] full = sp.shortestFrom(src), fullLong = lp.longestFrom(src).dist;
+                long[] near = ts.shortest(src, targets), far = tl.longest(src, targets);
+                for (int i = 0; i < targets.length; i++) {
+                    assertEquals(f + " shortest", full[targets[i]], near[i]);
+                    assertEquals(f + " longest", fullLong[targets[i]], far[i]);
+                }
+                int t = targets[targets.length - 1];
+                assertPath(minDag, ts.shortestPath(src, t), src, t, full[t], TargetedPaths.INF);
+                assertPath(maxDag, tl.longestPath(src, t), src, t, fullLong[t], TargetedPaths.NEG_INF);
+            }
+        }
+
+        // A source near the end of a long chain only touches the few components up to its target.
+        CsrGraph.Builder b = CsrGraph.builder(10000, true);
+        for (int v = 0; v + 1 < 10000; v++) b.addArc(v, v + 1, 2);
+        for (int v = 0; v + 5 < 10000; v += 3) b.addArc(v, v + 5, 9);
+        graph.analysis.GraphAnalysis a = new graph.analysis.GraphAnalysis(b.build());
+        Metrics m = new Metrics();
+        TargetedPaths tl = a.targetedLongestPaths(m);
+        int src = a.componentOf(9990), to = a.componentOf(9996);
+        assertEquals(a.longestPaths(new Metrics()).longestFrom(src).dist[to], tl.longest(src, to));
+        assertTrue(m.counter("settled") <= 7);
+        assertTrue(m.counter("coneArcs") < 40);
+        assertEquals(TargetedPaths.NEG_INF, tl.longest(to, src));
+    }
+
+    @Test
+    public void testTargetedPathsSharedByThreads() throws InterruptedException, java.io.IOException {
+        CsrGraph.Builder b = CsrGraph.builder(3000, true);
+        DataGenerator.generate(DataGenerator.Family.UNIFORM, 3000, 9000, 5, b::addArc);
+        graph.analysis.GraphAnalysis a = new graph.analysis.GraphAnalysis(b.build());
+        TargetedPaths ts = a.targetedShortestPaths(null); // pooled scratch, no counters
+        ReachabilityIndex reach = new ReachabilityIndex(a.dag(), a.topoOrder(), 1, new Metrics()); // not resident: single queries search
+        int n = a.dag().n;
+        long[] want = a.shortestPaths(new Metrics()).shortestFrom(a.topoOrder()[0]);
+        List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            int seed = i;
+            threads[i] = new Thread(() -> {
+                try {
+                    Random rnd = new Random(seed);
+                    for (int q = 0; q < 300; q++) {
+                        int t = rnd.nextInt(n);
+                        assertEquals(want[t], ts.shortest(a.topoOrder()[0], t));
+                        assertEquals(want[t] != TargetedPaths.INF, reach.reaches(a.topoOrder()[0], t));
+                    }
+                } catch (Throwable e) {
+                    errors.add(e);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread t : threads) t.join();
+        assertEquals(List.of(), errors);
+    }
+
+    private static void assertPath(CsrGraph dag, int[] path, int src, int to, long dist, long none) {
+        if (dist == none) {
+            assertEquals(0, path.length);
+            return;
+        }
+        assertEquals(src, path[0]);
+        assertEquals(to, path[path.length - 1]);
+        long sum = 0;
+        for (int i = 0; i + 1 < path.length; i++) {
+            int e = dag.begin(path[i]);
+            while (dag.target(e) != path[i + 1]) e++; // the condensation keeps one arc per pair
+            sum += dag.weight(e);
+        }
+        assertEquals(dist, sum);
+    }
 }
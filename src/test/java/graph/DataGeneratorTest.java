@@ -0,0 +1,54 @@
+package graph;
+
+import graph.common.*;
+import graph.common.DataGenerator.Family;
+import graph.scc.*;
+import graph.topo.*;
+import org.junit.Test;
+import java.io.IOException;
+import static org.junit.Assert.*;
+
+public class DataGeneratorTest {
+
+    private static CsrGraph build(Family f, int n, long m, long seed) throws IOException {
+        CsrGraph.Builder b = CsrGraph.builder(n, true);
+        DataGenerator.generate(f, n, m, seed, b::addArc);
+        return b.build();
+    }
+
+    @Test
+    public void testSameSeedSameGraph() throws IOException {
+        for (Family f : Family.values()) {
+            CsrGraph a = build(f, 500, 2000, 7), b = build(f, 500, 2000, 7);
+            assertArrayEquals(f.name(), a.targets, b.targets);
+            assertArrayEquals(f.name(), a.weights, b.weights);
+        }
+    }
+
+    @Test
+    public void testEdgesAreDistinctWithoutSelfLoops() throws IOException {
+        for (Family f : Family.values()) {
+            CsrGraph g = build(f, 1000, 5000, 1);
+            LongHashSet seen = new LongHashSet(g.edgeCount());
+            for (int u = 0; u < g.n; u++) {
+                for (int e = g.begin(u); e < g.end(u); e++) {
+                    assertNotEquals(f.name(), u, g.target(e));
+                    assertTrue(f.name(), seen.add(LongHashSet.key(u, g.target(e))));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testFamilyShapes() throws IOException {
+        for (Family f : new Family[]{Family.UNIFORM_DAG, Family.LAYERED_DAG, Family.CHAIN_HEAVY}) {
+            new KahnTopologicalSort(build(f, 2000, 6000, 3), new Metrics()).order(); // throws on a cycle
+        }
+
+        CsrGraph chain = build(Family.CHAIN_HEAVY, 2000, 6000, 3);
+        for (int u = 0; u + 1 < chain.n; u++) assertEquals(u + 1, chain.target(chain.begin(u))); // backbone
+
+        SccResult r = new IterativeTarjanSCC().compute(build(Family.SMALL_SCCS, 2000, 6000, 3), new Metrics());
+        assertTrue(r.count > 200 && r.count < 1000);
+    }
+}
@@ -0,0 +1,105 @@
+package graph;
+
+import graph.analysis.GraphAnalysis;
+import graph.common.*;
+import graph.dagsp.*;
+import graph.scc.*;
+import org.junit.Test;
+import java.util.*;
+import static org.junit.Assert.*;
+
+public class GraphAnalysisTest {
+
+    private static CsrGraph sample() {
+        // {0,1} cycle -> 2 -> 3, and 0 -> 3 directly
+        return CsrGraph.builder(4, true)
+                .addEdge(0, 1, 1).addEdge(1, 0, 1)
+                .addEdge(1, 2, 2).addEdge(2, 3, 5).addEdge(0, 3, 4)
+                .build();
+    }
+
+    @Test
+    public void testArtifactsAreComputedOnce() {
+        GraphAnalysis a = new GraphAnalysis(sample());
+
+        assertSame(a.scc(), a.scc());
+        assertSame(a.condensation(), a.condensation());
+        assertSame(a.topoOrder(), a.topoOrder());
+        assertEquals(3, a.scc().count);
+        assertEquals(3, a.topoMetrics.kahnPops); // one pop per component: sorted exactly once
+
+        a.shortestPaths(new Metrics()).shortestFrom(a.componentOf(0));
+        a.longestPaths(new Metrics()).longestFrom(a.componentOf(0));
+        assertEquals(3, a.topoMetrics.kahnPops);
+    }
+
+    @Test
+    public void testReverseAndInDegrees() {
+        GraphAnalysis a = new GraphAnalysis(sample());
+        CsrGraph dag = a.dag(), rev = a.reverseDag();
+
+        assertEquals(dag.edgeCount(), rev.edgeCount());
+        int[] indeg = a.inDegrees();
+        for (int v = 0; v < dag.n; v++) assertEquals(indeg[v], rev.outDegree(v));
+        for (int i = 0; i < a.topoOrder().length; i++) assertEquals(i, a.topoRank()[a.topoOrder()[i]]);
+    }
+
+    @Test
+    public void testSolversMatchStandaloneOnes() {
+        GraphAnalysis a = new GraphAnalysis(sample());
+        int src = a.componentOf(0);
+
+        long[] expected = new DAGShortestPaths(a.dag(), new Metrics()).shortestFrom(src);
+        assertArrayEquals(expected, a.shortestPaths(new Metrics()).shortestFrom(src));
+        assertArrayEquals(new DAGLongestPath(a.dag(), new Metrics()).longestFrom(src).dist,
+                a.longestPaths(new Metrics()).longestFrom(src).dist);
+    }
+
+    @Test
+    public void testReachesOriginalVertices() {
+        GraphAnalysis a = new GraphAnalysis(sample());
+
+        assertTrue(a.reaches(1, 0)); // same component
+        assertTrue(a.reaches(0, 3));
+        assertFalse(a.reaches(3, 0));
+        assertFalse(a.reaches(2, 1));
+        assertArrayEquals(new boolean[]{true, false, true},
+                a.reaches(new int[]{1, 3, 2}, new int[]{2, 2, 3}));
+        assertSame(a.reachability(), a.reachability());
+    }
+
+    @Test
+    public void testReorderedAnalysisMatchesPlain() throws java.io.IOException {
+        for (DataGenerator.Family f : DataGenerator.Family.values()) {
+            CsrGraph.Builder b = CsrGraph.builder(3_000, true);
+            DataGenerator.generate(f, 3_000, 9_000, 3, b::addArc);
+            CsrGraph g = b.build();
+            GraphAnalysis plain = new GraphAnalysis(g);
+            int src = plain.componentOf(0);
+
+            long[] dist = plain.shortestPaths(new Metrics()).shortestFrom(src);
+            DAGLongestPath.Result longest = plain.longestPaths(new Metrics()).longestFrom(src);
+            assertArrayEquals(f.name(), dist, plain.rankedShortestPaths(new Metrics()).shortestFrom(src));
+            DAGLongestPath.Result ranked = plain.rankedLongestPaths(new Metrics()).longestFrom(src);
+            assertArrayEquals(f.name(), longest.dist, ranked.dist);
+            assertArrayEquals(f.name(), longest.parent, ranked.parent);
+            int[] sources = {src, plain.componentOf(g.n - 1)};
+            DistanceBlock block = plain.rankedShortestPaths(new Metrics()).shortestFrom(sources);
+            for (int v = 0; v < dist.length; v++) assertEquals(f.name(), dist[v], block.get(0, v));
+
+            for (VertexOrder.Kind kind : VertexOrder.Kind.values()) {
+                SccResult expected = plain.scc(), got = new GraphAnalysis(g, new IterativeTarjanSCC(), kind).scc();
+                assertEquals(kind + " " + f, expected.count, got.count);
+                int[] map = new int[got.count];
+                Arrays.fill(map, -1);
+                for (int v = 0; v < g.n; v++) {
+                    if (map[got.compId[v]] == -1) map[got.compId[v]] = expected.compId[v];
+                    assertEquals(kind + " " + f, map[got.compId[v]], expected.compId[v]);
+                }
+                for (int c = 0; c < got.count; c++) {
+                    for (int i = got.offsets[c]; i < got.offsets[c + 1]; i++) assertEquals(c, got.compId[got.members[i]]);
+                }
+            }
+        }
+    }
+}
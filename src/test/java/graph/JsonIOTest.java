@@ -0,0 +1,43 @@
+package graph;
+
+import graph.common.*;
+import org.junit.Test;
+import java.io.*;
+import static org.junit.Assert.*;
+
+public class JsonIOTest {
+
+    @Test
+    public void testReadsHeaderFirstDocument() throws IOException {
+        String json = "{\"directed\": true, \"n\": 3, \"edges\": ["
+                + "{\"u\": 0, \"v\": 1, \"w\": 4}, {\"w\": 2, \"v\": 2, \"u\": 1}],"
+                + " \"source\": 1, \"weight_model\": \"edge\"}";
+
+        JsonIO.LoadedGraph lg = JsonIO.readGraph(new StringReader(json), "inline");
+
+        CsrGraph g = lg.graph.csr();
+        assertEquals(3, g.n);
+        assertEquals(2, g.edgeCount());
+        assertEquals(2, g.target(g.begin(1)));
+        assertEquals(2, g.weight(g.begin(1)));
+        assertEquals(1, lg.source);
+        assertEquals("edge", lg.weightModel);
+    }
+
+    @Test
+    public void testReadsEdgesBeforeHeader() throws IOException {
+        String json = "{\"edges\": [{\"u\": 0, \"v\": 1, \"w\": 3, \"note\": \"x\"}],"
+                + " \"weight_model\": \"node\", \"n\": 2, \"extra\": [1, 2], \"directed\": false}";
+
+        JsonIO.LoadedGraph lg = JsonIO.readGraph(new StringReader(json), "inline");
+
+        assertEquals(2, lg.graph.edges.size()); // undirected -> both arcs
+        assertEquals(0, lg.source);
+        assertEquals("node", lg.weightModel);
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsMissingHeader() throws IOException {
+        JsonIO.readGraph(new StringReader("{\"edges\": []}"), "inline");
+    }
+}
@@ -0,0 +1,51 @@
+package graph;
+
+import graph.common.*;
+import graph.scc.IterativeTarjanSCC;
+import org.junit.Test;
+import java.util.Map;
+import static org.junit.Assert.*;
+
+public class MetricsTest {
+
+    @Test
+    public void testDurationKeepsSubMillisecondPart() {
+        Metrics m = new Metrics();
+        m.startTime = 1_000;
+        m.endTime = 251_000;
+        assertEquals(250_000, m.durationNanos());
+        assertEquals(0.25, m.durationMs(), 1e-9);
+    }
+
+    @Test
+    public void testPhasesAccumulateByName() {
+        Metrics m = new Metrics();
+        for (int i = 0; i < 3; i++) {
+            m.phase("build", () -> assertNotNull(new long[1024]));
+        }
+        Metrics.PhaseStats s = m.phaseStats("build");
+        assertEquals(3, s.count);
+        assertTrue(s.nanos > 0);
+        if (Metrics.ENABLED) assertTrue(s.allocatedBytes >= 3 * 8 * 1024);
+        assertNull(m.phaseStats("other"));
+    }
+
+    @Test
+    public void testTypedExport() {
+        CsrGraph g = CsrGraph.builder(3, true).addArc(0, 1, 1).addArc(1, 2, 1).addArc(2, 0, 1).build();
+        Metrics m = new Metrics();
+        new IterativeTarjanSCC().compute(g, m);
+        m.add("custom", 7);
+        assertEquals(Integer.valueOf(2), m.phase("extra", () -> {
+            m.add("custom", 1);
+            return 2;
+        }));
+
+        Map<String, Object> map = m.toMap();
+        assertEquals(3L, map.get("dfsEdges"));
+        assertEquals(8L, map.get("custom"));
+        assertTrue(map.get("time_ns") instanceof Long);
+        assertTrue(map.get("time_ms") instanceof Double);
+        assertTrue(((Map<?, ?>) map.get("phases")).containsKey("extra"));
+    }
+}
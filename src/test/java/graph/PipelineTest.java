@@ -0,0 +1,46 @@
+package graph;
+
+import org.junit.Test;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import static org.junit.Assert.*;
+
+public class PipelineTest {
+
+    @Test
+    public void testEveryJobPassesAllStagesAndFailuresAreDropped() throws Exception {
+        Set<String> stageOne = ConcurrentHashMap.newKeySet();
+        BatchPipeline p = new BatchPipeline(1)
+                .stage("a", 3, BatchPipeline.platformThreads("a"), job -> stageOne.add(job.path))
+                .stage("b", 2, BatchPipeline.platformThreads("b"), job -> {
+                    if (job.path.equals("bad")) throw new IllegalStateException("boom");
+                });
+
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < 50; i++) paths.add("job" + i);
+        paths.add("bad");
+        List<String> done = Collections.synchronizedList(new ArrayList<>());
+
+        int failed = p.run(paths, job -> done.add(job.path));
+
+        assertEquals(1, failed);
+        assertEquals(51, stageOne.size());
+        assertEquals(50, done.size());
+        assertFalse(done.contains("bad"));
+    }
+
+    @Test(timeout = 10_000)
+    public void testErrorInStageIsCountedAndDoesNotStall() throws Exception {
+        BatchPipeline p = new BatchPipeline(1)
+                .stage("a", 1, BatchPipeline.platformThreads("a"), job -> {
+                    if (job.path.startsWith("huge")) throw new OutOfMemoryError("Java heap space");
+                })
+                .stage("b", 1, BatchPipeline.platformThreads("b"), job -> { });
+
+        List<String> done = Collections.synchronizedList(new ArrayList<>());
+        int failed = p.run(List.of("huge1", "ok", "huge2"), job -> done.add(job.path));
+
+        assertEquals(2, failed);
+        assertEquals(List.of("ok"), done);
+    }
+}
@@ -0,0 +1,76 @@
+package graph;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import graph.common.*;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import static org.junit.Assert.*;
+
+public class ResultIOTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private final int[] offsets = {0, 3, 4, 5};
+    private final int[] members = {2, 0, 1, 4, 3};
+    private final int[] topo = {0, 2, 1};
+    private final long[] dist = {0, Long.MAX_VALUE, 1L << 40};
+    private final int[] path = {0, 2};
+
+    private Metrics metrics() {
+        Metrics m = new Metrics();
+        m.start();
+        m.dfsCalls = 5;
+        m.stop();
+        return m;
+    }
+
+    @Test
+    public void testStreamedJsonLayout() throws IOException {
+        String file = tmp.newFile("r.json").getPath();
+        Metrics m = metrics();
+
+        JsonResultWriter.write(file, offsets, members, topo, dist, path, 7, m, m, m, m);
+
+        JsonObject o = JsonParser.parseString(Files.readString(Path.of(file), StandardCharsets.UTF_8)).getAsJsonObject();
+        assertEquals(3, o.get("scc_count").getAsInt());
+        assertEquals("[[2,0,1],[4],[3]]", o.get("scc_list").toString());
+        assertEquals("[0,2,1]", o.get("topological_order").toString());
+        assertEquals(Long.MAX_VALUE, o.getAsJsonArray("shortest_distances").get(1).getAsLong());
+        assertEquals("[0,2]", o.get("critical_path").toString());
+        assertEquals(7, o.get("critical_length").getAsLong());
+        assertEquals(5, o.getAsJsonObject("metrics").getAsJsonObject("Topo")
+                .get("dfsCalls").getAsLong());
+    }
+
+    @Test
+    public void testBinaryRoundTrip() throws IOException {
+        String file = tmp.newFile("r" + BinaryResultIO.EXTENSION).getPath();
+        Metrics m = metrics();
+
+        BinaryResultIO.write(file, offsets, members, topo, dist, path, 7, m, m, m, m);
+        BinaryResultIO.Result r = BinaryResultIO.read(file);
+
+        assertEquals(3, r.sccCount());
+        assertArrayEquals(offsets, r.sccOffsets);
+        assertArrayEquals(members, r.sccMembers);
+        assertArrayEquals(topo, r.topo);
+        assertArrayEquals(dist, r.shortest);
+        assertArrayEquals(path, r.criticalPath);
+        assertEquals(7, r.criticalLength);
+        assertEquals(Long.valueOf(5), r.metrics.get("Longest.dfsCalls"));
+        assertEquals(Long.valueOf(m.durationNanos()), r.metrics.get("SCC.time_ns"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsForeignFile() throws IOException {
+        File f = tmp.newFile("x.res");
+        Files.write(f.toPath(), new byte[64]);
+        BinaryResultIO.read(f.getPath());
+    }
+}
@@ -51,4 +51,277 @@ public class SccTest {
 
         assertEquals(4, comps.size());
     }
+
+    @Test
+    public void testDeepChainDoesNotOverflowStack() {
+        int n = 200_000;
+        CsrGraph.Builder b = CsrGraph.builder(n, true);
+        for (int i = 0; i + 1 < n; i++) b.addEdge(i, i + 1, 1);
+        b.addEdge(n - 1, 0, 1);
+        CsrGraph g = b.build();
+
+        for (String engine : List.of("tarjan", "pearce")) {
+            Metrics m = new Metrics();
+            SccResult r = SccAlgorithm.byName(engine).compute(g, m);
+            assertEquals(1, r.count);
+            assertEquals(n, r.size(0));
+            assertEquals(n, m.dfsCalls);
+            assertEquals(n, m.dfsEdges);
+        }
+    }
+
+    @Test
+    public void testPearceMatchesTarjan() {
+        Random rnd = new Random(42);
+        CsrGraph.Builder b = CsrGraph.builder(300, true);
+        for (int i = 0; i < 600; i++) b.addEdge(rnd.nextInt(300), rnd.nextInt(300), 1);
+        CsrGraph g = b.build();
+
+        SccResult t = new IterativeTarjanSCC().compute(g, new Metrics());
+        SccResult p = new PearceSCC().compute(g, new Metrics());
+
+        assertEquals(t.count, p.count);
+        assertArrayEquals(t.compId, p.compId);
+        assertEquals(new TarjanSCC(g, new Metrics()).run(), t.components());
+    }
+
+    @Test
+    public void testParallelMatchesTarjan() throws java.io.IOException {
+        for (DataGenerator.Family f : DataGenerator.Family.values()) {
+            CsrGraph.Builder b = CsrGraph.builder(20_000, true);
+            DataGenerator.generate(f, 20_000, 50_000, 11, b::addArc);
+            CsrGraph g = b.build();
+
+            SccResult t = new IterativeTarjanSCC().compute(g, new Metrics());
+            Metrics m = new Metrics();
+            SccResult p = new ParallelSCC(0, java.util.concurrent.ForkJoinPool.commonPool()).compute(g, m);
+
+            assertEquals(f.name(), t.count, p.count);
+            int[] map = new int[p.count]; // the two numberings must be a bijection
+            Arrays.fill(map, -1);
+            for (int v = 0; v < g.n; v++) {
+                if (map[p.compId[v]] == -1) map[p.compId[v]] = t.compId[v];
+                assertEquals(f.name(), map[p.compId[v]], t.compId[v]);
+            }
+            assertEquals(f.name(), g.n, m.counter("trimmed") + m.counter("fwbwVertices") + m.counter("colorVertices"));
+        }
+    }
+
+    @Test
+    public void testCondensationReducesParallelEdges() {
+        // {0,1} and {2,3} are cycles; three arcs run between them, one to 4
+        CsrGraph g = CsrGraph.builder(5, true)
+                .addArc(0, 1, 1).addArc(1, 0, 1).addArc(2, 3, 1).addArc(3, 2, 1)
+                .addArc(0, 2, 5).addArc(1, 3, 2).addArc(1, 2, 7).addArc(3, 4, 3)
+                .build();
+        SccResult scc = new IterativeTarjanSCC().compute(g, new Metrics());
+        int a = scc.compId[0], b = scc.compId[2], c = scc.compId[4];
+
+        long[] expected = {2, 7, 14};
+        for (EdgeReduction r : EdgeReduction.values()) {
+            CsrGraph dag = new CondensationGraph(g, scc, r).dag.csr();
+            assertEquals(2, dag.edgeCount());
+            assertEquals(1, dag.outDegree(a));
+            assertEquals(b, dag.target(dag.begin(a)));
+            assertEquals(r.name(), expected[r.ordinal()], dag.weight(dag.begin(a)));
+            assertEquals(c, dag.target(dag.begin(b)));
+            assertEquals(3, dag.weight(dag.begin(b)));
+        }
+    }
+
+    @Test
+    public void testCondensationMatchesPairwiseReduction() throws java.io.IOException {
+        CsrGraph.Builder gb = CsrGraph.builder(30_000, true);
+        DataGenerator.generate(DataGenerator.Family.SMALL_SCCS, 30_000, 200_000, 5, gb::addArc);
+        CsrGraph g = gb.build();
+        SccResult scc = new IterativeTarjanSCC().compute(g, new Metrics());
+
+        Map<Long, Long> want = new HashMap<>();
+        for (int u = 0; u < g.n; u++) {
+            for (int e = g.begin(u); e < g.end(u); e++) {
+                int cu = scc.compId[u], cv = scc.compId[g.target(e)];
+                if (cu != cv) want.merge(LongHashSet.key(cu, cv), g.weight(e), Math::max);
+            }
+        }
+        CsrGraph dag = new CondensationGraph(g, scc, EdgeReduction.MAX).dag.csr();
+        assertEquals(want.size(), dag.edgeCount());
+        for (int cu = 0; cu < dag.n; cu++) {
+            for (int e = dag.begin(cu); e < dag.end(cu); e++) {
+                assertEquals(want.get(LongHashSet.key(cu, dag.target(e))), Long.valueOf(dag.weight(e)));
+            }
+        }
+    }
+
+    @Test
+    public void testDynamicMergeAndSplit() {
+        CsrGraph.Builder b = CsrGraph.builder(4, true);
+        b.addEdge(0, 1, 5);
+        b.addEdge(1, 2, 1);
+        b.addEdge(2, 3, 7);
+        DynamicScc d = new DynamicScc(b.build(), new Metrics());
+        assertEquals(4, d.componentCount());
+        int c3 = d.componentOf(3);
+
+        DynamicScc.Update up = d.apply(new DynamicScc.Batch().addEdge(2, 0, 2));
+        assertEquals(2, d.componentCount());
+        assertEquals(3, up.removed.length);
+        assertEquals(1, up.added.length);
+        assertArrayEquals(new int[]{0, 1, 2}, d.members(up.added[0]));
+        assertArrayEquals(new int[]{c3}, up.relinked);
+        assertEquals(c3, d.componentOf(3)); // untouched component keeps its id
+
+        up = d.apply(new DynamicScc.Batch().removeEdge(1, 2).addEdge(1, 2, 4));
+        assertFalse(up.sccChanged()); // the cycle is back before the batch ends
+        up = d.apply(new DynamicScc.Batch().removeEdge(2, 0));
+        assertEquals(4, d.componentCount());
+        assertEquals(3, up.added.length);
+
+        CondensationGraph cg = d.condensation();
+        for (Edge e : cg.dag.edges) assertTrue(e.u < e.v); // dense ids follow the topological keys
+        assertEquals(3, cg.dag.edges.size());
+        assertEquals(4, cg.dag.edges.get(1).w);
+    }
+
+    @Test
+    public void testDynamicSplitIntoMoreThanKeyGap() {
+        int n = (1 << 20) + 10; // more pieces than the initial key spacing
+        CsrGraph.Builder b = CsrGraph.builder(n + 1, true);
+        for (int v = 0; v < n; v++) b.addArc(v, (v + 1) % n, 1);
+        b.addArc(n, 0, 1); // a source below the cycle, so the pieces have a lower key to stay above
+        DynamicScc d = new DynamicScc(b.build(), new Metrics());
+        assertEquals(2, d.componentCount());
+
+        d.apply(new DynamicScc.Batch().removeEdge(n - 1, 0));
+        assertEquals(n + 1, d.componentCount());
+        assertTrue(d.key(d.componentOf(n)) < d.key(d.componentOf(0)));
+        for (int v = 0; v + 1 < n; v++) assertTrue(d.key(d.componentOf(v)) < d.key(d.componentOf(v + 1)));
+    }
+
+    @Test
+    public void testDynamicMatchesRecompute() {
+        Random rnd = new Random(21);
+        int n = 400;
+        List<int[]> arcs = new ArrayList<>();
+        for (int i = 0; i < 500; i++) arcs.add(new int[]{rnd.nextInt(n), rnd.nextInt(n), 1 + rnd.nextInt(9)});
+        Metrics m = new Metrics();
+        DynamicScc d = new DynamicScc(csrOf(n, arcs), m);
+
+        for (int round = 0; round < 60; round++) {
+            DynamicScc.Batch batch = new DynamicScc.Batch();
+            for (int k = 0; k < 1 + rnd.nextInt(12); k++) {
+                if (rnd.nextInt(3) > 0 || arcs.isEmpty()) {
+                    int[] a = {rnd.nextInt(n), rnd.nextInt(n), 1 + rnd.nextInt(9)};
+                    arcs.add(a);
+                    batch.addEdge(a[0], a[1], a[2]);
+                } else {
+                    int[] a = arcs.get(rnd.nextInt(arcs.size()));
+                    batch.removeEdge(a[0], a[1]);
+                    removeOne(arcs, a[0], a[1]);
+                }
+            }
+            d.apply(batch);
+
+            CsrGraph g = csrOf(n, arcs);
+            SccResult expected = new IterativeTarjanSCC().compute(g, new Metrics());
+            SccResult actual = d.scc();
+            assertEquals(expected.count, actual.count);
+            int[] map = new int[actual.count];
+            Arrays.fill(map, -1);
+            for (int v = 0; v < n; v++) {
+                if (map[actual.compId[v]] == -1) map[actual.compId[v]] = expected.compId[v];
+                assertEquals(map[actual.compId[v]], expected.compId[v]);
+            }
+
+            CondensationGraph cg = d.condensation();
+            Set<Long> pairs = new HashSet<>();
+            for (Edge e : cg.dag.edges) {
+                assertTrue(e.u < e.v);
+                pairs.add(LongHashSet.key(e.u, e.v));
+            }
+            Set<Long> want = new HashSet<>();
+            for (int[] a : arcs) {
+                int cu = actual.compId[a[0]], cv = actual.compId[a[1]];
+                if (cu != cv) want.add(LongHashSet.key(cu, cv));
+            }
+            assertEquals(want, pairs);
+        }
+        assertTrue(m.counter("merged") > 0 && m.counter("splitPieces") > 0);
+    }
+
+    @Test
+    public void testPartitionedMatchesTarjan() {
+        Random rnd = new Random(5);
+        int n = 3000;
+        CsrGraph.Builder b = CsrGraph.builder(n, true);
+        for (int v = 0; v < 600; v++) b.addArc(v, (v + 1) % 600, 1); // one cycle through every shard
+        for (int i = 0; i < 3000; i++) {
+            int u = 600 + rnd.nextInt(n - 600);
+            b.addArc(u, rnd.nextInt(5) == 0 ? rnd.nextInt(n) : Math.min(n - 1, u + rnd.nextInt(30)), 1 + rnd.nextInt(50));
+        }
+        CsrGraph g = b.build();
+        SccResult expected = new IterativeTarjanSCC().compute(g, new Metrics());
+
+        Metrics m = new Metrics();
+        PartitionedSCC.Result r = new PartitionedSCC(3, false).run(g, m, EdgeReduction.MIN, EdgeReduction.MAX);
+        assertEquals(expected.count, r.scc.count);
+        int[] map = new int[r.scc.count];
+        Arrays.fill(map, -1);
+        for (int v = 0; v < n; v++) {
+            if (map[r.scc.compId[v]] == -1) map[r.scc.compId[v]] = expected.compId[v];
+            assertEquals(map[r.scc.compId[v]], expected.compId[v]);
+        }
+        assertEquals(3, m.counter("workers"));
+        assertTrue(m.counter("crossShardComponents") > 0);
+
+        // same edges and MAX weights as the single-heap condensation, in a valid order
+        CsrGraph want = new CondensationGraph(g, expected, EdgeReduction.MAX).dag.csr();
+        CsrGraph got = r.condensation(EdgeReduction.MAX).dag.csr();
+        Map<Long, Long> edges = new HashMap<>();
+        for (int c = 0; c < got.n; c++) {
+            for (int e = got.begin(c); e < got.end(c); e++) edges.put(LongHashSet.key(map[c], map[got.target(e)]), got.weight(e));
+        }
+        assertEquals(want.edgeCount(), edges.size());
+        for (int c = 0; c < want.n; c++) {
+            for (int e = want.begin(c); e < want.end(c); e++) {
+                assertEquals(Long.valueOf(want.weight(e)), edges.get(LongHashSet.key(c, want.target(e))));
+            }
+        }
+        int[] rank = new int[r.scc.count];
+        for (int i = 0; i < r.topoOrder.length; i++) rank[r.topoOrder[i]] = i;
+        assertEquals(r.scc.count, r.topoOrder.length);
+        for (int c = 0; c < got.n; c++) {
+            for (int e = got.begin(c); e < got.end(c); e++) assertTrue(rank[c] < rank[got.target(e)]);
+        }
+    }
+
+    @Test
+    public void testPartitionedForkedWorkers() {
+        CsrGraph.Builder b = CsrGraph.builder(8, true);
+        b.addArc(0, 5, 1).addArc(5, 6, 1).addArc(6, 1, 1).addArc(1, 0, 1); // cycle across both shards
+        b.addArc(2, 3, 1).addArc(3, 2, 1).addArc(3, 7, 1);
+        SccResult scc = new PartitionedSCC(2, true).compute(b.build(), new Metrics());
+
+        assertEquals(4, scc.count);
+        assertEquals(scc.compId[0], scc.compId[6]);
+        assertEquals(scc.compId[1], scc.compId[5]);
+        assertEquals(scc.compId[2], scc.compId[3]);
+        assertNotEquals(scc.compId[0], scc.compId[2]);
+        assertNotEquals(scc.compId[4], scc.compId[7]);
+    }
+
+    private static CsrGraph csrOf(int n, List<int[]> arcs) {
+        CsrGraph.Builder b = CsrGraph.builder(n, true);
+        for (int[] a : arcs) b.addArc(a[0], a[1], a[2]);
+        return b.build();
+    }
+
+    /** Drops one arc u -> v (parallel copies may differ in weight, which the checks ignore). */
+    private static void removeOne(List<int[]> arcs, int u, int v) {
+        for (int i = arcs.size() - 1; i >= 0; i--) {
+            if (arcs.get(i)[0] == u && arcs.get(i)[1] == v) {
+                arcs.remove(i);
+                return;
+            }
+        }
+    }
 }
@@ -0,0 +1,160 @@
+package graph;
+
+import graph.common.*;
+import graph.dagsp.DAGLongestPath;
+import graph.schedule.*;
+import org.junit.Test;
+import java.util.*;
+import static org.junit.Assert.*;
+
+public class ScheduleTest {
+
+    private static CsrGraph diamond() {
+        // 0 -> 1 -> 3, 0 -> 2 -> 3
+        return CsrGraph.builder(4, true)
+                .addArc(0, 1, 2).addArc(0, 2, 5).addArc(1, 3, 1).addArc(2, 3, 1)
+                .build();
+    }
+
+    @Test
+    public void testEdgeModel() {
+        CpmSchedule s = new CpmSchedule(diamond(), WeightModel.EDGE, null, new Metrics());
+
+        assertEquals(6, s.makespan);
+        assertArrayEquals(new long[]{0, 2, 5, 6}, s.es);
+        assertArrayEquals(new long[]{0, 5, 5, 6}, s.ls);
+        assertEquals(3, s.totalFloat(1));
+        assertEquals(3, s.freeFloat[1]);
+        assertArrayEquals(new int[]{0, 2, 3}, s.criticalTasks());
+        assertArrayEquals(new int[]{0, 2, 3}, s.criticalPath());
+    }
+
+    @Test
+    public void testNodeModelIgnoresArcWeights() {
+        long[] d = {1, 4, 2, 3};
+        CpmSchedule s = new CpmSchedule(diamond(), WeightModel.NODE, d, new Metrics());
+
+        assertEquals(8, s.makespan);
+        assertArrayEquals(new long[]{0, 1, 1, 5}, s.es);
+        assertArrayEquals(new long[]{1, 5, 3, 8}, s.ef);
+        assertArrayEquals(new long[]{0, 1, 3, 5}, s.ls);
+        assertEquals(2, s.totalFloat(2));
+        assertArrayEquals(new int[]{0, 1, 3}, s.criticalPath());
+    }
+
+    @Test
+    public void testFloatMatchesPerTaskLongestPaths() throws java.io.IOException {
+        CsrGraph.Builder b = CsrGraph.builder(300, true);
+        DataGenerator.generate(DataGenerator.Family.LAYERED_DAG, 300, 1200, 9, b::addArc);
+        CsrGraph g = b.build();
+        CpmSchedule s = new CpmSchedule(g, WeightModel.EDGE, null, new Metrics());
+
+        // latest time of v = makespan - longest path from v to any sink
+        for (int v = 0; v < g.n; v++) {
+            long[] dist = new DAGLongestPath(g, new Metrics()).longestFrom(v).dist;
+            long tail = 0;
+            for (long x : dist) tail = Math.max(tail, x);
+            assertEquals(s.makespan - tail, s.ls[v]);
+        }
+    }
+
+    @Test
+    public void testListSchedule() throws java.io.IOException {
+        CsrGraph.Builder b = CsrGraph.builder(500, true);
+        DataGenerator.generate(DataGenerator.Family.UNIFORM_DAG, 500, 1500, 4, b::addArc);
+        CsrGraph g = b.build();
+        long[] d = new long[g.n];
+        Random rnd = new Random(3);
+        long total = 0;
+        for (int v = 0; v < g.n; v++) total += d[v] = 1 + rnd.nextInt(9);
+        CpmSchedule cpm = new CpmSchedule(g, WeightModel.NODE, d, new Metrics());
+
+        assertArrayEquals(cpm.es, new ListSchedule(cpm, g.n, new Metrics()).start); // unlimited crews
+        assertEquals(total, new ListSchedule(cpm, 1, new Metrics()).makespan);
+
+        ListSchedule ls = new ListSchedule(cpm, 3, new Metrics());
+        assertTrue(ls.makespan >= cpm.makespan && ls.makespan >= (total + 2) / 3);
+        for (int u = 0; u < g.n; u++) {
+            for (int e = g.begin(u); e < g.end(u); e++) assertTrue(ls.finish[u] <= ls.start[g.target(e)]);
+        }
+        long[][] events = new long[2 * g.n][];
+        for (int v = 0; v < g.n; v++) {
+            events[2 * v] = new long[]{ls.start[v], 1};
+            events[2 * v + 1] = new long[]{ls.finish[v], -1};
+        }
+        Arrays.sort(events, (x, y) -> x[0] != y[0] ? Long.compare(x[0], y[0]) : Long.compare(x[1], y[1]));
+        int busy = 0;
+        for (long[] ev : events) {
+            busy += ev[1];
+            assertTrue(busy <= 3);
+        }
+    }
+
+    @Test
+    public void testRiskWithoutSpreadIsTheCpmPlan() {
+        DurationModel fixed = new DurationModel(DurationModel.Shape.TRIANGULAR, 1, 1);
+        ScheduleRisk r = new ScheduleRisk(diamond(), new int[]{0, 1, 2, 3}, WeightModel.EDGE, null, fixed, 100, 1,
+                new Metrics());
+
+        assertEquals(6, r.plannedMakespan);
+        assertEquals(100, r.makespan.count());
+        assertEquals(6, r.p50(), 1e-9);
+        assertEquals(6, r.p90(), 1e-9);
+        assertArrayEquals(new double[]{1, 0, 1, 1}, r.criticality, 1e-12);
+        assertArrayEquals(new int[]{0, 2, 3}, r.mostCritical(3));
+
+        long[] d = {1, 4, 2, 3}; // node model: 0 -> 1 -> 3 is critical
+        r = new ScheduleRisk(diamond(), new int[]{0, 2, 1, 3}, WeightModel.NODE, d, fixed, 40, 1, new Metrics());
+        assertEquals(8, r.p90(), 1e-9);
+        assertArrayEquals(new double[]{1, 1, 0, 1}, r.criticality, 1e-12);
+    }
+
+    @Test
+    public void testRiskMatchesShapeMeansAndIsReproducible() {
+        // A chain is its own critical path: the makespan is a sum of draws with mean plan * E[factor].
+        CsrGraph.Builder b = CsrGraph.builder(41, true);
+        for (int v = 0; v < 40; v++) b.addArc(v, v + 1, 1 + v % 7);
+        CsrGraph chain = b.build();
+        int[] topo = new int[41];
+        for (int v = 0; v < 41; v++) topo[v] = v;
+        double lnMu = (Math.log(0.75) + Math.log(1.5)) / 2, lnSigma = Math.log(2) / (2 * 1.6448536);
+        double[] means = {(0.75 + 1 + 1.5) / 3, (0.75 + 4 + 1.5) / 6, Math.exp(lnMu + lnSigma * lnSigma / 2)};
+        for (DurationModel.Shape shape : DurationModel.Shape.values()) {
+            DurationModel dm = new DurationModel(shape, 0.75, 1.5);
+            ScheduleRisk r = new ScheduleRisk(chain, topo, WeightModel.EDGE, null, dm, 20000, 5, new Metrics());
+            assertEquals(shape.name(), means[shape.ordinal()] * r.plannedMakespan, r.makespan.mean(), 0.005 * r.plannedMakespan);
+            assertTrue(r.makespan.min() >= dm.minFactor() * r.plannedMakespan - 1e-9);
+            assertTrue(r.makespan.max() <= dm.maxFactor() * r.plannedMakespan + 1e-9);
+            assertTrue(r.p50() <= r.p90());
+            for (double c : r.criticality) assertEquals(1, c, 0);
+        }
+        DurationModel pert = new DurationModel(DurationModel.Shape.PERT, 0.75, 1.5);
+        ScheduleRisk a = new ScheduleRisk(chain, topo, WeightModel.EDGE, null, pert, 1000, 9, new Metrics());
+        ScheduleRisk c = new ScheduleRisk(chain, topo, WeightModel.EDGE, null, pert, 1000, 9, new Metrics());
+        for (int i = 0; i < a.makespan.bins(); i++) assertEquals(a.makespan.binCount(i), c.makespan.binCount(i));
+
+        // Two branches: 0 -> 1 -> 3 can take at most 6, 0 -> 2 -> 3 at least 7.5, so only the latter is ever critical.
+        CsrGraph fork = CsrGraph.builder(4, true)
+                .addArc(0, 1, 2).addArc(1, 3, 2).addArc(0, 2, 5).addArc(2, 3, 5).build();
+        ScheduleRisk f = new ScheduleRisk(fork, new int[]{0, 1, 2, 3}, WeightModel.EDGE, null, pert, 500, 2, new Metrics());
+        assertArrayEquals(new double[]{1, 0, 1, 1}, f.criticality, 0);
+        assertEquals(10, f.plannedMakespan);
+        assertTrue(f.makespan.quantile(0.05) > 7.5 && f.p90() < 15);
+    }
+
+    @Test
+    public void testHistogramQuantiles() {
+        Histogram h = new Histogram(0, 1000, 100), rest = new Histogram(0, 1000, 100);
+        for (int x = 0; x < 500; x++) h.add(x);
+        for (int x = 500; x < 1000; x++) rest.add(x);
+        h.merge(rest);
+
+        assertEquals(1000, h.count());
+        assertEquals(499.5, h.mean(), 1e-9);
+        assertEquals(500, h.quantile(0.5), 10);
+        assertEquals(900, h.quantile(0.9), 10);
+        assertEquals(0.25, h.cdf(249.5), 0.01);
+        assertEquals(999, h.quantile(1), 0);
+        assertEquals(1, h.cdf(2000), 0);
+    }
+}
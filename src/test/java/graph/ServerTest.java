@@ -0,0 +1,103 @@
+package graph;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import graph.scc.SccAlgorithm;
+import graph.server.*;
+import org.junit.Test;
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import static org.junit.Assert.*;
+
+public class ServerTest {
+
+    @Test
+    public void testCacheEvictsLeastRecentlyUsed() {
+        ResultCache c = new ResultCache(10);
+        c.put("a", new byte[4]);
+        c.put("b", new byte[4]);
+        assertNotNull(c.get("a", () -> { throw new AssertionError("a was evicted"); })); // b is now the eldest
+        c.put("c", new byte[4]);
+        assertEquals(2, c.size());
+        assertEquals(8, c.bytes());
+        assertEquals(1, c.evictions());
+        byte[] fresh = new byte[1];
+        assertSame(fresh, c.get("b", () -> fresh)); // evicted: recomputed
+        c.put("huge", new byte[11]);                 // larger than the bound: not kept
+        assertEquals(3, c.size());
+        c.put("b", new byte[2]);                     // replaced in place
+        assertEquals(3, c.size());
+        assertEquals(10, c.bytes());
+        assertEquals(1, c.evictions());
+        assertEquals(1, c.hits());
+    }
+
+    @Test
+    public void testQueriesMatchPipelineOutput() throws IOException {
+        GraphRegistry reg = GraphRegistry.load(new File("data"), SccAlgorithm.byName("tarjan"));
+        AnalysisServer server = new AnalysisServer(reg, new ResultCache(1 << 20), 0, 2);
+        server.start();
+        try {
+            String base = "http://localhost:" + server.port();
+            JsonObject expected;
+            try (Reader r = new FileReader("results/output_data/dataset_large_2.json")) {
+                expected = JsonParser.parseReader(r).getAsJsonObject();
+            }
+
+            JsonObject crit = get(base + "/critical?graph=dataset_large_2", 200);
+            assertEquals(expected.get("critical_length"), crit.get("critical_length"));
+            assertEquals(expected.get("critical_path"), crit.get("critical_path"));
+            assertEquals(expected.get("shortest_distances"), get(base + "/shortest?graph=dataset_large_2", 200).get("shortest_distances"));
+            assertEquals(expected.get("scc_count"), get(base + "/scc?graph=dataset_large_2", 200).get("scc_count"));
+            assertEquals(expected.get("topological_order"), get(base + "/topo?graph=dataset_large_2", 200).get("topological_order"));
+
+            GraphRegistry.Entry e = reg.get("dataset_large_2");
+            int n = e.graph.n(), src = e.source;
+            StringBuilder from = new StringBuilder(), to = new StringBuilder();
+            for (int v = 0; v < n; v++) {
+                from.append(v == 0 ? "" : ",").append(src);
+                to.append(v == 0 ? "" : ",").append(v);
+            }
+            JsonArray reach = get(base + "/reach?graph=dataset_large_2&from=" + from + "&to=" + to, 200)
+                    .getAsJsonArray("reachable");
+            JsonArray dist = expected.getAsJsonArray("shortest_distances");
+            for (int v = 0; v < n; v++) {
+                boolean reached = dist.get(e.scc.compId[v]).getAsLong() < Long.MAX_VALUE / 4;
+                assertEquals(reached, reach.get(v).getAsBoolean());
+            }
+            get(base + "/reach?graph=dataset_large_2&from=0,1&to=0", 400);
+
+            JsonObject toAll = get(base + "/shortest?graph=dataset_large_2&to=" + to, 200);
+            for (int v = 0; v < n; v++) {
+                assertEquals(dist.get(e.scc.compId[v]), toAll.getAsJsonArray("shortest_distances").get(v));
+            }
+            JsonArray chain = crit.getAsJsonArray("critical_path"); // components
+            int last = chain.get(chain.size() - 1).getAsInt();
+            JsonObject toEnd = get(base + "/critical?graph=dataset_large_2&to=" + e.scc.members[e.scc.offsets[last]], 200);
+            assertEquals(crit.get("critical_length"), toEnd.getAsJsonArray("critical_lengths").get(0));
+            assertEquals(crit.get("critical_path"), toEnd.get("critical_path"));
+
+            get(base + "/critical?graph=dataset_large_2", 200);
+            JsonObject stats = get(base + "/stats", 200);
+            assertEquals(1, stats.get("cache_hits").getAsInt());
+            assertEquals(4, stats.get("cache_misses").getAsInt());
+
+            get(base + "/critical?graph=nope", 404);
+            get(base + "/shortest?graph=dataset_large_2&source=-1", 400);
+            get(base + "/unknown", 404);
+        } finally {
+            server.stop();
+        }
+    }
+
+    private static JsonObject get(String url, int status) throws IOException {
+        HttpURLConnection c = (HttpURLConnection) new URL(url).openConnection();
+        assertEquals(url, status, c.getResponseCode());
+        try (InputStream in = status == 200 ? c.getInputStream() : c.getErrorStream()) {
+            return JsonParser.parseString(new String(in.readAllBytes(), StandardCharsets.UTF_8)).getAsJsonObject();
+        }
+    }
+}
@@ -34,4 +34,51 @@ public class TopoTest {
         Metrics m = new Metrics();
         new KahnTopologicalSort(g, m).sort(); // must throw exception
     }
+
+    @Test
+    public void testLevels() {
+        Graph g = new Graph(6, true);
+        g.addEdge(0, 2, 1);
+        g.addEdge(1, 2, 1);
+        g.addEdge(2, 3, 1);
+        g.addEdge(0, 3, 1);
+        g.addEdge(3, 5, 1);
+
+        TopoLevels lv = new KahnTopologicalSort(g, new Metrics()).levels();
+        assertEquals(4, lv.levelCount());
+        assertArrayEquals(new int[]{0, 3, 4, 5, 6}, lv.levelOffsets);
+        assertArrayEquals(new int[]{0, 1, 4, 2, 3, 5}, lv.order);
+        assertEquals(3, lv.maxWidth());
+    }
+
+    @Test
+    public void testWideLevelsAreLongestEdgeCounts() {
+        Random rnd = new Random(11);
+        int n = 60000;
+        CsrGraph.Builder b = CsrGraph.builder(n, true);
+        for (int i = 0; i < 200000; i++) {
+            int u = rnd.nextInt(n - 1);
+            b.addEdge(u, u + 1 + rnd.nextInt(Math.min(n - u - 1, 5000)), 1);
+        }
+        CsrGraph g = b.build();
+        Metrics m = new Metrics();
+        TopoLevels lv = new KahnTopologicalSort(g, m).levels();
+
+        int[] depth = new int[n]; // longest edge count from a source, by index order (u < v)
+        for (int u = 0; u < n; u++)
+            for (int e = g.begin(u); e < g.end(u); e++) depth[g.target(e)] = Math.max(depth[g.target(e)], depth[u] + 1);
+        assertArrayEquals(depth, lv.levelOf());
+        assertEquals(n, m.kahnPops);
+        for (int l = 0; l < lv.levelCount(); l++)
+            for (int i = lv.begin(l) + 1; i < lv.end(l); i++) assertTrue(lv.order[i - 1] < lv.order[i]);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testLevelsCycleDetection() {
+        Graph g = new Graph(3, true);
+        g.addEdge(0, 1, 1);
+        g.addEdge(1, 2, 1);
+        g.addEdge(2, 1, 1);
+        new KahnTopologicalSort(g, new Metrics()).levels();
+    }
 }